@@ -0,0 +1,209 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.management;
+
+/**
+ * The management interface for a thread pool, such as a {@link
+ * java.util.concurrent.ThreadPoolExecutor ThreadPoolExecutor}, a
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor
+ * ScheduledThreadPoolExecutor} or a {@link
+ * java.util.concurrent.ForkJoinPool ForkJoinPool}.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  A management interface is
+ * registered with the platform {@link javax.management.MBeanServer
+ * MBeanServer} when the pool is given a name by its {@code
+ * registerMXBean} method, which also starts the recording of the
+ * statistics reported here, and unregistered when the pool
+ * terminates.  The {@link javax.management.ObjectName ObjectName}
+ * that uniquely identifies the management interface within the
+ * {@code MBeanServer} takes the form:
+ * <pre>
+ *     java.util.concurrent:type=Executor,name=<i>pool name</i>
+ * </pre>
+ *
+ * <p> Queue wait times and execution times are recorded in
+ * histograms whose buckets have power-of-two bounds in nanoseconds.
+ * The bucket at index {@code i} counts the values less than {@link
+ * #getHistogramBucketBounds getHistogramBucketBounds()[i]} and not
+ * less than the bound of the preceding bucket.
+ *
+ * @since   9
+ */
+public interface ExecutorMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name representing this pool.
+     *
+     * @return  The name of this pool.
+     */
+    String getName();
+
+    /**
+     * Returns the fully qualified class name of this pool.
+     *
+     * @return  The class name of this pool.
+     */
+    String getExecutorClassName();
+
+    /**
+     * Returns the current number of threads in the pool.
+     *
+     * @return  The number of threads
+     */
+    int getPoolSize();
+
+    /**
+     * Returns an estimate of the number of threads that are running
+     * tasks.
+     *
+     * @return  An estimate of the number of active threads
+     */
+    int getActiveThreadCount();
+
+    /**
+     * Returns an estimate of the number of threads that are waiting
+     * for tasks.
+     *
+     * @return  An estimate of the number of idle threads
+     */
+    int getIdleThreadCount();
+
+    /**
+     * Returns an estimate of the number of tasks waiting to be run.
+     *
+     * @return  An estimate of the number of queued tasks
+     */
+    long getQueuedTaskCount();
+
+    /**
+     * Returns the number of tasks that have completed since the
+     * recording of statistics started.
+     *
+     * @return  The number of completed tasks
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * Returns the number of tasks that were rejected since the
+     * recording of statistics started.
+     *
+     * @return  The number of rejected tasks
+     */
+    long getRejectedTaskCount();
+
+    /**
+     * Returns an estimate of the number of tasks stolen from one
+     * thread's work queue by another, or zero if the pool does not
+     * steal work.
+     *
+     * @return  An estimate of the number of steals
+     */
+    long getStealCount();
+
+    /**
+     * Returns an estimate of the number of steals between threads
+     * placed on the same node of a topology-aware {@code
+     * ForkJoinPool}, or zero if the pool is not topology-aware.
+     *
+     * @return  An estimate of the number of steals within a node
+     */
+    long getLocalStealCount();
+
+    /**
+     * Returns an estimate of the number of steals between threads
+     * placed on different nodes of a topology-aware {@code
+     * ForkJoinPool}, or zero if the pool is not topology-aware.
+     *
+     * @return  An estimate of the number of steals across nodes
+     */
+    long getRemoteStealCount();
+
+    /**
+     * Returns the exclusive upper bounds, in nanoseconds, of the
+     * buckets of the queue wait time and execution time histograms.
+     *
+     * @return  The histogram bucket bounds
+     */
+    long[] getHistogramBucketBounds();
+
+    /**
+     * Returns the number of tasks whose time between submission and
+     * the start of their execution fell in each histogram bucket.
+     * For a {@code ThreadPoolExecutor}, only a random sample of the
+     * tasks passed to {@code execute} is counted.  For a {@code
+     * ScheduledThreadPoolExecutor}, every task is counted, and the
+     * time is measured from the time the task was scheduled to run.
+     * For a {@code ForkJoinPool}, only tasks submitted as {@code
+     * Runnable} or {@code Callable} are counted.
+     *
+     * @return  The queue wait time histogram
+     */
+    long[] getQueueWaitTimeHistogram();
+
+    /**
+     * Returns the number of tasks whose execution time fell in each
+     * histogram bucket.
+     *
+     * @return  The execution time histogram
+     */
+    long[] getExecutionTimeHistogram();
+
+    /**
+     * Returns the mean queue wait time in nanoseconds.
+     *
+     * @return  The mean queue wait time, or zero if none was recorded
+     */
+    long getMeanQueueWaitTime();
+
+    /**
+     * Returns the mean execution time in nanoseconds.
+     *
+     * @return  The mean execution time, or zero if none was recorded
+     */
+    long getMeanExecutionTime();
+
+    /**
+     * Returns an upper bound, in nanoseconds, of the given percentile
+     * of the recorded queue wait times.
+     *
+     * @param   percentile  The percentile, in the range {@code 0.0}
+     *          to {@code 100.0}
+     * @return  The largest value of the histogram bucket holding the
+     *          percentile, or zero if none was recorded
+     */
+    long getQueueWaitTimePercentile(double percentile);
+
+    /**
+     * Returns an upper bound, in nanoseconds, of the given percentile
+     * of the recorded execution times.
+     *
+     * @param   percentile  The percentile, in the range {@code 0.0}
+     *          to {@code 100.0}
+     * @return  The largest value of the histogram bucket holding the
+     *          percentile, or zero if none was recorded
+     */
+    long getExecutionTimePercentile(double percentile);
+}
@@ -0,0 +1,121 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.management;
+
+/**
+ * The management interface for an {@link
+ * java.util.concurrent.OffHeapConcurrentMap OffHeapConcurrentMap}, a
+ * map that keeps its entries in {@link java.nio.ByteBuffer#allocateDirect
+ * direct} or {@link java.nio.MappedByteBuffer mapped} buffers.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  A management interface is
+ * registered with the platform {@link javax.management.MBeanServer
+ * MBeanServer} when the map is given a name by {@link
+ * java.util.concurrent.OffHeapConcurrentMap#registerMXBean
+ * registerMXBean}, and unregistered when the map is closed.  The
+ * {@link javax.management.ObjectName ObjectName} that uniquely
+ * identifies the management interface within the {@code MBeanServer}
+ * takes the form:
+ * <pre>
+ *     java.util.concurrent:type=OffHeapMap,name=<i>map name</i>
+ * </pre>
+ *
+ * @since   9
+ */
+public interface OffHeapMapMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name representing this map.
+     *
+     * @return  The name of this map.
+     */
+    String getName();
+
+    /**
+     * Returns an estimate of the number of mappings in the map.
+     *
+     * @return  An estimate of the number of mappings in this map
+     */
+    long getSize();
+
+    /**
+     * Returns the number of independently locked segments of the map.
+     *
+     * @return  The number of segments
+     */
+    int getSegmentCount();
+
+    /**
+     * Returns an estimate of the total capacity, in bytes, of the
+     * buffers holding the entries and hash indexes of this map.
+     *
+     * @return  An estimate of the total capacity of this map in bytes
+     */
+    long getTotalCapacity();
+
+    /**
+     * Returns an estimate of the number of bytes occupied by entries,
+     * including entries that were removed or replaced but whose space
+     * has not yet been reclaimed.
+     *
+     * @return  An estimate of the memory used by entries in bytes
+     */
+    long getMemoryUsed();
+
+    /**
+     * Returns an estimate of the number of bytes occupied by removed
+     * or replaced entries whose space has not yet been reclaimed.
+     *
+     * @return  An estimate of the reclaimable memory in bytes
+     */
+    long getReclaimableMemory();
+
+    /**
+     * Returns an estimate of the fraction of {@link #getMemoryUsed
+     * used memory} that is {@link #getReclaimableMemory reclaimable},
+     * in the range {@code 0.0} to {@code 1.0}.
+     *
+     * @return  An estimate of the fragmentation of this map
+     */
+    double getFragmentation();
+
+    /**
+     * Returns the ratio of the occupied to the total slots of the
+     * hash indexes of this map, in the range {@code 0.0} to
+     * {@code 1.0}.
+     *
+     * @return  The occupancy of the hash indexes of this map
+     */
+    double getOccupancy();
+
+    /**
+     * Tests if the map is backed by memory-mapped files, so that its
+     * contents survive a restart.
+     *
+     * @return  {@code true} if the map is persistent
+     */
+    boolean isPersistent();
+}
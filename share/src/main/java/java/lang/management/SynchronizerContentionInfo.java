@@ -0,0 +1,223 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang.management;
+
+/**
+ * Contention statistics of the {@linkplain
+ * java.util.concurrent.locks.AbstractQueuedSynchronizer queued
+ * synchronizers} first contended at one site.  A site is identified by
+ * the class of the synchronizer and the first stack frame outside of
+ * {@code java.util.concurrent} of the first acquisition that had to
+ * queue for it while monitoring was enabled, so that, for example,
+ * all {@link java.util.concurrent.locks.ReentrantLock ReentrantLock}
+ * instances first contended by one line of application code share a
+ * single <tt>SynchronizerContentionInfo</tt>.  A synchronizer keeps
+ * its site once found, and its later contention is recorded there
+ * wherever it occurs.
+ *
+ * <p>Only acquisitions that had to queue are counted; an acquisition
+ * that succeeds without waiting is not contended and is not recorded.
+ * Statistics are collected only while {@linkplain
+ * ThreadMXBean#setSynchronizerContentionMonitoringEnabled synchronizer
+ * contention monitoring} is enabled, and are updated without
+ * synchronization, so the values of one object need not be mutually
+ * consistent.
+ *
+ * <h3><a name="MappedType">MXBean Mapping</a></h3>
+ * <tt>SynchronizerContentionInfo</tt> is mapped to a {@link
+ * javax.management.openmbean.CompositeData CompositeData} with
+ * attributes named after its getters.
+ *
+ * @see ThreadMXBean#getSynchronizerContentionInfo
+ * @since 9
+ */
+
+public class SynchronizerContentionInfo {
+
+    private final String className;
+    private final String acquireSite;
+    private final long   contendedCount;
+    private final long   totalWaitTime;
+    private final long   maxWaitTime;
+    private final long   parkCount;
+    private final double meanQueueLength;
+    private final int    maxQueueLength;
+    private final String lastOwnerName;
+
+    /**
+     * Constructs a <tt>SynchronizerContentionInfo</tt> object.
+     *
+     * @param className the fully qualified name of the class of the
+     *                  synchronizers.
+     * @param acquireSite the stack frame at which the synchronizers
+     *                    were first contended, or <tt>null</tt> if
+     *                    unknown.
+     * @param contendedCount the number of contended acquisitions.
+     * @param totalWaitTime the total time spent queued, in nanoseconds.
+     * @param maxWaitTime the longest time spent queued, in nanoseconds.
+     * @param parkCount the number of times queued threads parked.
+     * @param meanQueueLength the mean number of threads found queued
+     *                        ahead on entering the queue.
+     * @param maxQueueLength the largest number of threads found
+     *                       queued ahead on entering the queue.
+     * @param lastOwnerName the name of the thread that last owned a
+     *                      synchronizer when another had to queue,
+     *                      or <tt>null</tt> if unknown.
+     */
+    @java.beans.ConstructorProperties({"className", "acquireSite",
+            "contendedCount", "totalWaitTime", "maxWaitTime", "parkCount",
+            "meanQueueLength", "maxQueueLength", "lastOwnerName"})
+    public SynchronizerContentionInfo(String className,
+                                      String acquireSite,
+                                      long contendedCount,
+                                      long totalWaitTime,
+                                      long maxWaitTime,
+                                      long parkCount,
+                                      double meanQueueLength,
+                                      int maxQueueLength,
+                                      String lastOwnerName) {
+        if (className == null) {
+            throw new NullPointerException("Parameter className cannot be null");
+        }
+        this.className = className;
+        this.acquireSite = acquireSite;
+        this.contendedCount = contendedCount;
+        this.totalWaitTime = totalWaitTime;
+        this.maxWaitTime = maxWaitTime;
+        this.parkCount = parkCount;
+        this.meanQueueLength = meanQueueLength;
+        this.maxQueueLength = maxQueueLength;
+        this.lastOwnerName = lastOwnerName;
+    }
+
+    /**
+     * Returns the fully qualified name of the class of the synchronizers.
+     *
+     * @return the fully qualified name of the class of the synchronizers.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the string form of the {@link StackTraceElement} at
+     * which the synchronizers were first contended.  Returns
+     * <tt>null</tt> for synchronizers contended only from within
+     * {@code java.util.concurrent}, which are aggregated by class.
+     *
+     * @return the acquire site, or <tt>null</tt> if unknown.
+     */
+    public String getAcquireSite() {
+        return acquireSite;
+    }
+
+    /**
+     * Returns the number of acquisitions that had to queue.
+     *
+     * @return the number of contended acquisitions.
+     */
+    public long getContendedCount() {
+        return contendedCount;
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, that threads spent
+     * queued before acquiring, cancelling, or being interrupted.
+     *
+     * @return the total wait time in nanoseconds.
+     */
+    public long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * Returns the longest time, in nanoseconds, that a thread spent
+     * queued.
+     *
+     * @return the maximum wait time in nanoseconds.
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * Returns the number of times queued threads parked.  A value
+     * close to {@link #getContendedCount} means that most contended
+     * acquisitions blocked once; a smaller value means that most were
+     * satisfied while spinning.
+     *
+     * @return the number of parks.
+     */
+    public long getParkCount() {
+        return parkCount;
+    }
+
+    /**
+     * Returns the mean number of threads already queued when a
+     * thread entered the queue.
+     *
+     * @return the mean queue length at enqueue.
+     */
+    public double getMeanQueueLength() {
+        return meanQueueLength;
+    }
+
+    /**
+     * Returns the largest number of threads already queued when a
+     * thread entered the queue.
+     *
+     * @return the maximum queue length at enqueue.
+     */
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    /**
+     * Returns the name of the thread that most recently owned one of
+     * the synchronizers while another thread queued for it.  Only
+     * synchronizers that record an {@linkplain
+     * java.util.concurrent.locks.AbstractOwnableSynchronizer exclusive
+     * owner} report one.
+     *
+     * @return the name of the last owner, or <tt>null</tt> if unknown.
+     */
+    public String getLastOwnerName() {
+        return lastOwnerName;
+    }
+
+    /**
+     * Returns a string representation of this object.
+     *
+     * @return a string representation of this object.
+     */
+    public String toString() {
+        return className + " contended at " + acquireSite +
+            ": contended=" + contendedCount +
+            ", totalWait=" + totalWaitTime +
+            "ns, maxWait=" + maxWaitTime +
+            "ns, parks=" + parkCount +
+            ", maxQueue=" + maxQueueLength;
+    }
+}
@@ -96,6 +96,19 @@ import java.util.Map;
  * {@link #setThreadContentionMonitoringEnabled} method can be used to enable
  * thread contention monitoring.
  *
+ * <h3>Synchronizer Contention Monitoring</h3>
+ * A Java virtual machine may also support monitoring of contention for
+ * the {@linkplain java.util.concurrent.locks.AbstractQueuedSynchronizer
+ * queued synchronizers} underlying the locks and synchronizers of
+ * {@code java.util.concurrent}.  When synchronizer contention monitoring
+ * is enabled, each thread that has to queue to acquire a synchronizer
+ * records the time it waited, the number of times it parked, the number
+ * of threads queued ahead of it and the owner of the synchronizer.
+ * These statistics are aggregated per site at which the synchronizers
+ * were first contended and returned as {@link SynchronizerContentionInfo}
+ * objects by the {@link #getSynchronizerContentionInfo} method.
+ * Synchronizer contention monitoring is disabled by default.
+ *
  * <h3>Synchronization Information and Deadlock Detection</h3>
  * Some Java virtual machines may support monitoring of
  * {@linkplain #isObjectMonitorUsageSupported object monitor usage} and
@@ -385,6 +398,122 @@ public interface ThreadMXBean extends PlatformManagedObject {
      */
     public void setThreadContentionMonitoringEnabled(boolean enable);
 
+    /**
+     * Tests if the Java virtual machine supports synchronizer contention
+     * monitoring.
+     *
+     * @implSpec The default implementation returns <tt>false</tt>.
+     *
+     * @return
+     *   <tt>true</tt>
+     *     if the Java virtual machine supports synchronizer contention
+     *     monitoring;
+     *   <tt>false</tt> otherwise.
+     *
+     * @since 9
+     */
+    public default boolean isSynchronizerContentionMonitoringSupported() {
+        return false;
+    }
+
+    /**
+     * Tests if synchronizer contention monitoring is enabled.
+     *
+     * @implSpec The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @return <tt>true</tt> if synchronizer contention monitoring is
+     *         enabled; <tt>false</tt> otherwise.
+     *
+     * @throws java.lang.UnsupportedOperationException if the Java virtual
+     * machine does not support synchronizer contention monitoring.
+     *
+     * @see #isSynchronizerContentionMonitoringSupported
+     * @since 9
+     */
+    public default boolean isSynchronizerContentionMonitoringEnabled() {
+        throw new UnsupportedOperationException(
+            "Synchronizer contention monitoring is not supported");
+    }
+
+    /**
+     * Enables or disables synchronizer contention monitoring.
+     * Synchronizer contention monitoring is disabled by default.
+     * Statistics collected before are discarded when it is reenabled.
+     *
+     * <p>Synchronizers created while monitoring is enabled are
+     * attributed to the stack frame that created them, which is
+     * captured on construction.  Those created while it is disabled
+     * are attributed to their class only.
+     *
+     * @implSpec The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @param enable <tt>true</tt> to enable;
+     *               <tt>false</tt> to disable.
+     *
+     * @throws java.lang.UnsupportedOperationException if the Java
+     * virtual machine does not support synchronizer contention monitoring.
+     *
+     * @throws java.lang.SecurityException if a security manager
+     *         exists and the caller does not have
+     *         ManagementPermission("control").
+     *
+     * @see #isSynchronizerContentionMonitoringSupported
+     * @since 9
+     */
+    public default void setSynchronizerContentionMonitoringEnabled(boolean enable) {
+        throw new UnsupportedOperationException(
+            "Synchronizer contention monitoring is not supported");
+    }
+
+    /**
+     * Returns the contention statistics collected for each site at
+     * which threads first had to queue for synchronizers, starting
+     * with the site whose synchronizers were waited for longest.
+     *
+     * @implSpec The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @return an array of {@link SynchronizerContentionInfo}, one per
+     *         acquire site.
+     *
+     * @throws java.lang.UnsupportedOperationException if the Java
+     * virtual machine does not support synchronizer contention monitoring.
+     *
+     * @throws java.lang.SecurityException if a security manager
+     *         exists and the caller does not have
+     *         ManagementPermission("monitor").
+     *
+     * @see #setSynchronizerContentionMonitoringEnabled
+     * @since 9
+     */
+    public default SynchronizerContentionInfo[] getSynchronizerContentionInfo() {
+        throw new UnsupportedOperationException(
+            "Synchronizer contention monitoring is not supported");
+    }
+
+    /**
+     * Discards the synchronizer contention statistics collected so far.
+     *
+     * @implSpec The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @throws java.lang.UnsupportedOperationException if the Java
+     * virtual machine does not support synchronizer contention monitoring.
+     *
+     * @throws java.lang.SecurityException if a security manager
+     *         exists and the caller does not have
+     *         ManagementPermission("control").
+     *
+     * @see #getSynchronizerContentionInfo
+     * @since 9
+     */
+    public default void resetSynchronizerContentionInfo() {
+        throw new UnsupportedOperationException(
+            "Synchronizer contention monitoring is not supported");
+    }
+
     /**
      * Returns the total CPU time for the current thread in nanoseconds.
      * The returned value is of nanoseconds precision but
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2009, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.file;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the lines of a region of a file, used by {@link
+ * Files#lines(Path, Charset)} so that streams of lines may be processed
+ * in parallel.
+ *
+ * <p> The region is split at a line separator near its middle, found by
+ * reading a few bytes at that position, so each half covers whole lines.
+ * No bytes are decoded until a spliterator is traversed, at which point it
+ * reads and decodes only its own region, using positional reads on the
+ * shared {@code FileChannel} so that several spliterators may be traversed
+ * concurrently.
+ *
+ * <p> This only works for charsets in which the bytes for {@code '\n'} and
+ * {@code '\r'} never occur as part of the encoding of other characters.
+ */
+final class FileChannelLinesSpliterator implements Spliterator<String> {
+
+    /**
+     * The names of the charsets this spliterator may be used with.
+     */
+    static final Set<String> SUPPORTED_CHARSET_NAMES;
+    static {
+        SUPPORTED_CHARSET_NAMES = new HashSet<>();
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.UTF_8.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.ISO_8859_1.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.US_ASCII.name());
+    }
+
+    // number of bytes read at a time when looking for a line separator
+    private static final int SCAN_SIZE = 256;
+
+    // stop looking for a line separator after this many bytes; a line
+    // this long at the split point is left unsplit
+    private static final int MAX_SCAN = 1 << 20;
+
+    private final FileChannel fc;
+    private final Charset cs;
+    private long index;         // the position of the next byte to read
+    private final long fence;   // one past the last byte of the region
+
+    // Non-null once traversal has started, after which it cannot split
+    private BufferedReader reader;
+
+    FileChannelLinesSpliterator(FileChannel fc, Charset cs,
+                                long index, long fence) {
+        this.fc = fc;
+        this.cs = cs;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (action == null)
+            throw new NullPointerException();
+        String line = readLine();
+        if (line != null) {
+            action.accept(line);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        if (action == null)
+            throw new NullPointerException();
+        String line;
+        while ((line = readLine()) != null) {
+            action.accept(line);
+        }
+    }
+
+    private String readLine() {
+        if (reader == null)
+            reader = newBufferedReader();
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a reader decoding the bytes from index to fence, read from
+     * the channel at those positions.
+     */
+    private BufferedReader newBufferedReader() {
+        ReadableByteChannel rbc = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                long remaining = fence - index;
+                if (remaining <= 0)
+                    return -1;
+                int n;
+                if (remaining < dst.remaining()) {
+                    int limit = dst.limit();
+                    dst.limit(dst.position() + (int) remaining);
+                    n = fc.read(dst, index);
+                    dst.limit(limit);
+                } else {
+                    n = fc.read(dst, index);
+                }
+                if (n < 0) {
+                    // file truncated since the stream was created
+                    index = fence;
+                    return -1;
+                }
+                index += n;
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return fc.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                fc.close();
+            }
+        };
+        return new BufferedReader(Channels.newReader(rbc, cs.newDecoder(), -1));
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        if (reader != null)
+            return null;
+        final long lo = index, hi = fence;
+        long mid;
+        try {
+            mid = lineStartAfter((lo + hi) >>> 1, hi);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // The left spliterator ends with the line separator
+        return (mid > lo && mid < hi)
+               ? new FileChannelLinesSpliterator(fc, cs, lo, index = mid)
+               : null;
+    }
+
+    /**
+     * Returns the position just past the first line separator at or after
+     * pos and before hi, treating {@code "\r\n"} as one separator, or -1 if
+     * there is none within MAX_SCAN bytes.
+     */
+    private long lineStartAfter(long pos, long hi) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(SCAN_SIZE);
+        long end = Math.min(hi, pos + MAX_SCAN);
+        while (pos < end) {
+            b.clear();
+            if (end - pos < SCAN_SIZE)
+                b.limit((int) (end - pos));
+            int n = fc.read(b, pos);
+            if (n <= 0)
+                break;
+            for (int i = 0; i < n; i++) {
+                byte c = b.get(i);
+                if (c == '\n')
+                    return pos + i + 1;
+                if (c == '\r') {
+                    long next = pos + i + 1;
+                    if (next < hi) {
+                        byte d;
+                        if (i + 1 < n) {
+                            d = b.get(i + 1);
+                        } else {
+                            b.clear().limit(1);
+                            d = (fc.read(b, next) == 1) ? b.get(0) : 0;
+                        }
+                        if (d == '\n')
+                            next++;
+                    }
+                    return next;
+                }
+            }
+            pos += n;
+        }
+        return -1;
+    }
+
+    @Override
+    public long estimateSize() {
+        // The number of bytes is used as the estimate.  Dividing it by an
+        // average line length would only scale it by a constant.
+        return fence - index;
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return -1;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+}
@@ -3720,6 +3720,13 @@ public final class Files {
      * {@link Stream#close close} method is invoked after the stream operations
      * are completed.
      *
+     * @implNote
+     * For files in the default file system decoded with the {@code UTF-8},
+     * {@code US-ASCII} or {@code ISO-8859-1} charsets, the stream's source
+     * splits the file at line separators found near byte offsets, and each
+     * part is read and decoded independently, so that the lines of large
+     * files can be processed efficiently in parallel.  Other files are read
+     * sequentially by a {@link BufferedReader}.
      *
      * @param   path
      *          the path to the file
@@ -3741,6 +3748,16 @@ public final class Files {
      * @since   1.8
      */
     public static Stream<String> lines(Path path, Charset cs) throws IOException {
+        // Use the splitting spliterator if the file is in the default file
+        // system, and line separators can be found without decoding
+        if (path.getFileSystem() == FileSystems.getDefault() &&
+            FileChannelLinesSpliterator.SUPPORTED_CHARSET_NAMES.contains(cs.name())) {
+            FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+            Stream<String> lines = createFileChannelLinesStream(fc, cs);
+            if (lines != null)
+                return lines;
+            fc.close();
+        }
         BufferedReader br = Files.newBufferedReader(path, cs);
         try {
             return br.lines().onClose(asUncheckedRunnable(br));
@@ -3756,6 +3773,33 @@ public final class Files {
         }
     }
 
+    private static Stream<String> createFileChannelLinesStream(FileChannel fc,
+                                                               Charset cs)
+        throws IOException
+    {
+        try {
+            // FileChannel.size() may return zero for files with content,
+            // such as those in procfs, so those are left to the reader
+            long length = fc.size();
+            if (length > 0) {
+                Spliterator<String> s =
+                    new FileChannelLinesSpliterator(fc, cs, 0, length);
+                return StreamSupport.stream(s, false)
+                                    .onClose(asUncheckedRunnable(fc));
+            }
+        } catch (Error|RuntimeException|IOException e) {
+            try {
+                fc.close();
+            } catch (IOException ex) {
+                try {
+                    e.addSuppressed(ex);
+                } catch (Throwable ignore) {}
+            }
+            throw e;
+        }
+        return null;
+    }
+
     /**
      * Read all lines from a file as a {@code Stream}. Bytes from the file are
      * decoded into characters using the {@link StandardCharsets#UTF_8 UTF-8}
@@ -1457,4 +1457,106 @@ public class ArrayList<E> extends AbstractList<E>
         }
         modCount++;
     }
+
+    /**
+     * Performs the given action for each element of this list, in
+     * parallel, using the {@link java.util.concurrent.ForkJoinPool#commonPool()
+     * common pool}.  Unlike {@link #forEach}, the action may be
+     * performed at the same time in different threads and in no
+     * particular order, so it must be safe to apply concurrently.
+     * Lists too small to benefit are processed in the calling thread.
+     *
+     * @param action the action to be performed for each element
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the list is
+     *         structurally modified while the action is performed
+     * @since 9
+     */
+    public void parallelForEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        ParallelBulkHelpers.forEach
+            (new ArrayListSpliterator<>(this, 0, -1, 0), action);
+    }
+
+    /**
+     * Replaces each element of this list with the result of applying
+     * the operator to that element, in parallel, as by {@link
+     * #parallelForEach}.  The operator may be applied at the same
+     * time in different threads and in no particular order.
+     *
+     * @param operator the operator to apply to each element
+     * @throws NullPointerException if the specified operator is null
+     * @throws ConcurrentModificationException if the list is
+     *         structurally modified while the operator is applied
+     * @since 9
+     */
+    @SuppressWarnings("unchecked")
+    public void parallelReplaceAll(UnaryOperator<E> operator) {
+        Objects.requireNonNull(operator);
+        final int expectedModCount = modCount;
+        final Object[] es = elementData;
+        ParallelBulkHelpers.forEachIndex(size, 1, i -> {
+            es[i] = operator.apply((E) es[i]);
+        });
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    /**
+     * Removes all of the elements of this list that satisfy the
+     * given predicate.  The predicate is tested in parallel, as by
+     * {@link #parallelForEach}, at the same time in different threads
+     * and in no particular order; surviving elements are then moved
+     * into place in the calling thread, preserving their order.  If
+     * the predicate throws an exception the list is left unmodified.
+     *
+     * @param filter a predicate which returns {@code true} for
+     *        elements to be removed
+     * @return {@code true} if any elements were removed
+     * @throws NullPointerException if the specified filter is null
+     * @throws ConcurrentModificationException if the list is
+     *         structurally modified while the predicate is tested
+     * @since 9
+     */
+    @SuppressWarnings("unchecked")
+    public boolean parallelRemoveIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        final int expectedModCount = modCount;
+        final int size = this.size;
+        final Object[] es = elementData;
+        // one word of marks per task step, so no two tasks share a word
+        final long[] removeSet = new long[(size + 63) >>> 6];
+        ParallelBulkHelpers.forEachIndex(removeSet.length, 64, w -> {
+            long marks = 0L;
+            for (int i = w << 6, end = Math.min(i + 64, size); i < end; i++) {
+                if (filter.test((E) es[i]))
+                    marks |= 1L << i;
+            }
+            removeSet[w] = marks;
+        });
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+
+        int removeCount = 0;
+        for (long marks : removeSet)
+            removeCount += Long.bitCount(marks);
+        final boolean anyToRemove = removeCount > 0;
+        if (anyToRemove) {
+            final int newSize = size - removeCount;
+            for (int i=0, j=0; j < newSize; i++) {
+                if ((removeSet[i >>> 6] & (1L << i)) == 0L)
+                    es[j++] = es[i];
+            }
+            for (int k=newSize; k < size; k++) {
+                es[k] = null;  // Let gc do its work
+            }
+            this.size = newSize;
+            modCount++;
+        }
+
+        return anyToRemove;
+    }
 }
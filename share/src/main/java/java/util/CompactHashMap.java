@@ -0,0 +1,1070 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Hash table based implementation of the {@code Map} interface that
+ * allocates no object per mapping.  Keys and values are held in
+ * alternate elements of one array, and the hashes of keys in a
+ * parallel array, together forming an open-addressing table probed
+ * linearly using <i>Robin Hood</i> hashing: an insertion
+ * displaces any mapping that is nearer to its home slot than the
+ * mapping being inserted, which keeps the variance of probe lengths
+ * low, lets unsuccessful lookups stop early, and allows removals to
+ * shift later mappings back rather than leave tombstones.  This class
+ * provides all of the optional map operations, and permits null
+ * values and the null key.
+ *
+ * <p>Each slot of the table takes two references and an {@code int},
+ * so at the default load factor (.75) a map with compressed
+ * references takes between 16 and 32 bytes per mapping, about half
+ * the footprint of a {@link HashMap}, whose every mapping is a
+ * separate object.  Mappings are also adjacent in memory, so lookups
+ * and traversals touch fewer cache lines.  In exchange, this class
+ * does not protect against keys with colliding hash codes as {@code
+ * HashMap} does by using trees, so it is best suited to keys whose
+ * {@code hashCode} is well distributed.
+ *
+ * <p>Like {@code HashMap}, this class makes no guarantees as to the
+ * iteration order of the map, and is not synchronized.  The iterators
+ * of its collection views are <i>fail-fast</i>, and support {@code
+ * remove}; spliterators split the table by ranges of slots.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @since 9
+ * @see HashMap
+ */
+public class CompactHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, java.io.Serializable {
+
+    private static final long serialVersionUID = 4237218953021561843L;
+
+    /*
+     * Implementation notes.
+     *
+     * A slot is free if its key is null; the null key is stored as
+     * NULL_KEY.  The probe distance of a mapping in slot i is
+     * (i - (hash & mask)) & mask.  Robin Hood insertion keeps, along
+     * any probe sequence, the invariant that a mapping's distance is
+     * at most one greater than that of the mapping before it, so a
+     * lookup may stop at a free slot or at a mapping whose distance
+     * is less than the number of slots probed.
+     *
+     * Removal shifts each following mapping of the cluster back by
+     * one slot, stopping at a free slot or at a mapping already in
+     * its home slot.  Shifts move mappings towards lower (cyclic)
+     * indices, so iterators traverse slots downwards, starting just
+     * below a free slot: every mapping shifted by removing the
+     * current one then comes from a slot already traversed.
+     */
+
+    /**
+     * The default initial capacity.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum number of slots, each taking two table elements.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * Value representing null keys inside tables.
+     */
+    static final Object NULL_KEY = new Object();
+
+    /**
+     * The table, allocated on first use, holding the key of slot i at
+     * index 2i and its value at 2i+1, so that a value shares the
+     * cache line of its key.  The number of slots is always a power
+     * of two.  A null key marks a free slot.
+     */
+    transient Object[] table;
+
+    /**
+     * The hashes of the keys, one per slot.
+     */
+    transient int[] hashes;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The number of mappings at which to resize the table, or the
+     * initial table length if the table is not yet allocated.
+     */
+    int threshold;
+
+    /**
+     * The load factor of the table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Holds cached entrySet().
+     */
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not between zero and one, exclusive
+     */
+    public CompactHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.threshold = tableSizeFor(initialCapacity, loadFactor);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public CompactHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.75).
+     */
+    public CompactHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a map with the same mappings as the specified map,
+     * and the default load factor (0.75).
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null
+     */
+    public CompactHashMap(Map<? extends K, ? extends V> m) {
+        this(m.size(), DEFAULT_LOAD_FACTOR);
+        putAll(m);
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Returns the number of slots holding the given number of
+     * mappings at the given load factor.
+     */
+    static int tableSizeFor(int capacity, float loadFactor) {
+        return Math.min(MAXIMUM_CAPACITY,
+                        LongHashSet.tableSizeFor(capacity, loadFactor));
+    }
+
+    static Object maskNull(Object key) {
+        return (key == null) ? NULL_KEY : key;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> K unmaskNull(Object key) {
+        return (key == NULL_KEY) ? null : (K)key;
+    }
+
+    /**
+     * Spreads the bits of a (masked) key's hash code, so that tables
+     * indexed by the low bits of the hash handle hash codes differing
+     * only in high bits.
+     */
+    static int hash(Object k) {
+        int h = k.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* ---------------- Table operations -------------- */
+
+    /**
+     * Returns the slot holding the given masked key, or -1 if absent.
+     */
+    final int indexOf(Object k) {
+        Object[] tab; Object e;
+        if ((tab = table) != null) {
+            int[] hs = hashes;
+            int h = hash(k), m = hs.length - 1;
+            for (int i = h & m, d = 0; (e = tab[i << 1]) != null;
+                 i = (i + 1) & m, ++d) {
+                if (e == k)
+                    return i;
+                int eh = hs[i];
+                if (eh == h && k.equals(e))
+                    return i;
+                if (((i - (eh & m)) & m) < d)
+                    break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts a mapping known to be absent, displacing mappings
+     * nearer their home slots.  The table must have a free slot.
+     */
+    final void insert(Object k, Object v, int h) {
+        Object[] tab = table;
+        int[] hs = hashes;
+        int m = hs.length - 1;
+        for (int i = h & m, d = 0; ; i = (i + 1) & m, ++d) {
+            Object e;
+            if ((e = tab[i << 1]) == null) {
+                tab[i << 1] = k;
+                tab[(i << 1) + 1] = v;
+                hs[i] = h;
+                return;
+            }
+            int ed = (i - (hs[i] & m)) & m;
+            if (ed < d) {
+                Object ev = tab[(i << 1) + 1];
+                int eh = hs[i];
+                tab[i << 1] = k;
+                tab[(i << 1) + 1] = v;
+                hs[i] = h;
+                k = e;
+                v = ev;
+                h = eh;
+                d = ed;
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping in slot i, shifting back the following
+     * mappings of its cluster that are not in their home slots.
+     */
+    final void deleteAt(int i) {
+        Object[] tab = table;
+        int[] hs = hashes;
+        int m = hs.length - 1;
+        for (int j = (i + 1) & m;
+             tab[j << 1] != null && ((j - (hs[j] & m)) & m) != 0;
+             i = j, j = (j + 1) & m) {
+            tab[i << 1] = tab[j << 1];
+            tab[(i << 1) + 1] = tab[(j << 1) + 1];
+            hs[i] = hs[j];
+        }
+        tab[i << 1] = null;
+        tab[(i << 1) + 1] = null;
+        hs[i] = 0;
+        --size;
+        ++modCount;
+    }
+
+    /**
+     * Initializes or doubles the table.
+     */
+    final void resize() {
+        Object[] oldTab = table;
+        int[] oldHashes = hashes;
+        int oldCap = (oldHashes == null) ? 0 : oldHashes.length;
+        int newCap;
+        if (oldCap == 0)
+            newCap = threshold;
+        else if (oldCap >= MAXIMUM_CAPACITY) {
+            if (size >= MAXIMUM_CAPACITY - 1)
+                throw new IllegalStateException("Map too large");
+            threshold = MAXIMUM_CAPACITY - 1;
+            return;
+        }
+        else
+            newCap = oldCap << 1;
+        threshold = (newCap >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY - 1 :
+            (int)(newCap * loadFactor);
+        table = new Object[newCap << 1];
+        hashes = new int[newCap];
+        for (int j = 0; j < oldCap; ++j) {
+            Object k;
+            if ((k = oldTab[j << 1]) != null)
+                insert(k, oldTab[(j << 1) + 1], oldHashes[j]);
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @see #put(Object, Object)
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int i = indexOf(maskNull(key));
+        return (i < 0) ? null : (V)table[(i << 1) + 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int i = indexOf(maskNull(key));
+        return (i < 0) ? defaultValue : (V)table[(i << 1) + 1];
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param   key   The key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the specified
+     * key.
+     */
+    public boolean containsKey(Object key) {
+        return indexOf(maskNull(key)) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(Object value) {
+        Object[] tab;
+        if ((tab = table) != null && size > 0) {
+            for (int i = 0; i < tab.length >>> 1; ++i)
+                if (tab[i << 1] != null && Objects.equals(tab[(i << 1) + 1], value))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}.
+     *         (A {@code null} return can also indicate that the map
+     *         previously associated {@code null} with {@code key}.)
+     */
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    final V putVal(K key, V value, boolean onlyIfAbsent) {
+        Object k = maskNull(key);
+        int i;
+        if ((i = indexOf(k)) >= 0) {
+            V old = (V)table[(i << 1) + 1];
+            if (!onlyIfAbsent || old == null)
+                table[(i << 1) + 1] = value;
+            return old;
+        }
+        if (table == null || size >= threshold)
+            resize();
+        insert(k, value, hash(k));
+        ++size;
+        ++modCount;
+        return null;
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map is null
+     */
+    public void putAll(Map<? extends K, ? extends V> m) {
+        int n = m.size();
+        if (n > threshold && n > size) {
+            int cap = tableSizeFor(n, loadFactor);
+            if (table == null)
+                threshold = Math.max(threshold, cap);
+            else {
+                while (hashes.length < cap && hashes.length < MAXIMUM_CAPACITY)
+                    resize();
+            }
+        }
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+            putVal(e.getKey(), e.getValue(), false);
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}.
+     *         (A {@code null} return can also indicate that the map
+     *         previously associated {@code null} with {@code key}.)
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int i;
+        if ((i = indexOf(maskNull(key))) < 0)
+            return null;
+        V old = (V)table[(i << 1) + 1];
+        deleteAt(i);
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        int i;
+        if ((i = indexOf(maskNull(key))) < 0 ||
+            !Objects.equals(table[(i << 1) + 1], value))
+            return false;
+        deleteAt(i);
+        return true;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    public void clear() {
+        ++modCount;
+        if (table != null && size > 0) {
+            Arrays.fill(table, null);
+            Arrays.fill(hashes, 0);
+        }
+        size = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        Object[] tab;
+        if ((tab = table) != null && size > 0) {
+            int mc = modCount;
+            for (int i = 0; i < tab.length >>> 1 && modCount == mc; ++i) {
+                Object k;
+                if ((k = tab[i << 1]) != null)
+                    action.accept(unmaskNull(k), (V)tab[(i << 1) + 1]);
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        Object[] tab;
+        if ((tab = table) != null && size > 0) {
+            int mc = modCount;
+            for (int i = 0; i < tab.length >>> 1 && modCount == mc; ++i) {
+                Object k;
+                if ((k = tab[i << 1]) != null)
+                    tab[(i << 1) + 1] = function.apply(unmaskNull(k), (V)tab[(i << 1) + 1]);
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a shallow copy of this {@code CompactHashMap} instance:
+     * the keys and values themselves are not cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object clone() {
+        CompactHashMap<K,V> result;
+        try {
+            result = (CompactHashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        if (table != null) {
+            result.table = table.clone();
+            result.hashes = hashes.clone();
+        }
+        result.modCount = 0;
+        result.entrySet = null;
+        result.keySet = null;
+        result.values = null;
+        return result;
+    }
+
+    /* ---------------- Iterators -------------- */
+
+    abstract class HashIterator {
+        int next = -1;          // slot of next mapping to return, or -1
+        int index;              // next slot to examine
+        int remaining;          // number of slots left to examine
+        int lastReturned = -1;  // slot of last mapping returned, or -1
+        int expectedModCount;   // for fast-fail
+
+        HashIterator() {
+            expectedModCount = modCount;
+            Object[] tab = table;
+            if (tab != null && size > 0) {
+                int m = (tab.length >>> 1) - 1, z = 0;
+                while (tab[z << 1] != null)   // find a free slot
+                    ++z;
+                index = (z - 1) & m;
+                remaining = tab.length >>> 1;
+                advance();
+            }
+        }
+
+        final void advance() {
+            Object[] tab = table;
+            int m = (tab.length >>> 1) - 1;
+            while (remaining > 0) {
+                int i = index;
+                index = (i - 1) & m;
+                --remaining;
+                if (tab[i << 1] != null) {
+                    next = i;
+                    return;
+                }
+            }
+            next = -1;
+        }
+
+        public final boolean hasNext() {
+            return next >= 0;
+        }
+
+        final int nextIndex() {
+            int i;
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if ((i = next) < 0)
+                throw new NoSuchElementException();
+            lastReturned = i;
+            advance();
+            return i;
+        }
+
+        public final void remove() {
+            int i;
+            if ((i = lastReturned) < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            lastReturned = -1;
+            deleteAt(i);
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends HashIterator implements Iterator<K> {
+        public final K next() { return unmaskNull(table[nextIndex() << 1]); }
+    }
+
+    final class ValueIterator extends HashIterator implements Iterator<V> {
+        @SuppressWarnings("unchecked")
+        public final V next() { return (V)table[(nextIndex() << 1) + 1]; }
+    }
+
+    final class EntryIterator extends HashIterator
+        implements Iterator<Map.Entry<K,V>> {
+        public final Map.Entry<K,V> next() {
+            int i = nextIndex();
+            return new Entry(table[i << 1], table[(i << 1) + 1]);
+        }
+    }
+
+    /**
+     * A mapping returned by entry iterators and spliterators.  Since
+     * mappings move within the table, setValue writes through by key.
+     */
+    final class Entry implements Map.Entry<K,V> {
+        final K key;
+        V value;
+
+        @SuppressWarnings("unchecked")
+        Entry(Object key, Object value) {
+            this.key = unmaskNull(key);
+            this.value = (V)value;
+        }
+
+        public final K getKey()        { return key; }
+        public final V getValue()      { return value; }
+        public final String toString() { return key + "=" + value; }
+
+        public final int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        public final V setValue(V newValue) {
+            V oldValue = value;
+            int i;
+            if ((i = indexOf(maskNull(key))) < 0)
+                throw new IllegalStateException("Entry was removed");
+            table[(i << 1) + 1] = value = newValue;
+            return oldValue;
+        }
+
+        public final boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+                if (Objects.equals(key, e.getKey()) &&
+                    Objects.equals(value, e.getValue()))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  The set supports element
+     * removal, but not the {@code add} or {@code addAll} operations.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    public Set<K> keySet() {
+        Set<K> ks;
+        return (ks = keySet) == null ? (keySet = new KeySet()) : ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<K> iterator()     { return new KeyIterator(); }
+        public final boolean contains(Object o) { return containsKey(o); }
+        public final boolean remove(Object key) {
+            int i;
+            if ((i = indexOf(maskNull(key))) < 0)
+                return false;
+            deleteAt(i);
+            return true;
+        }
+        public final Spliterator<K> spliterator() {
+            return new KeySpliterator<>(CompactHashMap.this, 0, -1, 0, 0);
+        }
+        public final void forEach(Consumer<? super K> action) {
+            Objects.requireNonNull(action);
+            CompactHashMap.this.forEach((k, v) -> action.accept(k));
+        }
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in
+     * this map.  The collection is backed by the map, so changes to
+     * the map are reflected in the collection, and vice-versa.  The
+     * collection supports element removal, but not the {@code add} or
+     * {@code addAll} operations.
+     *
+     * @return a view of the values contained in this map
+     */
+    public Collection<V> values() {
+        Collection<V> vs;
+        return (vs = values) == null ? (values = new Values()) : vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<V> iterator()     { return new ValueIterator(); }
+        public final boolean contains(Object o) { return containsValue(o); }
+        public final Spliterator<V> spliterator() {
+            return new ValueSpliterator<>(CompactHashMap.this, 0, -1, 0, 0);
+        }
+        public final void forEach(Consumer<? super V> action) {
+            Objects.requireNonNull(action);
+            CompactHashMap.this.forEach((k, v) -> action.accept(v));
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this
+     * map.  The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  The set supports element
+     * removal, but not the {@code add} or {@code addAll} operations.
+     * Entries are snapshots of mappings; their {@code setValue}
+     * method writes through to the map.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            int i = indexOf(maskNull(e.getKey()));
+            return i >= 0 && Objects.equals(table[(i << 1) + 1], e.getValue());
+        }
+        public final boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                return CompactHashMap.this.remove(e.getKey(), e.getValue());
+            }
+            return false;
+        }
+        public final Spliterator<Map.Entry<K,V>> spliterator() {
+            return new EntrySpliterator<>(CompactHashMap.this, 0, -1, 0, 0);
+        }
+        public final void forEach(Consumer<? super Map.Entry<K,V>> action) {
+            Objects.requireNonNull(action);
+            Object[] tab;
+            if ((tab = table) != null && size > 0) {
+                int mc = modCount;
+                for (int i = 0; i < tab.length >>> 1 && modCount == mc; ++i) {
+                    Object k;
+                    if ((k = tab[i << 1]) != null)
+                        action.accept(new Entry(k, tab[(i << 1) + 1]));
+                }
+                if (modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /* ---------------- Spliterators -------------- */
+
+    /**
+     * Base of spliterators over ranges of slots, as in
+     * HashMap.HashMapSpliterator.
+     */
+    static class CompactMapSpliterator<K,V> {
+        final CompactHashMap<K,V> map;
+        int index;                  // current index, modified on advance/split
+        int fence;                  // one past last index
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        CompactMapSpliterator(CompactHashMap<K,V> m, int origin,
+                              int fence, int est,
+                              int expectedModCount) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                CompactHashMap<K,V> m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                Object[] tab = m.table;
+                hi = fence = (tab == null) ? 0 : tab.length >>> 1;
+            }
+            return hi;
+        }
+
+        public final long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        /**
+         * Returns the slot of the next mapping in range, advancing
+         * past it, or -1 if there is none.
+         */
+        final int nextSlot() {
+            int hi = getFence();
+            Object[] tab = map.table;
+            while (tab != null && index < hi) {
+                int i = index++;
+                if (tab[i << 1] != null)
+                    return i;
+            }
+            return -1;
+        }
+    }
+
+    static final class KeySpliterator<K,V>
+        extends CompactMapSpliterator<K,V>
+        implements Spliterator<K> {
+        KeySpliterator(CompactHashMap<K,V> m, int origin, int fence, int est,
+                       int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        public KeySpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new KeySpliterator<>(map, lo, index = mid, est >>>= 1,
+                                     expectedModCount);
+        }
+
+        public void forEachRemaining(Consumer<? super K> action) {
+            if (action == null)
+                throw new NullPointerException();
+            CompactHashMap<K,V> m = map;
+            int hi = getFence(), i = index;
+            Object[] tab = m.table;
+            index = hi;
+            if (tab != null && hi <= tab.length >>> 1) {
+                for (; i < hi; ++i) {
+                    Object k;
+                    if ((k = tab[i << 1]) != null)
+                        action.accept(CompactHashMap.<K>unmaskNull(k));
+                }
+            }
+            if (m.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public boolean tryAdvance(Consumer<? super K> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int i;
+            if ((i = nextSlot()) < 0)
+                return false;
+            action.accept(CompactHashMap.<K>unmaskNull(map.table[i << 1]));
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            return true;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT;
+        }
+    }
+
+    static final class ValueSpliterator<K,V>
+        extends CompactMapSpliterator<K,V>
+        implements Spliterator<V> {
+        ValueSpliterator(CompactHashMap<K,V> m, int origin, int fence, int est,
+                         int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        public ValueSpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new ValueSpliterator<>(map, lo, index = mid, est >>>= 1,
+                                       expectedModCount);
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            CompactHashMap<K,V> m = map;
+            int hi = getFence(), i = index;
+            Object[] tab = m.table;
+            index = hi;
+            if (tab != null && hi <= tab.length >>> 1) {
+                for (; i < hi; ++i) {
+                    if (tab[i << 1] != null)
+                        action.accept((V)tab[(i << 1) + 1]);
+                }
+            }
+            if (m.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int i;
+            if ((i = nextSlot()) < 0)
+                return false;
+            action.accept((V)map.table[(i << 1) + 1]);
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            return true;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0);
+        }
+    }
+
+    static final class EntrySpliterator<K,V>
+        extends CompactMapSpliterator<K,V>
+        implements Spliterator<Map.Entry<K,V>> {
+        EntrySpliterator(CompactHashMap<K,V> m, int origin, int fence, int est,
+                         int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        public EntrySpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new EntrySpliterator<>(map, lo, index = mid, est >>>= 1,
+                                       expectedModCount);
+        }
+
+        public void forEachRemaining(Consumer<? super Map.Entry<K,V>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            CompactHashMap<K,V> m = map;
+            int hi = getFence(), i = index;
+            Object[] tab = m.table;
+            index = hi;
+            if (tab != null && hi <= tab.length >>> 1) {
+                for (; i < hi; ++i) {
+                    Object k;
+                    if ((k = tab[i << 1]) != null)
+                        action.accept(m.new Entry(k, tab[(i << 1) + 1]));
+                }
+            }
+            if (m.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public boolean tryAdvance(Consumer<? super Map.Entry<K,V>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int i;
+            if ((i = nextSlot()) < 0)
+                return false;
+            CompactHashMap<K,V> m = map;
+            action.accept(m.new Entry(m.table[i << 1], m.table[(i << 1) + 1]));
+            if (m.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            return true;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT;
+        }
+    }
+
+    /* ---------------- Serialization -------------- */
+
+    /**
+     * Saves this map to a stream.
+     *
+     * @serialData The size of the map (the number of key-value
+     *             mappings) is emitted (int), followed by the key
+     *             (Object) and value (Object) for each key-value
+     *             mapping, in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        Object[] tab;
+        if ((tab = table) != null && size > 0) {
+            for (int i = 0; i < tab.length >>> 1; ++i) {
+                Object k;
+                if ((k = tab[i << 1]) != null) {
+                    s.writeObject(unmaskNull(k));
+                    s.writeObject(tab[(i << 1) + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstitutes this map from a stream.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new java.io.InvalidObjectException("Illegal load factor: " +
+                                                     loadFactor);
+        int n = s.readInt();
+        if (n < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                     n);
+        table = null;
+        hashes = null;
+        threshold = tableSizeFor(n, loadFactor);
+        for (int i = 0; i < n; ++i) {
+            K key = (K) s.readObject();
+            V value = (V) s.readObject();
+            putVal(key, value, false);
+        }
+    }
+}
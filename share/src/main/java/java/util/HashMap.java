@@ -32,6 +32,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -1301,6 +1302,81 @@ public class HashMap<K,V> extends AbstractMap<K,V>
         }
     }
 
+    /**
+     * Performs the given action for each entry in this map, in
+     * parallel, using the {@link java.util.concurrent.ForkJoinPool#commonPool()
+     * common pool}.  Unlike {@link #forEach}, the action may be
+     * performed at the same time in different threads, so it must be
+     * safe to apply concurrently.  Maps too small to benefit are
+     * processed in the calling thread.
+     *
+     * @param action the action to be performed for each entry
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the map is
+     *         structurally modified while the action is performed
+     * @since 9
+     */
+    public void parallelForEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        if (size > 0)
+            ParallelBulkHelpers.forEach
+                (new EntrySpliterator<>(this, 0, -1, 0, 0),
+                 e -> action.accept(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Replaces each entry's value with the result of invoking the
+     * given function on that entry, in parallel, as by {@link
+     * #parallelForEach}.
+     *
+     * @param function the function to apply to each entry
+     * @throws NullPointerException if the specified function is null
+     * @throws ConcurrentModificationException if the map is
+     *         structurally modified while the function is applied
+     * @since 9
+     */
+    public void parallelReplaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        if (function == null)
+            throw new NullPointerException();
+        if (size > 0)
+            ParallelBulkHelpers.forEach
+                (new EntrySpliterator<>(this, 0, -1, 0, 0), e -> {
+                    Node<K,V> p = (Node<K,V>)e;
+                    p.value = function.apply(p.key, p.value);
+                });
+    }
+
+    /**
+     * Removes all of the entries of this map that satisfy the given
+     * predicate.  The predicate is tested in parallel, as by {@link
+     * #parallelForEach}; matching entries are then removed in the
+     * calling thread.  If the predicate throws an exception the map
+     * is left unmodified.
+     *
+     * @param filter a predicate which returns {@code true} for
+     *        entries to be removed
+     * @return {@code true} if any entries were removed
+     * @throws NullPointerException if the specified filter is null
+     * @throws ConcurrentModificationException if the map is
+     *         structurally modified while the predicate is tested
+     * @since 9
+     */
+    public boolean parallelRemoveIf(BiPredicate<? super K, ? super V> filter) {
+        if (filter == null)
+            throw new NullPointerException();
+        if (size == 0)
+            return false;
+        ArrayList<Map.Entry<K,V>> matches = ParallelBulkHelpers.filter
+            (new EntrySpliterator<>(this, 0, -1, 0, 0),
+             e -> filter.test(e.getKey(), e.getValue()));
+        for (Map.Entry<K,V> e : matches) {
+            Node<K,V> p = (Node<K,V>)e;
+            removeNode(p.hash, p.key, null, false, true);
+        }
+        return !matches.isEmpty();
+    }
+
     /* ------------------------------------------------------------ */
     // Cloning and serialization
 
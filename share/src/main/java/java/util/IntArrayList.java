@@ -0,0 +1,711 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Resizable-array list of primitive {@code int} values.  This class
+ * provides the operations of {@link ArrayList} for {@code int}
+ * elements without boxing them, so a list of <i>n</i> elements
+ * occupies about 4<i>n</i> bytes.  The {@link #spliterator} and
+ * {@link #stream} methods, and methods accepting {@link IntConsumer}s
+ * and other primitive functional interfaces, allow the elements to be
+ * processed by streams and lambdas without boxing.  A list may be
+ * populated from an {@code IntStream} using
+ * <pre> {@code
+ * IntArrayList list = intStream.collect(IntArrayList::new,
+ *                                       IntArrayList::add,
+ *                                       IntArrayList::addAll);}</pre>
+ *
+ * <p>Like {@code ArrayList}, this class is not synchronized, and its
+ * iterators and spliterators are <i>fail-fast</i>: if the list is
+ * structurally modified after their creation, except through the
+ * iterator's own {@code remove} method, they throw a {@link
+ * ConcurrentModificationException} on a best-effort basis.
+ *
+ * @since 9
+ * @see ArrayList
+ */
+public class IntArrayList implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = -3466213095724512340L;
+
+    /**
+     * Default initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * Shared empty array instance used for empty instances.
+     */
+    private static final int[] EMPTY_ELEMENTDATA = {};
+
+    /**
+     * The maximum size of array to allocate.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The array buffer into which the elements are stored.
+     */
+    transient int[] elementData;
+
+    /**
+     * The number of elements in the list.
+     *
+     * @serial
+     */
+    private int size;
+
+    /**
+     * The number of times this list has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * Constructs an empty list with the specified initial capacity.
+     *
+     * @param  initialCapacity  the initial capacity of the list
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is negative
+     */
+    public IntArrayList(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: "+
+                                               initialCapacity);
+        this.elementData = (initialCapacity == 0) ? EMPTY_ELEMENTDATA :
+            new int[initialCapacity];
+    }
+
+    /**
+     * Constructs an empty list with an initial capacity of ten.
+     */
+    public IntArrayList() {
+        this.elementData = EMPTY_ELEMENTDATA;
+    }
+
+    /**
+     * Constructs a list containing the elements of the specified
+     * array, in order.
+     *
+     * @param a the array whose elements are to be placed into this list
+     * @throws NullPointerException if the specified array is null
+     */
+    public IntArrayList(int[] a) {
+        elementData = (a.length == 0) ? EMPTY_ELEMENTDATA : a.clone();
+        size = a.length;
+    }
+
+    /**
+     * Trims the capacity of this list to be its current size.
+     */
+    public void trimToSize() {
+        modCount++;
+        if (size < elementData.length)
+            elementData = (size == 0) ? EMPTY_ELEMENTDATA :
+                Arrays.copyOf(elementData, size);
+    }
+
+    /**
+     * Increases the capacity of this list, if necessary, to ensure
+     * that it can hold at least the number of elements specified by
+     * the minimum capacity argument.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elementData.length) {
+            modCount++;
+            grow(minCapacity);
+        }
+    }
+
+    private void ensureCapacityInternal(int minCapacity) {
+        if (minCapacity - elementData.length > 0) {
+            if (elementData == EMPTY_ELEMENTDATA)
+                minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
+            grow(minCapacity);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0) // overflow
+            throw new OutOfMemoryError();
+        int oldCapacity = elementData.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0)
+            newCapacity = minCapacity;
+        if (newCapacity - MAX_ARRAY_SIZE > 0)
+            newCapacity = (minCapacity > MAX_ARRAY_SIZE) ?
+                Integer.MAX_VALUE : MAX_ARRAY_SIZE;
+        elementData = Arrays.copyOf(elementData, newCapacity);
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this list contains no elements.
+     *
+     * @return {@code true} if this list contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if this list contains the specified value.
+     *
+     * @param value the value whose presence is to be tested
+     * @return {@code true} if this list contains the specified value
+     */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified
+     * value in this list, or -1 if this list does not contain it.
+     *
+     * @param value the value to search for
+     * @return the index of the first occurrence, or -1
+     */
+    public int indexOf(int value) {
+        int[] a = elementData;
+        for (int i = 0, n = size; i < n; ++i)
+            if (a[i] == value)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the specified
+     * value in this list, or -1 if this list does not contain it.
+     *
+     * @param value the value to search for
+     * @return the index of the last occurrence, or -1
+     */
+    public int lastIndexOf(int value) {
+        int[] a = elementData;
+        for (int i = size - 1; i >= 0; --i)
+            if (a[i] == value)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Returns a shallow copy of this list.
+     *
+     * @return a clone of this list
+     */
+    public IntArrayList clone() {
+        try {
+            IntArrayList v = (IntArrayList) super.clone();
+            v.elementData = Arrays.copyOf(elementData, size);
+            v.modCount = 0;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list,
+     * in order.
+     *
+     * @return an array containing all of the elements in this list
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elementData, size);
+    }
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @param  index index of the element to return
+     * @return the element at the specified position in this list
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int get(int index) {
+        rangeCheck(index);
+        return elementData[index];
+    }
+
+    /**
+     * Replaces the element at the specified position in this list
+     * with the specified value.
+     *
+     * @param index index of the element to replace
+     * @param value value to be stored at the specified position
+     * @return the element previously at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int set(int index, int value) {
+        rangeCheck(index);
+        int oldValue = elementData[index];
+        elementData[index] = value;
+        return oldValue;
+    }
+
+    /**
+     * Appends the specified value to the end of this list.
+     *
+     * @param value value to be appended to this list
+     */
+    public void add(int value) {
+        ensureCapacityInternal(size + 1);
+        modCount++;
+        elementData[size++] = value;
+    }
+
+    /**
+     * Inserts the specified value at the specified position in this
+     * list, shifting subsequent elements to the right.
+     *
+     * @param index index at which the value is to be inserted
+     * @param value value to be inserted
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public void add(int index, int value) {
+        if (index > size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        ensureCapacityInternal(size + 1);
+        modCount++;
+        System.arraycopy(elementData, index, elementData, index + 1,
+                         size - index);
+        elementData[index] = value;
+        size++;
+    }
+
+    /**
+     * Appends all of the elements of the specified array to the end
+     * of this list, in order.
+     *
+     * @param a the array of values to be added
+     * @throws NullPointerException if the specified array is null
+     */
+    public void addAll(int[] a) {
+        int n = a.length;
+        ensureCapacityInternal(size + n);
+        modCount++;
+        System.arraycopy(a, 0, elementData, size, n);
+        size += n;
+    }
+
+    /**
+     * Appends all of the elements of the specified list to the end
+     * of this list, in order.
+     *
+     * @param list the list of values to be added
+     * @throws NullPointerException if the specified list is null
+     */
+    public void addAll(IntArrayList list) {
+        int n = list.size;
+        ensureCapacityInternal(size + n);
+        modCount++;
+        System.arraycopy(list.elementData, 0, elementData, size, n);
+        size += n;
+    }
+
+    /**
+     * Removes the element at the specified position in this list,
+     * shifting subsequent elements to the left.
+     *
+     * @param index the index of the element to be removed
+     * @return the element that was removed from the list
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int removeAt(int index) {
+        rangeCheck(index);
+        modCount++;
+        int oldValue = elementData[index];
+        int numMoved = size - index - 1;
+        if (numMoved > 0)
+            System.arraycopy(elementData, index + 1, elementData, index,
+                             numMoved);
+        --size;
+        return oldValue;
+    }
+
+    /**
+     * Removes the first occurrence of the specified value from this
+     * list, if it is present.
+     *
+     * @param value value to be removed from this list, if present
+     * @return {@code true} if this list contained the specified value
+     */
+    public boolean removeValue(int value) {
+        int i = indexOf(value);
+        if (i < 0)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Removes all of the elements of this list that satisfy the given
+     * predicate.
+     *
+     * @param filter a predicate which returns {@code true} for
+     *        elements to be removed
+     * @return {@code true} if any elements were removed
+     * @throws NullPointerException if the specified filter is null
+     */
+    public boolean removeIf(IntPredicate filter) {
+        Objects.requireNonNull(filter);
+        final int expectedModCount = modCount;
+        final int[] a = elementData;
+        final int n = size;
+        int j = 0;
+        for (int i = 0; i < n; ++i) {
+            int e = a[i];
+            if (!filter.test(e))
+                a[j++] = e;
+        }
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        if (j == n)
+            return false;
+        size = j;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Replaces each element of this list with the result of applying
+     * the operator to that element.
+     *
+     * @param operator the operator to apply to each element
+     * @throws NullPointerException if the specified operator is null
+     */
+    public void replaceAll(IntUnaryOperator operator) {
+        Objects.requireNonNull(operator);
+        final int expectedModCount = modCount;
+        final int[] a = elementData;
+        for (int i = 0, n = size; modCount == expectedModCount && i < n; ++i)
+            a[i] = operator.applyAsInt(a[i]);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Sorts this list into ascending numerical order.
+     */
+    public void sort() {
+        Arrays.sort(elementData, 0, size);
+        modCount++;
+    }
+
+    /**
+     * Removes all of the elements from this list.
+     */
+    public void clear() {
+        modCount++;
+        size = 0;
+    }
+
+    /**
+     * Performs the given action for each element of this list, in
+     * order, until all elements have been processed or the action
+     * throws an exception.
+     *
+     * @param action the action to be performed for each element
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEach(IntConsumer action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        final int[] a = elementData;
+        for (int i = 0, n = size; modCount == expectedModCount && i < n; ++i)
+            action.accept(a[i]);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    private void rangeCheck(int index) {
+        if (index >= size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private String outOfBoundsMsg(int index) {
+        return "Index: "+index+", Size: "+size;
+    }
+
+    /**
+     * Returns an iterator over the elements in this list, in order.
+     * The iterator supports {@code remove}.
+     *
+     * @return an iterator over the elements in this list
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new Itr();
+    }
+
+    private class Itr implements PrimitiveIterator.OfInt {
+        int cursor;       // index of next element to return
+        int lastRet = -1; // index of last element returned; -1 if no such
+        int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return cursor != size;
+        }
+
+        public int nextInt() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int i = cursor;
+            if (i >= size)
+                throw new NoSuchElementException();
+            cursor = i + 1;
+            return elementData[lastRet = i];
+        }
+
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            IntArrayList.this.removeAt(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link Spliterator.OfInt} over the elements
+     * in this list.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#SIZED},
+     * {@link Spliterator#SUBSIZED}, and {@link Spliterator#ORDERED}.
+     *
+     * @return a {@code Spliterator.OfInt} over the elements in this list
+     */
+    public Spliterator.OfInt spliterator() {
+        return new IntArrayListSpliterator(this, 0, -1, 0);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} with this list as its
+     * source.
+     *
+     * @return a sequential {@code IntStream} over the elements in this list
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * Returns a possibly parallel {@code IntStream} with this list as
+     * its source.
+     *
+     * @return a possibly parallel {@code IntStream} over the elements
+     *         in this list
+     */
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(), true);
+    }
+
+    /** Index-based split-by-two, lazily initialized Spliterator */
+    static final class IntArrayListSpliterator implements Spliterator.OfInt {
+        private final IntArrayList list;
+        private int index; // current index, modified on advance/split
+        private int fence; // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        IntArrayListSpliterator(IntArrayList list, int origin, int fence,
+                                int expectedModCount) {
+            this.list = list;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() { // initialize fence to size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = list.modCount;
+                hi = fence = list.size;
+            }
+            return hi;
+        }
+
+        public IntArrayListSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null : // divide range in half unless too small
+                new IntArrayListSpliterator(list, lo, index = mid,
+                                            expectedModCount);
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept(list.elementData[i]);
+                if (list.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            int i, hi, mc; // hoist accesses and checks from loop
+            int[] a;
+            if (action == null)
+                throw new NullPointerException();
+            if ((a = list.elementData) != null) {
+                if ((hi = fence) < 0) {
+                    mc = list.modCount;
+                    hi = list.size;
+                }
+                else
+                    mc = expectedModCount;
+                if ((i = index) >= 0 && (index = hi) <= a.length) {
+                    for (; i < hi; ++i)
+                        action.accept(a[i]);
+                    if (list.modCount == mc)
+                        return;
+                }
+            }
+            throw new ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            return (long) (getFence() - index);
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    /**
+     * Compares the specified object with this list for equality.
+     * Returns {@code true} if the specified object is also an {@code
+     * IntArrayList} containing the same elements in the same order.
+     *
+     * @param o the object to be compared for equality with this list
+     * @return {@code true} if the specified object is equal to this list
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntArrayList))
+            return false;
+        IntArrayList l = (IntArrayList) o;
+        int n = size;
+        if (l.size != n)
+            return false;
+        int[] a = elementData, b = l.elementData;
+        for (int i = 0; i < n; ++i)
+            if (a[i] != b[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this list, computed as {@link
+     * Arrays#hashCode(int[])} of its elements.
+     *
+     * @return the hash code value for this list
+     */
+    public int hashCode() {
+        int h = 1;
+        int[] a = elementData;
+        for (int i = 0, n = size; i < n; ++i)
+            h = 31 * h + a[i];
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this list, in the format of
+     * {@link Arrays#toString(int[])}.
+     *
+     * @return a string representation of this list
+     */
+    public String toString() {
+        int n = size;
+        if (n == 0)
+            return "[]";
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        int[] a = elementData;
+        for (int i = 0; ; ++i) {
+            sb.append(a[i]);
+            if (i == n - 1)
+                return sb.append(']').toString();
+            sb.append(',').append(' ');
+        }
+    }
+
+    /**
+     * Saves the state of this list to a stream.
+     *
+     * @serialData The length of the list is emitted (int), followed
+     *             by all of its elements (each an int) in order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        int expectedModCount = modCount;
+        s.defaultWriteObject();
+        s.writeInt(size);
+        for (int i = 0; i < size; i++)
+            s.writeInt(elementData[i]);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Reconstitutes this list from a stream.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        elementData = EMPTY_ELEMENTDATA;
+        s.defaultReadObject();
+        s.readInt(); // ignored
+        if (size < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + size);
+        if (size > 0) {
+            int[] a = elementData = new int[size];
+            for (int i = 0; i < size; i++)
+                a[i] = s.readInt();
+        }
+    }
+}
@@ -0,0 +1,814 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hash table mapping primitive {@code int} keys to object values.
+ * This class provides the principal operations of {@link HashMap}
+ * without boxing keys or allocating an entry object per mapping: keys
+ * and values are stored in parallel arrays forming an open-addressing
+ * table with linear probing.  Null values are permitted.  The {@link
+ * #keySpliterator} and {@link #keyStream} methods, and methods
+ * accepting {@link IntConsumer}s and {@link IntFunction}s, allow keys
+ * to be processed by streams and lambdas without boxing.
+ *
+ * <p>Like {@code HashMap}, this class makes no guarantees as to the
+ * iteration order of the map, and is not synchronized.  Its
+ * spliterators and bulk operations are <i>fail-fast</i>, throwing
+ * {@link ConcurrentModificationException} on a best-effort basis if
+ * the map is structurally modified while they are in progress.
+ *
+ * @param <V> the type of mapped values
+ * @since 9
+ * @see HashMap
+ */
+public class IntObjectHashMap<V> implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = -1704537125431598862L;
+
+    /**
+     * The default initial capacity.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum table length.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The keys, allocated on first use, with length always a power of
+     * two.  Zero marks a free slot; a mapping for the key zero is
+     * held in hasZeroKey and zeroValue.
+     */
+    transient int[] keys;
+
+    /**
+     * The values, parallel to keys.
+     */
+    transient Object[] vals;
+
+    /**
+     * Whether there is a mapping for the key zero.
+     */
+    transient boolean hasZeroKey;
+
+    /**
+     * The value mapped to zero, if hasZeroKey.
+     */
+    transient Object zeroValue;
+
+    /**
+     * The number of mappings, including any for zero.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The number of mappings at which to resize the table, or the
+     * initial table length if the table is not yet allocated.
+     */
+    int threshold;
+
+    /**
+     * The load factor of the table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not between zero and one, exclusive
+     */
+    public IntObjectHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.threshold = LongHashSet.tableSizeFor(initialCapacity, loadFactor);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.5).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntObjectHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public IntObjectHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Spreads the bits of a key, so that tables indexed by the low
+     * bits of the hash handle keys differing only in high bits.
+     */
+    static int hash(int k) {
+        int h = k * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the table index of the given nonzero key, or -1 if absent.
+     */
+    final int indexOf(int key) {
+        int[] ks; int k;
+        if ((ks = keys) != null) {
+            int m = ks.length - 1;
+            for (int i = hash(key) & m; (k = ks[i]) != 0; i = (i + 1) & m)
+                if (k == key)
+                    return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this map contains no mapping for the key.  A
+     * return value of {@code null} does not necessarily indicate that
+     * the map contains no mapping for the key; {@link #containsKey}
+     * distinguishes these cases.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == 0)
+            return (V)zeroValue;
+        int i = indexOf(key);
+        return (i < 0) ? null : (V)vals[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or
+     *         {@code defaultValue} if this map contains no mapping for
+     *         the key
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        if (key == 0)
+            return hasZeroKey ? (V)zeroValue : defaultValue;
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : (V)vals[i];
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return (key == 0) ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(Object value) {
+        if (hasZeroKey && Objects.equals(zeroValue, value))
+            return true;
+        int[] ks; Object[] vs;
+        if ((ks = keys) != null) {
+            vs = vals;
+            for (int i = 0; i < ks.length; ++i)
+                if (ks[i] != 0 && Objects.equals(vs[i], value))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this
+     * map, replacing any previous value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     */
+    public V put(int key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value
+     * (or is mapped to {@code null}) associates it with the given
+     * value and returns {@code null}, else returns the current value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key, or
+     *         {@code null} if there was no mapping for the key
+     */
+    public V putIfAbsent(int key, V value) {
+        return putVal(key, value, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    final V putVal(int key, V value, boolean onlyIfAbsent) {
+        if (key == 0) {
+            V old = (V)zeroValue;
+            if (hasZeroKey) {
+                if (!onlyIfAbsent || old == null)
+                    zeroValue = value;
+                return old;
+            }
+            hasZeroKey = true;
+            zeroValue = value;
+        }
+        else {
+            int[] ks; int k;
+            if ((ks = keys) == null)
+                ks = resize();
+            int m = ks.length - 1, i = hash(key) & m;
+            for (; (k = ks[i]) != 0; i = (i + 1) & m) {
+                if (k == key) {
+                    V old = (V)vals[i];
+                    if (!onlyIfAbsent || old == null)
+                        vals[i] = value;
+                    return old;
+                }
+            }
+            ks[i] = key;
+            vals[i] = value;
+            if (size >= threshold)
+                resize();
+        }
+        ++size;
+        ++modCount;
+        return null;
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or
+     * is mapped to {@code null}), attempts to compute its value using
+     * the given mapping function and enters it into this map unless
+     * {@code null}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if it is detected that
+     *         the mapping function modified this map
+     */
+    public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        V v;
+        if ((v = get(key)) == null) {
+            int mc = modCount;
+            v = mappingFunction.apply(key);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+            if (v != null)
+                putVal(key, v, false);
+        }
+        return v;
+    }
+
+    /**
+     * If the specified key is not already associated with a value or
+     * is associated with null, associates it with the given value.
+     * Otherwise, replaces the associated value with the results of the
+     * given remapping function, or removes it if the result is
+     * {@code null}.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the value to be merged with the existing value
+     * @param remappingFunction the function to recompute a value if
+     *        present
+     * @return the new value associated with the specified key, or null
+     *         if no value is associated with the key
+     * @throws NullPointerException if the value or remapping function
+     *         is null
+     * @throws ConcurrentModificationException if it is detected that
+     *         the remapping function modified this map
+     */
+    public V merge(int key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new NullPointerException();
+        V old = get(key), v;
+        if (old == null)
+            v = value;
+        else {
+            int mc = modCount;
+            v = remappingFunction.apply(old, value);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+        }
+        if (v == null)
+            remove(key);
+        else
+            putVal(key, v, false);
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        V old;
+        if (key == 0) {
+            if (!hasZeroKey)
+                return null;
+            old = (V)zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+        }
+        else {
+            int i = indexOf(key);
+            if (i < 0)
+                return null;
+            old = (V)vals[i];
+            deleteAt(i);
+        }
+        --size;
+        ++modCount;
+        return old;
+    }
+
+    /**
+     * Empties slot i, shifting back later mappings of its probe
+     * sequence whose home slot is not between i and their position,
+     * as in LongHashSet.deleteAt.
+     */
+    final void deleteAt(int i) {
+        int[] ks = keys;
+        Object[] vs = vals;
+        int m = ks.length - 1, k;
+        for (int j = i; (k = ks[j = (j + 1) & m]) != 0; ) {
+            int h = hash(k) & m;
+            if ((i <= j) ? (i >= h || h > j) : (i >= h && h > j)) {
+                ks[i] = k;
+                vs[i] = vs[j];
+                i = j;
+            }
+        }
+        ks[i] = 0;
+        vs[i] = null;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        ++modCount;
+        if (keys != null && size > 0) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(vals, null);
+        }
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * Initializes or doubles the table.
+     */
+    final int[] resize() {
+        int[] oldKeys = keys;
+        Object[] oldVals = vals;
+        int oldCap = (oldKeys == null) ? 0 : oldKeys.length;
+        int newCap;
+        if (oldCap == 0)
+            newCap = threshold;
+        else if (oldCap >= MAXIMUM_CAPACITY) {
+            if (size >= MAXIMUM_CAPACITY - 1)
+                throw new IllegalStateException("Map too large");
+            threshold = MAXIMUM_CAPACITY - 1;
+            return oldKeys;
+        }
+        else
+            newCap = oldCap << 1;
+        threshold = (newCap >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY - 1 :
+            (int)(newCap * loadFactor);
+        int[] newKeys = new int[newCap];
+        Object[] newVals = new Object[newCap];
+        if (oldKeys != null) {
+            int m = newCap - 1;
+            for (int j = 0; j < oldCap; ++j) {
+                int k;
+                if ((k = oldKeys[j]) != 0) {
+                    int i = hash(k) & m;
+                    while (newKeys[i] != 0)
+                        i = (i + 1) & m;
+                    newKeys[i] = k;
+                    newVals[i] = oldVals[j];
+                }
+            }
+        }
+        vals = newVals;
+        return keys = newKeys;
+    }
+
+    /**
+     * Performs the given action with the value and key of each
+     * mapping in this map until all mappings have been processed or
+     * the action throws an exception.
+     *
+     * @param action the action to be performed with each value and key
+     * @throws NullPointerException if the specified action is null
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super V> action) {
+        Objects.requireNonNull(action);
+        int mc = modCount;
+        if (hasZeroKey)
+            action.accept((V)zeroValue, 0);
+        int[] ks;
+        if ((ks = keys) != null) {
+            Object[] vs = vals;
+            for (int i = 0; i < ks.length && modCount == mc; ++i) {
+                int k;
+                if ((k = ks[i]) != 0)
+                    action.accept((V)vs[i], k);
+            }
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Performs the given action for each key in this map.
+     *
+     * @param action the action to be performed for each key
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEachKey(IntConsumer action) {
+        Objects.requireNonNull(action);
+        forEach((v, k) -> action.accept(k));
+    }
+
+    /**
+     * Performs the given action for each value in this map.
+     *
+     * @param action the action to be performed for each value
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        Objects.requireNonNull(action);
+        forEach((v, k) -> action.accept(v));
+    }
+
+    /**
+     * Returns an array containing the keys of this map.
+     *
+     * @return an array containing the keys of this map
+     */
+    public int[] keys() {
+        int[] a = new int[size];
+        int n = hasZeroKey ? 1 : 0;
+        int[] ks;
+        if ((ks = keys) != null) {
+            for (int k : ks)
+                if (k != 0)
+                    a[n++] = k;
+        }
+        return a;
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link Spliterator.OfInt} over the keys
+     * of this map.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#SIZED} and
+     * {@link Spliterator#DISTINCT}.
+     *
+     * @return a {@code Spliterator.OfInt} over the keys of this map
+     */
+    public Spliterator.OfInt keySpliterator() {
+        return new KeySpliterator(this, 0, -1, 0, 0, true);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} of the keys of this map.
+     *
+     * @return a sequential {@code IntStream} of the keys of this map
+     */
+    public IntStream keyStream() {
+        return StreamSupport.intStream(keySpliterator(), false);
+    }
+
+    /**
+     * Spliterator over a range of key slots, as in
+     * LongHashSet.LongHashSetSpliterator.
+     */
+    static final class KeySpliterator implements Spliterator.OfInt {
+        final IntObjectHashMap<?> map;
+        int index;                  // current index, modified on advance/split
+        int fence;                  // one past last index
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+        boolean zero;               // true if zero not yet reported
+
+        KeySpliterator(IntObjectHashMap<?> map, int origin, int fence,
+                       int est, int expectedModCount, boolean zero) {
+            this.map = map;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+            this.zero = zero;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                IntObjectHashMap<?> m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                int[] ks = m.keys;
+                hi = fence = (ks == null) ? 0 : ks.length;
+                zero = m.hasZeroKey;
+            }
+            return hi;
+        }
+
+        public KeySpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new KeySpliterator(map, lo, index = mid, est >>>= 1,
+                                   expectedModCount, false);
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            int[] ks = map.keys;
+            if (zero) {
+                zero = false;
+                action.accept(0);
+                if (map.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            while (ks != null && index < hi) {
+                int k = ks[index++];
+                if (k != 0) {
+                    action.accept(k);
+                    if (map.modCount != expectedModCount)
+                        throw new ConcurrentModificationException();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), i = index;
+            int[] ks = map.keys;
+            index = hi;
+            if (zero) {
+                zero = false;
+                action.accept(0);
+            }
+            if (ks != null && hi <= ks.length) {
+                for (; i < hi; ++i) {
+                    int k;
+                    if ((k = ks[i]) != 0)
+                        action.accept(k);
+                }
+            }
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT;
+        }
+    }
+
+    /**
+     * Returns a shallow copy of this map: the keys and values
+     * themselves are not cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    public IntObjectHashMap<V> clone() {
+        try {
+            IntObjectHashMap<V> m = (IntObjectHashMap<V>) super.clone();
+            if (keys != null) {
+                m.keys = keys.clone();
+                m.vals = vals.clone();
+            }
+            m.modCount = 0;
+            return m;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is also an {@code
+     * IntObjectHashMap} with the same mappings, values being compared
+     * using {@code equals}.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntObjectHashMap))
+            return false;
+        IntObjectHashMap<?> m = (IntObjectHashMap<?>) o;
+        if (m.size != size || m.hasZeroKey != hasZeroKey ||
+            (hasZeroKey && !Objects.equals(zeroValue, m.zeroValue)))
+            return false;
+        int[] ks;
+        if ((ks = keys) != null) {
+            Object[] vs = vals;
+            for (int i = 0; i < ks.length; ++i) {
+                int k, j;
+                if ((k = ks[i]) != 0 &&
+                    ((j = m.indexOf(k)) < 0 ||
+                     !Objects.equals(vs[i], m.vals[j])))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, defined as the sum of
+     * {@code key ^ Objects.hashCode(value)} over its mappings, which
+     * is the hash code of a {@code Map<Integer,V>} with the same
+     * mappings.
+     *
+     * @return the hash code value for this map
+     */
+    public int hashCode() {
+        int[] h = new int[1];
+        forEach((v, k) -> h[0] += k ^ Objects.hashCode(v));
+        return h[0];
+    }
+
+    /**
+     * Returns a string representation of this map, in the format of
+     * {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ", "{", "}");
+        forEach((v, k) -> sj.add(k + "=" + (v == this ? "(this Map)" : v)));
+        return sj.toString();
+    }
+
+    /**
+     * Saves the state of this map to a stream.
+     *
+     * @serialData The size of the map is emitted (int), followed by
+     *             the key (int) and value (Object) of each mapping,
+     *             in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if (hasZeroKey) {
+            s.writeInt(0);
+            s.writeObject(zeroValue);
+        }
+        int[] ks;
+        if ((ks = keys) != null) {
+            Object[] vs = vals;
+            for (int i = 0; i < ks.length; ++i) {
+                if (ks[i] != 0) {
+                    s.writeInt(ks[i]);
+                    s.writeObject(vs[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstitutes this map from a stream.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new java.io.InvalidObjectException("Illegal load factor: " +
+                                                     loadFactor);
+        int n = s.readInt();
+        if (n < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + n);
+        keys = null;
+        vals = null;
+        threshold = LongHashSet.tableSizeFor(n, loadFactor);
+        for (int i = 0; i < n; ++i) {
+            int k = s.readInt();
+            putVal(k, (V)s.readObject(), false);
+        }
+    }
+}
@@ -0,0 +1,692 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hash table set of primitive {@code long} values.  This class
+ * provides the operations of {@link HashSet} for {@code long}
+ * elements without boxing them: elements are stored directly in an
+ * open-addressing table, using linear probing, so a set of <i>n</i>
+ * elements occupies between 8<i>n</i> and 32<i>n</i> bytes at the
+ * default load factor of 0.5.  The {@link #spliterator} and {@link
+ * #stream} methods, and methods accepting {@link LongConsumer}s and
+ * {@link LongPredicate}s, allow the elements to be processed by
+ * streams and lambdas without boxing.
+ *
+ * <p>Like {@code HashSet}, this class makes no guarantees as to the
+ * iteration order of the set, and is not synchronized.  Its iterators
+ * and spliterators are <i>fail-fast</i>, throwing {@link
+ * ConcurrentModificationException} on a best-effort basis if the set
+ * is modified after their creation.  Removal during traversal would
+ * move elements across the position of the traversal, so iterators
+ * do not support {@code remove}; use {@link #removeIf} instead.
+ *
+ * @since 9
+ * @see HashSet
+ */
+public class LongHashSet implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 6248563105384619734L;
+
+    /**
+     * The default initial capacity.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum table length.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The table, allocated on first use, with length always a power
+     * of two.  Zero marks a free slot; the value zero itself is
+     * recorded by hasZero.
+     */
+    transient long[] table;
+
+    /**
+     * Whether the set contains zero.
+     */
+    transient boolean hasZero;
+
+    /**
+     * The number of elements, including zero.
+     */
+    transient int size;
+
+    /**
+     * The number of times this set has been modified.
+     */
+    transient int modCount;
+
+    /**
+     * The number of elements in the table at which to resize it, or
+     * the initial table length if the table is not yet allocated.
+     */
+    int threshold;
+
+    /**
+     * The load factor of the table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty set with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not between zero and one, exclusive
+     */
+    public LongHashSet(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.threshold = tableSizeFor(initialCapacity, loadFactor);
+    }
+
+    /**
+     * Constructs an empty set with the specified initial capacity and
+     * the default load factor (0.5).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongHashSet(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty set with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public LongHashSet() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a set containing the elements of the specified array.
+     *
+     * @param a the array whose elements are to be placed into this set
+     * @throws NullPointerException if the specified array is null
+     */
+    public LongHashSet(long[] a) {
+        this(a.length, DEFAULT_LOAD_FACTOR);
+        for (long v : a)
+            add(v);
+    }
+
+    /**
+     * Returns the table length holding the given number of elements
+     * at the given load factor.
+     */
+    static int tableSizeFor(int capacity, float loadFactor) {
+        float ft = (float)capacity / loadFactor + 1.0f;
+        if (ft >= (float)MAXIMUM_CAPACITY)
+            return MAXIMUM_CAPACITY;
+        int n = Math.max(2, (int)ft);
+        return (n <= 2) ? 2 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * Spreads the bits of an element, so that tables indexed by the
+     * low bits of the hash handle keys differing only in high bits.
+     */
+    static int hash(long v) {
+        long h = v * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int)(h ^ (h >>> 16));
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     *
+     * @return the number of elements in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this set contains no elements.
+     *
+     * @return {@code true} if this set contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if this set contains the specified value.
+     *
+     * @param v the value whose presence is to be tested
+     * @return {@code true} if this set contains the specified value
+     */
+    public boolean contains(long v) {
+        if (v == 0L)
+            return hasZero;
+        long[] tab; long e;
+        if ((tab = table) != null) {
+            int m = tab.length - 1;
+            for (int i = hash(v) & m; (e = tab[i]) != 0L; i = (i + 1) & m)
+                if (e == v)
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the specified value to this set if it is not already present.
+     *
+     * @param v the value to be added
+     * @return {@code true} if this set did not already contain the value
+     */
+    public boolean add(long v) {
+        if (v == 0L) {
+            if (hasZero)
+                return false;
+            hasZero = true;
+        }
+        else {
+            long[] tab; long e;
+            if ((tab = table) == null)
+                tab = resize();
+            int m = tab.length - 1, i = hash(v) & m;
+            for (; (e = tab[i]) != 0L; i = (i + 1) & m)
+                if (e == v)
+                    return false;
+            tab[i] = v;
+            if (size >= threshold)
+                resize();
+        }
+        ++size;
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Adds all of the elements of the specified set to this set.
+     *
+     * @param s the set whose elements are to be added
+     * @return {@code true} if this set changed as a result of the call
+     * @throws NullPointerException if the specified set is null
+     */
+    public boolean addAll(LongHashSet s) {
+        boolean modified = false;
+        if (s.hasZero)
+            modified = add(0L);
+        long[] tab;
+        if ((tab = s.table) != null) {
+            for (long e : tab)
+                if (e != 0L && add(e))
+                    modified = true;
+        }
+        return modified;
+    }
+
+    /**
+     * Removes the specified value from this set if it is present.
+     *
+     * @param v the value to be removed
+     * @return {@code true} if this set contained the value
+     */
+    public boolean remove(long v) {
+        if (v == 0L) {
+            if (!hasZero)
+                return false;
+            hasZero = false;
+        }
+        else {
+            long[] tab; long e;
+            if ((tab = table) == null)
+                return false;
+            int m = tab.length - 1, i = hash(v) & m;
+            for (; (e = tab[i]) != v; i = (i + 1) & m)
+                if (e == 0L)
+                    return false;
+            deleteAt(tab, i);
+        }
+        --size;
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Empties slot i, shifting back later elements of its probe
+     * sequence whose home slot is not between i and their position.
+     */
+    static void deleteAt(long[] tab, int i) {
+        int m = tab.length - 1;
+        long e;
+        for (int j = i; (e = tab[j = (j + 1) & m]) != 0L; ) {
+            int k = hash(e) & m;
+            if ((i <= j) ? (i >= k || k > j) : (i >= k && k > j)) {
+                tab[i] = e;
+                i = j;
+            }
+        }
+        tab[i] = 0L;
+    }
+
+    /**
+     * Removes all of the elements of this set that satisfy the given
+     * predicate.
+     *
+     * @param filter a predicate which returns {@code true} for
+     *        elements to be removed
+     * @return {@code true} if any elements were removed
+     * @throws NullPointerException if the specified filter is null
+     */
+    public boolean removeIf(LongPredicate filter) {
+        Objects.requireNonNull(filter);
+        long[] tab = table;
+        int mc = modCount, n = 0;
+        long[] removed = null;
+        if (hasZero && filter.test(0L)) {
+            removed = new long[Math.min(size, 16)];
+            n = 1;
+        }
+        if (tab != null) {
+            for (long e : tab) {
+                if (e != 0L && filter.test(e)) {
+                    if (removed == null)
+                        removed = new long[Math.min(size, 16)];
+                    else if (n == removed.length)
+                        removed = Arrays.copyOf(removed, n << 1);
+                    removed[n++] = e;
+                }
+            }
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+        for (int i = 0; i < n; ++i)
+            remove(removed[i]);
+        return n > 0;
+    }
+
+    /**
+     * Removes all of the elements from this set.
+     */
+    public void clear() {
+        long[] tab;
+        ++modCount;
+        if ((tab = table) != null && size > 0)
+            Arrays.fill(tab, 0L);
+        hasZero = false;
+        size = 0;
+    }
+
+    /**
+     * Initializes or doubles the table.
+     */
+    final long[] resize() {
+        long[] oldTab = table;
+        int oldCap = (oldTab == null) ? 0 : oldTab.length;
+        int newCap;
+        if (oldCap == 0)
+            newCap = threshold;
+        else if (oldCap >= MAXIMUM_CAPACITY) {
+            if (size >= MAXIMUM_CAPACITY - 1)
+                throw new IllegalStateException("Set too large");
+            threshold = MAXIMUM_CAPACITY - 1;
+            return oldTab;
+        }
+        else
+            newCap = oldCap << 1;
+        threshold = (newCap >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY - 1 :
+            (int)(newCap * loadFactor);
+        long[] newTab = new long[newCap];
+        if (oldTab != null) {
+            int m = newCap - 1;
+            for (long e : oldTab) {
+                if (e != 0L) {
+                    int i = hash(e) & m;
+                    while (newTab[i] != 0L)
+                        i = (i + 1) & m;
+                    newTab[i] = e;
+                }
+            }
+        }
+        return table = newTab;
+    }
+
+    /**
+     * Returns an array containing all of the elements in this set.
+     *
+     * @return an array containing all of the elements in this set
+     */
+    public long[] toArray() {
+        long[] a = new long[size];
+        int n = 0;
+        if (hasZero)
+            n = 1;
+        long[] tab;
+        if ((tab = table) != null) {
+            for (long e : tab)
+                if (e != 0L)
+                    a[n++] = e;
+        }
+        return a;
+    }
+
+    /**
+     * Performs the given action for each element of this set until
+     * all elements have been processed or the action throws an
+     * exception.
+     *
+     * @param action the action to be performed for each element
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEach(LongConsumer action) {
+        Objects.requireNonNull(action);
+        int mc = modCount;
+        if (hasZero)
+            action.accept(0L);
+        long[] tab;
+        if ((tab = table) != null) {
+            for (int i = 0; i < tab.length && modCount == mc; ++i) {
+                long e;
+                if ((e = tab[i]) != 0L)
+                    action.accept(e);
+            }
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns an iterator over the elements in this set, in no
+     * particular order.  The iterator does not support {@code remove}.
+     *
+     * @return an iterator over the elements in this set
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link Spliterator.OfLong} over the
+     * elements in this set.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#SIZED} and
+     * {@link Spliterator#DISTINCT}.
+     *
+     * @return a {@code Spliterator.OfLong} over the elements in this set
+     */
+    public Spliterator.OfLong spliterator() {
+        return new LongHashSetSpliterator(this, 0, -1, 0, 0, true);
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} with this set as its
+     * source.
+     *
+     * @return a sequential {@code LongStream} over the elements in this set
+     */
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    /**
+     * Returns a possibly parallel {@code LongStream} with this set as
+     * its source.
+     *
+     * @return a possibly parallel {@code LongStream} over the elements
+     *         in this set
+     */
+    public LongStream parallelStream() {
+        return StreamSupport.longStream(spliterator(), true);
+    }
+
+    /**
+     * Spliterator over a range of table slots, in the manner of
+     * HashMap.KeySpliterator.  The zero element, which is not in the
+     * table, is reported first by the spliterator created for the
+     * whole set and retained by it when split.
+     */
+    static final class LongHashSetSpliterator implements Spliterator.OfLong {
+        final LongHashSet set;
+        int index;                  // current index, modified on advance/split
+        int fence;                  // one past last index
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+        boolean zero;               // true if zero not yet reported
+
+        LongHashSetSpliterator(LongHashSet set, int origin, int fence,
+                               int est, int expectedModCount,
+                               boolean zero) {
+            this.set = set;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+            this.zero = zero;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                LongHashSet s = set;
+                est = s.size;
+                expectedModCount = s.modCount;
+                long[] tab = s.table;
+                hi = fence = (tab == null) ? 0 : tab.length;
+                zero = s.hasZero;
+            }
+            return hi;
+        }
+
+        public LongHashSetSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new LongHashSetSpliterator(set, lo, index = mid, est >>>= 1,
+                                           expectedModCount, false);
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            long[] tab = set.table;
+            if (zero) {
+                zero = false;
+                action.accept(0L);
+                if (set.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            while (tab != null && index < hi) {
+                long e = tab[index++];
+                if (e != 0L) {
+                    action.accept(e);
+                    if (set.modCount != expectedModCount)
+                        throw new ConcurrentModificationException();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), i = index;
+            long[] tab = set.table;
+            index = hi;
+            if (zero) {
+                zero = false;
+                action.accept(0L);
+            }
+            if (tab != null && hi <= tab.length) {
+                for (; i < hi; ++i) {
+                    long e;
+                    if ((e = tab[i]) != 0L)
+                        action.accept(e);
+                }
+            }
+            if (set.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == set.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT;
+        }
+    }
+
+    /**
+     * Returns a shallow copy of this set.
+     *
+     * @return a clone of this set
+     */
+    public LongHashSet clone() {
+        try {
+            LongHashSet s = (LongHashSet) super.clone();
+            if (table != null)
+                s.table = table.clone();
+            s.modCount = 0;
+            return s;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares the specified object with this set for equality.
+     * Returns {@code true} if the specified object is also a {@code
+     * LongHashSet} containing the same elements.
+     *
+     * @param o the object to be compared for equality with this set
+     * @return {@code true} if the specified object is equal to this set
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongHashSet))
+            return false;
+        LongHashSet s = (LongHashSet) o;
+        if (s.size != size || s.hasZero != hasZero)
+            return false;
+        long[] tab;
+        if ((tab = table) != null) {
+            for (long e : tab)
+                if (e != 0L && !s.contains(e))
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this set, defined as the sum of
+     * {@link Long#hashCode(long)} of its elements, which is the hash
+     * code of a {@code Set<Long>} with the same elements.
+     *
+     * @return the hash code value for this set
+     */
+    public int hashCode() {
+        int h = 0;
+        long[] tab;
+        if ((tab = table) != null) {
+            for (long e : tab)
+                h += Long.hashCode(e);
+        }
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this set, listing its
+     * elements in iteration order, enclosed in square brackets.
+     *
+     * @return a string representation of this set
+     */
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ", "[", "]");
+        forEach((long e) -> sj.add(Long.toString(e)));
+        return sj.toString();
+    }
+
+    /**
+     * Saves the state of this set to a stream.
+     *
+     * @serialData The size of the set is emitted (int), followed by
+     *             all of its elements (each a long) in no particular
+     *             order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if (hasZero)
+            s.writeLong(0L);
+        long[] tab;
+        if ((tab = table) != null) {
+            for (long e : tab)
+                if (e != 0L)
+                    s.writeLong(e);
+        }
+    }
+
+    /**
+     * Reconstitutes this set from a stream.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new java.io.InvalidObjectException("Illegal load factor: " +
+                                                     loadFactor);
+        int n = s.readInt();
+        if (n < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + n);
+        table = null;
+        threshold = tableSizeFor(n, loadFactor);
+        for (int i = 0; i < n; ++i)
+            add(s.readLong());
+    }
+}
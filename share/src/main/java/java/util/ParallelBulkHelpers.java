@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * ForkJoin tasks to perform the parallel bulk operations of {@link
+ * ArrayList}, {@link HashMap} and {@link TreeMap}.  Collections are
+ * divided using their own spliterators, or by index ranges, until
+ * pieces are small enough to process sequentially, in the manner of
+ * Arrays.parallelSort: pieces are about 1/(4 * parallelism) of the
+ * whole but no smaller than {@link #MIN_GRAN} elements, and
+ * collections no larger than that, or any collection when the common
+ * pool has parallelism one, are processed in the calling thread.
+ *
+ * @since 9
+ */
+final class ParallelBulkHelpers {
+    private ParallelBulkHelpers() {} // non-instantiable
+
+    /**
+     * The minimum number of elements processed by a task.
+     */
+    static final int MIN_GRAN = 1 << 12;
+
+    /**
+     * Returns the number of elements to be processed by each task
+     * for a collection of the given size, or zero if it should be
+     * processed sequentially.
+     */
+    static long granularity(long n) {
+        int p; long g;
+        if (n <= MIN_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            return 0L;
+        return ((g = n / (p << 2)) <= MIN_GRAN) ? MIN_GRAN : g;
+    }
+
+    /**
+     * Performs the action for each remaining element of the
+     * spliterator, in parallel.
+     */
+    static <T> void forEach(Spliterator<T> s, Consumer<? super T> action) {
+        long g = granularity(s.estimateSize());
+        if (g == 0L)
+            s.forEachRemaining(action);
+        else
+            new ForEachTask<T>(null, s, action, g).invoke();
+    }
+
+    /**
+     * Returns the remaining elements of the spliterator that satisfy
+     * the filter, tested in parallel, in no particular order.
+     */
+    static <T> ArrayList<T> filter(Spliterator<T> s, Predicate<? super T> filter) {
+        long g = granularity(s.estimateSize());
+        ArrayList<T> matches = new ArrayList<T>();
+        if (g == 0L)
+            s.forEachRemaining(e -> { if (filter.test(e)) matches.add(e); });
+        else {
+            ConcurrentLinkedQueue<ArrayList<T>> parts =
+                new ConcurrentLinkedQueue<ArrayList<T>>();
+            new FilterTask<T>(null, s, filter, g, parts).invoke();
+            for (ArrayList<T> part : parts)
+                matches.addAll(part);
+        }
+        return matches;
+    }
+
+    /**
+     * Performs the action for each index in [0, n), in parallel,
+     * where each index stands for the given number of elements.
+     */
+    static void forEachIndex(int n, int weight, IntConsumer action) {
+        long g = granularity((long)n * weight) / weight;
+        if (g == 0L) {
+            for (int i = 0; i < n; ++i)
+                action.accept(i);
+        }
+        else
+            new RangeTask(null, 0, n, (int)Math.min(g, Integer.MAX_VALUE),
+                          action).invoke();
+    }
+
+    /**
+     * Task forking the prefixes split off its spliterator while it is
+     * larger than the granularity, then traversing the rest.
+     */
+    static final class ForEachTask<T> extends CountedCompleter<Void> {
+        private static final long serialVersionUID = -3871257404553185726L;
+        Spliterator<T> spliterator;
+        final Consumer<? super T> action;
+        final long granularity;
+
+        ForEachTask(ForEachTask<T> parent, Spliterator<T> spliterator,
+                    Consumer<? super T> action, long granularity) {
+            super(parent);
+            this.spliterator = spliterator;
+            this.action = action;
+            this.granularity = granularity;
+        }
+
+        public void compute() {
+            Spliterator<T> rs = spliterator, ls;
+            while (rs.estimateSize() > granularity &&
+                   (ls = rs.trySplit()) != null) {
+                addToPendingCount(1);
+                new ForEachTask<T>(this, ls, action, granularity).fork();
+            }
+            rs.forEachRemaining(action);
+            spliterator = null;
+            propagateCompletion();
+        }
+    }
+
+    /**
+     * Task splitting as ForEachTask, and adding the list of matches
+     * of each piece, if any, to a shared queue.
+     */
+    static final class FilterTask<T> extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 5734178929465410713L;
+        Spliterator<T> spliterator;
+        final Predicate<? super T> filter;
+        final long granularity;
+        final ConcurrentLinkedQueue<ArrayList<T>> parts;
+
+        FilterTask(FilterTask<T> parent, Spliterator<T> spliterator,
+                   Predicate<? super T> filter, long granularity,
+                   ConcurrentLinkedQueue<ArrayList<T>> parts) {
+            super(parent);
+            this.spliterator = spliterator;
+            this.filter = filter;
+            this.granularity = granularity;
+            this.parts = parts;
+        }
+
+        public void compute() {
+            Spliterator<T> rs = spliterator, ls;
+            while (rs.estimateSize() > granularity &&
+                   (ls = rs.trySplit()) != null) {
+                addToPendingCount(1);
+                new FilterTask<T>(this, ls, filter, granularity, parts).fork();
+            }
+            final Predicate<? super T> f = filter;
+            ArrayList<T> matches = new ArrayList<T>();
+            rs.forEachRemaining(e -> { if (f.test(e)) matches.add(e); });
+            if (!matches.isEmpty())
+                parts.add(matches);
+            spliterator = null;
+            propagateCompletion();
+        }
+    }
+
+    /**
+     * Task forking the upper halves of its index range while it is
+     * larger than the granularity, then processing the rest.
+     */
+    static final class RangeTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 2270432851387536052L;
+        final int lo;
+        int hi;
+        final int granularity;
+        final IntConsumer action;
+
+        RangeTask(RangeTask parent, int lo, int hi, int granularity,
+                  IntConsumer action) {
+            super(parent);
+            this.lo = lo;
+            this.hi = hi;
+            this.granularity = granularity;
+            this.action = action;
+        }
+
+        public void compute() {
+            final int l = lo, g = granularity;
+            int h = hi;
+            while (h - l > g) {
+                int mid = (l + h) >>> 1;
+                addToPendingCount(1);
+                new RangeTask(this, mid, h, g, action).fork();
+                h = mid;
+            }
+            final IntConsumer a = action;
+            for (int i = l; i < h; ++i)
+                a.accept(i);
+            propagateCompletion();
+        }
+    }
+}
@@ -28,6 +28,7 @@ package java.util;
 import java.io.Serializable;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 
 /**
@@ -1020,6 +1021,82 @@ public class TreeMap<K,V>
         }
     }
 
+    /**
+     * Performs the given action for each entry in this map, in
+     * parallel, using the {@link java.util.concurrent.ForkJoinPool#commonPool()
+     * common pool}.  Unlike {@link #forEach}, the action may be
+     * performed at the same time in different threads and in no
+     * particular order, so it must be safe to apply concurrently.
+     * Maps too small to benefit are processed in the calling thread.
+     *
+     * @param action the action to be performed for each entry
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the map is
+     *         structurally modified while the action is performed
+     * @since 9
+     */
+    public void parallelForEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        ParallelBulkHelpers.forEach
+            (new EntrySpliterator<K,V>(this, null, null, 0, -1, modCount),
+             e -> action.accept(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Replaces each entry's value with the result of invoking the
+     * given function on that entry, in parallel, as by {@link
+     * #parallelForEach}.
+     *
+     * @param function the function to apply to each entry
+     * @throws NullPointerException if the specified function is null
+     * @throws ConcurrentModificationException if the map is
+     *         structurally modified while the function is applied
+     * @since 9
+     */
+    public void parallelReplaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        ParallelBulkHelpers.forEach
+            (new EntrySpliterator<K,V>(this, null, null, 0, -1, modCount),
+             e -> {
+                 Entry<K,V> p = (Entry<K,V>)e;
+                 p.value = function.apply(p.key, p.value);
+             });
+    }
+
+    /**
+     * Removes all of the entries of this map that satisfy the given
+     * predicate.  The predicate is tested in parallel, as by {@link
+     * #parallelForEach}; matching entries are then removed in the
+     * calling thread.  If the predicate throws an exception the map
+     * is left unmodified.
+     *
+     * @param filter a predicate which returns {@code true} for
+     *        entries to be removed
+     * @return {@code true} if any entries were removed
+     * @throws NullPointerException if the specified filter is null
+     * @throws ConcurrentModificationException if the map is
+     *         structurally modified while the predicate is tested
+     * @since 9
+     */
+    public boolean parallelRemoveIf(BiPredicate<? super K, ? super V> filter) {
+        Objects.requireNonNull(filter);
+        ArrayList<Map.Entry<K,V>> matches = ParallelBulkHelpers.filter
+            (new EntrySpliterator<K,V>(this, null, null, 0, -1, modCount),
+             e -> filter.test(e.getKey(), e.getValue()));
+        // Collect keys first: deleteEntry may move a successor's key
+        // and value into the node being deleted.
+        int n = matches.size();
+        Object[] keys = new Object[n];
+        for (int i = 0; i < n; ++i)
+            keys[i] = ((Entry<K,V>)matches.get(i)).key;
+        for (Object k : keys) {
+            Entry<K,V> p = getEntry(k);
+            if (p != null)
+                deleteEntry(p);
+        }
+        return n > 0;
+    }
+
     // View class support
 
     class Values extends AbstractCollection<V> {
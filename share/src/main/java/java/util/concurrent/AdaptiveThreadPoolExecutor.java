@@ -0,0 +1,550 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ThreadPoolExecutor} that adjusts its core pool size to the
+ * offered load.  A plain {@code ThreadPoolExecutor} creates threads
+ * beyond the core pool size only when its queue rejects a task, so
+ * with an unbounded queue it never grows, and with a direct handoff
+ * queue it repeatedly creates and retires threads as load varies.
+ * This class instead samples, at a regular {@linkplain
+ * #setSampleInterval sample interval}, the rate at which tasks
+ * complete and the time tasks spend waiting in the queue, and moves
+ * the core pool size between the {@linkplain #getMinimumPoolSize
+ * minimum pool size} and the {@linkplain #getMaximumPoolSize maximum
+ * pool size}:
+ *
+ * <ul>
+ *
+ * <li>If tasks wait longer than the {@linkplain #setTargetQueueDelay
+ * target queue delay}, the core pool size is increased by a quarter
+ * (at least one thread).
+ *
+ * <li>Increases are treated as hill-climbing probes: if the previous
+ * increase did not raise throughput while tasks were still waiting,
+ * then the extra threads are not helping (for example because the
+ * tasks are bound by some other resource), so the increase is undone
+ * and the pool is held below that size for several intervals.
+ *
+ * <li>If tasks wait less than half the target and some core threads
+ * are idle, the core pool size is decreased by half the number of
+ * idle threads.
+ *
+ * <li>If more threads than the core pool size are busy, as happens
+ * with direct handoff queues, the core pool size is raised towards
+ * the number of busy threads, so that they are not retired and
+ * recreated between bursts.
+ *
+ * </ul>
+ *
+ * <p>Sampling is piggy-backed on task submission and completion, so
+ * no additional thread is used, and the per-task overhead is that of
+ * reading the clock and updating a striped counter.  Tasks are not
+ * timed individually: the queueing delay is estimated, by Little's
+ * law, as the time needed to complete the tasks currently queued at
+ * the throughput of the last interval.  The most recent measurements
+ * and decisions are available through methods such as {@link
+ * #getAverageQueueDelay}, {@link #getThroughput} and {@link
+ * #getLastAdjustment}.
+ *
+ * @since 9
+ */
+public class AdaptiveThreadPoolExecutor extends ThreadPoolExecutor {
+
+    /**
+     * Default target queueing delay, in nanoseconds.
+     */
+    private static final long DEFAULT_TARGET_QUEUE_DELAY =
+        TimeUnit.MILLISECONDS.toNanos(10L);
+
+    /**
+     * Default sample interval, in nanoseconds.
+     */
+    private static final long DEFAULT_SAMPLE_INTERVAL =
+        TimeUnit.MILLISECONDS.toNanos(500L);
+
+    /**
+     * The relative throughput improvement that an increase of the
+     * pool size must achieve to be considered useful.
+     */
+    private static final double MIN_GAIN = 0.05;
+
+    /**
+     * The number of sample intervals during which the pool is held
+     * below a size at which adding threads did not help.
+     */
+    private static final int HOLD_INTERVALS = 8;
+
+    /* Configuration, all durations in nanoseconds */
+    private volatile int minimumPoolSize;
+    private volatile long targetQueueDelay = DEFAULT_TARGET_QUEUE_DELAY;
+    private volatile long sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+
+    /* Per-task measurements, reset at each sample */
+    private final LongAdder completedTasks = new LongAdder();
+
+    /** Serializes sampling; acquired only with tryLock */
+    private final ReentrantLock controlLock = new ReentrantLock();
+
+    /** Time at which the next sample is due */
+    private volatile long nextSampleTime;
+
+    /* Controller state, guarded by controlLock */
+    private long lastSampleTime;
+    private int ceiling;          // upper bound while holding, else 0
+    private int holdRemaining;    // intervals to keep the ceiling
+
+    /* Most recent measurements and decisions */
+    private volatile long lastQueueDelay;
+    private volatile double lastThroughput;
+    private volatile int lastAdjustment;
+    private volatile long adjustmentCount;
+
+    /**
+     * Creates a new {@code AdaptiveThreadPoolExecutor} with the given
+     * initial parameters, the default thread factory and the default
+     * rejected execution handler.
+     *
+     * @param minimumPoolSize the number of threads to keep in the
+     *        pool, even if they are idle, unless {@code
+     *        allowCoreThreadTimeOut} is set; also the initial core
+     *        pool size
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool, and the upper bound of the core pool size
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @param workQueue the queue to use for holding tasks before they are
+     *        executed.  This queue will hold only the {@code Runnable}
+     *        tasks submitted by the {@code execute} method.
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code minimumPoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < minimumPoolSize}
+     * @throws NullPointerException if {@code workQueue} is null
+     */
+    public AdaptiveThreadPoolExecutor(int minimumPoolSize,
+                                      int maximumPoolSize,
+                                      long keepAliveTime,
+                                      TimeUnit unit,
+                                      BlockingQueue<Runnable> workQueue) {
+        super(minimumPoolSize, maximumPoolSize, keepAliveTime, unit,
+              workQueue);
+        init(minimumPoolSize);
+    }
+
+    /**
+     * Creates a new {@code AdaptiveThreadPoolExecutor} with the given
+     * initial parameters and the default rejected execution handler.
+     *
+     * @param minimumPoolSize the number of threads to keep in the
+     *        pool, even if they are idle, unless {@code
+     *        allowCoreThreadTimeOut} is set; also the initial core
+     *        pool size
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool, and the upper bound of the core pool size
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @param workQueue the queue to use for holding tasks before they are
+     *        executed.  This queue will hold only the {@code Runnable}
+     *        tasks submitted by the {@code execute} method.
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code minimumPoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < minimumPoolSize}
+     * @throws NullPointerException if {@code workQueue}
+     *         or {@code threadFactory} is null
+     */
+    public AdaptiveThreadPoolExecutor(int minimumPoolSize,
+                                      int maximumPoolSize,
+                                      long keepAliveTime,
+                                      TimeUnit unit,
+                                      BlockingQueue<Runnable> workQueue,
+                                      ThreadFactory threadFactory) {
+        super(minimumPoolSize, maximumPoolSize, keepAliveTime, unit,
+              workQueue, threadFactory);
+        init(minimumPoolSize);
+    }
+
+    /**
+     * Creates a new {@code AdaptiveThreadPoolExecutor} with the given
+     * initial parameters and the default thread factory.
+     *
+     * @param minimumPoolSize the number of threads to keep in the
+     *        pool, even if they are idle, unless {@code
+     *        allowCoreThreadTimeOut} is set; also the initial core
+     *        pool size
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool, and the upper bound of the core pool size
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @param workQueue the queue to use for holding tasks before they are
+     *        executed.  This queue will hold only the {@code Runnable}
+     *        tasks submitted by the {@code execute} method.
+     * @param handler the handler to use when execution is blocked
+     *        because the thread bounds and queue capacities are reached
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code minimumPoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < minimumPoolSize}
+     * @throws NullPointerException if {@code workQueue}
+     *         or {@code handler} is null
+     */
+    public AdaptiveThreadPoolExecutor(int minimumPoolSize,
+                                      int maximumPoolSize,
+                                      long keepAliveTime,
+                                      TimeUnit unit,
+                                      BlockingQueue<Runnable> workQueue,
+                                      RejectedExecutionHandler handler) {
+        super(minimumPoolSize, maximumPoolSize, keepAliveTime, unit,
+              workQueue, handler);
+        init(minimumPoolSize);
+    }
+
+    /**
+     * Creates a new {@code AdaptiveThreadPoolExecutor} with the given
+     * initial parameters.
+     *
+     * @param minimumPoolSize the number of threads to keep in the
+     *        pool, even if they are idle, unless {@code
+     *        allowCoreThreadTimeOut} is set; also the initial core
+     *        pool size
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool, and the upper bound of the core pool size
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @param workQueue the queue to use for holding tasks before they are
+     *        executed.  This queue will hold only the {@code Runnable}
+     *        tasks submitted by the {@code execute} method.
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @param handler the handler to use when execution is blocked
+     *        because the thread bounds and queue capacities are reached
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code minimumPoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < minimumPoolSize}
+     * @throws NullPointerException if {@code workQueue}
+     *         or {@code threadFactory} or {@code handler} is null
+     */
+    public AdaptiveThreadPoolExecutor(int minimumPoolSize,
+                                      int maximumPoolSize,
+                                      long keepAliveTime,
+                                      TimeUnit unit,
+                                      BlockingQueue<Runnable> workQueue,
+                                      ThreadFactory threadFactory,
+                                      RejectedExecutionHandler handler) {
+        super(minimumPoolSize, maximumPoolSize, keepAliveTime, unit,
+              workQueue, threadFactory, handler);
+        init(minimumPoolSize);
+    }
+
+    private void init(int minimumPoolSize) {
+        this.minimumPoolSize = minimumPoolSize;
+        long now = System.nanoTime();
+        lastSampleTime = now;
+        nextSampleTime = now + sampleInterval;
+    }
+
+    /* Submission */
+
+    /**
+     * Executes the given task sometime in the future, as specified by
+     * {@link ThreadPoolExecutor#execute}, and adjusts the core pool
+     * size if a sample is due.
+     *
+     * @param command the task to execute
+     * @throws RejectedExecutionException at discretion of
+     *         {@code RejectedExecutionHandler}, if the task
+     *         cannot be accepted for execution
+     * @throws NullPointerException if {@code command} is null
+     */
+    public void execute(Runnable command) {
+        super.execute(command);
+        if (System.nanoTime() - nextSampleTime >= 0L)
+            trySample();
+    }
+
+    /* Measurement hooks */
+
+    /**
+     * Records the completion of the task, and adjusts the core pool
+     * size if a sample is due.  Subclasses overriding this method
+     * should invoke {@code super.afterExecute}.
+     *
+     * @param r the runnable that has completed
+     * @param t the exception that caused termination, or null if
+     * execution completed normally
+     */
+    protected void afterExecute(Runnable r, Throwable t) {
+        completedTasks.increment();
+        if (System.nanoTime() - nextSampleTime >= 0L)
+            trySample();
+    }
+
+    /* Controller */
+
+    private void trySample() {
+        final ReentrantLock lock = controlLock;
+        if (lock.tryLock()) {
+            try {
+                long now = System.nanoTime();
+                if (now - nextSampleTime >= 0L && !isShutdown())
+                    sample(now);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Takes a sample and adjusts the core pool size.  Called while
+     * holding controlLock.
+     */
+    private void sample(long now) {
+        long elapsed = now - lastSampleTime;
+        lastSampleTime = now;
+        nextSampleTime = now + sampleInterval;
+        if (elapsed <= 0L)
+            return;
+
+        long completed = completedTasks.sumThenReset();
+        double throughput = completed * 1e9 / elapsed;
+        // Little's law: the queued tasks wait about as long as it takes
+        // to complete that many tasks at the current throughput.  If
+        // none completed, they have waited at least the whole interval.
+        int queued = getQueue().size();
+        long delay;
+        if (queued == 0)
+            delay = 0L;
+        else if (completed == 0L)
+            delay = elapsed;
+        else
+            delay = (long)((double)queued * elapsed / completed);
+        double previousThroughput = lastThroughput;
+        int previousAdjustment = lastAdjustment;
+
+        long target = targetQueueDelay;
+        int core = getCorePoolSize();
+        int min = minimumPoolSize;
+        int max = getMaximumPoolSize();
+        if (holdRemaining > 0 && --holdRemaining == 0)
+            ceiling = 0;
+        int limit = (ceiling > 0) ? Math.min(ceiling, max) : max;
+        int active = getActiveCount();
+
+        int delta = 0;
+        if (delay > target) {
+            if (previousAdjustment > 0 &&
+                throughput < previousThroughput * (1.0 + MIN_GAIN)) {
+                // The last increase did not help: undo it and hold
+                delta = -previousAdjustment;
+                ceiling = core + delta;
+                holdRemaining = HOLD_INTERVALS;
+            }
+            else if (core < limit)
+                delta = Math.min(Math.max(1, core >>> 2), limit - core);
+        }
+        else if (active > core && core < limit)
+            delta = Math.min((active - core + 1) >>> 1, limit - core);
+        else if (delay < (target >>> 1) && active < core && core > min)
+            delta = -Math.min(Math.max(1, (core - active) >>> 1), core - min);
+
+        int newCore = Math.max(min, Math.min(max, core + delta));
+        delta = newCore - core;
+        if (delta != 0) {
+            setCorePoolSize(newCore);
+            adjustmentCount = adjustmentCount + 1;
+        }
+        lastAdjustment = delta;
+        lastQueueDelay = delay;
+        lastThroughput = throughput;
+    }
+
+    /* Configuration */
+
+    /**
+     * Returns the lower bound of the core pool size.
+     *
+     * @return the minimum pool size
+     * @see #setMinimumPoolSize
+     */
+    public int getMinimumPoolSize() {
+        return minimumPoolSize;
+    }
+
+    /**
+     * Sets the lower bound of the core pool size.  If the current core
+     * pool size is smaller, it is raised to the new minimum.
+     *
+     * @param minimumPoolSize the new minimum
+     * @throws IllegalArgumentException if {@code minimumPoolSize} is
+     *         negative or greater than the maximum pool size
+     * @see #getMinimumPoolSize
+     */
+    public void setMinimumPoolSize(int minimumPoolSize) {
+        if (minimumPoolSize < 0 || minimumPoolSize > getMaximumPoolSize())
+            throw new IllegalArgumentException();
+        this.minimumPoolSize = minimumPoolSize;
+        if (getCorePoolSize() < minimumPoolSize)
+            setCorePoolSize(minimumPoolSize);
+    }
+
+    /**
+     * Returns the queueing delay above which the pool grows.
+     *
+     * @param unit the desired time unit of the result
+     * @return the target queueing delay
+     * @see #setTargetQueueDelay
+     */
+    public long getTargetQueueDelay(TimeUnit unit) {
+        return unit.convert(targetQueueDelay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the queueing delay above which the pool grows.  The pool
+     * shrinks when tasks wait for less than half this delay and some
+     * core threads are idle.  The default is 10 milliseconds.
+     *
+     * @param delay the target queueing delay
+     * @param unit the time unit of the {@code delay} argument
+     * @throws IllegalArgumentException if {@code delay} is negative
+     * @see #getTargetQueueDelay
+     */
+    public void setTargetQueueDelay(long delay, TimeUnit unit) {
+        if (delay < 0L)
+            throw new IllegalArgumentException();
+        targetQueueDelay = unit.toNanos(delay);
+    }
+
+    /**
+     * Returns the interval between adjustments of the core pool size.
+     *
+     * @param unit the desired time unit of the result
+     * @return the sample interval
+     * @see #setSampleInterval
+     */
+    public long getSampleInterval(TimeUnit unit) {
+        return unit.convert(sampleInterval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the interval between adjustments of the core pool size.
+     * The default is 500 milliseconds.
+     *
+     * @param interval the sample interval
+     * @param unit the time unit of the {@code interval} argument
+     * @throws IllegalArgumentException if {@code interval} is not
+     *         positive
+     * @see #getSampleInterval
+     */
+    public void setSampleInterval(long interval, TimeUnit unit) {
+        if (interval <= 0L)
+            throw new IllegalArgumentException();
+        long nanos = unit.toNanos(interval);
+        sampleInterval = nanos;
+        nextSampleTime = System.nanoTime() + nanos;
+    }
+
+    /* Metrics */
+
+    /**
+     * Returns the queueing delay estimated in the most recent sample:
+     * the time needed to complete the tasks then queued at the
+     * throughput of the sample interval, or the length of the
+     * interval if no task completed during it.
+     *
+     * @param unit the desired time unit of the result
+     * @return the most recently measured queueing delay
+     */
+    public long getAverageQueueDelay(TimeUnit unit) {
+        return unit.convert(lastQueueDelay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of tasks per second completed during the
+     * most recent sample interval.
+     *
+     * @return the most recently measured throughput
+     */
+    public double getThroughput() {
+        return lastThroughput;
+    }
+
+    /**
+     * Returns the change of the core pool size made after the most
+     * recent sample, which is positive for an increase, negative for
+     * a decrease, and zero if the size was left unchanged.
+     *
+     * @return the most recent adjustment
+     */
+    public int getLastAdjustment() {
+        return lastAdjustment;
+    }
+
+    /**
+     * Returns the number of times the core pool size has been changed
+     * by the controller.
+     *
+     * @return the number of adjustments
+     */
+    public long getAdjustmentCount() {
+        return adjustmentCount;
+    }
+
+    /**
+     * Returns a string identifying this pool, its state, and the most
+     * recent measurements of its controller.
+     *
+     * @return a string identifying this pool, as well as its state
+     */
+    public String toString() {
+        String s = super.toString();
+        return s.substring(0, s.length() - 1) +
+            ", core pool size = " + getCorePoolSize() +
+            ", queue delay = " +
+            getAverageQueueDelay(TimeUnit.MICROSECONDS) + "us" +
+            ", throughput = " + (long)getThroughput() + "/s" +
+            ", adjustments = " + getAdjustmentCount() +
+            "]";
+    }
+}
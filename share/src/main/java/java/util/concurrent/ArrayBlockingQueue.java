@@ -753,6 +753,120 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, waiting up to the specified wait time if necessary for
+     * space to become available.  The elements are copied in as many
+     * of them at a time as there is space for, each batch with a
+     * single acquisition of the lock.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no element is
+     *         inserted
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return offerAll(c, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, waiting if necessary for space to become available.  The
+     * elements are copied in as for {@link #offerAll offerAll}.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no element is
+     *         inserted
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        offerAll(c, false, 0L);
+    }
+
+    /**
+     * Implements offerAll and putAll.
+     */
+    private int offerAll(Collection<? extends E> c, boolean timed, long nanos)
+        throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        final Object[] a = c.toArray();
+        for (Object e : a)
+            checkNotNull(e);
+        if (a.length == 0)
+            return 0;
+        final Object[] items = this.items;
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            int i = 0;
+            while (i < a.length) {
+                while (count == items.length) {
+                    if (!timed)
+                        notFull.await();
+                    else if (nanos <= 0L)
+                        return i;
+                    else
+                        nanos = notFull.awaitNanos(nanos);
+                }
+                int k = Math.min(a.length - i, items.length - count);
+                int put = putIndex;
+                for (int j = 0; j < k; ++j) {
+                    items[put] = a[i++];
+                    if (++put == items.length)
+                        put = 0;
+                }
+                putIndex = put;
+                count += k;
+                for (; k > 0 && lock.hasWaiters(notEmpty); k--)
+                    notEmpty.signal();
+            }
+            return i;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue and
+     * adds them to the given collection, waiting up to the specified
+     * wait time if necessary for an element to become available.  All
+     * available elements up to the given number are removed with a
+     * single acquisition of the lock.
+     *
+     * @throws InterruptedException          {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return drainTo(c, maxElements); // reacquires the held lock
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
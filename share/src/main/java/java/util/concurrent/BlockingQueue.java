@@ -373,4 +373,139 @@ public interface BlockingQueue<E> extends Queue<E> {
      *         it from being added to the specified collection
      */
     int drainTo(Collection<? super E> c, int maxElements);
+
+    /**
+     * Inserts the elements of the given collection into this queue, in
+     * the order they are returned by the collection's iterator, waiting
+     * up to the specified wait time if necessary for space to become
+     * available.  Implementations may insert the elements in batches,
+     * each with a single acquisition of a lock or atomic update, and
+     * waking waiting consumers once per batch.  Attempts to insert a
+     * queue into itself result in {@code IllegalArgumentException}.
+     *
+     * @implSpec
+     * The default implementation invokes {@link #offer(Object, long,
+     * TimeUnit) offer} for each element in turn, with the remaining
+     * wait time, until an offer fails.
+     *
+     * @param c the elements to insert
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements inserted, which is less than the
+     *         size of the collection only if the waiting time elapsed
+     *         before space was available for all of them
+     * @throws InterruptedException if interrupted while waiting, in
+     *         which case some elements may have been inserted
+     * @throws ClassCastException if the class of an element
+     *         prevents it from being added to this queue
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case some elements may
+     *         have been inserted
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue, or some property of an element prevents it
+     *         from being added to this queue
+     * @since 9
+     */
+    default int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == this)
+            throw new IllegalArgumentException();
+        long nanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + nanos;
+        int n = 0;
+        for (E e : c) {
+            if (!offer(e, nanos, TimeUnit.NANOSECONDS))
+                break;
+            ++n;
+            nanos = deadline - System.nanoTime();
+        }
+        return n;
+    }
+
+    /**
+     * Inserts the elements of the given collection into this queue, in
+     * the order they are returned by the collection's iterator, waiting
+     * if necessary for space to become available.  Implementations may
+     * insert the elements in batches, as for {@link #offerAll offerAll}.
+     * Attempts to insert a queue into itself result in {@code
+     * IllegalArgumentException}.
+     *
+     * @implSpec
+     * The default implementation invokes {@link #put put} for each
+     * element in turn.
+     *
+     * @param c the elements to insert
+     * @throws InterruptedException if interrupted while waiting, in
+     *         which case some elements may have been inserted
+     * @throws ClassCastException if the class of an element
+     *         prevents it from being added to this queue
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case some elements may
+     *         have been inserted
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue, or some property of an element prevents it
+     *         from being added to this queue
+     * @since 9
+     */
+    default void putAll(Collection<? extends E> c)
+        throws InterruptedException {
+        if (c == this)
+            throw new IllegalArgumentException();
+        for (E e : c)
+            put(e);
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue and
+     * adds them to the given collection, waiting up to the specified
+     * wait time if necessary for an element to become available.  Once
+     * an element is available, does not wait for more, but transfers
+     * all available elements up to the given number, possibly with a
+     * single acquisition of a lock.  A failure encountered while
+     * attempting to add elements to collection {@code c} may result in
+     * elements being in neither, either or both collections when the
+     * associated exception is thrown.  Attempts to drain a queue to
+     * itself result in {@code IllegalArgumentException}.
+     *
+     * @implSpec
+     * The default implementation invokes {@link #poll(long, TimeUnit)
+     * poll} with the given wait time, then {@link #drainTo(Collection,
+     * int) drainTo} for the remaining elements.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements transferred, or zero if the
+     *         waiting time elapsed before an element was available
+     * @throws InterruptedException if interrupted while waiting
+     * @throws UnsupportedOperationException if addition of elements
+     *         is not supported by the specified collection
+     * @throws ClassCastException if the class of an element of this queue
+     *         prevents it from being added to the specified collection
+     * @throws NullPointerException if the specified collection is null
+     * @throws IllegalArgumentException if the specified collection is this
+     *         queue, or some property of an element of this queue prevents
+     *         it from being added to the specified collection
+     * @since 9
+     */
+    default int pollBatch(Collection<? super E> c, int maxElements,
+                          long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        E e = poll(timeout, unit);
+        if (e == null)
+            return 0;
+        c.add(e);
+        return 1 + drainTo(c, maxElements - 1);
+    }
 }
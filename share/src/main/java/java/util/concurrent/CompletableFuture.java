@@ -47,6 +47,9 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimingWheelScheduledExecutor;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
@@ -74,9 +77,13 @@ import java.util.concurrent.locks.LockSupport;
  * a completion method.</li>
  *
  * <li>All <em>async</em> methods without an explicit Executor
- * argument are performed using the {@link ForkJoinPool#commonPool()}
- * (unless it does not support a parallelism level of at least two, in
- * which case, a new Thread is created to run each task).  To simplify
+ * argument are performed using the {@link #defaultExecutor()}, by
+ * default the {@link ForkJoinPool#commonPool()} (unless it does not
+ * support a parallelism level of at least two, in which case, a new
+ * Thread is created to run each task).  Dependent stages are created
+ * by {@link #newIncompleteFuture()}, so a subclass overriding both
+ * methods determines the default executor of every stage derived from
+ * its instances.  To simplify
  * monitoring, debugging, and tracking, all generated asynchronous
  * tasks are instances of the marker interface {@link
  * AsynchronousCompletionTask}. </li>
@@ -542,6 +549,24 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         }
     }
 
+    /**
+     * Completes this dependent exceptionally if source a has already
+     * completed exceptionally, so that async stages whose actions do
+     * not run in that case need not allocate and dispatch a
+     * Completion only to propagate the exception.
+     *
+     * @return true if a had completed exceptionally
+     */
+    final boolean uniFailed(CompletableFuture<?> a) {
+        Object r; Throwable x;
+        if (a == null || !((r = a.result) instanceof AltResult) ||
+            (x = ((AltResult)r).ex) == null)
+            return false;
+        if (result == null)
+            completeThrowable(x, r);
+        return true;
+    }
+
     /**
      * Post-processing by dependent after successful UniCompletion
      * tryFire.  Tries to clean stack of source a, and then either runs
@@ -610,8 +635,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private <V> CompletableFuture<V> uniApplyStage(
         Executor e, Function<? super T,? extends V> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<V> d =  new CompletableFuture<V>();
-        if (e != null || !d.uniApply(this, f, null)) {
+        CompletableFuture<V> d = newIncompleteFuture();
+        if (e != null ? !d.uniFailed(this) : !d.uniApply(this, f, null)) {
             UniApply<T,V> c = new UniApply<T,V>(e, d, this, f);
             push(c);
             c.tryFire(SYNC);
@@ -665,8 +690,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private CompletableFuture<Void> uniAcceptStage(Executor e,
                                                    Consumer<? super T> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
-        if (e != null || !d.uniAccept(this, f, null)) {
+        CompletableFuture<Void> d = newIncompleteFuture();
+        if (e != null ? !d.uniFailed(this) : !d.uniAccept(this, f, null)) {
             UniAccept<T> c = new UniAccept<T>(e, d, this, f);
             push(c);
             c.tryFire(SYNC);
@@ -713,8 +738,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     private CompletableFuture<Void> uniRunStage(Executor e, Runnable f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
-        if (e != null || !d.uniRun(this, f, null)) {
+        CompletableFuture<Void> d = newIncompleteFuture();
+        if (e != null ? !d.uniFailed(this) : !d.uniRun(this, f, null)) {
             UniRun<T> c = new UniRun<T>(e, d, this, f);
             push(c);
             c.tryFire(SYNC);
@@ -774,7 +799,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private CompletableFuture<T> uniWhenCompleteStage(
         Executor e, BiConsumer<? super T, ? super Throwable> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<T> d = new CompletableFuture<T>();
+        CompletableFuture<T> d = newIncompleteFuture();
         if (e != null || !d.uniWhenComplete(this, f, null)) {
             UniWhenComplete<T> c = new UniWhenComplete<T>(e, d, this, f);
             push(c);
@@ -830,7 +855,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private <V> CompletableFuture<V> uniHandleStage(
         Executor e, BiFunction<? super T, Throwable, ? extends V> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<V> d = new CompletableFuture<V>();
+        CompletableFuture<V> d = newIncompleteFuture();
         if (e != null || !d.uniHandle(this, f, null)) {
             UniHandle<T,V> c = new UniHandle<T,V>(e, d, this, f);
             push(c);
@@ -880,7 +905,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private CompletableFuture<T> uniExceptionallyStage(
         Function<Throwable, ? extends T> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<T> d = new CompletableFuture<T>();
+        CompletableFuture<T> d = newIncompleteFuture();
         if (!d.uniExceptionally(this, f, null)) {
             UniExceptionally<T> c = new UniExceptionally<T>(d, this, f);
             push(c);
@@ -972,7 +997,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
             // try to return function result directly
             if (r instanceof AltResult) {
                 if ((x = ((AltResult)r).ex) != null) {
-                    return new CompletableFuture<V>(encodeThrowable(x, r));
+                    return completedDependent(encodeThrowable(x, r));
                 }
                 r = null;
             }
@@ -981,17 +1006,19 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
                 CompletableFuture<V> g = f.apply(t).toCompletableFuture();
                 Object s = g.result;
                 if (s != null)
-                    return new CompletableFuture<V>(encodeRelay(s));
-                CompletableFuture<V> d = new CompletableFuture<V>();
+                    return completedDependent(encodeRelay(s));
+                CompletableFuture<V> d = newIncompleteFuture();
                 UniRelay<V> copy = new UniRelay<V>(d, g);
                 g.push(copy);
                 copy.tryFire(SYNC);
                 return d;
             } catch (Throwable ex) {
-                return new CompletableFuture<V>(encodeThrowable(ex));
+                return completedDependent(encodeThrowable(ex));
             }
         }
-        CompletableFuture<V> d = new CompletableFuture<V>();
+        CompletableFuture<V> d = newIncompleteFuture();
+        if (d.uniFailed(this))
+            return d;
         UniCompose<T,V> c = new UniCompose<T,V>(e, d, this, f);
         push(c);
         c.tryFire(SYNC);
@@ -1116,7 +1143,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<U> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<V> d = new CompletableFuture<V>();
+        CompletableFuture<V> d = newIncompleteFuture();
         if (e != null || !d.biApply(this, b, f, null)) {
             BiApply<T,U,V> c = new BiApply<T,U,V>(e, d, this, b, f);
             bipush(b, c);
@@ -1188,7 +1215,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<U> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newIncompleteFuture();
         if (e != null || !d.biAccept(this, b, f, null)) {
             BiAccept<T,U> c = new BiAccept<T,U>(e, d, this, b, f);
             bipush(b, c);
@@ -1247,7 +1274,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<?> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newIncompleteFuture();
         if (e != null || !d.biRun(this, b, f, null)) {
             BiRun<T,?> c = new BiRun<>(e, d, this, b, f);
             bipush(b, c);
@@ -1388,7 +1415,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<U> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<V> d = new CompletableFuture<V>();
+        CompletableFuture<V> d = newIncompleteFuture();
         if (e != null || !d.orApply(this, b, f, null)) {
             OrApply<T,U,V> c = new OrApply<T,U,V>(e, d, this, b, f);
             orpush(b, c);
@@ -1452,7 +1479,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<U> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newIncompleteFuture();
         if (e != null || !d.orAccept(this, b, f, null)) {
             OrAccept<T,U> c = new OrAccept<T,U>(e, d, this, b, f);
             orpush(b, c);
@@ -1510,7 +1537,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<?> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newIncompleteFuture();
         if (e != null || !d.orRun(this, b, f, null)) {
             OrRun<T,?> c = new OrRun<>(e, d, this, b, f);
             orpush(b, c);
@@ -1985,7 +2012,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     public <U> CompletableFuture<U> thenApplyAsync(
         Function<? super T,? extends U> fn) {
-        return uniApplyStage(asyncPool, fn);
+        return uniApplyStage(defaultExecutor(), fn);
     }
 
     public <U> CompletableFuture<U> thenApplyAsync(
@@ -1998,7 +2025,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     }
 
     public CompletableFuture<Void> thenAcceptAsync(Consumer<? super T> action) {
-        return uniAcceptStage(asyncPool, action);
+        return uniAcceptStage(defaultExecutor(), action);
     }
 
     public CompletableFuture<Void> thenAcceptAsync(Consumer<? super T> action,
@@ -2011,7 +2038,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     }
 
     public CompletableFuture<Void> thenRunAsync(Runnable action) {
-        return uniRunStage(asyncPool, action);
+        return uniRunStage(defaultExecutor(), action);
     }
 
     public CompletableFuture<Void> thenRunAsync(Runnable action,
@@ -2028,7 +2055,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     public <U,V> CompletableFuture<V> thenCombineAsync(
         CompletionStage<? extends U> other,
         BiFunction<? super T,? super U,? extends V> fn) {
-        return biApplyStage(asyncPool, other, fn);
+        return biApplyStage(defaultExecutor(), other, fn);
     }
 
     public <U,V> CompletableFuture<V> thenCombineAsync(
@@ -2046,7 +2073,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     public <U> CompletableFuture<Void> thenAcceptBothAsync(
         CompletionStage<? extends U> other,
         BiConsumer<? super T, ? super U> action) {
-        return biAcceptStage(asyncPool, other, action);
+        return biAcceptStage(defaultExecutor(), other, action);
     }
 
     public <U> CompletableFuture<Void> thenAcceptBothAsync(
@@ -2062,7 +2089,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     public CompletableFuture<Void> runAfterBothAsync(CompletionStage<?> other,
                                                      Runnable action) {
-        return biRunStage(asyncPool, other, action);
+        return biRunStage(defaultExecutor(), other, action);
     }
 
     public CompletableFuture<Void> runAfterBothAsync(CompletionStage<?> other,
@@ -2078,7 +2105,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     public <U> CompletableFuture<U> applyToEitherAsync(
         CompletionStage<? extends T> other, Function<? super T, U> fn) {
-        return orApplyStage(asyncPool, other, fn);
+        return orApplyStage(defaultExecutor(), other, fn);
     }
 
     public <U> CompletableFuture<U> applyToEitherAsync(
@@ -2094,7 +2121,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     public CompletableFuture<Void> acceptEitherAsync(
         CompletionStage<? extends T> other, Consumer<? super T> action) {
-        return orAcceptStage(asyncPool, other, action);
+        return orAcceptStage(defaultExecutor(), other, action);
     }
 
     public CompletableFuture<Void> acceptEitherAsync(
@@ -2110,7 +2137,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     public CompletableFuture<Void> runAfterEitherAsync(CompletionStage<?> other,
                                                        Runnable action) {
-        return orRunStage(asyncPool, other, action);
+        return orRunStage(defaultExecutor(), other, action);
     }
 
     public CompletableFuture<Void> runAfterEitherAsync(CompletionStage<?> other,
@@ -2126,7 +2153,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     public <U> CompletableFuture<U> thenComposeAsync(
         Function<? super T, ? extends CompletionStage<U>> fn) {
-        return uniComposeStage(asyncPool, fn);
+        return uniComposeStage(defaultExecutor(), fn);
     }
 
     public <U> CompletableFuture<U> thenComposeAsync(
@@ -2142,7 +2169,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     public CompletableFuture<T> whenCompleteAsync(
         BiConsumer<? super T, ? super Throwable> action) {
-        return uniWhenCompleteStage(asyncPool, action);
+        return uniWhenCompleteStage(defaultExecutor(), action);
     }
 
     public CompletableFuture<T> whenCompleteAsync(
@@ -2157,7 +2184,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     public <U> CompletableFuture<U> handleAsync(
         BiFunction<? super T, Throwable, ? extends U> fn) {
-        return uniHandleStage(asyncPool, fn);
+        return uniHandleStage(defaultExecutor(), fn);
     }
 
     public <U> CompletableFuture<U> handleAsync(
@@ -2341,6 +2368,182 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return count;
     }
 
+    /**
+     * Returns a new incomplete CompletableFuture of the type to be
+     * returned by a CompletionStage method.  Subclasses should
+     * normally override this method to return an instance of the same
+     * class as this CompletableFuture, so that all stages derived
+     * from it share its overrides, such as that of {@link
+     * #defaultExecutor}.  The default implementation returns an
+     * instance of class CompletableFuture.
+     *
+     * @param <U> the type of the value
+     * @return a new CompletableFuture
+     * @since 9
+     */
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new CompletableFuture<U>();
+    }
+
+    /**
+     * Returns the default Executor used for async methods that do not
+     * specify an Executor.  This class uses the {@link
+     * ForkJoinPool#commonPool()} if it supports more than one
+     * parallel thread, or else an Executor using one thread per async
+     * task.  This method may be overridden in subclasses to return an
+     * Executor that provides at least one independent thread, for
+     * example to keep all the async stages of a computation on the
+     * threads of one pool rather than hopping to the common pool.
+     *
+     * @return the executor
+     * @since 9
+     */
+    public Executor defaultExecutor() {
+        return asyncPool;
+    }
+
+    /**
+     * Exceptionally completes this CompletableFuture with a {@link
+     * TimeoutException} if not otherwise completed before the given
+     * timeout.  As with any exceptional completion, dependent stages
+     * that have not completed are then completed exceptionally with a
+     * CompletionException holding the TimeoutException, so a timeout
+     * applied to the first stage of a computation bounds the whole
+     * computation.
+     *
+     * <p>The timeout is kept by a timer shared by all
+     * CompletableFutures, a {@link TimingWheelScheduledExecutor}
+     * with a resolution of one millisecond, from which it is removed
+     * in constant time if this CompletableFuture completes first.
+     * When the timeout expires, this CompletableFuture and its
+     * non-async dependents are completed by the thread of that timer,
+     * so such dependents should be brief.
+     *
+     * @param timeout how long to wait before completing exceptionally
+     *        with a TimeoutException, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return this CompletableFuture
+     * @since 9
+     */
+    public CompletableFuture<T> orTimeout(long timeout, TimeUnit unit) {
+        if (unit == null)
+            throw new NullPointerException();
+        if (result == null)
+            scheduleTimeout(new Timeout<T>(this, null, true), timeout, unit);
+        return this;
+    }
+
+    /**
+     * Completes this CompletableFuture with the given value if not
+     * otherwise completed before the given timeout.  The timeout is
+     * kept as described for {@link #orTimeout}.
+     *
+     * @param value the value to use upon timeout
+     * @param timeout how long to wait before completing normally
+     *        with the given value, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return this CompletableFuture
+     * @since 9
+     */
+    public CompletableFuture<T> completeOnTimeout(T value, long timeout,
+                                                  TimeUnit unit) {
+        if (unit == null)
+            throw new NullPointerException();
+        if (result == null)
+            scheduleTimeout(new Timeout<T>(this, value, false), timeout, unit);
+        return this;
+    }
+
+    /**
+     * Pushes timeout c onto the stack of this future, so that it is
+     * fired, cancelling its timer entry, when this future completes,
+     * and schedules it with the shared timer.
+     */
+    private void scheduleTimeout(Timeout<T> c, long timeout, TimeUnit unit) {
+        while (result == null && !tryPushStack(c))
+            lazySetNext(c, null); // clear on failure
+        if (result == null) {
+            c.timer = Delayer.delay(c, timeout, unit);
+            if (c.src == null)    // completed while scheduling
+                c.timer.cancel(false);
+        }
+    }
+
+    /**
+     * A timeout of its source future, both scheduled with the shared
+     * timer, which runs it (mode ASYNC) when the timeout expires, and
+     * pushed as a dependent of the source, which fires it (mode SYNC
+     * or NESTED) on completion to cancel the timer entry.  This avoids
+     * allocating a separate dependent stage to observe completion.
+     */
+    @SuppressWarnings("serial")
+    static final class Timeout<T> extends Completion {
+        volatile CompletableFuture<T> src;    // null when fired
+        volatile ScheduledFuture<?> timer;    // null until scheduled
+        final T value;                        // value if !exceptional
+        final boolean exceptional;            // true for orTimeout
+        Timeout(CompletableFuture<T> src, T value, boolean exceptional) {
+            this.src = src; this.value = value; this.exceptional = exceptional;
+        }
+        final CompletableFuture<?> tryFire(int mode) {
+            CompletableFuture<T> a; ScheduledFuture<?> t;
+            if ((a = src) != null) {
+                if (mode == ASYNC) {          // timed out
+                    src = null;
+                    if (a.result == null) {
+                        if (exceptional)
+                            a.completeExceptionally(new TimeoutException());
+                        else
+                            a.complete(value);
+                    }
+                }
+                else if (a.result != null) {  // completed first
+                    src = null;
+                    if ((t = timer) != null)
+                        t.cancel(false);
+                }
+            }
+            return null;
+        }
+        final boolean isLive() { return src != null; }
+    }
+
+    /**
+     * Holder of the timer shared by all CompletableFutures, created
+     * on first use.
+     */
+    static final class Delayer {
+        static ScheduledFuture<?> delay(Runnable command, long delay,
+                                        TimeUnit unit) {
+            return delayer.schedule(command, delay, unit);
+        }
+
+        static final class DaemonThreadFactory implements ThreadFactory {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                t.setName("CompletableFutureDelayScheduler");
+                return t;
+            }
+        }
+
+        static final TimingWheelScheduledExecutor delayer =
+            new TimingWheelScheduledExecutor
+            (1, 1L, TimeUnit.MILLISECONDS, 512, new DaemonThreadFactory());
+    }
+
+    /**
+     * Returns a new dependent created by newIncompleteFuture, already
+     * completed with the given encoded result.
+     */
+    private <U> CompletableFuture<U> completedDependent(Object r) {
+        CompletableFuture<U> d = newIncompleteFuture();
+        d.result = r;
+        return d;
+    }
+
     /**
      * Returns a string identifying this CompletableFuture, as well as
      * its completion state.  The state, in brackets, contains the
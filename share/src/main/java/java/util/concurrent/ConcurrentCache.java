@@ -0,0 +1,1648 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A concurrent cache, bounded by size or weight, whose entries may
+ * expire or be refreshed a fixed time after they are written or last
+ * accessed.  Retrievals never block and, like those of the {@link
+ * ConcurrentHashMap} holding the entries, may overlap updates.
+ * Neither keys nor values may be {@code null}.
+ *
+ * <p>A cache is configured by a {@link Builder}:
+ * <pre> {@code
+ * ConcurrentCache<String, Graph> graphs =
+ *     new ConcurrentCache.Builder<String, Graph>()
+ *         .maximumSize(10_000)
+ *         .expireAfterWrite(10, TimeUnit.MINUTES)
+ *         .loader(key -> createExpensiveGraph(key))
+ *         .recordStats()
+ *         .build();}</pre>
+ *
+ * <p><b>Eviction.</b> When the cache is bounded, an entry may be
+ * evicted once the number of entries, or their total weight as
+ * computed by the {@linkplain Builder#weigher weigher}, exceeds the
+ * maximum.  Victims are chosen by a policy that approximates keeping
+ * the entries most likely to be used again: recently added entries
+ * wait in a small admission window, and an entry leaving the window is
+ * admitted to the main space only if its estimated frequency of use
+ * is greater than that of the entry it would replace.  The main space
+ * is a segmented LRU list, in which entries used more than once are
+ * protected from entries used only once.  Frequencies are estimated
+ * by a compact sketch whose counts periodically decay, so entries that
+ * were popular long ago do not stay cached forever.
+ *
+ * <p><b>Expiration and refresh.</b> An entry is not returned once it
+ * has expired, even if it has not yet been removed.  Expired entries
+ * are removed, and evicted entries are reported to the {@linkplain
+ * Builder#evictionListener eviction listener}, during maintenance that
+ * is performed in small amounts by threads using the cache; there are
+ * no background threads.  A cache that becomes idle may therefore
+ * retain expired entries until it is next used or {@link #cleanUp} is
+ * called.  An entry that is due for refresh is returned as is while a
+ * new value is loaded asynchronously using the configured {@linkplain
+ * Builder#executor executor}.
+ *
+ * <p><b>Consistency.</b> The bounds are enforced eventually: reads
+ * and writes are recorded in buffers that are replayed against the
+ * eviction policy under a lock, which is acquired only by a thread
+ * finding it free.  Reads are recorded in striped lossy buffers, so
+ * that under heavy contention some reads are not reflected in the
+ * policy; this affects only the choice of victims.  Methods {@link
+ * #estimatedSize} and {@link #weightedSize} return values that may
+ * not reflect concurrent or pending updates.
+ *
+ * <p><b>Statistics.</b> If enabled by {@link Builder#recordStats},
+ * hits, misses, loads and evictions are counted in {@link LongAdder}s,
+ * and a snapshot may be obtained using {@link #stats}.
+ *
+ * @since 9
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ */
+public class ConcurrentCache<K,V> {
+
+    /*
+     * Overview:
+     *
+     * Entries are held in a ConcurrentHashMap of Nodes, so reads and
+     * writes have the same concurrency properties as the map.  The
+     * eviction and expiration policy is maintained under evictionLock
+     * by replaying events recorded by readers and writers, in the
+     * manner of a write-ahead log:
+     *
+     * - Reads offer the node read to one of a small table of ring
+     *   buffers (ReadStripe), selected by the thread's probe.  An
+     *   offer is a single CAS of the stripe's write counter; if the
+     *   stripe is full or the CAS fails, the read is simply dropped.
+     *   A full stripe triggers an attempt to drain.
+     *
+     * - Writes (additions, updates, removals) must not be lost, so
+     *   they are added as tasks to a ConcurrentLinkedQueue.  Every
+     *   write then attempts to drain.
+     *
+     * Draining is done by whichever thread succeeds in tryLock, so no
+     * thread waits for another to maintain the policy.  To avoid
+     * stranding a task offered while another thread finishes
+     * draining, writers set drainStatus to REQUIRED before trying the
+     * lock, and the draining thread repeats until it can CAS the
+     * status from PROCESSING to IDLE; a writer that fails tryLock
+     * because the drainer is just unlocking rechecks the status.
+     *
+     * The policy is W-TinyLFU: new entries enter an LRU window of
+     * about 1% of the maximum weight.  An entry leaving the window is
+     * moved to the probation segment of the main space if there is
+     * room, and otherwise competes with the LRU entry of the main
+     * space, the one with the lower estimated frequency being
+     * evicted.  An entry in probation that is accessed again moves to
+     * the protected segment (80% of the main space), from which the
+     * least recently used entries are demoted back to probation.
+     * Frequencies are kept in a count-min sketch of 4-bit counters
+     * that are halved after a sample of 10 times the table length
+     * increments, which both ages the counts and bounds them.  The
+     * table is sized by the maximum number of entries or, when a
+     * weigher is used and that number is unknown, starts small and is
+     * grown as entries are added.
+     *
+     * Nodes carry a state, so that policy events replayed out of
+     * order are harmless: a node is ALIVE while mapped, RETIRED once
+     * removed from the map by a user operation, and DEAD once removed
+     * from the policy.  An addition task for a node that is no longer
+     * ALIVE is ignored, as is a removal task for a node that was never
+     * linked.  Values of live nodes are updated in place, under the
+     * node's monitor so that value and weight stay consistent.
+     *
+     * Expiration is checked on every read, so the policy's only role
+     * is reclaiming expired entries.  For this a hierarchical timer
+     * wheel is advanced during maintenance.  Each level has
+     * WHEEL_BUCKETS buckets, those of level i spanning 2^WHEEL_SHIFTS[i]
+     * nanoseconds (about 67ms, 4.3s, 4.6min and 4.9h), and a final
+     * overflow bucket holds nodes due more than about 13 days ahead.
+     * A node is placed in the bucket of its expiration time in the
+     * lowest level whose turn covers it, so it is visited once per
+     * level at most, rather than once per turn of a single wheel.
+     * Nodes visited are rechecked, as access times are updated
+     * without the lock, and either expired or moved down a level.
+     */
+
+    /** Policy queues of a node. */
+    static final int NONE = 0, WINDOW = 1, PROBATION = 2, PROTECTED = 3;
+
+    /** States of a node. */
+    static final int ALIVE = 0, RETIRED = 1, DEAD = 2;
+
+    /** Values of drainStatus. */
+    static final int IDLE = 0, REQUIRED = 1, PROCESSING = 2;
+
+    /** Number of CPUS, to size the read buffer. */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Number of read buffer stripes, a power of two. */
+    static final int READ_STRIPES =
+        Math.min(64, Integer.highestOneBit(Math.max(1, NCPU) * 4 - 1) << 1);
+
+    /** Capacity of each read buffer stripe, a power of two. */
+    static final int READ_BUFFER_SIZE = 16;
+
+    /**
+     * Log2 of the nanoseconds spanned by a bucket of each timer wheel
+     * level, the last being the single overflow bucket.
+     */
+    static final int[] WHEEL_SHIFTS = { 26, 32, 38, 44, 50 };
+
+    /**
+     * Number of buckets in each timer wheel level but the last, a power
+     * of two equal to the ratio of the spans of successive levels.
+     */
+    static final int WHEEL_BUCKETS = 64;
+
+    /** Bound on durations, to avoid overflow when adding to nanoTime. */
+    static final long MAX_NANOS = Long.MAX_VALUE >>> 2;
+
+    /**
+     * A cache entry and, under evictionLock, its position in the
+     * eviction policy and timer wheel.  The sentinels of the policy
+     * queues and wheel buckets are also Nodes, with null keys.
+     */
+    static final class Node<K,V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile int state;
+        volatile int refreshing;
+
+        // Guarded by evictionLock
+        int queue;
+        int policyWeight;
+        Node<K,V> prev, next;
+        Node<K,V> prevInWheel, nextInWheel;
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+
+        /** Creates a sentinel. */
+        Node() {
+            this.key = null;
+            prev = next = prevInWheel = nextInWheel = this;
+        }
+
+        final boolean casRefreshing(int cmp, int val) {
+            return U.compareAndSwapInt(this, REFRESHING, cmp, val);
+        }
+
+        private static final sun.misc.Unsafe U;
+        private static final long REFRESHING;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                REFRESHING = U.objectFieldOffset
+                    (Node.class.getDeclaredField("refreshing"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /**
+     * A circular doubly-linked list of nodes in access order, from
+     * least to most recently used.
+     */
+    static final class AccessQueue<K,V> {
+        final Node<K,V> head = new Node<K,V>();
+
+        Node<K,V> first() {
+            Node<K,V> f = head.next;
+            return (f == head) ? null : f;
+        }
+
+        void linkLast(Node<K,V> n) {
+            Node<K,V> h = head, l = h.prev;
+            n.prev = l;
+            n.next = h;
+            l.next = n;
+            h.prev = n;
+        }
+
+        void unlink(Node<K,V> n) {
+            Node<K,V> p = n.prev, s = n.next;
+            if (p != null) {
+                p.next = s;
+                s.prev = p;
+                n.prev = n.next = null;
+            }
+        }
+
+        void moveToLast(Node<K,V> n) {
+            if (head.prev != n) {
+                unlink(n);
+                linkLast(n);
+            }
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters estimating the frequency
+     * of use of keys.  Each long in the table holds sixteen counters,
+     * in four groups of four; a key selects one group by its hash, and
+     * one counter in that group of each of four table slots chosen by
+     * differently seeded hashes.  The estimate is the minimum of the
+     * four counters.  The table has about one long per expected entry,
+     * and may be grown, losing its counts, if the expected number of
+     * entries increases.  Accessed only under evictionLock.
+     */
+    static final class FrequencySketch {
+        static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        static final long RESET_MASK = 0x7777777777777777L;
+        static final long ONE_MASK = 0x1111111111111111L;
+
+        /** The maximum table length, in longs (128MB). */
+        static final int MAXIMUM_CAPACITY = 1 << 24;
+
+        long[] table;
+        int sampleSize;
+        int size;
+
+        FrequencySketch(long expectedSize) {
+            table = new long[capacityFor(expectedSize)];
+            sampleSize = 10 * table.length;
+        }
+
+        static int capacityFor(long expectedSize) {
+            int n = (int)Math.max(16L, Math.min(expectedSize,
+                                                MAXIMUM_CAPACITY));
+            return Integer.highestOneBit(n - 1) << 1;
+        }
+
+        /**
+         * Grows the table, if needed, to fit the given number of
+         * entries.  Counts are discarded, as they cannot be rehashed.
+         */
+        void ensureCapacity(long expectedSize) {
+            int cap = capacityFor(expectedSize);
+            if (cap > table.length) {
+                table = new long[cap];
+                sampleSize = 10 * cap;
+                size = 0;
+            }
+        }
+
+        static int spread(int h) {
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            return (h >>> 16) ^ h;
+        }
+
+        int indexOf(int h, int i) {
+            long x = (h + SEEDS[i]) * SEEDS[i];
+            x += x >>> 32;
+            return (int)x & (table.length - 1);
+        }
+
+        int frequency(Object key) {
+            int h = spread(key.hashCode()), start = (h & 3) << 2;
+            int f = 15;
+            for (int i = 0; i < 4; ++i) {
+                int shift = (start + i) << 2;
+                int c = (int)((table[indexOf(h, i)] >>> shift) & 0xfL);
+                if (c < f)
+                    f = c;
+            }
+            return f;
+        }
+
+        void increment(Object key) {
+            int h = spread(key.hashCode()), start = (h & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; ++i) {
+                int j = indexOf(h, i), shift = (start + i) << 2;
+                long mask = 0xfL << shift;
+                if ((table[j] & mask) != mask) {
+                    table[j] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++size == sampleSize)
+                reset();
+        }
+
+        /** Halves all counters, and the count of increments. */
+        void reset() {
+            long[] t = table;
+            int odd = 0;
+            for (int i = 0; i < t.length; ++i) {
+                odd += Long.bitCount(t[i] & ONE_MASK);
+                t[i] = (t[i] >>> 1) & RESET_MASK;
+            }
+            size = (size >>> 1) - (odd >>> 2);
+        }
+    }
+
+    /**
+     * A bounded lossy ring buffer of nodes read.  Producers claim a
+     * slot by CAS of writeCounter, then publish the node with an
+     * ordered write; the drainer stops at an unpublished slot.
+     */
+    @sun.misc.Contended static final class ReadStripe {
+        volatile long writeCounter;
+        volatile long readCounter;
+        final Object[] buffer = new Object[READ_BUFFER_SIZE];
+    }
+
+    /**
+     * Snapshot of the statistics of a cache.  Instances are immutable.
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long loadSuccessCount;
+        private final long loadFailureCount;
+        private final long totalLoadTime;
+        private final long evictionCount;
+        private final long evictionWeight;
+
+        Stats(long hitCount, long missCount, long loadSuccessCount,
+              long loadFailureCount, long totalLoadTime,
+              long evictionCount, long evictionWeight) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadSuccessCount = loadSuccessCount;
+            this.loadFailureCount = loadFailureCount;
+            this.totalLoadTime = totalLoadTime;
+            this.evictionCount = evictionCount;
+            this.evictionWeight = evictionWeight;
+        }
+
+        /**
+         * Returns the number of lookups that returned a cached value.
+         *
+         * @return the hit count
+         */
+        public long hitCount() { return hitCount; }
+
+        /**
+         * Returns the number of lookups that found no value, or an
+         * expired one, whether or not a value was then loaded.
+         *
+         * @return the miss count
+         */
+        public long missCount() { return missCount; }
+
+        /**
+         * Returns the number of lookups.
+         *
+         * @return the sum of the hit and miss counts
+         */
+        public long requestCount() { return hitCount + missCount; }
+
+        /**
+         * Returns the ratio of hits to lookups, or {@code 1.0} if
+         * there have been no lookups.
+         *
+         * @return the hit rate
+         */
+        public double hitRate() {
+            long r = hitCount + missCount;
+            return (r == 0L) ? 1.0 : (double)hitCount / r;
+        }
+
+        /**
+         * Returns the number of loads, including refreshes, that
+         * completed normally.
+         *
+         * @return the load success count
+         */
+        public long loadSuccessCount() { return loadSuccessCount; }
+
+        /**
+         * Returns the number of loads, including refreshes, that
+         * threw an exception.
+         *
+         * @return the load failure count
+         */
+        public long loadFailureCount() { return loadFailureCount; }
+
+        /**
+         * Returns the total time spent loading, in nanoseconds.
+         *
+         * @return the total load time
+         */
+        public long totalLoadTime() { return totalLoadTime; }
+
+        /**
+         * Returns the number of entries evicted, because of size or
+         * weight or because they expired.
+         *
+         * @return the eviction count
+         */
+        public long evictionCount() { return evictionCount; }
+
+        /**
+         * Returns the total weight of entries evicted.
+         *
+         * @return the eviction weight
+         */
+        public long evictionWeight() { return evictionWeight; }
+
+        /**
+         * Returns a string identifying these statistics.
+         *
+         * @return a string identifying these statistics
+         */
+        public String toString() {
+            return "Stats[hits=" + hitCount + ", misses=" + missCount +
+                ", loadSuccesses=" + loadSuccessCount +
+                ", loadFailures=" + loadFailureCount +
+                ", totalLoadTime=" + totalLoadTime +
+                ", evictions=" + evictionCount +
+                ", evictionWeight=" + evictionWeight + "]";
+        }
+    }
+
+    /**
+     * A builder of {@link ConcurrentCache} instances.  By default, a
+     * cache is unbounded, entries do not expire, no statistics are
+     * recorded, and asynchronous work is performed in the {@link
+     * ForkJoinPool#commonPool()}.  A builder may be used to build
+     * more than one cache.
+     *
+     * @param <K> the type of keys maintained by the cache
+     * @param <V> the type of cached values
+     * @since 9
+     */
+    public static final class Builder<K,V> {
+        long maximumSize = -1L;
+        long maximumWeight = -1L;
+        ToIntBiFunction<? super K, ? super V> weigher;
+        long expireAfterWriteNanos;
+        long expireAfterAccessNanos;
+        long refreshAfterWriteNanos;
+        Function<? super K, ? extends V> loader;
+        Executor executor;
+        BiConsumer<? super K, ? super V> evictionListener;
+        boolean recordStats;
+        int initialCapacity = 16;
+
+        /**
+         * Creates a builder with the default settings.
+         */
+        public Builder() {}
+
+        /**
+         * Sets the initial capacity of the table holding entries.
+         *
+         * @param initialCapacity the initial capacity
+         * @return this builder
+         * @throws IllegalArgumentException if the initial capacity is
+         * negative
+         */
+        public Builder<K,V> initialCapacity(int initialCapacity) {
+            if (initialCapacity < 0)
+                throw new IllegalArgumentException();
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Bounds the number of entries.  May not be combined with
+         * {@link #maximumWeight}.
+         *
+         * @param maximumSize the maximum number of entries
+         * @return this builder
+         * @throws IllegalArgumentException if the maximum is negative
+         */
+        public Builder<K,V> maximumSize(long maximumSize) {
+            if (maximumSize < 0L)
+                throw new IllegalArgumentException();
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Bounds the total weight of entries, as computed by the
+         * {@linkplain #weigher weigher}.  May not be combined with
+         * {@link #maximumSize}.
+         *
+         * @param maximumWeight the maximum total weight
+         * @return this builder
+         * @throws IllegalArgumentException if the maximum is negative
+         */
+        public Builder<K,V> maximumWeight(long maximumWeight) {
+            if (maximumWeight < 0L)
+                throw new IllegalArgumentException();
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Sets the function computing the weight of an entry when it
+         * is written.  Weights must be non-negative, and are not
+         * recomputed until the entry is written again.
+         *
+         * @param weigher the weigher
+         * @return this builder
+         * @throws NullPointerException if the weigher is null
+         */
+        public Builder<K,V> weigher
+            (ToIntBiFunction<? super K, ? super V> weigher) {
+            if (weigher == null)
+                throw new NullPointerException();
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Causes entries to expire the given time after they were
+         * last written.
+         *
+         * @param duration the time after which entries expire
+         * @param unit the time unit of the duration argument
+         * @return this builder
+         * @throws IllegalArgumentException if the duration is not
+         * positive
+         * @throws NullPointerException if unit is null
+         */
+        public Builder<K,V> expireAfterWrite(long duration, TimeUnit unit) {
+            this.expireAfterWriteNanos = toNanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * Causes entries to expire the given time after they were
+         * last read or written.
+         *
+         * @param duration the time after which entries expire
+         * @param unit the time unit of the duration argument
+         * @return this builder
+         * @throws IllegalArgumentException if the duration is not
+         * positive
+         * @throws NullPointerException if unit is null
+         */
+        public Builder<K,V> expireAfterAccess(long duration, TimeUnit unit) {
+            this.expireAfterAccessNanos = toNanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * Causes entries read the given time or longer after they
+         * were last written to be reloaded asynchronously using the
+         * {@linkplain #loader loader}.  Until the new value is
+         * loaded, the old value is returned.  If the loader returns
+         * {@code null} the entry is removed, and if it throws an
+         * exception the entry is retained.
+         *
+         * @param duration the time after which entries are refreshed
+         * @param unit the time unit of the duration argument
+         * @return this builder
+         * @throws IllegalArgumentException if the duration is not
+         * positive
+         * @throws NullPointerException if unit is null
+         */
+        public Builder<K,V> refreshAfterWrite(long duration, TimeUnit unit) {
+            this.refreshAfterWriteNanos = toNanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * Sets the function used by {@link ConcurrentCache#get(Object)}
+         * and {@link ConcurrentCache#refresh} to compute values.
+         *
+         * @param loader the loader
+         * @return this builder
+         * @throws NullPointerException if the loader is null
+         */
+        public Builder<K,V> loader(Function<? super K, ? extends V> loader) {
+            if (loader == null)
+                throw new NullPointerException();
+            this.loader = loader;
+            return this;
+        }
+
+        /**
+         * Sets the executor used for asynchronous refreshes.
+         *
+         * @param executor the executor
+         * @return this builder
+         * @throws NullPointerException if the executor is null
+         */
+        public Builder<K,V> executor(Executor executor) {
+            if (executor == null)
+                throw new NullPointerException();
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets an action invoked with the key and value of each entry
+         * evicted because of size or weight, or because it expired.
+         * The action is invoked by the thread performing maintenance,
+         * while holding a lock that delays further maintenance, so it
+         * should be brief.  Exceptions thrown by the action are
+         * reported to the thread's {@linkplain
+         * Thread#getUncaughtExceptionHandler uncaught exception
+         * handler}.  Entries removed explicitly are not reported.
+         *
+         * @param listener the action
+         * @return this builder
+         * @throws NullPointerException if the listener is null
+         */
+        public Builder<K,V> evictionListener
+            (BiConsumer<? super K, ? super V> listener) {
+            if (listener == null)
+                throw new NullPointerException();
+            this.evictionListener = listener;
+            return this;
+        }
+
+        /**
+         * Enables the recording of statistics.
+         *
+         * @return this builder
+         */
+        public Builder<K,V> recordStats() {
+            this.recordStats = true;
+            return this;
+        }
+
+        /**
+         * Creates a cache with the settings of this builder.
+         *
+         * @return the new cache
+         * @throws IllegalStateException if both a maximum size and a
+         * maximum weight are set, if a weigher is set without a
+         * maximum weight, or if refresh is enabled without a loader
+         */
+        public ConcurrentCache<K,V> build() {
+            if (maximumSize >= 0L && maximumWeight >= 0L)
+                throw new IllegalStateException
+                    ("maximumSize and maximumWeight both set");
+            if (weigher != null && maximumWeight < 0L)
+                throw new IllegalStateException("weigher requires maximumWeight");
+            if (refreshAfterWriteNanos > 0L && loader == null)
+                throw new IllegalStateException("refreshAfterWrite requires loader");
+            return new ConcurrentCache<K,V>(this);
+        }
+
+        static long toNanos(long duration, TimeUnit unit) {
+            if (unit == null)
+                throw new NullPointerException();
+            if (duration <= 0L)
+                throw new IllegalArgumentException();
+            return Math.min(unit.toNanos(duration), MAX_NANOS);
+        }
+    }
+
+    /** The entries. */
+    final ConcurrentHashMap<K,Node<K,V>> data;
+
+    /** The maximum total weight, or Long.MAX_VALUE if unbounded. */
+    final long maximum;
+    final long windowMaximum;
+    final long mainMaximum;
+    final long protectedMaximum;
+    final ToIntBiFunction<? super K, ? super V> weigher;
+    final long expireAfterWriteNanos;
+    final long expireAfterAccessNanos;
+    final long refreshAfterWriteNanos;
+    final Function<? super K, ? extends V> loader;
+    final Executor executor;
+    final BiConsumer<? super K, ? super V> evictionListener;
+
+    /** True if the time of reads is needed. */
+    final boolean timed;
+    /** True if reads are replayed against the policy. */
+    final boolean recordsReads;
+
+    final ReadStripe[] readBuffer;
+    final ConcurrentLinkedQueue<Runnable> writeBuffer;
+    final ReentrantLock evictionLock;
+    volatile int drainStatus;
+
+    // Policy, guarded by evictionLock
+    final FrequencySketch sketch;
+    /** True if the sketch is grown with the number of entries. */
+    final boolean growsSketch;
+    long policySize;
+    final AccessQueue<K,V> window;
+    final AccessQueue<K,V> probation;
+    final AccessQueue<K,V> protectedQueue;
+    final Node<K,V>[][] wheel;
+    final long origin;
+    long wheelTime;             // relative to origin
+    long windowWeight;
+    long protectedWeight;
+    volatile long totalWeight;
+
+    // Statistics, or null if not recorded
+    final LongAdder hits;
+    final LongAdder misses;
+    final LongAdder loadSuccesses;
+    final LongAdder loadFailures;
+    final LongAdder loadTime;
+    final LongAdder evictions;
+    final LongAdder evictedWeight;
+
+    /**
+     * Creates a cache holding at most the given number of entries,
+     * with the default settings of a {@link Builder}.
+     *
+     * @param maximumSize the maximum number of entries
+     * @throws IllegalArgumentException if the maximum is negative
+     */
+    public ConcurrentCache(long maximumSize) {
+        this(new Builder<K,V>().maximumSize(maximumSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    ConcurrentCache(Builder<K,V> b) {
+        long max = (b.maximumSize >= 0L) ? b.maximumSize :
+            (b.maximumWeight >= 0L) ? b.maximumWeight : Long.MAX_VALUE;
+        this.maximum = max;
+        if (max == Long.MAX_VALUE)
+            windowMaximum = mainMaximum = protectedMaximum = Long.MAX_VALUE;
+        else {
+            windowMaximum = Math.max((max > 0L) ? 1L : 0L, max / 100L);
+            mainMaximum = max - windowMaximum;
+            protectedMaximum = mainMaximum - mainMaximum / 5L;
+        }
+        this.weigher = b.weigher;
+        this.expireAfterWriteNanos = b.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = b.expireAfterAccessNanos;
+        this.refreshAfterWriteNanos = b.refreshAfterWriteNanos;
+        this.loader = b.loader;
+        this.executor = (b.executor != null) ? b.executor :
+            ForkJoinPool.commonPool();
+        this.evictionListener = b.evictionListener;
+        this.timed = (expireAfterWriteNanos | expireAfterAccessNanos |
+                      refreshAfterWriteNanos) != 0L;
+        this.recordsReads = (max != Long.MAX_VALUE ||
+                             expireAfterAccessNanos != 0L);
+        this.data = new ConcurrentHashMap<K,Node<K,V>>(b.initialCapacity);
+        ReadStripe[] rb = new ReadStripe[READ_STRIPES];
+        for (int i = 0; i < rb.length; ++i)
+            rb[i] = new ReadStripe();
+        this.readBuffer = rb;
+        this.writeBuffer = new ConcurrentLinkedQueue<Runnable>();
+        this.evictionLock = new ReentrantLock();
+        // With a weigher the maximum says little about the number of
+        // entries, so the sketch starts small and grows with the cache
+        this.growsSketch = (max != Long.MAX_VALUE && weigher != null);
+        this.sketch = (max == Long.MAX_VALUE) ? null :
+            new FrequencySketch(growsSketch ? b.initialCapacity : max);
+        this.window = new AccessQueue<K,V>();
+        this.probation = new AccessQueue<K,V>();
+        this.protectedQueue = new AccessQueue<K,V>();
+        if ((expireAfterWriteNanos | expireAfterAccessNanos) == 0L)
+            this.wheel = null;
+        else {
+            int levels = WHEEL_SHIFTS.length;
+            Node<K,V>[][] w = (Node<K,V>[][])new Node<?,?>[levels][];
+            for (int i = 0; i < levels; ++i) {
+                Node<K,V>[] level = (Node<K,V>[])
+                    new Node<?,?>[(i < levels - 1) ? WHEEL_BUCKETS : 1];
+                for (int j = 0; j < level.length; ++j)
+                    level[j] = new Node<K,V>();
+                w[i] = level;
+            }
+            this.wheel = w;
+        }
+        this.origin = System.nanoTime();
+        if (b.recordStats) {
+            hits = new LongAdder();
+            misses = new LongAdder();
+            loadSuccesses = new LongAdder();
+            loadFailures = new LongAdder();
+            loadTime = new LongAdder();
+            evictions = new LongAdder();
+            evictedWeight = new LongAdder();
+        } else {
+            hits = misses = loadSuccesses = loadFailures = loadTime =
+                evictions = evictedWeight = null;
+        }
+    }
+
+    /* ---------------- Retrieval and update -------------- */
+
+    /**
+     * Returns the value cached for the given key, or {@code null} if
+     * there is none or it has expired.
+     *
+     * @param key the key
+     * @return the cached value, or {@code null}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V getIfPresent(Object key) {
+        Node<K,V> n = data.get(key);
+        long now = timed ? System.nanoTime() : 0L;
+        if (n == null || isExpired(n, now)) {
+            if (misses != null)
+                misses.increment();
+            if (n != null)
+                scheduleDrain();
+            return null;
+        }
+        V v = n.value;
+        afterRead(n, now);
+        if (hits != null)
+            hits.increment();
+        return v;
+    }
+
+    /**
+     * Returns the value cached for the given key, if present and not
+     * expired, and otherwise computes it using the given function and
+     * caches it unless it is {@code null}.  The computation is
+     * performed at most once per key at a time, and other attempts to
+     * load or update the same key wait for it to complete, so it
+     * should be short and must not attempt to update this cache.
+     *
+     * @param key the key
+     * @param mappingFunction the function computing a value
+     * @return the cached or computed value, or {@code null} if the
+     *         function returned null
+     * @throws NullPointerException if the key or function is null
+     * @throws RuntimeException or Error if the function does so, in
+     *         which case nothing is cached
+     */
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null)
+            throw new NullPointerException();
+        Node<K,V> n = data.get(key);
+        long now = timed ? System.nanoTime() : 0L;
+        if (n != null && !isExpired(n, now)) {
+            V v = n.value;
+            afterRead(n, now);
+            if (hits != null)
+                hits.increment();
+            return v;
+        }
+        if (misses != null)
+            misses.increment();
+        // box[0] holds the expired node replaced, box[1] the node added
+        @SuppressWarnings("unchecked")
+        Node<K,V>[] box = (Node<K,V>[])new Node<?,?>[2];
+        Node<K,V> r = data.compute(key, (k, p) -> {
+                long t = timed ? System.nanoTime() : 0L;
+                if (p != null && !isExpired(p, t))
+                    return p;
+                box[0] = p;
+                V v = load(k, mappingFunction);
+                return (v == null) ? null :
+                    (box[1] = new Node<K,V>(k, v, weigh(k, v), t));
+            });
+        if (box[0] != null)
+            retire(box[0]);
+        Node<K,V> a = box[1];
+        if (a != null)
+            afterWrite(() -> onAdd(a));
+        return (r == null) ? null : r.value;
+    }
+
+    /**
+     * Returns the value cached for the given key, if present and not
+     * expired, and otherwise loads it using the {@linkplain
+     * Builder#loader loader} as if by {@link #get(Object, Function)}.
+     *
+     * @param key the key
+     * @return the cached or loaded value, or {@code null} if the
+     *         loader returned null
+     * @throws NullPointerException if the key is null
+     * @throws UnsupportedOperationException if this cache has no loader
+     * @throws RuntimeException or Error if the loader does so, in
+     *         which case nothing is cached
+     */
+    public V get(K key) {
+        Function<? super K, ? extends V> f;
+        if ((f = loader) == null)
+            throw new UnsupportedOperationException();
+        return get(key, f);
+    }
+
+    /**
+     * Associates the given value with the given key, replacing any
+     * cached value.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the previous value cached for the key, or {@code null}
+     *         if there was none or it had expired
+     * @throws NullPointerException if the key or value is null
+     */
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * Associates the given value with the given key unless a value is
+     * already cached for it and has not expired.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the value cached for the key, or {@code null} if there
+     *         was none, in which case the given value is now cached
+     * @throws NullPointerException if the key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * Implements put and putIfAbsent.  Live nodes are updated in
+     * place; expired nodes are replaced, so that the new entry is
+     * accounted for, and scheduled for expiration, as a new one.
+     */
+    private V put(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        int w = weigh(key, value);
+        long now = timed ? System.nanoTime() : 0L;
+        Node<K,V> a = null;
+        for (Node<K,V> n;;) {
+            if ((n = data.get(key)) == null) {
+                if (a == null)
+                    a = new Node<K,V>(key, value, w, now);
+                if ((n = data.putIfAbsent(key, a)) == null) {
+                    Node<K,V> added = a;
+                    afterWrite(() -> onAdd(added));
+                    return null;
+                }
+            }
+            if (isExpired(n, now)) {
+                if (a == null)
+                    a = new Node<K,V>(key, value, w, now);
+                if (data.replace(key, n, a)) {
+                    Node<K,V> added = a;
+                    retire(n);
+                    afterWrite(() -> onAdd(added));
+                    return null;
+                }
+            }
+            else if (onlyIfAbsent) {
+                V v = n.value;
+                afterRead(n, now);
+                return v;
+            }
+            else if (n.state == ALIVE) {
+                V old = null;
+                boolean updated = false;
+                synchronized (n) {
+                    // Recheck under the monitor, as the node may have
+                    // been invalidated or evicted since it was read,
+                    // and is removed from the map before it is marked
+                    if (n.state == ALIVE && data.get(key) == n) {
+                        old = n.value;
+                        n.value = value;
+                        n.weight = w;
+                        n.writeTime = n.accessTime = now;
+                        updated = true;
+                    }
+                }
+                if (updated) {
+                    Node<K,V> u = n;
+                    afterWrite(() -> onUpdate(u));
+                    return old;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the entry for the given key, if present.
+     *
+     * @param key the key
+     * @throws NullPointerException if the key is null
+     */
+    public void invalidate(Object key) {
+        Node<K,V> n = data.remove(key);
+        if (n != null)
+            retire(n);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        for (Node<K,V> n : data.values()) {
+            if (data.remove(n.key, n))
+                retire(n);
+        }
+    }
+
+    /**
+     * Asynchronously loads a new value for the given key using the
+     * {@linkplain Builder#loader loader} and the configured
+     * {@linkplain Builder#executor executor}.  When loading
+     * completes, the new value is cached or, if the loader returned
+     * {@code null}, the entry is removed.  The cached value, if any,
+     * remains available while loading.
+     *
+     * @param key the key
+     * @return a future completed with the loaded value, or
+     *         exceptionally if the loader threw an exception
+     * @throws NullPointerException if the key is null
+     * @throws UnsupportedOperationException if this cache has no loader
+     */
+    public CompletableFuture<V> refresh(K key) {
+        Function<? super K, ? extends V> f;
+        if (key == null)
+            throw new NullPointerException();
+        if ((f = loader) == null)
+            throw new UnsupportedOperationException();
+        return CompletableFuture.supplyAsync(() -> load(key, f), executor)
+            .thenApply(v -> {
+                    if (v == null)
+                        invalidate(key);
+                    else
+                        put(key, v);
+                    return v;
+                });
+    }
+
+    /**
+     * Returns the number of entries, which may include entries that
+     * have expired or are about to be evicted.
+     *
+     * @return the estimated number of entries
+     */
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /**
+     * Returns the total weight of entries, as last accounted for by
+     * the eviction policy.  If the cache is bounded by size, each
+     * entry has weight one.
+     *
+     * @return the weighted size
+     */
+    public long weightedSize() {
+        return totalWeight;
+    }
+
+    /**
+     * Returns the maximum number or total weight of entries, or
+     * {@code Long.MAX_VALUE} if this cache is unbounded.
+     *
+     * @return the maximum
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache.  If
+     * statistics are not recorded, all counts are zero.
+     *
+     * @return the statistics
+     */
+    public Stats stats() {
+        if (hits == null)
+            return new Stats(0L, 0L, 0L, 0L, 0L, 0L, 0L);
+        return new Stats(hits.sum(), misses.sum(), loadSuccesses.sum(),
+                         loadFailures.sum(), loadTime.sum(),
+                         evictions.sum(), evictedWeight.sum());
+    }
+
+    /**
+     * Performs any pending maintenance: replays recorded reads and
+     * writes, removes expired entries, and evicts entries if the
+     * cache exceeds its maximum.  This method blocks while another
+     * thread performs maintenance, and does nothing if called from
+     * an eviction listener.
+     */
+    public void cleanUp() {
+        final ReentrantLock lock = evictionLock;
+        if (lock.isHeldByCurrentThread())
+            return;
+        lock.lock();
+        try {
+            maintenance();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a string identifying this cache, as well as its
+     * estimated size, weighted size and maximum.
+     *
+     * @return a string identifying this cache
+     */
+    public String toString() {
+        long max = maximum;
+        return super.toString() +
+            "[size = " + estimatedSize() +
+            ", weightedSize = " + weightedSize() +
+            ", maximum = " + ((max == Long.MAX_VALUE) ? "unbounded" :
+                              Long.toString(max)) + "]";
+    }
+
+    /* ---------------- Support for updates -------------- */
+
+    final boolean isExpired(Node<K,V> n, long now) {
+        long d;
+        return (((d = expireAfterWriteNanos) != 0L &&
+                 now - n.writeTime >= d) ||
+                ((d = expireAfterAccessNanos) != 0L &&
+                 now - n.accessTime >= d));
+    }
+
+    /**
+     * Returns the time at which a node expires, given its current
+     * write and access times.
+     */
+    final long expirationTime(Node<K,V> n) {
+        long d, t = Long.MAX_VALUE;
+        if ((d = expireAfterWriteNanos) != 0L)
+            t = n.writeTime + d;
+        if ((d = expireAfterAccessNanos) != 0L)
+            t = Math.min(t, n.accessTime + d);
+        return t;
+    }
+
+    final int weigh(K key, V value) {
+        ToIntBiFunction<? super K, ? super V> f;
+        if ((f = weigher) == null)
+            return 1;
+        int w = f.applyAsInt(key, value);
+        if (w < 0)
+            throw new IllegalArgumentException("negative weight");
+        return w;
+    }
+
+    /**
+     * Applies a loader, recording statistics.
+     */
+    final V load(K key, Function<? super K, ? extends V> f) {
+        long start = (loadTime == null) ? 0L : System.nanoTime();
+        boolean loaded = false;
+        try {
+            V v = f.apply(key);
+            loaded = true;
+            return v;
+        } finally {
+            if (loadTime != null) {
+                loadTime.add(System.nanoTime() - start);
+                (loaded ? loadSuccesses : loadFailures).increment();
+            }
+        }
+    }
+
+    /**
+     * Records a read of a live node, and starts a refresh if due.
+     */
+    final void afterRead(Node<K,V> n, long now) {
+        if (expireAfterAccessNanos != 0L)
+            n.accessTime = now;
+        if (recordsReads && (offerRead(n) || drainStatus == REQUIRED))
+            tryDrain();
+        long d;
+        if ((d = refreshAfterWriteNanos) != 0L && now - n.writeTime >= d &&
+            n.refreshing == 0 && n.casRefreshing(0, 1))
+            startRefresh(n);
+    }
+
+    /**
+     * Reloads the value of a node, if it is still cached when
+     * loading completes and has not been written in the meantime.
+     */
+    private void startRefresh(Node<K,V> n) {
+        final K key = n.key;
+        final long writeTime = n.writeTime;
+        final Function<? super K, ? extends V> f = loader;
+        try {
+            executor.execute(() -> {
+                    try {
+                        V v = load(key, f);
+                        if (v == null) {
+                            if (n.writeTime == writeTime &&
+                                data.remove(key, n))
+                                retire(n);
+                        }
+                        else {
+                            int w = weigh(key, v);
+                            boolean updated = false;
+                            synchronized (n) {
+                                if (n.state == ALIVE &&
+                                    n.writeTime == writeTime) {
+                                    n.value = v;
+                                    n.weight = w;
+                                    n.writeTime = System.nanoTime();
+                                    updated = true;
+                                }
+                            }
+                            if (updated)
+                                afterWrite(() -> onUpdate(n));
+                        }
+                    } finally {
+                        n.refreshing = 0;
+                    }
+                });
+        } catch (RejectedExecutionException ex) {
+            n.refreshing = 0;   // retry on a later read
+        }
+    }
+
+    /**
+     * Marks a node that is no longer mapped, and schedules its
+     * removal from the policy.
+     */
+    final void retire(Node<K,V> n) {
+        n.state = RETIRED;
+        afterWrite(() -> onRemove(n));
+    }
+
+    final void afterWrite(Runnable task) {
+        writeBuffer.offer(task);
+        scheduleDrain();
+    }
+
+    final void scheduleDrain() {
+        drainStatus = REQUIRED;
+        tryDrain();
+    }
+
+    /**
+     * Performs maintenance if it is required and the lock is free.
+     * Rechecks after unlocking, in case a thread requested
+     * maintenance while this thread was finishing it.  Does nothing
+     * if called from an eviction listener, in which case the thread
+     * performing maintenance will see the request.
+     */
+    final void tryDrain() {
+        final ReentrantLock lock = evictionLock;
+        if (lock.isHeldByCurrentThread())
+            return;
+        while (drainStatus != IDLE && lock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Offers a node to the calling thread's read buffer stripe.
+     *
+     * @return true if the stripe is full, so should be drained
+     */
+    final boolean offerRead(Node<K,V> n) {
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        ReadStripe s = readBuffer[h & (READ_STRIPES - 1)];
+        long tail = s.writeCounter, size = tail - s.readCounter;
+        if (size >= READ_BUFFER_SIZE)
+            return true;
+        if (U.compareAndSwapLong(s, WRITECOUNTER, tail, tail + 1L)) {
+            long off = ((tail & (READ_BUFFER_SIZE - 1)) << ASHIFT) + ABASE;
+            U.putOrderedObject(s.buffer, off, n);
+        }
+        return size >= READ_BUFFER_SIZE - 1;
+    }
+
+    /* ---------------- Policy maintenance -------------- */
+
+    /**
+     * Replays buffered reads and writes, expires and evicts entries.
+     * Called only while holding evictionLock.
+     */
+    final void maintenance() {
+        do {
+            U.putOrderedInt(this, DRAINSTATUS, PROCESSING);
+            drainReadBuffer();
+            drainWriteBuffer();
+            if (wheel != null)
+                expireEntries(System.nanoTime());
+            if (sketch != null)
+                evictEntries();
+        } while (!U.compareAndSwapInt(this, DRAINSTATUS, PROCESSING, IDLE));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drainReadBuffer() {
+        for (ReadStripe s : readBuffer) {
+            long head = s.readCounter, tail = s.writeCounter;
+            Object[] b = s.buffer;
+            for (; head != tail; ++head) {
+                long off = ((head & (READ_BUFFER_SIZE - 1)) << ASHIFT) + ABASE;
+                Object n = U.getObjectVolatile(b, off);
+                if (n == null)      // claimed but not yet published
+                    break;
+                U.putOrderedObject(b, off, null);
+                onAccess((Node<K,V>)n);
+            }
+            if (head != s.readCounter)
+                s.readCounter = head;
+        }
+    }
+
+    private void drainWriteBuffer() {
+        for (Runnable task; (task = writeBuffer.poll()) != null; )
+            task.run();
+    }
+
+    /** Links an added node into the window and the wheel. */
+    final void onAdd(Node<K,V> n) {
+        if (n.state != ALIVE || n.queue != NONE)
+            return;
+        int w = n.policyWeight = n.weight;
+        totalWeight += w;
+        windowWeight += w;
+        n.queue = WINDOW;
+        window.linkLast(n);
+        ++policySize;
+        if (sketch != null) {
+            if (growsSketch && policySize > sketch.table.length)
+                sketch.ensureCapacity(policySize << 1);
+            sketch.increment(n.key);
+        }
+        if (wheel != null)
+            schedule(n, expirationTime(n));
+    }
+
+    /** Accounts for a change of weight, and treats the write as a use. */
+    final void onUpdate(Node<K,V> n) {
+        if (n.state != ALIVE || n.queue == NONE)
+            return;
+        int w = n.weight, delta = w - n.policyWeight;
+        n.policyWeight = w;
+        totalWeight += delta;
+        if (n.queue == WINDOW)
+            windowWeight += delta;
+        else if (n.queue == PROTECTED)
+            protectedWeight += delta;
+        onAccess(n);
+        if (wheel != null && expireAfterAccessNanos == 0L)
+            schedule(n, expirationTime(n));
+    }
+
+    /** Unlinks a node removed from the map. */
+    final void onRemove(Node<K,V> n) {
+        unlinkPolicy(n);
+    }
+
+    /** Reorders a node that was used, and counts the use. */
+    final void onAccess(Node<K,V> n) {
+        int q = n.queue;
+        if (q == NONE)
+            return;
+        if (sketch != null) {
+            sketch.increment(n.key);
+            if (q == WINDOW)
+                window.moveToLast(n);
+            else if (q == PROTECTED)
+                protectedQueue.moveToLast(n);
+            else {
+                probation.unlink(n);
+                n.queue = PROTECTED;
+                protectedQueue.linkLast(n);
+                protectedWeight += n.policyWeight;
+                Node<K,V> d;
+                while (protectedWeight > protectedMaximum &&
+                       (d = protectedQueue.first()) != null) {
+                    protectedQueue.unlink(d);
+                    protectedWeight -= d.policyWeight;
+                    d.queue = PROBATION;
+                    probation.linkLast(d);
+                }
+            }
+        }
+        if (wheel != null && expireAfterAccessNanos != 0L)
+            schedule(n, expirationTime(n));
+    }
+
+    /** Removes a node from the policy and wheel, marking it dead. */
+    final void unlinkPolicy(Node<K,V> n) {
+        n.state = DEAD;
+        int q = n.queue;
+        if (q != NONE) {
+            int w = n.policyWeight;
+            totalWeight -= w;
+            --policySize;
+            if (q == WINDOW) {
+                windowWeight -= w;
+                window.unlink(n);
+            }
+            else if (q == PROBATION)
+                probation.unlink(n);
+            else {
+                protectedWeight -= w;
+                protectedQueue.unlink(n);
+            }
+            n.queue = NONE;
+        }
+        if (wheel != null)
+            unschedule(n);
+    }
+
+    /**
+     * Moves entries out of the window while it, or the cache as a
+     * whole, is over its maximum, admitting each to the main space if
+     * there is room, or if it is used more often than the main
+     * space's victim, which is then evicted; otherwise the entry
+     * itself is evicted.
+     */
+    private void evictEntries() {
+        while (windowWeight > windowMaximum || totalWeight > maximum) {
+            Node<K,V> c = window.first(), v;
+            if (c == null) {
+                if ((v = mainVictim()) == null)
+                    break;
+                evict(v);
+                continue;
+            }
+            int w = c.policyWeight;
+            if (totalWeight - windowWeight + w <= mainMaximum) {
+                window.unlink(c);
+                windowWeight -= w;
+                c.queue = PROBATION;
+                probation.linkLast(c);
+            }
+            else if (w <= mainMaximum && (v = mainVictim()) != null &&
+                     sketch.frequency(c.key) > sketch.frequency(v.key))
+                evict(v);       // retry c once there is room
+            else
+                evict(c);
+        }
+    }
+
+    private Node<K,V> mainVictim() {
+        Node<K,V> v = probation.first();
+        return (v != null) ? v : protectedQueue.first();
+    }
+
+    /**
+     * Removes a node chosen by the policy, reporting it if it was
+     * still mapped.
+     */
+    final void evict(Node<K,V> n) {
+        K key = n.key;
+        V value = n.value;
+        int w = n.policyWeight;
+        boolean removed = data.remove(key, n);
+        unlinkPolicy(n);
+        if (removed) {
+            if (evictions != null) {
+                evictions.increment();
+                evictedWeight.add(w);
+            }
+            BiConsumer<? super K, ? super V> listener;
+            if ((listener = evictionListener) != null) {
+                try {
+                    listener.accept(key, value);
+                } catch (Throwable ex) {
+                    Thread t = Thread.currentThread();
+                    t.getUncaughtExceptionHandler().uncaughtException(t, ex);
+                }
+            }
+        }
+    }
+
+    /* ---------------- Timer wheel -------------- */
+
+    /**
+     * Returns the bucket for the given expiration time, relative to
+     * origin: that of the lowest level whose turn, counted from the
+     * wheel's current time, covers it, or the overflow bucket.  At
+     * the lowest level, a time that has passed maps to the next tick.
+     */
+    private Node<K,V> bucketFor(long time) {
+        Node<K,V>[][] w = wheel;
+        long now = wheelTime, duration = time - now;
+        int last = w.length - 1;
+        for (int i = 0; i < last; ++i) {
+            if (duration < (1L << WHEEL_SHIFTS[i + 1])) {
+                int shift = WHEEL_SHIFTS[i];
+                long tick = time >>> shift;
+                if (i == 0)
+                    tick = Math.max(tick, (now >>> shift) + 1L);
+                return w[i][(int)tick & (WHEEL_BUCKETS - 1)];
+            }
+        }
+        return w[last][0];
+    }
+
+    /**
+     * Places a node in the bucket of the given expiration time.
+     */
+    final void schedule(Node<K,V> n, long time) {
+        Node<K,V> h = bucketFor(time - origin);
+        if (n.nextInWheel != null) {
+            if (n.nextInWheel == h)
+                return;     // already last in bucket
+            unschedule(n);
+        }
+        Node<K,V> l = h.prevInWheel;
+        n.prevInWheel = l;
+        n.nextInWheel = h;
+        l.nextInWheel = n;
+        h.prevInWheel = n;
+    }
+
+    final void unschedule(Node<K,V> n) {
+        Node<K,V> p = n.prevInWheel, s = n.nextInWheel;
+        if (p != null) {
+            p.nextInWheel = s;
+            s.prevInWheel = p;
+            n.prevInWheel = n.nextInWheel = null;
+        }
+    }
+
+    /**
+     * Advances the wheel to the given time.  At each level whose tick
+     * has changed, visits the buckets of all ticks passed, or every
+     * bucket once if a full turn has passed.  Nodes that have expired
+     * are evicted, and others are placed again, in a lower level if
+     * they are now due soon enough.
+     */
+    private void expireEntries(long now) {
+        long previous = wheelTime, current = now - origin;
+        if (current - previous <= 0L)
+            return;
+        wheelTime = current;
+        Node<K,V>[][] w = wheel;
+        for (int i = 0; i < w.length; ++i) {
+            int shift = WHEEL_SHIFTS[i];
+            long last = previous >>> shift, tick = current >>> shift;
+            if (tick == last)
+                break;      // so higher levels have not moved either
+            Node<K,V>[] buckets = w[i];
+            int mask = buckets.length - 1;
+            long from = Math.max(last + 1L, tick - mask);
+            for (long t = from; t <= tick; ++t) {
+                Node<K,V> h = buckets[(int)t & mask];
+                for (Node<K,V> n = h.nextInWheel, s; n != h; n = s) {
+                    s = n.nextInWheel;
+                    long e = expirationTime(n);
+                    if (e - now <= 0L)
+                        evict(n);
+                    else if (bucketFor(e - origin) != h)
+                        schedule(n, e);
+                }
+            }
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long DRAINSTATUS;
+    private static final long WRITECOUNTER;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            DRAINSTATUS = U.objectFieldOffset
+                (ConcurrentCache.class.getDeclaredField("drainStatus"));
+            WRITECOUNTER = U.objectFieldOffset
+                (ReadStripe.class.getDeclaredField("writeCounter"));
+            ABASE = U.arrayBaseOffset(Object[].class);
+            int scale = U.arrayIndexScale(Object[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,1118 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * A hash table mapping primitive {@code int} keys to primitive
+ * {@code int} values, supporting full concurrency of retrievals and
+ * high expected concurrency for updates.  This class is the
+ * all-primitive counterpart of {@link ConcurrentLongObjectMap}: keys
+ * and values are held in parallel open-addressed arrays partitioned
+ * into independently locked segments, so that no object is allocated
+ * per mapping.  Retrievals do not block, and reflect the results of
+ * the most recently <em>completed</em> update operations holding upon
+ * their onset.
+ *
+ * <p>Since values are primitives, absence cannot be signalled by
+ * {@code null}.  Methods that return a value, such as {@link #get} and
+ * {@link #put}, return {@code 0} when there is no mapping; use {@link
+ * #containsKey} or {@link #getOrDefault} when a stored zero must be
+ * distinguished from absence.  The atomic update methods ({@link
+ * #addAndGet}, {@link #computeIfAbsent}, {@link #computeIfPresent} and
+ * {@link #merge}) are performed while holding the segment lock, so
+ * the supplied functions should be short and must not attempt to
+ * update any other mappings of this map.
+ *
+ * <p>Parallel bulk operations follow the conventions of {@link
+ * ConcurrentHashMap}: they proceed sequentially if the current map
+ * size is estimated to be less than the given {@code
+ * parallelismThreshold}, and otherwise use the {@link
+ * ForkJoinPool#commonPool()}.
+ *
+ * @since 9
+ */
+public class ConcurrentIntIntMap {
+
+    /*
+     * The design is that of ConcurrentLongObjectMap, with a separate
+     * states array taking the place of null and REMOVED values: a
+     * slot is FREE, FULL or REMOVED.  Keys and values are written
+     * before the state is set to FULL with a volatile store.  A slot
+     * keeps its key for the lifetime of the table, so readers may
+     * probe without locking; values of FULL slots are updated with
+     * volatile stores.
+     */
+
+    /* ---------------- Constants -------------- */
+
+    /**
+     * The largest possible segment table capacity.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The smallest segment table capacity.  Must be a power of two.
+     */
+    static final int MIN_SEGMENT_TABLE_CAPACITY = 8;
+
+    /**
+     * The default number of segments when not otherwise specified.
+     */
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * The maximum number of segments.
+     */
+    static final int MAX_SEGMENTS = 1 << 16;
+
+    /**
+     * The default initial capacity for this table.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /*
+     * Slot states.
+     */
+    static final byte FREE    = 0;
+    static final byte FULL    = 1;
+    static final byte REMOVED = 2;
+
+    /**
+     * Represents an operation that accepts an {@code int} key and its
+     * {@code int} value, and returns no result.
+     */
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        /**
+         * Performs this operation on the given arguments.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void accept(int key, int value);
+    }
+
+    /* ---------------- Tables and segments -------------- */
+
+    /**
+     * Hash table of one segment.
+     */
+    static final class Table {
+        final int[] keys;
+        final int[] vals;
+        final byte[] states;
+        Table(int n) {
+            keys = new int[n];
+            vals = new int[n];
+            states = new byte[n];
+        }
+    }
+
+    /**
+     * Segments are specialized versions of hash tables.  This
+     * subclasses from ReentrantLock opportunistically, just to
+     * simplify some locking and avoid separate construction.
+     */
+    static final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = 8213860426384629717L;
+
+        /** The current table.  Replaced only while holding lock. */
+        volatile Table table;
+
+        /** Number of live mappings.  Written only while holding lock. */
+        volatile int count;
+
+        /** Number of non-free slots, including removed ones. */
+        int used;
+
+        Segment(int cap) {
+            table = new Table(cap);
+        }
+    }
+
+    /**
+     * The segments, each of which is a specialized hash table.
+     */
+    final Segment[] segments;
+
+    /**
+     * Shift and mask for selecting a segment from the high-order
+     * hash bits.
+     */
+    final int segmentShift;
+    final int segmentMask;
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Mixes all bits of the key (the 32-bit MurmurHash3 finalizer).
+     */
+    static int spread(int h) {
+        h = (h ^ (h >>> 16)) * 0x85ebca6b;
+        h = (h ^ (h >>> 13)) * 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns a power of two table size for the given desired capacity.
+     */
+    private static int tableSizeFor(int c) {
+        int n = c - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < MIN_SEGMENT_TABLE_CAPACITY) ? MIN_SEGMENT_TABLE_CAPACITY :
+            (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    static final byte stateAt(byte[] states, int i) {
+        return U.getByteVolatile(states, (long)i + BBASE);
+    }
+
+    static final void setStateAt(byte[] states, int i, byte s) {
+        U.putByteVolatile(states, (long)i + BBASE, s);
+    }
+
+    static final int valAt(int[] vals, int i) {
+        return U.getIntVolatile(vals, ((long)i << 2) + IBASE);
+    }
+
+    static final void setValAt(int[] vals, int i, int v) {
+        U.putIntVolatile(vals, ((long)i << 2) + IBASE, v);
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with the default initial table size (16)
+     * and concurrency level (16).
+     */
+    public ConcurrentIntIntMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size
+     * accommodating the specified number of elements without the need
+     * to dynamically resize.
+     *
+     * @param initialCapacity the implementation performs internal
+     * sizing to accommodate this many elements.
+     * @throws IllegalArgumentException if the initial capacity of
+     * elements is negative
+     */
+    public ConcurrentIntIntMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size based on
+     * the given number of elements ({@code initialCapacity}) and the
+     * number of concurrently updating threads ({@code
+     * concurrencyLevel}).
+     *
+     * @param initialCapacity the initial capacity. The implementation
+     * performs internal sizing to accommodate this many elements.
+     * @param concurrencyLevel the estimated number of concurrently
+     * updating threads. The implementation uses this value as
+     * a sizing hint for the number of segments.
+     * @throws IllegalArgumentException if the initial capacity is
+     * negative or the concurrency level is nonpositive
+     */
+    public ConcurrentIntIntMap(int initialCapacity, int concurrencyLevel) {
+        if (initialCapacity < 0 || concurrencyLevel <= 0)
+            throw new IllegalArgumentException();
+        if (concurrencyLevel > MAX_SEGMENTS)
+            concurrencyLevel = MAX_SEGMENTS;
+        int sshift = 0;
+        int ssize = 1;
+        while (ssize < concurrencyLevel) {
+            ++sshift;
+            ssize <<= 1;
+        }
+        this.segmentShift = 32 - sshift;
+        this.segmentMask = ssize - 1;
+        long perSegment = ((long)initialCapacity + ssize - 1) / ssize;
+        int cap = tableSizeFor((int)Math.min(perSegment + (perSegment >>> 1) + 1L,
+                                             MAXIMUM_CAPACITY));
+        Segment[] ss = new Segment[ssize];
+        for (int i = 0; i < ssize; ++i)
+            ss[i] = new Segment(cap);
+        this.segments = ss;
+    }
+
+    /**
+     * Returns the segment for the given spread hash.  The segment is
+     * chosen by the high bits, which are least correlated with the
+     * slot index.
+     */
+    private Segment segmentFor(int h) {
+        return segments[(h >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * Returns the slot index of the key in the given table, or -1 if
+     * the key has never been inserted into it.  The slot may be in
+     * REMOVED state.
+     */
+    static int indexOf(Table t, int key, int h) {
+        int[] ks = t.keys;
+        byte[] st = t.states;
+        int m = ks.length - 1;
+        for (int i = h & m;; i = (i + 1) & m) {
+            if (stateAt(st, i) == FREE)
+                return -1;
+            if (ks[i] == key)
+                return i;
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.  If the
+     * map contains more than {@code Integer.MAX_VALUE} elements,
+     * returns {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        long n = sumCount();
+        return ((n < 0L) ? 0 :
+                (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int)n);
+    }
+
+    /**
+     * Returns the number of mappings. This method should be used
+     * instead of {@link #size} because a map may contain more
+     * mappings than can be represented as an int. The value returned
+     * is an estimate; the actual count may differ if there are
+     * concurrent insertions or removals.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        return sumCount();
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        for (Segment s : segments) {
+            if (s.count != 0)
+                return false;
+        }
+        return true;
+    }
+
+    final long sumCount() {
+        long sum = 0L;
+        for (Segment s : segments)
+            sum += s.count;
+        return sum;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the
+     * key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if this map contains
+     * no mapping for the given key
+     * @return the mapping for the key, if present; else the default value
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        int h = spread(key);
+        Table t = segmentFor(h).table;
+        int[] ks = t.keys;
+        byte[] st = t.states;
+        int m = ks.length - 1;
+        for (int i = h & m;; i = (i + 1) & m) {
+            byte s;
+            if ((s = stateAt(st, i)) == FREE)
+                return defaultValue;
+            if (ks[i] == key)
+                return (s == FULL) ? valAt(t.vals, i) : defaultValue;
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code 0} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code 0} if this map contains no mapping for the key
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Tests if the specified key is a key in this table.
+     *
+     * @param  key possible key
+     * @return {@code true} if and only if the specified key is a key
+     *         in this table
+     */
+    public boolean containsKey(int key) {
+        int h = spread(key);
+        Table t = segmentFor(h).table;
+        int i = indexOf(t, key, h);
+        return i >= 0 && stateAt(t.states, i) == FULL;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this table.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code 0} if there was no mapping for {@code key}
+     */
+    public int put(int key, int value) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, h);
+            if (i < 0) {
+                insert(s, key, h, value);
+                return 0;
+            }
+            if (t.states[i] == FULL) {
+                int v = t.vals[i];
+                setValAt(t.vals, i, value);
+                return v;
+            }
+            revive(s, t, i, value);
+            return 0;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if there was no mapping for the key and
+     *         the value was added
+     */
+    public boolean putIfAbsent(int key, int value) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, h);
+            if (i < 0)
+                insert(s, key, h, value);
+            else if (t.states[i] == REMOVED)
+                revive(s, t, i, value);
+            else
+                return false;
+            return true;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Inserts a key known to be absent from the segment's table,
+     * rehashing first if the table would become too full.  Must be
+     * called while holding the segment lock.
+     */
+    static void insert(Segment s, int key, int h, int value) {
+        Table t = s.table;
+        int n = t.keys.length;
+        if (s.used >= n - (n >>> 2) - 1)
+            t = rehash(s);
+        int[] ks = t.keys;
+        byte[] st = t.states;
+        int m = ks.length - 1;
+        int i = h & m;
+        while (st[i] != FREE)
+            i = (i + 1) & m;
+        ks[i] = key;
+        t.vals[i] = value;
+        setStateAt(st, i, FULL);
+        ++s.used;
+        s.count = s.count + 1;
+    }
+
+    /**
+     * Re-establishes a mapping in a REMOVED slot holding the key.
+     */
+    static void revive(Segment s, Table t, int i, int value) {
+        setValAt(t.vals, i, value);
+        setStateAt(t.states, i, FULL);
+        s.count = s.count + 1;
+    }
+
+    /**
+     * Marks a FULL slot as REMOVED.
+     */
+    static void delete(Segment s, Table t, int i) {
+        setStateAt(t.states, i, REMOVED);
+        s.count = s.count - 1;
+    }
+
+    /**
+     * Copies the live mappings of the segment into a fresh table,
+     * doubling its capacity if more than half of the current capacity
+     * holds live mappings, and publishes it.  Must be called while
+     * holding the segment lock.
+     */
+    static Table rehash(Segment s) {
+        Table old = s.table;
+        int[] oks = old.keys, ovs = old.vals;
+        byte[] ost = old.states;
+        int n = oks.length;
+        int c = s.count;
+        if (c >= (n >>> 1)) {
+            if (n >= MAXIMUM_CAPACITY)
+                throw new IllegalStateException("Segment capacity exceeded");
+            n <<= 1;
+        }
+        Table t = new Table(n);
+        int[] ks = t.keys, vs = t.vals;
+        byte[] st = t.states;
+        int m = n - 1;
+        for (int j = 0; j < oks.length; ++j) {
+            if (ost[j] == FULL) {
+                int k = oks[j];
+                int i = spread(k) & m;
+                while (st[i] != FREE)
+                    i = (i + 1) & m;
+                ks[i] = k;
+                vs[i] = ovs[j];
+                st[i] = FULL;
+            }
+        }
+        s.used = c;
+        s.table = t;
+        return t;
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param  key the key that needs to be removed
+     * @return {@code true} if a mapping was removed
+     */
+    public boolean remove(int key) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.count == 0)
+            return false;
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, h);
+            if (i < 0 || t.states[i] != FULL)
+                return false;
+            delete(s, t, i);
+            return true;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry for a key only if currently mapped to a
+     * given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value expected to be associated with the specified key
+     * @return {@code true} if the value was removed
+     */
+    public boolean remove(int key, int value) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.count == 0)
+            return false;
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, h);
+            if (i < 0 || t.states[i] != FULL || t.vals[i] != value)
+                return false;
+            delete(s, t, i);
+            return true;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Replaces the entry for a key only if currently mapped to a
+     * given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     */
+    public boolean replace(int key, int oldValue, int newValue) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, h);
+            if (i < 0 || t.states[i] != FULL || t.vals[i] != oldValue)
+                return false;
+            setValAt(t.vals, i, newValue);
+            return true;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Atomically adds the given value to the value mapped to the
+     * key, treating an absent mapping as {@code 0}.
+     *
+     * @param key the key
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public int addAndGet(int key, int delta) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, h);
+            if (i < 0)
+                insert(s, key, h, delta);
+            else if (t.states[i] == REMOVED)
+                revive(s, t, i, delta);
+            else {
+                int v = t.vals[i] + delta;
+                setValAt(t.vals, i, v);
+                return v;
+            }
+            return delta;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * computes its value using the given mapping function and enters
+     * it into this map.  The entire method invocation is performed
+     * atomically, so the function is applied at most once per key.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key
+     * @throws NullPointerException if the mappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the mappingFunction does so,
+     *         in which case the mapping is left unestablished
+     */
+    public int computeIfAbsent(int key, IntUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.isHeldByCurrentThread())
+            throw new IllegalStateException("Recursive update");
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, h);
+            if (i >= 0 && t.states[i] == FULL)
+                return t.vals[i];
+            int v = mappingFunction.applyAsInt(key);
+            if (i < 0)
+                insert(s, key, h, v);
+            else
+                revive(s, t, i, v);
+            return v;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * If the value for the specified key is present, computes a new
+     * value given the key and its current value.  The entire method
+     * invocation is performed atomically.
+     *
+     * @param key key with which a value may be associated
+     * @param remappingFunction the function to compute a value from
+     *        the key and the current value
+     * @return the new value associated with the specified key, or
+     *         {@code 0} if none
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the remappingFunction does so,
+     *         in which case the mapping is unchanged
+     */
+    public int computeIfPresent(int key, IntBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.count == 0)
+            return 0;
+        if (s.isHeldByCurrentThread())
+            throw new IllegalStateException("Recursive update");
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, h);
+            if (i < 0 || t.states[i] != FULL)
+                return 0;
+            int v = remappingFunction.applyAsInt(key, t.vals[i]);
+            setValAt(t.vals, i, v);
+            return v;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * value with the result of the given remapping function applied
+     * to the current and given values.  The entire method invocation
+     * is performed atomically.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the remappingFunction does so,
+     *         in which case the mapping is unchanged
+     */
+    public int merge(int key, int value, IntBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.isHeldByCurrentThread())
+            throw new IllegalStateException("Recursive update");
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, h);
+            if (i < 0)
+                insert(s, key, h, value);
+            else if (t.states[i] == REMOVED)
+                revive(s, t, i, value);
+            else {
+                int v = remappingFunction.applyAsInt(t.vals[i], value);
+                setValAt(t.vals, i, v);
+                return v;
+            }
+            return value;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        for (Segment s : segments) {
+            if (s.count != 0 || s.used != 0) {
+                s.lock();
+                try {
+                    s.table = new Table(s.table.keys.length);
+                    s.used = 0;
+                    s.count = 0;
+                } finally {
+                    s.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map,
+     * sequentially and in no particular order.
+     *
+     * @param action the action
+     */
+    public void forEach(IntIntConsumer action) {
+        if (action == null) throw new NullPointerException();
+        for (Segment s : segments) {
+            Table t = s.table;
+            int[] ks = t.keys, vs = t.vals;
+            byte[] st = t.states;
+            for (int i = 0; i < st.length; ++i) {
+                if (stateAt(st, i) == FULL)
+                    action.accept(ks[i], valAt(vs, i));
+            }
+        }
+    }
+
+    /**
+     * Returns a string representation of this map, in the form used
+     * by {@link java.util.AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        forEach((k, v) -> {
+            if (sb.length() > 1)
+                sb.append(',').append(' ');
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+
+    // Parallel bulk operations
+
+    /**
+     * Computes initial batch value for bulk tasks, as in
+     * ConcurrentHashMap.
+     */
+    final int batchFor(long b) {
+        long n;
+        if (b == Long.MAX_VALUE || (n = sumCount()) <= 1L || n < b)
+            return 0;
+        int sp = ForkJoinPool.getCommonPoolParallelism() << 2; // slack of 4
+        return (b <= 0L || (n /= b) >= sp) ? sp : (int)n;
+    }
+
+    /**
+     * Performs the given action for each (key, value).
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     */
+    public void forEach(long parallelismThreshold, IntIntConsumer action) {
+        if (action == null) throw new NullPointerException();
+        new ForEachMappingTask
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, action).invoke();
+    }
+
+    /**
+     * Performs the given action for each key.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     */
+    public void forEachKey(long parallelismThreshold, IntConsumer action) {
+        if (action == null) throw new NullPointerException();
+        new ForEachMappingTask
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0,
+             (k, v) -> action.accept(k)).invoke();
+    }
+
+    /**
+     * Performs the given action for each value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     */
+    public void forEachValue(long parallelismThreshold, IntConsumer action) {
+        if (action == null) throw new NullPointerException();
+        new ForEachMappingTask
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0,
+             (k, v) -> action.accept(v)).invoke();
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation
+     * of all keys using the given reducer to combine values,
+     * and the given basis as an identity value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all keys
+     */
+    public long reduceKeysToLong(long parallelismThreshold,
+                                 IntToLongFunction transformer,
+                                 long basis,
+                                 LongBinaryOperator reducer) {
+        if (transformer == null || reducer == null)
+            throw new NullPointerException();
+        return new MapReduceToLongTask
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, null, true, transformer, basis,
+             reducer).invoke();
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation
+     * of all values using the given reducer to combine values,
+     * and the given basis as an identity value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all values
+     */
+    public long reduceValuesToLong(long parallelismThreshold,
+                                   IntToLongFunction transformer,
+                                   long basis,
+                                   LongBinaryOperator reducer) {
+        if (transformer == null || reducer == null)
+            throw new NullPointerException();
+        return new MapReduceToLongTask
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, null, false, transformer, basis,
+             reducer).invoke();
+    }
+
+    /* ----------------Tasks for bulk operations-------------- */
+
+    /**
+     * Base class for bulk tasks, splitting as in the tasks of
+     * ConcurrentLongObjectMap: first across whole segments
+     * [segLo, segHi), then across the slots [baseIndex, baseLimit)
+     * of a snapshot of a single segment's table.
+     */
+    @SuppressWarnings("serial")
+    abstract static class BulkTask<R> extends CountedCompleter<R> {
+        final Segment[] segments;
+        Table tab;           // current table; null until first used
+        int batch;           // split control
+        int segLo, segHi;    // remaining whole segments
+        int baseIndex, baseLimit; // slot range of tab
+        int nextKey, nextVal; // last mapping found by advance
+
+        BulkTask(BulkTask<?> par, int b, Segment[] segments,
+                 int segLo, int segHi, Table t, int lo, int hi) {
+            super(par);
+            this.batch = b;
+            this.segments = segments;
+            this.segLo = segLo;
+            this.segHi = segHi;
+            this.tab = t;
+            this.baseIndex = lo;
+            this.baseLimit = hi;
+        }
+
+        /**
+         * Creates a task covering the given range, to be forked as
+         * the right-hand half of this task.
+         */
+        abstract BulkTask<R> newSubtask(int b, int segLo, int segHi,
+                                        Table t, int lo, int hi);
+
+        /**
+         * Forks right-hand subtasks while the batch allows.
+         */
+        final void split() {
+            while (batch > 0) {
+                int h;
+                if (segHi - segLo > 1) {
+                    h = (segLo + segHi) >>> 1;
+                    addToPendingCount(1);
+                    newSubtask(batch >>>= 1, h, segHi, null, 0, 0).fork();
+                    segHi = h;
+                }
+                else if (segHi - segLo == 1 && tab == null) {
+                    tab = segments[segLo++].table;
+                    baseIndex = 0;
+                    baseLimit = tab.keys.length;
+                }
+                else if (tab != null &&
+                         (h = (baseIndex + baseLimit) >>> 1) > baseIndex) {
+                    addToPendingCount(1);
+                    newSubtask(batch >>>= 1, segHi, segHi, tab, h,
+                               baseLimit).fork();
+                    baseLimit = h;
+                }
+                else
+                    break;
+            }
+        }
+
+        /**
+         * Advances to the next live mapping, setting nextKey and
+         * nextVal, or returns false if none.
+         */
+        final boolean advance() {
+            for (;;) {
+                Table t;
+                if ((t = tab) != null) {
+                    byte[] st = t.states;
+                    while (baseIndex < baseLimit) {
+                        int i = baseIndex++;
+                        if (stateAt(st, i) == FULL) {
+                            nextKey = t.keys[i];
+                            nextVal = valAt(t.vals, i);
+                            return true;
+                        }
+                    }
+                }
+                if (segLo >= segHi)
+                    return false;
+                tab = t = segments[segLo++].table;
+                baseIndex = 0;
+                baseLimit = t.keys.length;
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForEachMappingTask extends BulkTask<Void> {
+        final IntIntConsumer action;
+        ForEachMappingTask
+            (BulkTask<?> p, int b, Segment[] ss, int sl, int sh,
+             Table t, int lo, int hi, IntIntConsumer action) {
+            super(p, b, ss, sl, sh, t, lo, hi);
+            this.action = action;
+        }
+        BulkTask<Void> newSubtask(int b, int sl, int sh, Table t,
+                                  int lo, int hi) {
+            return new ForEachMappingTask(this, b, segments, sl, sh,
+                                          t, lo, hi, action);
+        }
+        public final void compute() {
+            final IntIntConsumer action;
+            if ((action = this.action) != null) {
+                split();
+                while (advance())
+                    action.accept(nextKey, nextVal);
+                propagateCompletion();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class MapReduceToLongTask extends BulkTask<Long> {
+        final boolean keys;
+        final IntToLongFunction transformer;
+        final LongBinaryOperator reducer;
+        final long basis;
+        long result;
+        MapReduceToLongTask rights, nextRight;
+        MapReduceToLongTask
+            (BulkTask<?> p, int b, Segment[] ss, int sl, int sh,
+             Table t, int lo, int hi,
+             MapReduceToLongTask nextRight,
+             boolean keys,
+             IntToLongFunction transformer,
+             long basis,
+             LongBinaryOperator reducer) {
+            super(p, b, ss, sl, sh, t, lo, hi);
+            this.nextRight = nextRight;
+            this.keys = keys;
+            this.transformer = transformer;
+            this.basis = basis; this.reducer = reducer;
+        }
+        BulkTask<Long> newSubtask(int b, int sl, int sh, Table t,
+                                  int lo, int hi) {
+            return rights = new MapReduceToLongTask
+                (this, b, segments, sl, sh, t, lo, hi, rights, keys,
+                 transformer, basis, reducer);
+        }
+        public final Long getRawResult() { return result; }
+        public final void compute() {
+            final IntToLongFunction transformer;
+            final LongBinaryOperator reducer;
+            if ((transformer = this.transformer) != null &&
+                (reducer = this.reducer) != null) {
+                long r = this.basis;
+                split();
+                while (advance())
+                    r = reducer.applyAsLong
+                        (r, transformer.applyAsLong(keys ? nextKey : nextVal));
+                result = r;
+                CountedCompleter<?> c;
+                for (c = firstComplete(); c != null; c = c.nextComplete()) {
+                    MapReduceToLongTask
+                        t = (MapReduceToLongTask)c,
+                        s = t.rights;
+                    while (s != null) {
+                        t.result = reducer.applyAsLong(t.result, s.result);
+                        s = t.rights = s.nextRight;
+                    }
+                }
+            }
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long BBASE;
+    private static final long IBASE;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            BBASE = U.arrayBaseOffset(byte[].class);
+            IBASE = U.arrayBaseOffset(int[].class);
+            if (U.arrayIndexScale(byte[].class) != 1 ||
+                U.arrayIndexScale(int[].class) != 4)
+                throw new Error("unexpected array index scale");
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,1480 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * A hash table mapping primitive {@code long} keys to object values,
+ * supporting full concurrency of retrievals and high expected
+ * concurrency for updates.  This class provides the same concurrency
+ * guarantees as {@link ConcurrentHashMap}, but avoids allocating a
+ * boxed {@code Long} key and a {@code Node} for each mapping: keys
+ * are held in open-addressed {@code long[]} tables and values in
+ * parallel {@code Object[]} tables, so a mapping costs roughly
+ * twelve bytes plus the value itself.
+ *
+ * <p>Retrieval operations (including {@code get}) do not block, so
+ * may overlap with update operations (including {@code put} and
+ * {@code remove}). Retrievals reflect the results of the most
+ * recently <em>completed</em> update operations holding upon their
+ * onset.  (More formally, an update operation for a given key bears
+ * a <em>happens-before</em> relation with any (non-null) retrieval
+ * for that key reporting the updated value.)  Bulk traversals are
+ * weakly consistent, and the results of aggregate status methods
+ * such as {@code size} are useful only for monitoring or estimation
+ * when the map is undergoing concurrent updates.
+ *
+ * <p>The table is partitioned into a fixed number of segments, each
+ * guarded by its own lock for updates, in the manner of the
+ * segmented tables used by earlier versions of {@code
+ * ConcurrentHashMap}.  The {@code concurrencyLevel} constructor
+ * argument selects the number of segments.  Each segment resizes
+ * independently when it becomes too full, so a resize only blocks
+ * updates to the keys of one segment.
+ *
+ * <p>Like {@link java.util.Hashtable} but unlike {@link java.util.HashMap},
+ * this class does <em>not</em> allow {@code null} to be used as a
+ * value.  The {@code compute}, {@code computeIfAbsent}, {@code
+ * computeIfPresent} and {@code merge} methods are performed
+ * atomically, while holding the segment lock, so the supplied
+ * functions should be short and must not attempt to update any other
+ * mappings of this map.
+ *
+ * <p>This class supports a set of parallel bulk operations modelled
+ * on those of {@code ConcurrentHashMap} ({@code forEach}, {@code
+ * search} and {@code reduce} variants), each taking a {@code
+ * parallelismThreshold} with the same meaning: operations proceed
+ * sequentially if the current map size is estimated to be less than
+ * the given threshold, and a value of {@code Long.MAX_VALUE}
+ * suppresses all parallelism.  Parallel versions use the {@link
+ * ForkJoinPool#commonPool()}.
+ *
+ * @since 9
+ * @param <V> the type of mapped values
+ */
+public class ConcurrentLongObjectMap<V> {
+
+    /*
+     * Overview:
+     *
+     * Each Segment holds a Table of parallel keys/vals arrays probed
+     * linearly from the spread hash of the key.  A slot is empty
+     * while its value is null; a key is written before its value is
+     * published with a volatile store, so a reader that sees a
+     * non-null value also sees the key.  Once a slot has been used
+     * for a key it keeps that key for the lifetime of the table:
+     * removal replaces the value with the REMOVED marker, and a later
+     * insertion of the same key revives the same slot.  This lets
+     * readers probe without locking, since the key at a non-empty
+     * slot never changes under them.  Tombstones are purged when the
+     * segment is rehashed into a fresh Table, which is published with
+     * a volatile write; the old table is never modified afterwards,
+     * so readers still traversing it see a consistent snapshot.
+     *
+     * Tables are kept at most 3/4 full (counting tombstones), so
+     * every probe sequence terminates at an empty slot.
+     */
+
+    /* ---------------- Constants -------------- */
+
+    /**
+     * The largest possible segment table capacity.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The smallest segment table capacity.  Must be a power of two.
+     */
+    static final int MIN_SEGMENT_TABLE_CAPACITY = 8;
+
+    /**
+     * The default number of segments when not otherwise specified.
+     */
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * The maximum number of segments.
+     */
+    static final int MAX_SEGMENTS = 1 << 16;
+
+    /**
+     * The default initial capacity for this table.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * Marker value for removed mappings.
+     */
+    static final Object REMOVED = new Object();
+
+    /* ---------------- Functional interfaces -------------- */
+
+    /**
+     * Represents an operation that accepts a {@code long} key and its
+     * mapped value, and returns no result.
+     *
+     * @param <V> the type of mapped values
+     */
+    @FunctionalInterface
+    public interface LongObjConsumer<V> {
+        /**
+         * Performs this operation on the given arguments.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void accept(long key, V value);
+    }
+
+    /**
+     * Represents a function that accepts a {@code long} key and its
+     * mapped value (possibly {@code null}), and produces a result.
+     *
+     * @param <V> the type of mapped values
+     * @param <R> the type of the result
+     */
+    @FunctionalInterface
+    public interface LongObjFunction<V,R> {
+        /**
+         * Applies this function to the given arguments.
+         *
+         * @param key the key
+         * @param value the value
+         * @return the function result
+         */
+        R apply(long key, V value);
+    }
+
+    /* ---------------- Tables and segments -------------- */
+
+    /**
+     * Hash table of one segment.  Arrays are never replaced, only the
+     * Table itself.
+     */
+    static final class Table {
+        final long[] keys;
+        final Object[] vals;
+        Table(int n) {
+            keys = new long[n];
+            vals = new Object[n];
+        }
+    }
+
+    /**
+     * Segments are specialized versions of hash tables.  This
+     * subclasses from ReentrantLock opportunistically, just to
+     * simplify some locking and avoid separate construction.
+     */
+    static final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = -2735683223453437474L;
+
+        /** The current table.  Replaced only while holding lock. */
+        volatile Table table;
+
+        /** Number of live mappings.  Written only while holding lock. */
+        volatile int count;
+
+        /** Number of non-empty slots, including tombstones. */
+        int used;
+
+        Segment(int cap) {
+            table = new Table(cap);
+        }
+    }
+
+    /**
+     * The segments, each of which is a specialized hash table.
+     */
+    final Segment[] segments;
+
+    /**
+     * Shift and mask for selecting a segment from the high-order
+     * hash bits.
+     */
+    final int segmentShift;
+    final int segmentMask;
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Mixes all bits of the key (Stafford variant 13 of the 64-bit
+     * MurmurHash3 finalizer).  The low half selects the slot and the
+     * high half the segment.
+     */
+    static long spread(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns a power of two table size for the given desired capacity.
+     */
+    private static int tableSizeFor(int c) {
+        int n = c - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < MIN_SEGMENT_TABLE_CAPACITY) ? MIN_SEGMENT_TABLE_CAPACITY :
+            (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    static final Object tabAt(Object[] vals, int i) {
+        return U.getObjectVolatile(vals, ((long)i << ASHIFT) + ABASE);
+    }
+
+    static final void setTabAt(Object[] vals, int i, Object v) {
+        U.putOrderedObject(vals, ((long)i << ASHIFT) + ABASE, v);
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with the default initial table size (16)
+     * and concurrency level (16).
+     */
+    public ConcurrentLongObjectMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size
+     * accommodating the specified number of elements without the need
+     * to dynamically resize.
+     *
+     * @param initialCapacity the implementation performs internal
+     * sizing to accommodate this many elements.
+     * @throws IllegalArgumentException if the initial capacity of
+     * elements is negative
+     */
+    public ConcurrentLongObjectMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size based on
+     * the given number of elements ({@code initialCapacity}) and the
+     * number of concurrently updating threads ({@code
+     * concurrencyLevel}).
+     *
+     * @param initialCapacity the initial capacity. The implementation
+     * performs internal sizing to accommodate this many elements.
+     * @param concurrencyLevel the estimated number of concurrently
+     * updating threads. The implementation uses this value as
+     * a sizing hint for the number of segments.
+     * @throws IllegalArgumentException if the initial capacity is
+     * negative or the concurrency level is nonpositive
+     */
+    public ConcurrentLongObjectMap(int initialCapacity, int concurrencyLevel) {
+        if (initialCapacity < 0 || concurrencyLevel <= 0)
+            throw new IllegalArgumentException();
+        if (concurrencyLevel > MAX_SEGMENTS)
+            concurrencyLevel = MAX_SEGMENTS;
+        int sshift = 0;
+        int ssize = 1;
+        while (ssize < concurrencyLevel) {
+            ++sshift;
+            ssize <<= 1;
+        }
+        this.segmentShift = 32 - sshift;
+        this.segmentMask = ssize - 1;
+        long perSegment = ((long)initialCapacity + ssize - 1) / ssize;
+        int cap = tableSizeFor((int)Math.min(perSegment + (perSegment >>> 1) + 1L,
+                                             MAXIMUM_CAPACITY));
+        Segment[] ss = new Segment[ssize];
+        for (int i = 0; i < ssize; ++i)
+            ss[i] = new Segment(cap);
+        this.segments = ss;
+    }
+
+    /**
+     * Returns the segment for the given spread hash.
+     */
+    private Segment segmentFor(long h) {
+        return segments[(int)(h >>> 32) >>> segmentShift & segmentMask];
+    }
+
+    /**
+     * Returns the slot index of the key in the given table, or -1 if
+     * the key has never been inserted into it.  The slot may hold a
+     * REMOVED value.
+     */
+    static int indexOf(Table t, long key, int h) {
+        long[] ks = t.keys;
+        Object[] vs = t.vals;
+        int m = ks.length - 1;
+        for (int i = h & m;; i = (i + 1) & m) {
+            if (tabAt(vs, i) == null)
+                return -1;
+            if (ks[i] == key)
+                return i;
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.  If the
+     * map contains more than {@code Integer.MAX_VALUE} elements,
+     * returns {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        long n = sumCount();
+        return ((n < 0L) ? 0 :
+                (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int)n);
+    }
+
+    /**
+     * Returns the number of mappings. This method should be used
+     * instead of {@link #size} because a map may contain more
+     * mappings than can be represented as an int. The value returned
+     * is an estimate; the actual count may differ if there are
+     * concurrent insertions or removals.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        return sumCount();
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        for (Segment s : segments) {
+            if (s.count != 0)
+                return false;
+        }
+        return true;
+    }
+
+    final long sumCount() {
+        long sum = 0L;
+        for (Segment s : segments)
+            sum += s.count;
+        return sum;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long h = spread(key);
+        Table t = segmentFor(h).table;
+        long[] ks = t.keys;
+        Object[] vs = t.vals;
+        int m = ks.length - 1;
+        for (int i = (int)h & m;; i = (i + 1) & m) {
+            Object v;
+            if ((v = tabAt(vs, i)) == null)
+                return null;
+            if (ks[i] == key)
+                return (v == REMOVED) ? null : (V)v;
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the
+     * key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if this map contains
+     * no mapping for the given key
+     * @return the mapping for the key, if present; else the default value
+     */
+    public V getOrDefault(long key, V defaultValue) {
+        V v;
+        return (v = get(key)) == null ? defaultValue : v;
+    }
+
+    /**
+     * Tests if the specified key is a key in this table.
+     *
+     * @param  key possible key
+     * @return {@code true} if and only if the specified key is a key
+     *         in this table
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value. Note: This method may require a full traversal
+     * of the map, and is much slower than method {@code containsKey}.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     * @throws NullPointerException if the specified value is null
+     */
+    public boolean containsValue(Object value) {
+        if (value == null)
+            throw new NullPointerException();
+        for (Segment s : segments) {
+            Object[] vs = s.table.vals;
+            for (int i = 0; i < vs.length; ++i) {
+                Object v = tabAt(vs, i);
+                if (v != null && v != REMOVED &&
+                    (v == value || value.equals(v)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this table.
+     * The value can not be null.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified value is null
+     */
+    public V put(long key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified value is null
+     */
+    public V putIfAbsent(long key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    @SuppressWarnings("unchecked")
+    final V putVal(long key, V value, boolean onlyIfAbsent) {
+        if (value == null) throw new NullPointerException();
+        long h = spread(key);
+        Segment s = segmentFor(h);
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, (int)h);
+            if (i >= 0) {
+                Object v = t.vals[i];
+                if (v != REMOVED) {
+                    if (!onlyIfAbsent)
+                        setTabAt(t.vals, i, value);
+                    return (V)v;
+                }
+                setTabAt(t.vals, i, value);
+                s.count = s.count + 1;
+                return null;
+            }
+            insert(s, key, (int)h, value);
+            return null;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Inserts a key known to be absent from the segment's table,
+     * rehashing first if the table would become too full.  Must be
+     * called while holding the segment lock.
+     */
+    static void insert(Segment s, long key, int h, Object value) {
+        Table t = s.table;
+        int n = t.keys.length;
+        if (s.used >= n - (n >>> 2) - 1)
+            t = rehash(s);
+        long[] ks = t.keys;
+        Object[] vs = t.vals;
+        int m = ks.length - 1;
+        int i = h & m;
+        while (vs[i] != null)
+            i = (i + 1) & m;
+        ks[i] = key;
+        setTabAt(vs, i, value);
+        ++s.used;
+        s.count = s.count + 1;
+    }
+
+    /**
+     * Copies the live mappings of the segment into a fresh table,
+     * doubling its capacity if more than half of the current capacity
+     * holds live mappings, and publishes it.  Must be called while
+     * holding the segment lock.
+     */
+    static Table rehash(Segment s) {
+        Table old = s.table;
+        long[] oks = old.keys;
+        Object[] ovs = old.vals;
+        int n = oks.length;
+        int c = s.count;
+        if (c >= (n >>> 1)) {
+            if (n >= MAXIMUM_CAPACITY)
+                throw new IllegalStateException("Segment capacity exceeded");
+            n <<= 1;
+        }
+        Table t = new Table(n);
+        long[] ks = t.keys;
+        Object[] vs = t.vals;
+        int m = n - 1;
+        for (int j = 0; j < oks.length; ++j) {
+            Object v = ovs[j];
+            if (v != null && v != REMOVED) {
+                long k = oks[j];
+                int i = (int)spread(k) & m;
+                while (vs[i] != null)
+                    i = (i + 1) & m;
+                ks[i] = k;
+                vs[i] = v;
+            }
+        }
+        s.used = c;
+        s.table = t;
+        return t;
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param  key the key that needs to be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     */
+    public V remove(long key) {
+        return replaceNode(key, null, null);
+    }
+
+    /**
+     * Removes the entry for a key only if currently mapped to a
+     * given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value expected to be associated with the specified key
+     * @return {@code true} if the value was removed
+     */
+    public boolean remove(long key, Object value) {
+        return value != null && replaceNode(key, null, value) != null;
+    }
+
+    /**
+     * Replaces the entry for a key only if currently mapped to a
+     * given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     * @throws NullPointerException if any of the values are null
+     */
+    public boolean replace(long key, V oldValue, V newValue) {
+        if (oldValue == null || newValue == null)
+            throw new NullPointerException();
+        return replaceNode(key, newValue, oldValue) != null;
+    }
+
+    /**
+     * Replaces the entry for a key only if currently mapped to some
+     * value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified value is null
+     */
+    public V replace(long key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        return replaceNode(key, value, null);
+    }
+
+    /**
+     * Implementation for the four public remove/replace methods:
+     * Replaces node value with v, conditional upon match of cv if
+     * non-null.  If resulting value is null, delete.
+     */
+    @SuppressWarnings("unchecked")
+    final V replaceNode(long key, V value, Object cv) {
+        long h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.count == 0)
+            return null;
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, (int)h);
+            Object v;
+            if (i < 0 || (v = t.vals[i]) == REMOVED ||
+                (cv != null && cv != v && !cv.equals(v)))
+                return null;
+            if (value != null)
+                setTabAt(t.vals, i, value);
+            else {
+                setTabAt(t.vals, i, REMOVED);
+                s.count = s.count - 1;
+            }
+            return (V)v;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        for (Segment s : segments) {
+            if (s.count != 0 || s.used != 0) {
+                s.lock();
+                try {
+                    s.table = new Table(s.table.keys.length);
+                    s.used = 0;
+                    s.count = 0;
+                } finally {
+                    s.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * attempts to compute its value using the given mapping function
+     * and enters it into this map unless {@code null}.  The entire
+     * method invocation is performed atomically, so the function is
+     * applied at most once per key.  Some attempted update operations
+     * on keys of the same segment may be blocked while computation is
+     * in progress, so the computation should be short and simple, and
+     * must not attempt to update any other mappings of this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the mappingFunction does so,
+     *         in which case the mapping is left unestablished
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        V val;
+        if ((val = get(key)) != null)
+            return val;
+        long h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.isHeldByCurrentThread())
+            throw new IllegalStateException("Recursive update");
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, (int)h);
+            Object v;
+            if (i >= 0 && (v = t.vals[i]) != REMOVED)
+                return (V)v;
+            if ((val = mappingFunction.apply(key)) != null) {
+                if (i >= 0) {
+                    setTabAt(t.vals, i, val);
+                    s.count = s.count + 1;
+                }
+                else
+                    insert(s, key, (int)h, val);
+            }
+            return val;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * If the value for the specified key is present, attempts to
+     * compute a new mapping given the key and its current mapped
+     * value.  The entire method invocation is performed atomically.
+     * Some attempted update operations on keys of the same segment
+     * may be blocked while computation is in progress, so the
+     * computation should be short and simple, and must not attempt to
+     * update any other mappings of this map.
+     *
+     * @param key key with which a value may be associated
+     * @param remappingFunction the function to compute a value
+     * @return the new value associated with the specified key, or null if none
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the remappingFunction does so,
+     *         in which case the mapping is unchanged
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfPresent(long key,
+                              LongObjFunction<? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        long h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.isHeldByCurrentThread())
+            throw new IllegalStateException("Recursive update");
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, (int)h);
+            Object v;
+            if (i < 0 || (v = t.vals[i]) == REMOVED)
+                return null;
+            V val = remappingFunction.apply(key, (V)v);
+            if (val != null)
+                setTabAt(t.vals, i, val);
+            else {
+                setTabAt(t.vals, i, REMOVED);
+                s.count = s.count - 1;
+            }
+            return val;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Attempts to compute a mapping for the specified key and its
+     * current mapped value (or {@code null} if there is no current
+     * mapping). The entire method invocation is performed atomically.
+     * Some attempted update operations on keys of the same segment
+     * may be blocked while computation is in progress, so the
+     * computation should be short and simple, and must not attempt to
+     * update any other mappings of this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param remappingFunction the function to compute a value
+     * @return the new value associated with the specified key, or null if none
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the remappingFunction does so,
+     *         in which case the mapping is unchanged
+     */
+    @SuppressWarnings("unchecked")
+    public V compute(long key,
+                     LongObjFunction<? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        long h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.isHeldByCurrentThread())
+            throw new IllegalStateException("Recursive update");
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, (int)h);
+            Object v = (i < 0) ? REMOVED : t.vals[i];
+            V val = remappingFunction.apply(key, (v == REMOVED) ? null : (V)v);
+            if (val != null) {
+                if (v != REMOVED)
+                    setTabAt(t.vals, i, val);
+                else if (i >= 0) {
+                    setTabAt(t.vals, i, val);
+                    s.count = s.count + 1;
+                }
+                else
+                    insert(s, key, (int)h, val);
+            }
+            else if (v != REMOVED) {
+                setTabAt(t.vals, i, REMOVED);
+                s.count = s.count - 1;
+            }
+            return val;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a
+     * (non-null) value, associates it with the given value.
+     * Otherwise, replaces the value with the results of the given
+     * remapping function, or removes if {@code null}. The entire
+     * method invocation is performed atomically.  Some attempted
+     * update operations on keys of the same segment may be blocked
+     * while computation is in progress, so the computation should be
+     * short and simple, and must not attempt to update any other
+     * mappings of this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key, or null if none
+     * @throws NullPointerException if the specified value or the
+     *         remappingFunction is null
+     * @throws RuntimeException or Error if the remappingFunction does so,
+     *         in which case the mapping is unchanged
+     */
+    @SuppressWarnings("unchecked")
+    public V merge(long key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new NullPointerException();
+        long h = spread(key);
+        Segment s = segmentFor(h);
+        if (s.isHeldByCurrentThread())
+            throw new IllegalStateException("Recursive update");
+        s.lock();
+        try {
+            Table t = s.table;
+            int i = indexOf(t, key, (int)h);
+            Object v = (i < 0) ? REMOVED : t.vals[i];
+            if (v == REMOVED) {
+                if (i >= 0) {
+                    setTabAt(t.vals, i, value);
+                    s.count = s.count + 1;
+                }
+                else
+                    insert(s, key, (int)h, value);
+                return value;
+            }
+            V val = remappingFunction.apply((V)v, value);
+            if (val != null)
+                setTabAt(t.vals, i, val);
+            else {
+                setTabAt(t.vals, i, REMOVED);
+                s.count = s.count - 1;
+            }
+            return val;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map,
+     * sequentially and in no particular order.
+     *
+     * @param action the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjConsumer<? super V> action) {
+        if (action == null) throw new NullPointerException();
+        for (Segment s : segments) {
+            Table t = s.table;
+            long[] ks = t.keys;
+            Object[] vs = t.vals;
+            for (int i = 0; i < vs.length; ++i) {
+                Object v = tabAt(vs, i);
+                if (v != null && v != REMOVED)
+                    action.accept(ks[i], (V)v);
+            }
+        }
+    }
+
+    /**
+     * Returns a string representation of this map.  The string
+     * representation consists of a list of key-value mappings (in no
+     * particular order) enclosed in braces ("{@code {}}").  Adjacent
+     * mappings are separated by the characters {@code ", "} (comma
+     * and space).  Each key-value mapping is rendered as the key
+     * followed by an equals sign ("{@code =}") followed by the
+     * associated value.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        forEach((k, v) -> {
+            if (sb.length() > 1)
+                sb.append(',').append(' ');
+            sb.append(k).append('=').append(v == this ? "(this Map)" : v);
+        });
+        return sb.append('}').toString();
+    }
+
+    // Parallel bulk operations
+
+    /**
+     * Computes initial batch value for bulk tasks, as in
+     * ConcurrentHashMap.
+     */
+    final int batchFor(long b) {
+        long n;
+        if (b == Long.MAX_VALUE || (n = sumCount()) <= 1L || n < b)
+            return 0;
+        int sp = ForkJoinPool.getCommonPoolParallelism() << 2; // slack of 4
+        return (b <= 0L || (n /= b) >= sp) ? sp : (int)n;
+    }
+
+    /**
+     * Performs the given action for each (key, value).
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     */
+    public void forEach(long parallelismThreshold,
+                        LongObjConsumer<? super V> action) {
+        if (action == null) throw new NullPointerException();
+        new ForEachMappingTask<V>
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, action).invoke();
+    }
+
+    /**
+     * Performs the given action for each key.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     */
+    public void forEachKey(long parallelismThreshold,
+                           LongConsumer action) {
+        if (action == null) throw new NullPointerException();
+        new ForEachKeyTask<V>
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, action).invoke();
+    }
+
+    /**
+     * Performs the given action for each value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     */
+    public void forEachValue(long parallelismThreshold,
+                             Consumer<? super V> action) {
+        if (action == null) throw new NullPointerException();
+        new ForEachValueTask<V>
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, action).invoke();
+    }
+
+    /**
+     * Returns a non-null result from applying the given search
+     * function on each (key, value), or null if none.  Upon
+     * success, further element processing is suppressed and the
+     * results of any other parallel invocations of the search
+     * function are ignored.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param searchFunction a function returning a non-null
+     * result on success, else null
+     * @param <U> the return type of the search function
+     * @return a non-null result from applying the given search
+     * function on each (key, value), or null if none
+     */
+    public <U> U search(long parallelismThreshold,
+                        LongObjFunction<? super V, ? extends U> searchFunction) {
+        if (searchFunction == null) throw new NullPointerException();
+        return new SearchMappingsTask<V,U>
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, searchFunction,
+             new java.util.concurrent.atomic.AtomicReference<U>()).invoke();
+    }
+
+    /**
+     * Returns the result of accumulating all values using the
+     * given reducer to combine values, or null if none.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating all values
+     */
+    public V reduceValues(long parallelismThreshold,
+                          BiFunction<? super V, ? super V, ? extends V> reducer) {
+        if (reducer == null) throw new NullPointerException();
+        return new ReduceValuesTask<V>
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, null, reducer).invoke();
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation
+     * of all keys using the given reducer to combine values,
+     * and the given basis as an identity value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all keys
+     */
+    public long reduceKeysToLong(long parallelismThreshold,
+                                 LongUnaryOperator transformer,
+                                 long basis,
+                                 LongBinaryOperator reducer) {
+        if (transformer == null || reducer == null)
+            throw new NullPointerException();
+        return new MapReduceKeysToLongTask<V>
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, null, transformer, basis,
+             reducer).invoke();
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation
+     * of all values using the given reducer to combine values,
+     * and the given basis as an identity value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all values
+     */
+    public long reduceValuesToLong(long parallelismThreshold,
+                                   ToLongFunction<? super V> transformer,
+                                   long basis,
+                                   LongBinaryOperator reducer) {
+        if (transformer == null || reducer == null)
+            throw new NullPointerException();
+        return new MapReduceValuesToLongTask<V>
+            (null, batchFor(parallelismThreshold), segments, 0,
+             segments.length, null, 0, 0, null, transformer, basis,
+             reducer).invoke();
+    }
+
+    /* ----------------Tasks for bulk operations-------------- */
+
+    /**
+     * Base class for bulk tasks.  A task covers either a range of
+     * whole segments [segLo, segHi), or, once split down to a single
+     * segment, a range of slots [baseIndex, baseLimit) of a snapshot
+     * of that segment's table.  Splitting first halves the segment
+     * range and then the slot range, forking right-hand halves.
+     */
+    @SuppressWarnings("serial")
+    abstract static class BulkTask<V,R> extends CountedCompleter<R> {
+        final Segment[] segments;
+        Table tab;           // current table; null until first used
+        int batch;           // split control
+        int segLo, segHi;    // remaining whole segments
+        int baseIndex, baseLimit; // slot range of tab
+        long nextKey;        // key of last value returned by advance
+
+        BulkTask(BulkTask<V,?> par, int b, Segment[] segments,
+                 int segLo, int segHi, Table t, int lo, int hi) {
+            super(par);
+            this.batch = b;
+            this.segments = segments;
+            this.segLo = segLo;
+            this.segHi = segHi;
+            this.tab = t;
+            this.baseIndex = lo;
+            this.baseLimit = hi;
+        }
+
+        /**
+         * Creates a task covering the given range, to be forked as
+         * the right-hand half of this task.
+         */
+        abstract BulkTask<V,R> newSubtask(int b, int segLo, int segHi,
+                                          Table t, int lo, int hi);
+
+        /**
+         * Forks right-hand subtasks while the batch allows.
+         */
+        final void split() {
+            while (batch > 0) {
+                int h;
+                if (segHi - segLo > 1) {
+                    h = (segLo + segHi) >>> 1;
+                    addToPendingCount(1);
+                    newSubtask(batch >>>= 1, h, segHi, null, 0, 0).fork();
+                    segHi = h;
+                }
+                else if (segHi - segLo == 1 && tab == null) {
+                    tab = segments[segLo++].table;
+                    baseIndex = 0;
+                    baseLimit = tab.keys.length;
+                }
+                else if (tab != null &&
+                         (h = (baseIndex + baseLimit) >>> 1) > baseIndex) {
+                    addToPendingCount(1);
+                    newSubtask(batch >>>= 1, segHi, segHi, tab, h,
+                               baseLimit).fork();
+                    baseLimit = h;
+                }
+                else
+                    break;
+            }
+        }
+
+        /**
+         * Returns the next live value, setting nextKey to its key, or
+         * null if none.
+         */
+        @SuppressWarnings("unchecked")
+        final V advance() {
+            for (;;) {
+                Table t;
+                if ((t = tab) != null) {
+                    Object[] vs = t.vals;
+                    while (baseIndex < baseLimit) {
+                        int i = baseIndex++;
+                        Object v = tabAt(vs, i);
+                        if (v != null && v != REMOVED) {
+                            nextKey = t.keys[i];
+                            return (V)v;
+                        }
+                    }
+                }
+                if (segLo >= segHi)
+                    return null;
+                tab = t = segments[segLo++].table;
+                baseIndex = 0;
+                baseLimit = t.keys.length;
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForEachMappingTask<V>
+        extends BulkTask<V,Void> {
+        final LongObjConsumer<? super V> action;
+        ForEachMappingTask
+            (BulkTask<V,?> p, int b, Segment[] ss, int sl, int sh,
+             Table t, int lo, int hi,
+             LongObjConsumer<? super V> action) {
+            super(p, b, ss, sl, sh, t, lo, hi);
+            this.action = action;
+        }
+        BulkTask<V,Void> newSubtask(int b, int sl, int sh, Table t,
+                                    int lo, int hi) {
+            return new ForEachMappingTask<V>(this, b, segments, sl, sh,
+                                             t, lo, hi, action);
+        }
+        public final void compute() {
+            final LongObjConsumer<? super V> action;
+            if ((action = this.action) != null) {
+                split();
+                for (V v; (v = advance()) != null; )
+                    action.accept(nextKey, v);
+                propagateCompletion();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForEachKeyTask<V>
+        extends BulkTask<V,Void> {
+        final LongConsumer action;
+        ForEachKeyTask
+            (BulkTask<V,?> p, int b, Segment[] ss, int sl, int sh,
+             Table t, int lo, int hi,
+             LongConsumer action) {
+            super(p, b, ss, sl, sh, t, lo, hi);
+            this.action = action;
+        }
+        BulkTask<V,Void> newSubtask(int b, int sl, int sh, Table t,
+                                    int lo, int hi) {
+            return new ForEachKeyTask<V>(this, b, segments, sl, sh,
+                                         t, lo, hi, action);
+        }
+        public final void compute() {
+            final LongConsumer action;
+            if ((action = this.action) != null) {
+                split();
+                while (advance() != null)
+                    action.accept(nextKey);
+                propagateCompletion();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForEachValueTask<V>
+        extends BulkTask<V,Void> {
+        final Consumer<? super V> action;
+        ForEachValueTask
+            (BulkTask<V,?> p, int b, Segment[] ss, int sl, int sh,
+             Table t, int lo, int hi,
+             Consumer<? super V> action) {
+            super(p, b, ss, sl, sh, t, lo, hi);
+            this.action = action;
+        }
+        BulkTask<V,Void> newSubtask(int b, int sl, int sh, Table t,
+                                    int lo, int hi) {
+            return new ForEachValueTask<V>(this, b, segments, sl, sh,
+                                           t, lo, hi, action);
+        }
+        public final void compute() {
+            final Consumer<? super V> action;
+            if ((action = this.action) != null) {
+                split();
+                for (V v; (v = advance()) != null; )
+                    action.accept(v);
+                propagateCompletion();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class SearchMappingsTask<V,U>
+        extends BulkTask<V,U> {
+        final LongObjFunction<? super V, ? extends U> searchFunction;
+        final java.util.concurrent.atomic.AtomicReference<U> result;
+        SearchMappingsTask
+            (BulkTask<V,?> p, int b, Segment[] ss, int sl, int sh,
+             Table t, int lo, int hi,
+             LongObjFunction<? super V, ? extends U> searchFunction,
+             java.util.concurrent.atomic.AtomicReference<U> result) {
+            super(p, b, ss, sl, sh, t, lo, hi);
+            this.searchFunction = searchFunction; this.result = result;
+        }
+        BulkTask<V,U> newSubtask(int b, int sl, int sh, Table t,
+                                 int lo, int hi) {
+            return new SearchMappingsTask<V,U>(this, b, segments, sl, sh,
+                                               t, lo, hi, searchFunction,
+                                               result);
+        }
+        public final U getRawResult() { return result.get(); }
+        public final void compute() {
+            final LongObjFunction<? super V, ? extends U> searchFunction;
+            final java.util.concurrent.atomic.AtomicReference<U> result;
+            if ((searchFunction = this.searchFunction) != null &&
+                (result = this.result) != null) {
+                if (result.get() != null)
+                    return;
+                split();
+                for (V v; result.get() == null && (v = advance()) != null; ) {
+                    U u;
+                    if ((u = searchFunction.apply(nextKey, v)) != null) {
+                        if (result.compareAndSet(null, u))
+                            quietlyCompleteRoot();
+                        break;
+                    }
+                }
+                propagateCompletion();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ReduceValuesTask<V>
+        extends BulkTask<V,V> {
+        final BiFunction<? super V, ? super V, ? extends V> reducer;
+        V result;
+        ReduceValuesTask<V> rights, nextRight;
+        ReduceValuesTask
+            (BulkTask<V,?> p, int b, Segment[] ss, int sl, int sh,
+             Table t, int lo, int hi,
+             ReduceValuesTask<V> nextRight,
+             BiFunction<? super V, ? super V, ? extends V> reducer) {
+            super(p, b, ss, sl, sh, t, lo, hi);
+            this.nextRight = nextRight;
+            this.reducer = reducer;
+        }
+        BulkTask<V,V> newSubtask(int b, int sl, int sh, Table t,
+                                 int lo, int hi) {
+            return rights = new ReduceValuesTask<V>(this, b, segments, sl,
+                                                    sh, t, lo, hi, rights,
+                                                    reducer);
+        }
+        public final V getRawResult() { return result; }
+        public final void compute() {
+            final BiFunction<? super V, ? super V, ? extends V> reducer;
+            if ((reducer = this.reducer) != null) {
+                split();
+                V r = null;
+                for (V v; (v = advance()) != null; )
+                    r = (r == null) ? v : reducer.apply(r, v);
+                result = r;
+                CountedCompleter<?> c;
+                for (c = firstComplete(); c != null; c = c.nextComplete()) {
+                    @SuppressWarnings("unchecked")
+                    ReduceValuesTask<V>
+                        t = (ReduceValuesTask<V>)c,
+                        s = t.rights;
+                    while (s != null) {
+                        V tr, sr;
+                        if ((sr = s.result) != null)
+                            t.result = (((tr = t.result) == null) ? sr :
+                                        reducer.apply(tr, sr));
+                        s = t.rights = s.nextRight;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class MapReduceKeysToLongTask<V>
+        extends BulkTask<V,Long> {
+        final LongUnaryOperator transformer;
+        final LongBinaryOperator reducer;
+        final long basis;
+        long result;
+        MapReduceKeysToLongTask<V> rights, nextRight;
+        MapReduceKeysToLongTask
+            (BulkTask<V,?> p, int b, Segment[] ss, int sl, int sh,
+             Table t, int lo, int hi,
+             MapReduceKeysToLongTask<V> nextRight,
+             LongUnaryOperator transformer,
+             long basis,
+             LongBinaryOperator reducer) {
+            super(p, b, ss, sl, sh, t, lo, hi);
+            this.nextRight = nextRight;
+            this.transformer = transformer;
+            this.basis = basis; this.reducer = reducer;
+        }
+        BulkTask<V,Long> newSubtask(int b, int sl, int sh, Table t,
+                                    int lo, int hi) {
+            return rights = new MapReduceKeysToLongTask<V>
+                (this, b, segments, sl, sh, t, lo, hi, rights,
+                 transformer, basis, reducer);
+        }
+        public final Long getRawResult() { return result; }
+        public final void compute() {
+            final LongUnaryOperator transformer;
+            final LongBinaryOperator reducer;
+            if ((transformer = this.transformer) != null &&
+                (reducer = this.reducer) != null) {
+                long r = this.basis;
+                split();
+                while (advance() != null)
+                    r = reducer.applyAsLong(r, transformer.applyAsLong(nextKey));
+                result = r;
+                CountedCompleter<?> c;
+                for (c = firstComplete(); c != null; c = c.nextComplete()) {
+                    @SuppressWarnings("unchecked")
+                    MapReduceKeysToLongTask<V>
+                        t = (MapReduceKeysToLongTask<V>)c,
+                        s = t.rights;
+                    while (s != null) {
+                        t.result = reducer.applyAsLong(t.result, s.result);
+                        s = t.rights = s.nextRight;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class MapReduceValuesToLongTask<V>
+        extends BulkTask<V,Long> {
+        final ToLongFunction<? super V> transformer;
+        final LongBinaryOperator reducer;
+        final long basis;
+        long result;
+        MapReduceValuesToLongTask<V> rights, nextRight;
+        MapReduceValuesToLongTask
+            (BulkTask<V,?> p, int b, Segment[] ss, int sl, int sh,
+             Table t, int lo, int hi,
+             MapReduceValuesToLongTask<V> nextRight,
+             ToLongFunction<? super V> transformer,
+             long basis,
+             LongBinaryOperator reducer) {
+            super(p, b, ss, sl, sh, t, lo, hi);
+            this.nextRight = nextRight;
+            this.transformer = transformer;
+            this.basis = basis; this.reducer = reducer;
+        }
+        BulkTask<V,Long> newSubtask(int b, int sl, int sh, Table t,
+                                    int lo, int hi) {
+            return rights = new MapReduceValuesToLongTask<V>
+                (this, b, segments, sl, sh, t, lo, hi, rights,
+                 transformer, basis, reducer);
+        }
+        public final Long getRawResult() { return result; }
+        public final void compute() {
+            final ToLongFunction<? super V> transformer;
+            final LongBinaryOperator reducer;
+            if ((transformer = this.transformer) != null &&
+                (reducer = this.reducer) != null) {
+                long r = this.basis;
+                split();
+                for (V v; (v = advance()) != null; )
+                    r = reducer.applyAsLong(r, transformer.applyAsLong(v));
+                result = r;
+                CountedCompleter<?> c;
+                for (c = firstComplete(); c != null; c = c.nextComplete()) {
+                    @SuppressWarnings("unchecked")
+                    MapReduceValuesToLongTask<V>
+                        t = (MapReduceValuesToLongTask<V>)c,
+                        s = t.rights;
+                    while (s != null) {
+                        t.result = reducer.applyAsLong(t.result, s.result);
+                        s = t.rights = s.nextRight;
+                    }
+                }
+            }
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long ABASE;
+    private static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> ak = Object[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The NUMA nodes of the machine and the processors belonging to
+ * each, as used by topology-aware {@link ForkJoinPool}s.  On Linux
+ * the layout is read once from {@code /sys/devices/system/node}; on
+ * other platforms, or if it cannot be read, the machine is treated
+ * as a single node holding all available processors.
+ */
+final class CpuTopology {
+
+    private static final String NODE_DIR = "/sys/devices/system/node";
+
+    /** The processor ids of each node, indexed by node. */
+    private final int[][] nodeCpus;
+
+    private CpuTopology(int[][] nodeCpus) {
+        this.nodeCpus = nodeCpus;
+    }
+
+    /** Returns the number of nodes; always at least one. */
+    int nodeCount() {
+        return nodeCpus.length;
+    }
+
+    /** Returns the processor ids of the given node. */
+    int[] cpus(int node) {
+        return nodeCpus[node].clone();
+    }
+
+    /**
+     * Returns the node on which to place the worker with the given
+     * index.  Workers are spread over the nodes in turn, so that
+     * each node hosts a share of the workers.
+     */
+    int nodeFor(int index) {
+        return (index & 0x7fffffff) % nodeCpus.length;
+    }
+
+    /** Lazily initialized shared instance. */
+    private static final class Holder {
+        static final CpuTopology INSTANCE =
+            AccessController.doPrivileged(
+                new PrivilegedAction<CpuTopology>() {
+                    public CpuTopology run() { return read(); }});
+    }
+
+    /** Returns the topology of this machine. */
+    static CpuTopology get() {
+        return Holder.INSTANCE;
+    }
+
+    private static CpuTopology read() {
+        ArrayList<int[]> nodes = new ArrayList<>();
+        File[] dirs = new File(NODE_DIR).listFiles();
+        if (dirs != null) {
+            int[] ids = new int[dirs.length];
+            int n = 0;
+            for (File d : dirs) {
+                String name = d.getName();
+                if (name.startsWith("node") && name.length() > 4) {
+                    try {
+                        ids[n] = Integer.parseInt(name.substring(4));
+                        ++n;
+                    } catch (NumberFormatException ignore) {
+                    }
+                }
+            }
+            Arrays.sort(ids, 0, n);
+            for (int i = 0; i < n; ++i) {
+                int[] cpus = readCpuList
+                    (new File(NODE_DIR, "node" + ids[i] + "/cpulist"));
+                if (cpus != null && cpus.length > 0) // skip memory-only nodes
+                    nodes.add(cpus);
+            }
+        }
+        if (nodes.isEmpty()) {
+            int ncpu = Runtime.getRuntime().availableProcessors();
+            int[] cpus = new int[ncpu];
+            for (int i = 0; i < ncpu; ++i)
+                cpus[i] = i;
+            nodes.add(cpus);
+        }
+        return new CpuTopology(nodes.toArray(new int[nodes.size()][]));
+    }
+
+    /**
+     * Parses a list such as {@code 0-23,48-71}, returning null if
+     * the file cannot be read or is malformed.
+     */
+    private static int[] readCpuList(File f) {
+        String line;
+        try (BufferedReader r = new BufferedReader(new FileReader(f))) {
+            line = r.readLine();
+        } catch (IOException | SecurityException ex) {
+            return null;
+        }
+        if (line == null || (line = line.trim()).isEmpty())
+            return new int[0];
+        int[] cpus = new int[16];
+        int n = 0;
+        try {
+            for (String range : line.split(",")) {
+                int dash = range.indexOf('-');
+                int lo = Integer.parseInt
+                    ((dash < 0) ? range : range.substring(0, dash));
+                int hi = (dash < 0) ? lo :
+                    Integer.parseInt(range.substring(dash + 1));
+                for (int c = lo; c <= hi; ++c) {
+                    if (n == cpus.length)
+                        cpus = Arrays.copyOf(cpus, n << 1);
+                    cpus[n++] = c;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        return Arrays.copyOf(cpus, n);
+    }
+}
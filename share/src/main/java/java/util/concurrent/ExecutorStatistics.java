@@ -0,0 +1,327 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.lang.management.ExecutorMXBean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.LongHistogram;
+import javax.management.ObjectName;
+import sun.management.ManagementFactoryHelper;
+
+/**
+ * Statistics recorded by a {@link ThreadPoolExecutor} or {@link
+ * ForkJoinPool} once its management interface has been registered,
+ * and the implementation of that interface.  All counters are
+ * striped, so recording does not add contention between workers.
+ * Durations are recorded in histograms of precision zero, whose
+ * buckets have the power-of-two bounds specified by ExecutorMXBean.
+ */
+final class ExecutorStatistics implements ExecutorMXBean {
+
+    /**
+     * A task whose submission time is known.  Implemented by the
+     * wrappers of tasks submitted to a ForkJoinPool while statistics
+     * are recorded, and by tasks that keep their own timestamps.
+     */
+    interface Timed {
+        /**
+         * Returns the {@link System#nanoTime} at which the task was
+         * submitted or, for a scheduled task, was due to run.
+         */
+        long enqueueTime();
+    }
+
+    /**
+     * Wrapper recording the submission time of a Runnable submitted
+     * to a ForkJoinPool, which wraps external submissions anyway.
+     */
+    static final class TimedTask implements Runnable, Timed {
+        final Runnable task;
+        final long enqueueTime;
+        TimedTask(Runnable task) {
+            this.task = task;
+            this.enqueueTime = System.nanoTime();
+        }
+        public long enqueueTime() { return enqueueTime; }
+        public void run() { task.run(); }
+        public String toString() { return task.toString(); }
+    }
+
+    /**
+     * Wrapper recording the submission time of a Callable submitted
+     * to a ForkJoinPool.
+     */
+    static final class TimedCallable<T> implements Callable<T>, Timed {
+        final Callable<? extends T> task;
+        final long enqueueTime;
+        TimedCallable(Callable<? extends T> task) {
+            this.task = task;
+            this.enqueueTime = System.nanoTime();
+        }
+        public long enqueueTime() { return enqueueTime; }
+        public T call() throws Exception { return task.call(); }
+        public String toString() { return task.toString(); }
+    }
+
+    /**
+     * Submission times of a random sample of the tasks queued by a
+     * ThreadPoolExecutor.  Tasks are queued unwrapped, so that queues
+     * ordering or inspecting their elements, such as
+     * PriorityBlockingQueue, and callers of getQueue and remove see
+     * the tasks they submitted.  The times are instead kept aside in
+     * a small table indexed by the identity hash of the task.  On
+     * average one submission in SAMPLE_RATE is sampled, and only if
+     * its slot is free, so a sample never displaces another, and the
+     * sampled tasks are not biased towards short waits.
+     *
+     * A slot is freed when its task starts or leaves the queue through
+     * the executor.  A task submitted again while a sample of it is
+     * pending frees its slot instead, since it can no longer be told
+     * which submission starts first.  Tasks taken from the queue by
+     * other means keep their slots, so at most SLOTS tasks are
+     * retained, and are released if they are submitted again.
+     */
+    static final class SubmissionSamples {
+        /** Number of slots, a power of two */
+        static final int SLOTS = 1 << 10;
+
+        /** Inverse of the probability that a submission is sampled */
+        static final int SAMPLE_RATE = 8;
+
+        static final class Sample {
+            final Object task;
+            final long time;
+            Sample(Object task, long time) {
+                this.task = task;
+                this.time = time;
+            }
+        }
+
+        private final AtomicReferenceArray<Sample> slots =
+            new AtomicReferenceArray<Sample>(SLOTS);
+
+        /**
+         * Possibly samples the submission of a task about to be
+         * queued.
+         */
+        void submitted(Object task) {
+            int i = System.identityHashCode(task) & (SLOTS - 1);
+            Sample s = slots.get(i);
+            if (s != null) {
+                if (s.task == task)
+                    slots.compareAndSet(i, s, null);
+            }
+            else if (ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0)
+                slots.compareAndSet(i, null,
+                                    new Sample(task, System.nanoTime()));
+        }
+
+        /**
+         * Removes and returns the sample of the given task, or null
+         * if it was not sampled.
+         */
+        Sample remove(Object task) {
+            int i = System.identityHashCode(task) & (SLOTS - 1);
+            Sample s = slots.get(i);
+            return (s != null && s.task == task &&
+                    slots.compareAndSet(i, s, null)) ? s : null;
+        }
+    }
+
+    private final String name;
+    private final ObjectName objectName;
+    private final AbstractExecutorService pool;
+
+    final LongHistogram queueWait = new LongHistogram(0);
+    final LongHistogram execution = new LongHistogram(0);
+    final LongAdder rejected = new LongAdder();
+
+    /* Used by ThreadPoolExecutor only */
+    final SubmissionSamples samples = new SubmissionSamples();
+    final LongAdder queued = new LongAdder();
+
+    ExecutorStatistics(String name, AbstractExecutorService pool) {
+        if (name == null)
+            throw new NullPointerException();
+        this.name = name;
+        this.pool = pool;
+        try {
+            this.objectName = new ObjectName
+                ("java.util.concurrent:type=Executor,name=" + name);
+        } catch (javax.management.MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    void register() {
+        ManagementFactoryHelper.registerDynamicMXBean(this);
+    }
+
+    void unregister() {
+        ManagementFactoryHelper.unregisterDynamicMXBean(this);
+    }
+
+    /**
+     * Records the queue wait time of a task about to run, if known,
+     * and returns the start time of its execution.
+     */
+    long beforeExecute(Object task) {
+        long now = System.nanoTime();
+        if (task instanceof ForkJoinTask<?>) {
+            // Look through the adapters used for external submissions
+            if (task instanceof ForkJoinTask.RunnableExecuteAction)
+                task = ((ForkJoinTask.RunnableExecuteAction)task).runnable;
+            else if (task instanceof ForkJoinTask.AdaptedRunnableAction)
+                task = ((ForkJoinTask.AdaptedRunnableAction)task).runnable;
+            else if (task instanceof ForkJoinTask.AdaptedRunnable<?>)
+                task = ((ForkJoinTask.AdaptedRunnable<?>)task).runnable;
+            else if (task instanceof ForkJoinTask.AdaptedCallable<?>)
+                task = ((ForkJoinTask.AdaptedCallable<?>)task).callable;
+        }
+        if (task instanceof Timed)
+            queueWait.record(Math.max(0L, now - ((Timed)task).enqueueTime()));
+        return now;
+    }
+
+    /**
+     * Records the queue wait time of a task about to be run by a
+     * ThreadPoolExecutor, if it was sampled or keeps its own
+     * timestamp, and returns the start time of its execution.
+     */
+    long taskStarting(Runnable task) {
+        long now = System.nanoTime();
+        long time;
+        if (task instanceof Timed)
+            time = ((Timed)task).enqueueTime();
+        else {
+            SubmissionSamples.Sample s = samples.remove(task);
+            if (s == null)
+                return now;
+            time = s.time;
+        }
+        queueWait.record(Math.max(0L, now - time));
+        return now;
+    }
+
+    /**
+     * Forgets a task that left the queue of a ThreadPoolExecutor
+     * without being run.
+     */
+    void taskRemoved(Object task) {
+        queued.decrement();
+        samples.remove(task);
+    }
+
+    /**
+     * Records the execution time of a task started at the given time.
+     */
+    void afterExecute(long startTime) {
+        execution.record(Math.max(0L, System.nanoTime() - startTime));
+    }
+
+    public ObjectName getObjectName() { return objectName; }
+    public String getName() { return name; }
+    public String getExecutorClassName() { return pool.getClass().getName(); }
+
+    public int getPoolSize() {
+        AbstractExecutorService p = pool;
+        return (p instanceof ForkJoinPool) ? ((ForkJoinPool)p).getPoolSize() :
+            ((ThreadPoolExecutor)p).getPoolSize();
+    }
+
+    public int getActiveThreadCount() {
+        AbstractExecutorService p = pool;
+        return (p instanceof ForkJoinPool) ?
+            ((ForkJoinPool)p).getActiveThreadCount() :
+            ((ThreadPoolExecutor)p).getActiveCount();
+    }
+
+    public int getIdleThreadCount() {
+        return Math.max(0, getPoolSize() - getActiveThreadCount());
+    }
+
+    public long getQueuedTaskCount() {
+        AbstractExecutorService p = pool;
+        if (p instanceof ForkJoinPool) {
+            ForkJoinPool f = (ForkJoinPool)p;
+            return f.getQueuedTaskCount() + f.getQueuedSubmissionCount();
+        }
+        return ((ThreadPoolExecutor)p).queuedTaskCount(this);
+    }
+
+    public long getCompletedTaskCount() { return execution.count(); }
+    public long getRejectedTaskCount() { return rejected.sum(); }
+
+    public long getStealCount() {
+        AbstractExecutorService p = pool;
+        return (p instanceof ForkJoinPool) ?
+            ((ForkJoinPool)p).getStealCount() : 0L;
+    }
+
+    public long getLocalStealCount() {
+        AbstractExecutorService p = pool;
+        return (p instanceof ForkJoinPool) ?
+            ((ForkJoinPool)p).getLocalStealCount() : 0L;
+    }
+
+    public long getRemoteStealCount() {
+        AbstractExecutorService p = pool;
+        return (p instanceof ForkJoinPool) ?
+            ((ForkJoinPool)p).getRemoteStealCount() : 0L;
+    }
+
+    public long[] getHistogramBucketBounds() {
+        LongHistogram.Snapshot s = execution.snapshot();
+        long[] a = new long[s.buckets()];
+        for (int i = 0; i < a.length; ++i)
+            a[i] = s.upperBound(i);
+        return a;
+    }
+
+    public long[] getQueueWaitTimeHistogram() {
+        return queueWait.snapshot().counts();
+    }
+
+    public long[] getExecutionTimeHistogram() {
+        return execution.snapshot().counts();
+    }
+
+    public long getMeanQueueWaitTime() {
+        return (long)queueWait.snapshot().mean();
+    }
+
+    public long getMeanExecutionTime() {
+        return (long)execution.snapshot().mean();
+    }
+
+    public long getQueueWaitTimePercentile(double percentile) {
+        return queueWait.percentile(percentile);
+    }
+
+    public long getExecutionTimePercentile(double percentile) {
+        return execution.percentile(percentile);
+    }
+}
@@ -36,6 +36,7 @@
 package java.util.concurrent;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.management.ExecutorMXBean;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -50,6 +51,7 @@ import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.security.AccessControlContext;
 import java.security.ProtectionDomain;
 import java.security.Permissions;
@@ -134,7 +136,7 @@ import java.security.Permissions;
  * </table>
  *
  * <p>The common pool is by default constructed with default
- * parameters, but these may be controlled by setting three
+ * parameters, but these may be controlled by setting four
  * {@linkplain System#getProperty system properties}:
  * <ul>
  * <li>{@code java.util.concurrent.ForkJoinPool.common.parallelism}
@@ -143,6 +145,9 @@ import java.security.Permissions;
  * - the class name of a {@link ForkJoinWorkerThreadFactory}
  * <li>{@code java.util.concurrent.ForkJoinPool.common.exceptionHandler}
  * - the class name of a {@link UncaughtExceptionHandler}
+ * <li>{@code java.util.concurrent.ForkJoinPool.common.topologyAware}
+ * - {@code true} to make the pool {@linkplain #isTopologyAware
+ * topology-aware}
  * </ul>
  * If a {@link SecurityManager} is present and no factory is
  * specified, then the default pool uses a factory supplying
@@ -719,6 +724,26 @@ public class ForkJoinPool extends AbstractExecutorService {
          * @throws NullPointerException if the pool is null
          */
         public ForkJoinWorkerThread newThread(ForkJoinPool pool);
+
+        /**
+         * Invoked by a new worker thread of a {@linkplain
+         * ForkJoinPool#isTopologyAware topology-aware} pool, before it
+         * processes any tasks, with the node it has been assigned to.
+         * Factories may use this method to bind the thread to the
+         * processors of that node, which the pool itself has no means
+         * to do.  An exception thrown by this method terminates the
+         * worker as if thrown by {@link ForkJoinWorkerThread#onStart}.
+         *
+         * @implSpec The default implementation does nothing.
+         *
+         * @param thread the new worker thread, which is the current thread
+         * @param node the index of the node the worker is assigned to
+         * @param cpus the processor ids of that node
+         * @since 9
+         */
+        default void bindWorker(ForkJoinWorkerThread thread, int node,
+                                int[] cpus) {
+        }
     }
 
     /**
@@ -803,6 +828,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         int nsteals;               // number of steals
         int hint;                  // randomization and stealer index hint
         int config;                // pool index and mode
+        int node;                  // topology node of owner, else 0
         volatile int qlock;        // 1: locked, < 0: terminate; else 0
         volatile int base;         // index of next slot for poll
         int top;                   // index of next slot for push
@@ -1053,7 +1079,13 @@ public class ForkJoinPool extends AbstractExecutorService {
         final void runTask(ForkJoinTask<?> task) {
             if (task != null) {
                 scanState &= ~SCANNING; // mark as busy
+                ForkJoinPool p = pool;
+                ExecutorStatistics stats = (p == null) ? null : p.statistics;
+                long startTime = (stats == null) ? 0L :
+                    stats.beforeExecute(task);
                 (currentSteal = task).doExec();
+                if (stats != null)
+                    stats.afterExecute(startTime);
                 U.putOrderedObject(this, QCURRENTSTEAL, null); // release for GC
                 execLocalTasks();
                 ForkJoinWorkerThread thread = owner;
@@ -1396,6 +1428,10 @@ public class ForkJoinPool extends AbstractExecutorService {
     final UncaughtExceptionHandler ueh;  // per-worker UEH
     final String workerNamePrefix;       // to create worker name string
     volatile AtomicLong stealCounter;    // also used as sync monitor
+    volatile ExecutorStatistics statistics; // non-null once registered
+    final CpuTopology topology;          // non-null if topology-aware
+    final LongAdder localSteals;         // scan steals within a node
+    final LongAdder remoteSteals;        // scan steals across nodes
 
     /**
      * Acquires the runState lock; returns current (locked) runState.
@@ -1556,6 +1592,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                 }
                 w.hint = s;                           // use as random seed
                 w.config = i | mode;
+                if (topology != null)                 // spread over nodes
+                    w.node = topology.nodeFor(i >>> 1);
                 w.scanState = i;                      // publication fence
                 ws[i] = w;
             }
@@ -1566,6 +1604,18 @@ public class ForkJoinPool extends AbstractExecutorService {
         return w;
     }
 
+    /**
+     * Callback from ForkJoinWorkerThread.run to let the factory bind
+     * a worker of a topology-aware pool to its node.
+     *
+     * @param wt the worker thread
+     */
+    final void bindWorker(ForkJoinWorkerThread wt) {
+        CpuTopology tp; WorkQueue w;
+        if ((tp = topology) != null && (w = wt.workQueue) != null)
+            factory.bindWorker(wt, w.node, tp.cpus(w.node));
+    }
+
     /**
      * Final callback from terminating worker, as well as upon failure
      * to construct or start a worker.  Removes record of worker from
@@ -1706,7 +1756,12 @@ public class ForkJoinPool extends AbstractExecutorService {
      * attempting to re-activate (itself or some other worker) if
      * finding a task; otherwise returning null to await work.  Scans
      * otherwise touch as little memory as possible, to reduce
-     * disruption on other scanning threads.
+     * disruption on other scanning threads.  In topology-aware pools,
+     * which span more than one node, the first pass of an active
+     * worker visits only the queues of workers on its own node, so
+     * that tasks tend to stay on the node whose caches hold their
+     * data; that pass does not count towards stability.  Other pools
+     * pay only for a never-set flag.
      *
      * @param w the worker (via its WorkQueue)
      * @param r a random seed
@@ -1716,10 +1771,13 @@ public class ForkJoinPool extends AbstractExecutorService {
         WorkQueue[] ws; int m;
         if ((ws = workQueues) != null && (m = ws.length - 1) > 0 && w != null) {
             int ss = w.scanState;                     // initially non-negative
+            LongAdder ls = localSteals, rs = remoteSteals;
+            boolean local = (rs != null && ss >= 0);  // first pass own node
             for (int origin = r & m, k = origin, oldSum = 0, checkSum = 0;;) {
                 WorkQueue q; ForkJoinTask<?>[] a; ForkJoinTask<?> t;
                 int b, n; long c;
-                if ((q = ws[k]) != null) {
+                if ((q = ws[k]) != null &&
+                    (!local || ((k & 1) != 0 && q.node == w.node))) {
                     if ((n = (b = q.base) - q.top) < 0 &&
                         (a = q.array) != null) {      // non-empty
                         long i = (((a.length - 1) & b) << ASHIFT) + ABASE;
@@ -1731,6 +1789,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                                     q.base = b + 1;
                                     if (n < -1)       // signal others
                                         signalWork(ws, q);
+                                    if (rs != null && (k & 1) != 0)
+                                        (q.node == w.node ? ls : rs)
+                                            .increment();
                                     return t;
                                 }
                             }
@@ -1748,6 +1809,11 @@ public class ForkJoinPool extends AbstractExecutorService {
                     checkSum += b;
                 }
                 if ((k = (k + 1) & m) == origin) {    // continue until stable
+                    if (local) {                      // now sweep all
+                        local = false;
+                        checkSum = 0;
+                        continue;
+                    }
                     if ((ss >= 0 || (ss == (ss = w.scanState))) &&
                         oldSum == (oldSum = checkSum)) {
                         if (ss < 0 || w.qlock < 0)    // already inactive
@@ -2023,6 +2089,34 @@ public class ForkJoinPool extends AbstractExecutorService {
         return canBlock;
     }
 
+    /**
+     * Tries once to compensate for worker w blocking outside of
+     * managedBlock, in which case endCompensatedBlock must be called
+     * once it no longer blocks.  Unlike managedBlock, which retries
+     * until its blocker is releasable, gives up if tryCompensate
+     * fails, as when the pool is unstable, terminating or at its
+     * thread limit, letting the caller block uncompensated rather than
+     * spin.
+     *
+     * @param w caller
+     * @return true if compensated
+     */
+    final boolean beginCompensatedBlock(WorkQueue w) {
+        try {
+            return (w != null && w.qlock >= 0 && (runState & STOP) == 0 &&
+                    tryCompensate(w));
+        } catch (RejectedExecutionException ignore) {
+            return false;
+        }
+    }
+
+    /**
+     * Reactivates a worker after a successful beginCompensatedBlock.
+     */
+    final void endCompensatedBlock() {
+        U.getAndAddLong(this, CTL, AC_UNIT);
+    }
+
     /**
      * Helps and/or blocks until the given task is done or timeout.
      *
@@ -2265,7 +2359,12 @@ public class ForkJoinPool extends AbstractExecutorService {
                 if ((runState & TERMINATED) == 0) {
                     rs = lockRunState();          // done
                     unlockRunState(rs, (rs & ~RSLOCK) | TERMINATED);
-                    synchronized (this) { notifyAll(); } // for awaitTermination
+                    synchronized (this) {
+                        notifyAll();              // for awaitTermination
+                        ExecutorStatistics stats = statistics;
+                        if (stats != null)
+                            stats.unregister();
+                    }
                 }
                 break;
             }
@@ -2325,6 +2424,9 @@ public class ForkJoinPool extends AbstractExecutorService {
             boolean move = false;
             if ((rs = runState) < 0) {
                 tryTerminate(false, false);     // help terminate
+                ExecutorStatistics stats = statistics;
+                if (stats != null)
+                    stats.rejected.increment();
                 throw new RejectedExecutionException();
             }
             else if ((rs & STARTED) == 0 ||     // initialize
@@ -2533,11 +2635,56 @@ public class ForkJoinPool extends AbstractExecutorService {
                         ForkJoinWorkerThreadFactory factory,
                         UncaughtExceptionHandler handler,
                         boolean asyncMode) {
+        this(parallelism, factory, handler, asyncMode, false);
+    }
+
+    /**
+     * Creates a {@code ForkJoinPool} with the given parameters,
+     * optionally aware of the processor topology of the machine.
+     * A topology-aware pool assigns each worker to one of the memory
+     * nodes of the machine (on Linux, as listed under {@code
+     * /sys/devices/system/node}), spreading workers evenly over
+     * them, and idle workers look for tasks to steal from workers on
+     * their own node before those on other nodes.  The pool cannot
+     * itself bind threads to processors; a factory that can should
+     * do so in {@link ForkJoinWorkerThreadFactory#bindWorker}.  On
+     * machines with a single node, or when the topology cannot be
+     * determined, the pool behaves as one that is not
+     * topology-aware.
+     *
+     * @param parallelism the parallelism level. For default value,
+     * use {@link java.lang.Runtime#availableProcessors}.
+     * @param factory the factory for creating new threads. For default value,
+     * use {@link #defaultForkJoinWorkerThreadFactory}.
+     * @param handler the handler for internal worker threads that
+     * terminate due to unrecoverable errors encountered while executing
+     * tasks. For default value, use {@code null}.
+     * @param asyncMode if true,
+     * establishes local first-in-first-out scheduling mode for forked
+     * tasks that are never joined. For default value, use {@code false}.
+     * @param topologyAware if true, places workers and prefers steals
+     * according to the processor topology. For default value, use
+     * {@code false}.
+     * @throws IllegalArgumentException if parallelism less than or
+     *         equal to zero, or greater than implementation limit
+     * @throws NullPointerException if the factory is null
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     *         because it does not hold {@link
+     *         java.lang.RuntimePermission}{@code ("modifyThread")}
+     * @since 9
+     */
+    public ForkJoinPool(int parallelism,
+                        ForkJoinWorkerThreadFactory factory,
+                        UncaughtExceptionHandler handler,
+                        boolean asyncMode,
+                        boolean topologyAware) {
         this(checkParallelism(parallelism),
              checkFactory(factory),
              handler,
              asyncMode ? FIFO_QUEUE : LIFO_QUEUE,
-             "ForkJoinPool-" + nextPoolId() + "-worker-");
+             "ForkJoinPool-" + nextPoolId() + "-worker-",
+             topologyAware);
         checkPermission();
     }
 
@@ -2563,11 +2710,22 @@ public class ForkJoinPool extends AbstractExecutorService {
                          ForkJoinWorkerThreadFactory factory,
                          UncaughtExceptionHandler handler,
                          int mode,
-                         String workerNamePrefix) {
+                         String workerNamePrefix,
+                         boolean topologyAware) {
         this.workerNamePrefix = workerNamePrefix;
         this.factory = factory;
         this.ueh = handler;
         this.config = (parallelism & SMASK) | mode;
+        CpuTopology tp;
+        if (topologyAware && (tp = CpuTopology.get()).nodeCount() > 1) {
+            this.topology = tp;
+            this.localSteals = new LongAdder();
+            this.remoteSteals = new LongAdder();
+        }
+        else {
+            this.topology = null;
+            this.localSteals = this.remoteSteals = null;
+        }
         long np = (long)(-parallelism); // offset ctl counts
         this.ctl = ((np << AC_SHIFT) & AC_MASK) | ((np << TC_SHIFT) & TC_MASK);
     }
@@ -2643,6 +2801,9 @@ public class ForkJoinPool extends AbstractExecutorService {
         ForkJoinTask<?> job;
         if (task instanceof ForkJoinTask<?>) // avoid re-wrap
             job = (ForkJoinTask<?>) task;
+        else if (statistics != null)
+            job = new ForkJoinTask.RunnableExecuteAction
+                (new ExecutorStatistics.TimedTask(task));
         else
             job = new ForkJoinTask.RunnableExecuteAction(task);
         externalPush(job);
@@ -2671,7 +2832,11 @@ public class ForkJoinPool extends AbstractExecutorService {
      *         scheduled for execution
      */
     public <T> ForkJoinTask<T> submit(Callable<T> task) {
-        ForkJoinTask<T> job = new ForkJoinTask.AdaptedCallable<T>(task);
+        if (task == null)
+            throw new NullPointerException();
+        ForkJoinTask<T> job = new ForkJoinTask.AdaptedCallable<T>
+            ((statistics == null) ? task :
+             new ExecutorStatistics.TimedCallable<T>(task));
         externalPush(job);
         return job;
     }
@@ -2682,7 +2847,11 @@ public class ForkJoinPool extends AbstractExecutorService {
      *         scheduled for execution
      */
     public <T> ForkJoinTask<T> submit(Runnable task, T result) {
-        ForkJoinTask<T> job = new ForkJoinTask.AdaptedRunnable<T>(task, result);
+        if (task == null)
+            throw new NullPointerException();
+        ForkJoinTask<T> job = new ForkJoinTask.AdaptedRunnable<T>
+            ((statistics == null) ? task :
+             new ExecutorStatistics.TimedTask(task), result);
         externalPush(job);
         return job;
     }
@@ -2698,6 +2867,9 @@ public class ForkJoinPool extends AbstractExecutorService {
         ForkJoinTask<?> job;
         if (task instanceof ForkJoinTask<?>) // avoid re-wrap
             job = (ForkJoinTask<?>) task;
+        else if (statistics != null)
+            job = new ForkJoinTask.AdaptedRunnableAction
+                (new ExecutorStatistics.TimedTask(task));
         else
             job = new ForkJoinTask.AdaptedRunnableAction(task);
         externalPush(job);
@@ -2864,6 +3036,59 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Returns {@code true} if this pool places its workers and
+     * prefers steals according to the processor topology of the
+     * machine.  A pool constructed to be topology-aware is not
+     * if the machine has a single node.
+     *
+     * @return {@code true} if this pool is topology-aware
+     * @since 9
+     */
+    public boolean isTopologyAware() {
+        return topology != null;
+    }
+
+    /**
+     * Returns the number of nodes over which this pool spreads its
+     * workers, which is one unless the pool is topology-aware.
+     *
+     * @return the number of nodes
+     * @since 9
+     */
+    public int getNodeCount() {
+        CpuTopology tp = topology;
+        return (tp == null) ? 1 : tp.nodeCount();
+    }
+
+    /**
+     * Returns an estimate of the number of tasks that idle workers
+     * of a topology-aware pool stole from workers on the same node.
+     * Together with {@link #getRemoteStealCount}, this value may be
+     * used to check how well tasks stay on their node.
+     *
+     * @return the number of steals within a node, or zero if this
+     *         pool is not topology-aware
+     * @since 9
+     */
+    public long getLocalStealCount() {
+        LongAdder a = localSteals;
+        return (a == null) ? 0L : a.sum();
+    }
+
+    /**
+     * Returns an estimate of the number of tasks that idle workers
+     * of a topology-aware pool stole from workers on other nodes.
+     *
+     * @return the number of steals across nodes, or zero if this
+     *         pool is not topology-aware
+     * @since 9
+     */
+    public long getRemoteStealCount() {
+        LongAdder a = remoteSteals;
+        return (a == null) ? 0L : a.sum();
+    }
+
     /**
      * Returns an estimate of the total number of tasks currently held
      * in queues by worker threads (but not including tasks submitted
@@ -2973,6 +3198,42 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Starts recording statistics for this pool, such as histograms
+     * of the time tasks wait to be run and take to execute, and
+     * registers the management interface reporting them with the
+     * platform {@link javax.management.MBeanServer MBeanServer} under
+     * the given name.  The interface is unregistered when the pool
+     * terminates.  If the pool has already been registered, returns
+     * the existing management interface.
+     *
+     * <p>Queue wait times are recorded only for tasks submitted as
+     * {@code Runnable} or {@code Callable}, and execution times only
+     * for tasks run at top level, not for the subtasks they fork and
+     * join.
+     *
+     * @param name the name of this pool; must be a valid value of an
+     *        {@link javax.management.ObjectName ObjectName} key
+     *        property, and must not be in use by another registered pool
+     * @return the management interface
+     * @throws NullPointerException if the name is null
+     * @throws IllegalArgumentException if the name is not a valid
+     *         key property value, or another management interface is
+     *         registered under it
+     */
+    public ExecutorMXBean registerMXBean(String name) {
+        synchronized (this) {
+            ExecutorStatistics stats = statistics;
+            if (stats == null) {
+                stats = new ExecutorStatistics(name, this);
+                if ((runState & TERMINATED) == 0)
+                    stats.register();
+                statistics = stats;
+            }
+            return stats;
+        }
+    }
+
     /**
      * Returns a string identifying this pool, as well as its state,
      * including indications of run state, parallelism level, and
@@ -3019,6 +3280,10 @@ public class ForkJoinPool extends AbstractExecutorService {
             ", active = " + ac +
             ", running = " + rc +
             ", steals = " + st +
+            (topology == null ? "" :
+             ", nodes = " + topology.nodeCount() +
+             ", local steals = " + localSteals.sum() +
+             ", remote steals = " + remoteSteals.sum()) +
             ", tasks = " + qt +
             ", submissions = " + qs +
             "]";
@@ -3306,12 +3571,20 @@ public class ForkJoinPool extends AbstractExecutorService {
         if ((t instanceof ForkJoinWorkerThread) &&
             (p = (wt = (ForkJoinWorkerThread)t).pool) != null) {
             WorkQueue w = wt.workQueue;
+            ManagedBlockingExecutor.Carrier carrier =
+                (wt instanceof ManagedBlockingExecutor.Carrier) ?
+                (ManagedBlockingExecutor.Carrier)wt : null;
+            boolean nested = (carrier != null) && carrier.blocking;
             while (!blocker.isReleasable()) {
                 if (p.tryCompensate(w)) {
+                    if (carrier != null)  // don't compensate twice
+                        carrier.blocking = true;
                     try {
                         do {} while (!blocker.isReleasable() &&
                                      !blocker.block());
                     } finally {
+                        if (carrier != null)
+                            carrier.blocking = nested;
                         U.getAndAddLong(p, CTL, AC_UNIT);
                     }
                     break;
@@ -3408,6 +3681,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         int parallelism = -1;
         ForkJoinWorkerThreadFactory factory = null;
         UncaughtExceptionHandler handler = null;
+        boolean topologyAware = false;
         try {  // ignore exceptions in accessing/parsing properties
             String pp = System.getProperty
                 ("java.util.concurrent.ForkJoinPool.common.parallelism");
@@ -3415,6 +3689,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                 ("java.util.concurrent.ForkJoinPool.common.threadFactory");
             String hp = System.getProperty
                 ("java.util.concurrent.ForkJoinPool.common.exceptionHandler");
+            topologyAware = Boolean.parseBoolean(System.getProperty
+                ("java.util.concurrent.ForkJoinPool.common.topologyAware"));
             if (pp != null)
                 parallelism = Integer.parseInt(pp);
             if (fp != null)
@@ -3437,7 +3713,8 @@ public class ForkJoinPool extends AbstractExecutorService {
         if (parallelism > MAX_CAP)
             parallelism = MAX_CAP;
         return new ForkJoinPool(parallelism, factory, handler, LIFO_QUEUE,
-                                "ForkJoinPool.commonPool-worker-");
+                                "ForkJoinPool.commonPool-worker-",
+                                topologyAware);
     }
 
     /**
@@ -121,6 +121,18 @@ public class ForkJoinWorkerThread extends Thread {
         return workQueue.getPoolIndex();
     }
 
+    /**
+     * Returns the index of the node this thread is assigned to if
+     * its pool is {@linkplain ForkJoinPool#isTopologyAware
+     * topology-aware}, or zero otherwise.
+     *
+     * @return the node index
+     * @since 9
+     */
+    public int getNode() {
+        return workQueue.node;
+    }
+
     /**
      * Initializes internal state after construction but before
      * processing any tasks. If you override this method, you must
@@ -153,6 +165,7 @@ public class ForkJoinWorkerThread extends Thread {
         if (workQueue.array == null) { // only run once
             Throwable exception = null;
             try {
+                pool.bindWorker(this);
                 onStart();
                 pool.runWorker(workQueue);
             } catch (Throwable ex) {
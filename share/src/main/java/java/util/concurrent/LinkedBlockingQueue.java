@@ -762,6 +762,169 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, waiting up to the specified wait time if necessary for
+     * space to become available.  The elements are linked in as many
+     * of them at a time as there is space for, each batch with a
+     * single acquisition of the put lock, and waiting consumers are
+     * signalled once per batch.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no element is
+     *         inserted
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return offerAll(c, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, waiting if necessary for space to become available.  The
+     * elements are linked in as for {@link #offerAll offerAll}.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no element is
+     *         inserted
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        offerAll(c, false, 0L);
+    }
+
+    /**
+     * Implements offerAll and putAll.
+     */
+    private int offerAll(Collection<? extends E> c, boolean timed, long nanos)
+        throws InterruptedException {
+        if (c == this)
+            throw new IllegalArgumentException();
+        // Copy c into a private chain of Nodes
+        Node<E> first = null, t = null;
+        int size = 0;
+        for (E e : c) {
+            if (e == null) throw new NullPointerException();
+            Node<E> node = new Node<E>(e);
+            if (first == null)
+                first = t = node;
+            else
+                t = t.next = node;
+            ++size;
+        }
+        if (first == null)
+            return 0;
+        int added = 0;
+        boolean signal = false;
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        putLock.lockInterruptibly();
+        try {
+            while (first != null) {
+                int room;
+                while ((room = capacity - count.get()) <= 0) {
+                    if (signal) {           // let consumers make room
+                        signal = false;
+                        signalNotEmpty();
+                    }
+                    if (!timed)
+                        notFull.await();
+                    else if (nanos <= 0L)
+                        return added;
+                    else
+                        nanos = notFull.awaitNanos(nanos);
+                }
+                int k = Math.min(room, size - added);
+                Node<E> end = first;
+                for (int i = 1; i < k; ++i)
+                    end = end.next;
+                Node<E> rest = end.next;
+                end.next = null;
+                last.next = first;          // enqueue the batch
+                last = end;
+                int prior = count.getAndAdd(k);
+                if (prior == 0)
+                    signal = true;
+                if (prior + k < capacity)
+                    notFull.signal();
+                added += k;
+                first = rest;
+            }
+            return added;
+        } finally {
+            putLock.unlock();
+            if (signal)
+                signalNotEmpty();
+        }
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue and
+     * adds them to the given collection, waiting up to the specified
+     * wait time if necessary for an element to become available.  All
+     * available elements up to the given number are unlinked with a
+     * single acquisition of the take lock.
+     *
+     * @throws InterruptedException          {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        boolean signalNotFull = false;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0L)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(maxElements, count.get());
+            // count.get provides visibility to first n Nodes
+            Node<E> h = head;
+            int i = 0;
+            try {
+                while (i < n) {
+                    Node<E> p = h.next;
+                    c.add(p.item);
+                    p.item = null;
+                    h.next = h;
+                    h = p;
+                    ++i;
+                }
+                return n;
+            } finally {
+                // Restore invariants even if c.add() threw
+                if (i > 0) {
+                    head = h;
+                    int prior = count.getAndAdd(-i);
+                    signalNotFull = (prior == capacity);
+                    if (prior > i)
+                        notEmpty.signal();
+                }
+            }
+        } finally {
+            takeLock.unlock();
+            if (signalNotFull)
+                signalNotFull();
+        }
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
@@ -685,6 +685,42 @@ public class LinkedTransferQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Tries to append a private chain of data nodes from first to
+     * last, as in tryAppend, then to set tail to last.
+     *
+     * @return false if the last node of the queue is an unmatched
+     * request, so that the chain cannot be appended
+     */
+    private boolean tryAppendChain(Node first, Node last) {
+        for (Node t = tail, p = t;;) {
+            Node n, u;
+            if (p == null && (p = head) == null) {
+                if (casHead(null, first)) {
+                    casTail(null, last);
+                    return true;
+                }
+            }
+            else if (p.cannotPrecede(true))
+                return false;
+            else if ((n = p.next) != null)    // not last; keep traversing
+                p = p != t && t != (u = tail) ? (t = u) : // stale tail
+                    (p != n) ? n : null;      // restart if off list
+            else if (!p.casNext(null, first))
+                p = p.next;                   // re-read on CAS failure
+            else {
+                // Try a little harder to update tail, since we may be
+                // adding many elements.
+                if (!casTail(t, last)) {
+                    t = tail;
+                    if (last.next == null)
+                        casTail(t, last);
+                }
+                return true;
+            }
+        }
+    }
+
     /**
      * Spins/yields/blocks until node s is matched or caller gives up.
      *
@@ -1210,6 +1246,84 @@ public class LinkedTransferQueue<E> extends AbstractQueue<E>
         return true;
     }
 
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, in the order they are returned by the collection's
+     * iterator.  Elements are first handed to waiting consumers, if
+     * any; the remaining elements are linked in as a chain with a
+     * single atomic update.  As the queue is unbounded, this method
+     * will never block.
+     *
+     * @return the number of elements in the collection
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no element is
+     *         inserted
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit) {
+        return appendAll(c);
+    }
+
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, as for {@link #offerAll offerAll}.  As the queue is
+     * unbounded, this method will never block.
+     *
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no element is
+     *         inserted
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public void putAll(Collection<? extends E> c) {
+        appendAll(c);
+    }
+
+    /**
+     * Appends all of the elements in the specified collection to the
+     * end of this queue, as for {@link #offerAll offerAll}.
+     *
+     * @param c the elements to be inserted into this queue
+     * @return {@code true} if this queue changed as a result of the call
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        return appendAll(c) != 0;
+    }
+
+    /**
+     * Implements offerAll, putAll and addAll.
+     */
+    @SuppressWarnings("unchecked")
+    private int appendAll(Collection<? extends E> c) {
+        if (c == this)
+            throw new IllegalArgumentException();
+        // Copy c into a private chain of Nodes
+        Node first = null, last = null;
+        int n = 0;
+        for (E e : c) {
+            if (e == null) throw new NullPointerException();
+            Node s = new Node(e, true);
+            if (first == null)
+                first = last = s;
+            else {
+                last.next = s;
+                last = s;
+            }
+            ++n;
+        }
+        while (first != null) {
+            if (firstOfMode(false) == null && tryAppendChain(first, last))
+                break;
+            // Consumers are waiting: match them one element at a time
+            Object item = first.item;
+            first = first.next;
+            xfer((E)item, true, ASYNC, 0);
+        }
+        return n;
+    }
+
     /**
      * Transfers the element to a waiting consumer immediately, if possible.
      *
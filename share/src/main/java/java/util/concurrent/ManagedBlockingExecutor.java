@@ -0,0 +1,260 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import sun.misc.JavaUtilConcurrentAccess;
+import sun.misc.SharedSecrets;
+
+/**
+ * An {@link ExecutorService} for tasks that spend most of their time
+ * blocked, such as request handlers performing blocking I/O, that
+ * runs them on a small set of <em>carrier</em> threads of a {@link
+ * ForkJoinPool} without letting blocked tasks starve the others.
+ * Whenever a carrier thread blocks at a known blocking point, the
+ * pool is told so, as if the block were performed by {@link
+ * ForkJoinPool#managedBlock}, and releases an idle thread or creates
+ * a new one to keep the number of threads running tasks at the
+ * {@linkplain #getParallelism parallelism} level.  The known blocking
+ * points are:
+ *
+ * <ul>
+ * <li>the {@code park} methods of {@link
+ * java.util.concurrent.locks.LockSupport LockSupport}, and so waits
+ * on all locks, conditions and synchronizers of this package;
+ * <li>reads, writes and connection completion of {@link
+ * java.nio.channels.SocketChannel SocketChannel}s in blocking mode.
+ * </ul>
+ *
+ * <p>Parks are compensated for only once they have lasted some tens
+ * of microseconds, so that brief waits for locks neither wake nor
+ * create threads.  If the pool cannot compensate at that moment, for
+ * example while it is at its thread limit or another thread is
+ * changing its state, the thread blocks uncompensated.
+ *
+ * <p>Blocking elsewhere, for example in {@link Thread#sleep}, {@link
+ * Object#wait}, or entry to a {@code synchronized} block, occupies a
+ * carrier thread without compensation, so tasks should use the
+ * facilities above instead, for example {@link TimeUnit#sleep} being
+ * replaceable by {@link java.util.concurrent.locks.LockSupport#parkNanos
+ * LockSupport.parkNanos} in a loop.  Each blocked task still holds a
+ * thread, so the number of tasks that may be blocked at once is
+ * bounded by the maximum number of threads of a {@code ForkJoinPool}
+ * (32767) and by the resources of the system; this class saves the
+ * cost of sizing a pool for the worst case, not that of the threads.
+ * Threads created to replace blocked carriers are retired when they
+ * have been idle for a while.
+ *
+ * @since 9
+ */
+public class ManagedBlockingExecutor extends AbstractExecutorService {
+
+    /**
+     * A carrier thread. The blocking field is true while the thread
+     * is blocked with compensation, and is accessed only by the
+     * thread itself.
+     */
+    static final class Carrier extends ForkJoinWorkerThread {
+        final ManagedBlockingExecutor executor;
+        boolean blocking;
+        Carrier(ForkJoinPool pool, ManagedBlockingExecutor executor) {
+            super(pool);
+            this.executor = executor;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder compensations = new LongAdder();
+
+    /**
+     * Creates an executor with parallelism equal to {@link
+     * java.lang.Runtime#availableProcessors}.
+     *
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     *         because it does not hold {@link
+     *         java.lang.RuntimePermission}{@code ("modifyThread")}
+     */
+    public ManagedBlockingExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an executor with the given parallelism, the number of
+     * carrier threads it aims to keep running tasks.
+     *
+     * @param parallelism the parallelism level
+     * @throws IllegalArgumentException if parallelism less than or
+     *         equal to zero, or greater than implementation limit
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     *         because it does not hold {@link
+     *         java.lang.RuntimePermission}{@code ("modifyThread")}
+     */
+    public ManagedBlockingExecutor(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism, new CarrierFactory(this),
+                                     null, true);
+    }
+
+    /** Factory creating carrier threads for an executor. */
+    static final class CarrierFactory
+        implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        final ManagedBlockingExecutor executor;
+        CarrierFactory(ManagedBlockingExecutor executor) {
+            this.executor = executor;
+        }
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            return new Carrier(pool, executor);
+        }
+    }
+
+    /**
+     * Executes the given task on a carrier thread.
+     *
+     * @throws RejectedExecutionException if this executor has been
+     *         shut down
+     * @throws NullPointerException if command is null
+     */
+    public void execute(Runnable command) {
+        pool.execute(command);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Attempts to cancel all tasks and interrupt the running ones,
+     * including those blocked at any blocking point.  Tasks submitted
+     * but never started are cancelled rather than returned, so the
+     * returned list is always empty.
+     *
+     * @return an empty list
+     */
+    public List<Runnable> shutdownNow() {
+        return pool.shutdownNow();
+    }
+
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    public boolean isTerminated() {
+        return pool.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Returns the number of carrier threads this executor aims to
+     * keep running tasks.
+     *
+     * @return the parallelism level
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Returns the number of threads that have started but not yet
+     * terminated, including those blocked and their replacements.
+     *
+     * @return the number of threads
+     */
+    public int getPoolSize() {
+        return pool.getPoolSize();
+    }
+
+    /**
+     * Returns an estimate of the number of threads currently blocked
+     * at a known blocking point with compensation.
+     *
+     * @return the number of blocked threads
+     */
+    public int getBlockedCount() {
+        long n = blocked.sum();
+        return (n <= 0L) ? 0 : (int)n;
+    }
+
+    /**
+     * Returns an estimate of the number of times a thread blocked
+     * with compensation since this executor was created.
+     *
+     * @return the number of compensated blocks
+     */
+    public long getCompensatedBlockCount() {
+        return compensations.sum();
+    }
+
+    /**
+     * Returns a string identifying this executor, as well as its
+     * state, including the state of its pool and the number of
+     * blocked threads.
+     *
+     * @return a string identifying this executor, as well as its state
+     */
+    public String toString() {
+        return super.toString() +
+            "[blocked = " + getBlockedCount() +
+            ", pool = " + pool + "]";
+    }
+
+    static {
+        SharedSecrets.setJavaUtilConcurrentAccess
+            (new JavaUtilConcurrentAccess() {
+                public boolean isCarrier(Thread t) {
+                    return (t instanceof Carrier) && !((Carrier)t).blocking;
+                }
+                public boolean beginBlocking() {
+                    Thread t = Thread.currentThread();
+                    if (!(t instanceof Carrier))
+                        return false;
+                    Carrier c = (Carrier)t;
+                    if (c.blocking)   // already compensated
+                        return false;
+                    c.blocking = true; // also guards against recursion
+                    if (!c.pool.beginCompensatedBlock(c.workQueue)) {
+                        c.blocking = false;
+                        return false;
+                    }
+                    ManagedBlockingExecutor e = c.executor;
+                    e.blocked.increment();
+                    e.compensations.increment();
+                    return true;
+                }
+                public void endBlocking() {
+                    Carrier c = (Carrier)Thread.currentThread();
+                    c.blocking = false;
+                    c.executor.blocked.decrement();
+                    c.pool.endCompensatedBlock();
+                }
+            });
+    }
+}
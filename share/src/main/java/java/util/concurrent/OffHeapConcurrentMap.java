@@ -0,0 +1,1395 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.management.OffHeapMapMXBean;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.management.ObjectName;
+import sun.management.ManagementFactoryHelper;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * A {@link ConcurrentMap} that keeps its entries outside the Java
+ * heap, in {@linkplain ByteBuffer#allocateDirect direct} buffers or,
+ * in persistent mode, in {@linkplain MappedByteBuffer memory-mapped}
+ * files.  Keys and values are stored in serialized form, as produced
+ * by the {@link Codec}s given at construction, so that the garbage
+ * collector never scans the contents of the map.  Each access decodes
+ * a fresh copy of the stored key or value.
+ *
+ * <p>Keys are compared by their encoded form: two keys are considered
+ * equal if and only if their codec encodes them to identical byte
+ * sequences.  Likewise, the conditional operations {@code
+ * remove(key, value)} and {@code replace(key, oldValue, newValue)}
+ * compare values by their encoded form.  Codecs must therefore encode
+ * equal objects to equal bytes.  This map does not permit {@code null}
+ * keys or values.
+ *
+ * <p>The map is partitioned into segments, each guarded by its own
+ * read-write lock: retrievals of different keys of one segment
+ * proceed concurrently, and updates of keys in different segments do
+ * not contend.  Each segment is an append-only log of entries plus an
+ * open-addressed hash index, both off-heap.  Replacing or removing a
+ * mapping leaves its old entry in the log until the segment is
+ * compacted, which happens automatically when the log fills; the
+ * fraction of such reclaimable space is reported as the {@linkplain
+ * OffHeapMapMXBean#getFragmentation fragmentation} of the map.  The
+ * log of a segment is limited to 1 GiB, so maps holding more data
+ * should be created with a correspondingly larger {@code
+ * concurrencyLevel}.
+ *
+ * <p>Memory for direct segments is allocated, accounted and limited
+ * like that of any other direct buffer (see {@code
+ * -XX:MaxDirectMemorySize}), and is released eagerly when the map is
+ * {@linkplain #close closed} or a segment grows.  A map created by
+ * {@link #open open} keeps each segment in a file of the given
+ * directory; reopening the directory after a restart restores the
+ * mappings without reloading them, by rebuilding only the hash
+ * indexes.  Mapped contents reach the file system at the discretion
+ * of the operating system, or when {@link #force} is invoked.
+ *
+ * <p>Iterators and spliterators of the collection views are weakly
+ * consistent.  They traverse one segment at a time, taking a snapshot
+ * of the keys of that segment and then looking up each key as it is
+ * returned.
+ *
+ * @since 9
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ */
+public class OffHeapConcurrentMap<K,V> extends AbstractMap<K,V>
+    implements ConcurrentMap<K,V>, Closeable {
+
+    /*
+     * Segment layout.  Each segment's data buffer starts with a
+     * header:
+     *
+     *   0: int magic, 4: int version, 8: int number of segments,
+     *  12: int segment index, 16: int write position, 20: int count,
+     *  24: int reclaimable bytes, 28: reserved
+     *
+     * followed by records, each:
+     *
+     *   0: byte status (LIVE or DEAD), 1: int key hash,
+     *   5: int key length, 9: int value length, 13: key bytes,
+     *   13 + key length: value bytes
+     *
+     * The hash index is a direct buffer of long slots, each holding
+     * the key hash in its high half and the record offset in its low
+     * half.  An offset of zero denotes an empty slot, and an offset of
+     * one a removed slot; neither can be the offset of a record.  The
+     * index is linearly probed and kept at most 3/4 full.
+     *
+     * All accesses to a segment's buffers are absolute, so readers
+     * holding the read lock may share them.  Compaction slides live
+     * records towards the start of the log, preserving their order,
+     * and then rebuilds the index.
+     */
+
+    /**
+     * Encodes objects to bytes for storage off-heap and decodes them
+     * back.  Implementations must encode equal objects to identical
+     * byte sequences, and must be thread-safe.
+     *
+     * @param <T> the type of encoded objects
+     */
+    public interface Codec<T> {
+        /**
+         * Encodes the given object.
+         *
+         * @param value the object, never {@code null}
+         * @return the encoded bytes
+         */
+        byte[] encode(T value);
+
+        /**
+         * Decodes an object from the remaining bytes of the given
+         * buffer.  The buffer may be a read-only view of the
+         * storage of the map, and must not be retained.
+         *
+         * @param src the encoded bytes, from the buffer's position
+         *        to its limit
+         * @return the decoded object
+         */
+        T decode(ByteBuffer src);
+    }
+
+    /* ---------------- Constants -------------- */
+
+    static final int MAGIC = 0x4f484d31;       // "OHM1"
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+    static final int H_MAGIC = 0, H_VERSION = 4, H_SEGMENTS = 8,
+        H_INDEX = 12, H_WRITEPOS = 16, H_COUNT = 20, H_DEAD = 24;
+
+    static final int RECORD_HEADER_SIZE = 13;
+    static final byte LIVE = 1;
+    static final byte DEAD = 0;
+
+    static final long EMPTY_SLOT = 0L;
+    static final long REMOVED_SLOT = 1L;
+
+    /**
+     * The largest possible log capacity of a segment.
+     */
+    static final int MAX_SEGMENT_CAPACITY = 1 << 30;
+
+    /**
+     * The smallest log capacity of a segment.
+     */
+    static final int MIN_SEGMENT_CAPACITY = 1 << 12;
+
+    /**
+     * The smallest number of index slots of a segment.
+     */
+    static final int MIN_INDEX_SLOTS = 16;
+
+    /**
+     * The largest number of index slots of a segment.
+     */
+    static final int MAX_INDEX_SLOTS = 1 << 27;
+
+    /**
+     * The default number of segments when not otherwise specified.
+     */
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * The maximum number of segments.
+     */
+    static final int MAX_SEGMENTS = 1 << 16;
+
+    /**
+     * The prefix of the files holding the segments of a persistent
+     * map.
+     */
+    static final String SEGMENT_FILE_PREFIX = "segment-";
+
+    /* ---------------- Fields -------------- */
+
+    final Codec<K> keyCodec;
+    final Codec<V> valueCodec;
+    final Segment[] segments;
+    final int segmentShift;
+    final int segmentMask;
+    final boolean persistent;
+
+    /** The registered management interface, or null */
+    private volatile Statistics mxbean;
+
+    /* ---------------- Segments -------------- */
+
+    /**
+     * A segment of the map.  This subclasses from
+     * ReentrantReadWriteLock opportunistically, just to simplify some
+     * locking and avoid separate construction.  The buffers and
+     * counters are guarded by the lock; counters are volatile only so
+     * that statistics may be read without locking.
+     */
+    static final class Segment extends ReentrantReadWriteLock {
+        private static final long serialVersionUID = 5207829234977875722L;
+
+        final FileChannel channel;  // non-null if persistent
+        ByteBuffer data;            // null when closed
+        ByteBuffer index;
+        int indexMask;
+        volatile int indexUsed;     // slots in use, including removed
+        volatile int capacity;
+        volatile int writePos;
+        volatile int count;
+        volatile int deadBytes;
+
+        Segment(FileChannel channel, ByteBuffer data, int slots) {
+            this.channel = channel;
+            this.data = data;
+            this.capacity = data.capacity();
+            this.writePos = HEADER_SIZE;
+            newIndex(slots);
+        }
+
+        final void ensureOpen() {
+            if (data == null)
+                throw new IllegalStateException("Map is closed");
+        }
+
+        final void newIndex(int slots) {
+            ByteBuffer old = index;
+            index = ByteBuffer.allocateDirect(slots << 3);
+            indexMask = slots - 1;
+            indexUsed = 0;
+            if (old != null)
+                free(old);
+        }
+
+        final int slots() {
+            return indexMask + 1;
+        }
+
+        final void writeHeader() {
+            ByteBuffer d = data;
+            d.putInt(H_WRITEPOS, writePos);
+            d.putInt(H_COUNT, count);
+            d.putInt(H_DEAD, deadBytes);
+        }
+
+        /**
+         * Returns the index slot of the given key if present, else
+         * the negated insertion slot minus one.
+         */
+        final int find(byte[] key, int h) {
+            ByteBuffer x = index;
+            int m = indexMask;
+            int free = -1;
+            for (int i = h & m;; i = (i + 1) & m) {
+                long s = x.getLong(i << 3);
+                int off = (int)s;
+                if (s == EMPTY_SLOT)
+                    return -((free >= 0) ? free : i) - 1;
+                if (off == (int)REMOVED_SLOT) {
+                    if (free < 0)
+                        free = i;
+                }
+                else if ((int)(s >>> 32) == h && keyEquals(off, key))
+                    return i;
+            }
+        }
+
+        final boolean keyEquals(int off, byte[] key) {
+            ByteBuffer d = data;
+            int n = key.length;
+            if (d.getInt(off + 5) != n)
+                return false;
+            int p = off + RECORD_HEADER_SIZE;
+            for (int j = 0; j < n; ++j) {
+                if (d.get(p + j) != key[j])
+                    return false;
+            }
+            return true;
+        }
+
+        final boolean valueEquals(int off, byte[] val) {
+            ByteBuffer d = data;
+            int n = val.length;
+            if (d.getInt(off + 9) != n)
+                return false;
+            int p = off + RECORD_HEADER_SIZE + d.getInt(off + 5);
+            for (int j = 0; j < n; ++j) {
+                if (d.get(p + j) != val[j])
+                    return false;
+            }
+            return true;
+        }
+
+        final int offsetAt(int slot) {
+            return (int)index.getLong(slot << 3);
+        }
+
+        /**
+         * Makes room for a record of the given size, compacting or
+         * growing the log as needed.  Offsets and slots obtained
+         * before calling this method are invalid afterwards.
+         */
+        final void reserve(int size) throws IOException {
+            if (size > MAX_SEGMENT_CAPACITY - HEADER_SIZE)
+                throw new IllegalArgumentException("Entry too large: " + size);
+            if (writePos + size <= capacity)
+                return;
+            if (deadBytes >= size ||
+                deadBytes >= ((writePos - HEADER_SIZE) >>> 2)) {
+                compact();
+                if (writePos + size <= capacity)
+                    return;
+            }
+            long need = (long)writePos + size;
+            long n = capacity;
+            while (n < need)
+                n <<= 1;
+            if (n > MAX_SEGMENT_CAPACITY) {
+                if (deadBytes > 0)
+                    compact();
+                if ((need = (long)writePos + size) > MAX_SEGMENT_CAPACITY)
+                    throw new IllegalStateException("Segment capacity exceeded");
+                n = MAX_SEGMENT_CAPACITY;
+            }
+            grow((int)n);
+        }
+
+        final void grow(int n) throws IOException {
+            ByteBuffer old = data, d;
+            if (channel != null)
+                d = channel.map(FileChannel.MapMode.READ_WRITE, 0L, n);
+            else {
+                d = ByteBuffer.allocateDirect(n);
+                ByteBuffer src = old.duplicate();
+                src.position(0).limit(writePos);
+                d.put(src);
+            }
+            data = d;
+            capacity = n;
+            free(old);
+        }
+
+        /**
+         * Slides live records towards the start of the log, and
+         * rebuilds the index.
+         */
+        final void compact() {
+            ByteBuffer d = data;
+            byte[] buf = new byte[8192];
+            int r = HEADER_SIZE, w = HEADER_SIZE, end = writePos;
+            while (r < end) {
+                int len = RECORD_HEADER_SIZE + d.getInt(r + 5) + d.getInt(r + 9);
+                if (d.get(r) == LIVE) {
+                    if (r != w) {
+                        for (int j = 0; j < len; ) {
+                            int c = Math.min(buf.length, len - j);
+                            ByteBuffer src = d.duplicate();
+                            src.position(r + j).limit(r + j + c);
+                            src.get(buf, 0, c);
+                            ByteBuffer dst = d.duplicate();
+                            dst.position(w + j);
+                            dst.put(buf, 0, c);
+                            j += c;
+                        }
+                    }
+                    w += len;
+                }
+                r += len;
+            }
+            writePos = w;
+            deadBytes = 0;
+            writeHeader();
+            reindex(slots());
+        }
+
+        /**
+         * Rebuilds the index from the live records of the log.
+         */
+        final void reindex(int slots) {
+            newIndex(slots);
+            ByteBuffer d = data;
+            int used = 0;
+            for (int r = HEADER_SIZE, end = writePos; r < end; ) {
+                if (d.get(r) == LIVE) {
+                    insertSlot(d.getInt(r + 1), r);
+                    ++used;
+                }
+                r += RECORD_HEADER_SIZE + d.getInt(r + 5) + d.getInt(r + 9);
+            }
+            indexUsed = used;
+        }
+
+        /**
+         * Places a slot for a record known to be absent from the
+         * index into the first free slot of its probe sequence.
+         */
+        final void insertSlot(int h, int off) {
+            ByteBuffer x = index;
+            int m = indexMask;
+            int i = h & m;
+            while ((int)x.getLong(i << 3) != (int)EMPTY_SLOT)
+                i = (i + 1) & m;
+            x.putLong(i << 3, ((long)h << 32) | (off & 0xffffffffL));
+        }
+
+        /**
+         * Ensures the index can take one more slot, rebuilding it if
+         * necessary.  Slots obtained before calling this method are
+         * invalid afterwards if it returns true.
+         */
+        final boolean ensureIndexCapacity() {
+            int n = slots();
+            if (indexUsed + 1 <= n - (n >>> 2))
+                return false;
+            if (count + 1 > (n >>> 1)) {
+                if (n >= MAX_INDEX_SLOTS)
+                    throw new IllegalStateException("Segment index capacity exceeded");
+                n <<= 1;
+            }
+            reindex(n);
+            return true;
+        }
+
+        /**
+         * Appends a live record, returning its offset.  The caller
+         * must have reserved room.
+         */
+        final int append(int h, byte[] key, byte[] val) {
+            ByteBuffer d = data;
+            int off = writePos;
+            d.put(off, DEAD);
+            d.putInt(off + 1, h);
+            d.putInt(off + 5, key.length);
+            d.putInt(off + 9, val.length);
+            ByteBuffer dst = d.duplicate();
+            dst.position(off + RECORD_HEADER_SIZE);
+            dst.put(key);
+            dst.put(val);
+            d.put(off, LIVE);
+            writePos = off + RECORD_HEADER_SIZE + key.length + val.length;
+            return off;
+        }
+
+        /**
+         * Marks the record at the given offset dead.
+         */
+        final void kill(int off) {
+            ByteBuffer d = data;
+            d.put(off, DEAD);
+            deadBytes += RECORD_HEADER_SIZE + d.getInt(off + 5) + d.getInt(off + 9);
+        }
+
+        /**
+         * Rebuilds the counters and index of a segment loaded from a
+         * file, truncating any incomplete trailing record.
+         */
+        final void recover() {
+            ByteBuffer d = data;
+            int end = Math.min(d.getInt(H_WRITEPOS), capacity);
+            int r = HEADER_SIZE, live = 0, dead = 0;
+            while (r + RECORD_HEADER_SIZE <= end) {
+                int kl = d.getInt(r + 5), vl = d.getInt(r + 9);
+                long len = (long)RECORD_HEADER_SIZE + kl + vl;
+                if (kl < 0 || vl < 0 || r + len > end)
+                    break;
+                if (d.get(r) == LIVE)
+                    ++live;
+                else
+                    dead += (int)len;
+                r += (int)len;
+            }
+            writePos = r;
+            count = live;
+            deadBytes = dead;
+            int slots = MIN_INDEX_SLOTS;
+            while (slots < MAX_INDEX_SLOTS && live >= (slots >>> 1))
+                slots <<= 1;
+            reindex(slots);
+            writeHeader();
+        }
+
+        final void release() throws IOException {
+            ByteBuffer d = data, x = index;
+            data = null;
+            index = null;
+            if (d != null) {
+                if (channel != null)
+                    ((MappedByteBuffer)d).force();
+                free(d);
+            }
+            if (x != null)
+                free(x);
+            if (channel != null)
+                channel.close();
+        }
+    }
+
+    /**
+     * Releases the memory of a direct or mapped buffer.  Callers
+     * must ensure that the buffer is no longer accessed.
+     */
+    static void free(ByteBuffer b) {
+        Cleaner cl = ((DirectBuffer)b).cleaner();
+        if (cl != null)
+            cl.clean();
+    }
+
+    /* ---------------- Construction -------------- */
+
+    /**
+     * Creates a new, empty map with the default concurrency level
+     * (16) and initial capacity sufficient for roughly the given
+     * number of bytes of entries.
+     *
+     * @param keyCodec the codec for keys
+     * @param valueCodec the codec for values
+     * @param initialCapacity the initial capacity, in bytes, of the
+     *        off-heap storage of the map
+     * @throws IllegalArgumentException if the initial capacity is
+     *         negative
+     * @throws NullPointerException if either codec is null
+     */
+    public OffHeapConcurrentMap(Codec<K> keyCodec, Codec<V> valueCodec,
+                                long initialCapacity) {
+        this(keyCodec, valueCodec, initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with initial capacity sufficient for
+     * roughly the given number of bytes of entries, and the given
+     * number of segments.
+     *
+     * @param keyCodec the codec for keys
+     * @param valueCodec the codec for values
+     * @param initialCapacity the initial capacity, in bytes, of the
+     *        off-heap storage of the map
+     * @param concurrencyLevel the estimated number of concurrently
+     *        updating threads.  The implementation uses this value as
+     *        a sizing hint for the number of segments.
+     * @throws IllegalArgumentException if the initial capacity is
+     *         negative or the concurrency level is nonpositive
+     * @throws NullPointerException if either codec is null
+     */
+    public OffHeapConcurrentMap(Codec<K> keyCodec, Codec<V> valueCodec,
+                                long initialCapacity, int concurrencyLevel) {
+        this(keyCodec, valueCodec, concurrencyLevel, false);
+        int cap = segmentCapacity(initialCapacity, segments.length);
+        for (int i = 0; i < segments.length; ++i) {
+            ByteBuffer d = ByteBuffer.allocateDirect(cap);
+            initHeader(d, segments.length, i);
+            segments[i] = new Segment(null, d, MIN_INDEX_SLOTS);
+        }
+    }
+
+    private OffHeapConcurrentMap(Codec<K> keyCodec, Codec<V> valueCodec,
+                                 int concurrencyLevel, boolean persistent) {
+        if (keyCodec == null || valueCodec == null)
+            throw new NullPointerException();
+        if (concurrencyLevel <= 0)
+            throw new IllegalArgumentException();
+        if (concurrencyLevel > MAX_SEGMENTS)
+            concurrencyLevel = MAX_SEGMENTS;
+        int sshift = 0;
+        int ssize = 1;
+        while (ssize < concurrencyLevel) {
+            ++sshift;
+            ssize <<= 1;
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.segmentShift = 32 - sshift;
+        this.segmentMask = ssize - 1;
+        this.segments = new Segment[ssize];
+        this.persistent = persistent;
+    }
+
+    /**
+     * Opens, or creates if it does not exist, a persistent map whose
+     * segments are memory-mapped files in the given directory.  A
+     * directory must be reopened with the same concurrency level, and
+     * with codecs compatible with those it was written with.  At most
+     * one map may have a directory open at a time.
+     *
+     * @param dir the directory holding the files of the map
+     * @param keyCodec the codec for keys
+     * @param valueCodec the codec for values
+     * @param initialCapacity the initial capacity, in bytes, of the
+     *        storage of a new map
+     * @param concurrencyLevel the estimated number of concurrently
+     *        updating threads.  The implementation uses this value as
+     *        a sizing hint for the number of segments.
+     * @param <K> the type of keys maintained by the map
+     * @param <V> the type of mapped values
+     * @return the map
+     * @throws IOException if an I/O error occurs, or the directory
+     *         holds files that are not segments of a map with the
+     *         same number of segments
+     * @throws IllegalArgumentException if the initial capacity is
+     *         negative or the concurrency level is nonpositive
+     * @throws NullPointerException if the directory or either codec
+     *         is null
+     */
+    public static <K,V> OffHeapConcurrentMap<K,V> open(Path dir,
+                                                       Codec<K> keyCodec,
+                                                       Codec<V> valueCodec,
+                                                       long initialCapacity,
+                                                       int concurrencyLevel)
+        throws IOException {
+        if (dir == null)
+            throw new NullPointerException();
+        OffHeapConcurrentMap<K,V> m =
+            new OffHeapConcurrentMap<K,V>(keyCodec, valueCodec,
+                                          concurrencyLevel, true);
+        Segment[] ss = m.segments;
+        int cap = segmentCapacity(initialCapacity, ss.length);
+        Files.createDirectories(dir);
+        try {
+            for (int i = 0; i < ss.length; ++i)
+                ss[i] = openSegment(dir.resolve(SEGMENT_FILE_PREFIX + i),
+                                    cap, ss.length, i);
+        } catch (IOException | RuntimeException | Error e) {
+            try {
+                m.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return m;
+    }
+
+    private static Segment openSegment(Path file, int cap, int nsegs, int i)
+        throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                                          StandardOpenOption.READ,
+                                          StandardOpenOption.WRITE);
+        try {
+            long size = ch.size();
+            if (size > MAX_SEGMENT_CAPACITY)
+                throw new IOException("Segment file too large: " + file);
+            boolean fresh = size < HEADER_SIZE;
+            MappedByteBuffer d = ch.map(FileChannel.MapMode.READ_WRITE, 0L,
+                                        fresh ? cap : size);
+            if (fresh)
+                initHeader(d, nsegs, i);
+            else if (d.getInt(H_MAGIC) != MAGIC ||
+                     d.getInt(H_VERSION) != VERSION ||
+                     d.getInt(H_SEGMENTS) != nsegs ||
+                     d.getInt(H_INDEX) != i) {
+                free(d);
+                throw new IOException("Not segment " + i + " of a map with " +
+                                      nsegs + " segments: " + file);
+            }
+            Segment s = new Segment(ch, d, MIN_INDEX_SLOTS);
+            if (!fresh)
+                s.recover();
+            return s;
+        } catch (IOException | RuntimeException | Error e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    private static int segmentCapacity(long initialCapacity, int nsegs) {
+        if (initialCapacity < 0L)
+            throw new IllegalArgumentException();
+        long c = initialCapacity / nsegs + HEADER_SIZE;
+        int n = MIN_SEGMENT_CAPACITY;
+        while (n < c && n < MAX_SEGMENT_CAPACITY)
+            n <<= 1;
+        return n;
+    }
+
+    private static void initHeader(ByteBuffer d, int nsegs, int i) {
+        d.putInt(H_MAGIC, MAGIC);
+        d.putInt(H_VERSION, VERSION);
+        d.putInt(H_SEGMENTS, nsegs);
+        d.putInt(H_INDEX, i);
+        d.putInt(H_WRITEPOS, HEADER_SIZE);
+        d.putInt(H_COUNT, 0);
+        d.putInt(H_DEAD, 0);
+    }
+
+    /* ---------------- Internal utilities -------------- */
+
+    /**
+     * Returns the hash of the encoded key, with bits spread so that
+     * the high half selects the segment and the low half the slot.
+     */
+    static int hash(byte[] key) {
+        int h = 1;
+        for (byte b : key)
+            h = 31 * h + b;
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment segmentFor(int h) {
+        return segments[(h >>> segmentShift) & segmentMask];
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] encodeKey(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        return keyCodec.encode((K)key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] encodeValue(Object value) {
+        if (value == null)
+            throw new NullPointerException();
+        return valueCodec.encode((V)value);
+    }
+
+    /**
+     * Decodes the value of the record at the given offset.  Must be
+     * called while holding a lock of the segment.
+     */
+    private V decodeValue(Segment s, int off) {
+        ByteBuffer b = s.data.asReadOnlyBuffer();
+        int p = off + RECORD_HEADER_SIZE + b.getInt(off + 5);
+        b.limit(p + b.getInt(off + 9)).position(p);
+        return valueCodec.decode(b);
+    }
+
+    /**
+     * Decodes the key of the record at the given offset.  Must be
+     * called while holding a lock of the segment.
+     */
+    private K decodeKey(Segment s, int off) {
+        ByteBuffer b = s.data.asReadOnlyBuffer();
+        int p = off + RECORD_HEADER_SIZE;
+        b.limit(p + b.getInt(off + 5)).position(p);
+        return keyCodec.decode(b);
+    }
+
+    /**
+     * Implementation for put, putIfAbsent and the replace methods.
+     * Stores the value if the key is absent and onlyIfPresent is
+     * false, or if the key is present, onlyIfAbsent is false and,
+     * if cv is non-null, the current value encodes to cv.  Returns
+     * the previous value, or null if none; if cv is non-null, returns
+     * a non-null value if and only if the value was replaced.
+     */
+    private V putVal(Object key, Object value, boolean onlyIfAbsent,
+                     boolean onlyIfPresent, byte[] cv) {
+        byte[] kb = encodeKey(key), vb = encodeValue(value);
+        int h = hash(kb);
+        Segment s = segmentFor(h);
+        s.writeLock().lock();
+        try {
+            s.ensureOpen();
+            int i = s.find(kb, h);
+            if (i < 0 && onlyIfPresent)
+                return null;
+            V old = null;
+            if (i >= 0) {
+                int off = s.offsetAt(i);
+                if (onlyIfAbsent || (cv != null && !s.valueEquals(off, cv)))
+                    return onlyIfAbsent ? decodeValue(s, off) : null;
+                old = decodeValue(s, off);
+            }
+            int size = RECORD_HEADER_SIZE + kb.length + vb.length;
+            if (s.writePos + size > s.capacity) {
+                s.reserve(size);
+                i = s.find(kb, h);
+            }
+            if (i >= 0) {
+                s.kill(s.offsetAt(i));
+                int off = s.append(h, kb, vb);
+                s.index.putLong(i << 3, ((long)h << 32) | (off & 0xffffffffL));
+            }
+            else {
+                if (s.ensureIndexCapacity())
+                    i = s.find(kb, h);
+                int slot = -i - 1;
+                boolean reuse = s.index.getLong(slot << 3) == REMOVED_SLOT;
+                int off = s.append(h, kb, vb);
+                s.index.putLong(slot << 3, ((long)h << 32) | (off & 0xffffffffL));
+                if (!reuse)
+                    s.indexUsed = s.indexUsed + 1;
+                s.count = s.count + 1;
+            }
+            s.writeHeader();
+            return old;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            s.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Implementation for the remove methods.  Removes the mapping if
+     * present and, if cv is non-null, its value encodes to cv.
+     * Returns the previous value, or null if not removed.
+     */
+    private V removeVal(Object key, byte[] cv) {
+        byte[] kb = encodeKey(key);
+        int h = hash(kb);
+        Segment s = segmentFor(h);
+        s.writeLock().lock();
+        try {
+            s.ensureOpen();
+            int i = s.find(kb, h);
+            if (i < 0)
+                return null;
+            int off = s.offsetAt(i);
+            if (cv != null && !s.valueEquals(off, cv))
+                return null;
+            V old = decodeValue(s, off);
+            s.kill(off);
+            s.index.putLong(i << 3, REMOVED_SLOT);
+            s.count = s.count - 1;
+            s.writeHeader();
+            return old;
+        } finally {
+            s.writeLock().unlock();
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.  If the
+     * map contains more than {@code Integer.MAX_VALUE} elements,
+     * returns {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        long n = mappingCount();
+        return (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+    }
+
+    /**
+     * Returns the number of mappings.  The value returned is an
+     * estimate; the actual count may differ if there are concurrent
+     * insertions or removals.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        long n = 0L;
+        for (Segment s : segments)
+            n += s.count;
+        return n;
+    }
+
+    public boolean isEmpty() {
+        for (Segment s : segments) {
+            if (s.count != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @throws NullPointerException if the specified key is null
+     * @throws IllegalStateException if the map has been closed
+     */
+    public V get(Object key) {
+        byte[] kb = encodeKey(key);
+        int h = hash(kb);
+        Segment s = segmentFor(h);
+        s.readLock().lock();
+        try {
+            s.ensureOpen();
+            int i = s.find(kb, h);
+            return (i < 0) ? null : decodeValue(s, s.offsetAt(i));
+        } finally {
+            s.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tests if the specified object is a key in this map.
+     *
+     * @throws NullPointerException if the specified key is null
+     * @throws IllegalStateException if the map has been closed
+     */
+    public boolean containsKey(Object key) {
+        byte[] kb = encodeKey(key);
+        int h = hash(kb);
+        Segment s = segmentFor(h);
+        s.readLock().lock();
+        try {
+            s.ensureOpen();
+            return s.find(kb, h) >= 0;
+        } finally {
+            s.readLock().unlock();
+        }
+    }
+
+    /**
+     * Maps the specified key to the specified value in this map.
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalStateException if the map has been closed, or a
+     *         segment cannot hold the entry
+     * @throws UncheckedIOException if an I/O error occurs while
+     *         growing a persistent segment
+     */
+    public V put(K key, V value) {
+        return putVal(key, value, false, false, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true, false, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        byte[] cv = encodeValue(oldValue);
+        return putVal(key, newValue, false, true, cv) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V replace(K key, V value) {
+        return putVal(key, value, false, true, null);
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        return removeVal(key, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean remove(Object key, Object value) {
+        return value != null && removeVal(key, encodeValue(value)) != null;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        for (Segment s : segments) {
+            s.writeLock().lock();
+            try {
+                s.ensureOpen();
+                s.writePos = HEADER_SIZE;
+                s.count = 0;
+                s.deadBytes = 0;
+                s.writeHeader();
+                s.newIndex(MIN_INDEX_SLOTS);
+            } finally {
+                s.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this
+     * map.  The set supports element removal, which removes the
+     * corresponding mapping from the map, but does not support
+     * element addition.  Its entries support {@code setValue}, which
+     * writes through to the map.
+     *
+     * @return the set view
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        return new EntrySet();
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public int size() {
+            return OffHeapConcurrentMap.this.size();
+        }
+        public boolean isEmpty() {
+            return OffHeapConcurrentMap.this.isEmpty();
+        }
+        public void clear() {
+            OffHeapConcurrentMap.this.clear();
+        }
+        public boolean contains(Object o) {
+            Object k, v, r; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (r = get(k)) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)));
+        }
+        public boolean remove(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    OffHeapConcurrentMap.this.remove(k, v));
+        }
+    }
+
+    /**
+     * Entry returned by EntryIterator, writing through to the map.
+     */
+    final class MapEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = -2357108843046385212L;
+        MapEntry(K key, V value) { super(key, value); }
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
+            V v = super.setValue(value);
+            put(getKey(), value);
+            return v;
+        }
+    }
+
+    /**
+     * Iterates segment by segment over a snapshot of the keys of
+     * each segment.
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K,V>> {
+        int nextSegment;
+        final ArrayList<K> keys = new ArrayList<K>();
+        int nextKey;
+        MapEntry next, lastReturned;
+
+        EntryIterator() { advance(); }
+
+        private void advance() {
+            for (;;) {
+                while (nextKey < keys.size()) {
+                    K k = keys.get(nextKey++);
+                    V v = get(k);
+                    if (v != null) {
+                        next = new MapEntry(k, v);
+                        return;
+                    }
+                }
+                keys.clear();
+                nextKey = 0;
+                if (nextSegment >= segments.length) {
+                    next = null;
+                    return;
+                }
+                Segment s = segments[nextSegment++];
+                s.readLock().lock();
+                try {
+                    s.ensureOpen();
+                    ByteBuffer d = s.data;
+                    for (int r = HEADER_SIZE, end = s.writePos; r < end; ) {
+                        if (d.get(r) == LIVE)
+                            keys.add(decodeKey(s, r));
+                        r += RECORD_HEADER_SIZE + d.getInt(r + 5) +
+                            d.getInt(r + 9);
+                    }
+                } finally {
+                    s.readLock().unlock();
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Map.Entry<K,V> next() {
+            MapEntry e = next;
+            if (e == null)
+                throw new NoSuchElementException();
+            lastReturned = e;
+            advance();
+            return e;
+        }
+
+        public void remove() {
+            MapEntry e = lastReturned;
+            if (e == null)
+                throw new IllegalStateException();
+            lastReturned = null;
+            OffHeapConcurrentMap.this.remove(e.getKey());
+        }
+    }
+
+    /**
+     * Forces any changes made to a persistent map to be written to
+     * the storage device containing its files.  This method has no
+     * effect on a map that is not persistent.
+     *
+     * @throws IllegalStateException if the map has been closed
+     */
+    public void force() {
+        if (!persistent)
+            return;
+        for (Segment s : segments) {
+            s.readLock().lock();
+            try {
+                s.ensureOpen();
+                ((MappedByteBuffer)s.data).force();
+            } finally {
+                s.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Closes this map, releasing its off-heap memory, and unmapping
+     * and closing its files if persistent.  Subsequent operations on
+     * the map throw {@code IllegalStateException}.  If the map is
+     * already closed then invoking this method has no effect.
+     *
+     * @throws IOException if an I/O error occurs while closing a file
+     */
+    public void close() throws IOException {
+        Statistics b = mxbean;
+        if (b != null) {
+            mxbean = null;
+            ManagementFactoryHelper.unregisterDynamicMXBean(b);
+        }
+        IOException ex = null;
+        for (Segment s : segments) {
+            if (s == null)
+                continue;
+            s.writeLock().lock();
+            try {
+                s.release();
+            } catch (IOException e) {
+                if (ex == null)
+                    ex = e;
+                else
+                    ex.addSuppressed(e);
+            } finally {
+                s.writeLock().unlock();
+            }
+        }
+        if (ex != null)
+            throw ex;
+    }
+
+    /* ---------------- Management -------------- */
+
+    /**
+     * Registers the management interface of this map with the
+     * platform {@link javax.management.MBeanServer MBeanServer},
+     * under the given name, and returns it.  The interface is
+     * unregistered when the map is closed.  If the map has already
+     * been registered, returns the existing management interface.
+     *
+     * @param name the name of this map; must be a valid value of an
+     *        {@link ObjectName} key property, and must not be in use by
+     *        another registered map
+     * @return the management interface
+     * @throws NullPointerException if the name is null
+     * @throws IllegalArgumentException if the name is not a valid
+     *         key property value, or another management interface is
+     *         registered under it
+     */
+    public synchronized OffHeapMapMXBean registerMXBean(String name) {
+        if (name == null)
+            throw new NullPointerException();
+        Statistics b = mxbean;
+        if (b == null) {
+            b = new Statistics(name);
+            ManagementFactoryHelper.registerDynamicMXBean(b);
+            mxbean = b;
+        }
+        return b;
+    }
+
+    /**
+     * Management interface of a map.
+     */
+    final class Statistics implements OffHeapMapMXBean {
+        private final String name;
+        private final ObjectName objectName;
+
+        Statistics(String name) {
+            this.name = name;
+            try {
+                this.objectName = new ObjectName
+                    ("java.util.concurrent:type=OffHeapMap,name=" + name);
+            } catch (javax.management.MalformedObjectNameException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        public ObjectName getObjectName() { return objectName; }
+        public String getName() { return name; }
+        public long getSize() { return mappingCount(); }
+        public int getSegmentCount() { return segments.length; }
+        public boolean isPersistent() { return persistent; }
+
+        public long getTotalCapacity() {
+            long n = 0L;
+            for (Segment s : segments)
+                n += (long)s.capacity + ((long)(s.indexMask + 1) << 3);
+            return n;
+        }
+
+        public long getMemoryUsed() {
+            long n = 0L;
+            for (Segment s : segments)
+                n += s.writePos - HEADER_SIZE;
+            return n;
+        }
+
+        public long getReclaimableMemory() {
+            long n = 0L;
+            for (Segment s : segments)
+                n += s.deadBytes;
+            return n;
+        }
+
+        public double getFragmentation() {
+            long used = getMemoryUsed();
+            return (used <= 0L) ? 0.0 : (double)getReclaimableMemory() / used;
+        }
+
+        public double getOccupancy() {
+            long used = 0L, slots = 0L;
+            for (Segment s : segments) {
+                used += s.indexUsed;
+                slots += s.indexMask + 1;
+            }
+            return (slots == 0L) ? 0.0 : (double)used / slots;
+        }
+    }
+
+    /* ---------------- Codecs -------------- */
+
+    /**
+     * Returns a codec encoding strings in UTF-8.
+     *
+     * @return the codec
+     */
+    public static Codec<String> stringCodec() {
+        return StringCodec.INSTANCE;
+    }
+
+    /**
+     * Returns a codec encoding {@code Long} values in eight bytes.
+     *
+     * @return the codec
+     */
+    public static Codec<Long> longCodec() {
+        return LongCodec.INSTANCE;
+    }
+
+    /**
+     * Returns a codec storing byte arrays as they are.  Arrays are
+     * copied when encoded and decoded.
+     *
+     * @return the codec
+     */
+    public static Codec<byte[]> byteArrayCodec() {
+        return ByteArrayCodec.INSTANCE;
+    }
+
+    /**
+     * Returns a codec using Java serialization.  Note that the
+     * serialized forms of equal objects are not in general identical,
+     * so this codec should only be used for values, or for keys
+     * whose serialized form is known to be canonical.
+     *
+     * @param <T> the type of encoded objects
+     * @return the codec
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Serializable> Codec<T> serializableCodec() {
+        return (Codec<T>)SerializableCodec.INSTANCE;
+    }
+
+    static final class StringCodec implements Codec<String> {
+        static final StringCodec INSTANCE = new StringCodec();
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+        public String decode(ByteBuffer src) {
+            return StandardCharsets.UTF_8.decode(src).toString();
+        }
+    }
+
+    static final class LongCodec implements Codec<Long> {
+        static final LongCodec INSTANCE = new LongCodec();
+        public byte[] encode(Long value) {
+            long v = value;
+            byte[] b = new byte[8];
+            for (int i = 7; i >= 0; --i) {
+                b[i] = (byte)v;
+                v >>>= 8;
+            }
+            return b;
+        }
+        public Long decode(ByteBuffer src) {
+            return src.getLong(src.position());
+        }
+    }
+
+    static final class ByteArrayCodec implements Codec<byte[]> {
+        static final ByteArrayCodec INSTANCE = new ByteArrayCodec();
+        public byte[] encode(byte[] value) {
+            return value.clone();
+        }
+        public byte[] decode(ByteBuffer src) {
+            byte[] b = new byte[src.remaining()];
+            src.get(b);
+            return b;
+        }
+    }
+
+    static final class SerializableCodec implements Codec<Serializable> {
+        static final SerializableCodec INSTANCE = new SerializableCodec();
+        public byte[] encode(Serializable value) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                oos.writeObject(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bos.toByteArray();
+        }
+        public Serializable decode(ByteBuffer src) {
+            byte[] b = new byte[src.remaining()];
+            src.get(b);
+            try (ObjectInputStream ois =
+                 new ObjectInputStream(new ByteArrayInputStream(b))) {
+                return (Serializable)ois.readObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
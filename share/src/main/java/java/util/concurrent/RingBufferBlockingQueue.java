@@ -0,0 +1,782 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by a
+ * ring buffer and implemented without locks.  This queue orders
+ * elements FIFO (first-in-first-out).  Producers and consumers
+ * claim slots by advancing separate counters, each on its own cache
+ * line, and hand elements over through a sequence number kept with
+ * each slot, so that producers and consumers do not contend with
+ * each other, and no node is allocated per element.
+ *
+ * <p>The capacity is fixed on construction, and is rounded up to a
+ * power of two.  A queue may be created for a single producer thread
+ * or a single consumer thread, in which case the corresponding
+ * operations advance their counter without atomic updates.  It is
+ * the caller's responsibility that no more than one thread then
+ * performs such operations at a time.
+ *
+ * <p>Threads blocked in {@link #put}, {@link #take} and the timed
+ * {@link #offer(Object, long, TimeUnit) offer} and {@link
+ * #poll(long, TimeUnit) poll} methods are not signalled, but instead
+ * wait according to a {@link WaitStrategy}: busy-spinning gives the
+ * lowest latency at the cost of a processor per waiting thread,
+ * while parking gives up the processor with increasing periods up to
+ * a millisecond.
+ *
+ * <p>Method {@link #drainTo(Collection, int) drainTo} claims all the
+ * elements it transfers with a single update of the consumer
+ * counter.  Method {@link #remove(Object) remove} replaces an
+ * element with a hole that consumers skip, so {@link #size} may
+ * count removed elements until they are passed.  Iterators return
+ * a snapshot of the elements present when the iterator was created.
+ *
+ * <p>This class and its iterator implement all of the
+ * <em>optional</em> methods of the {@link Collection} and {@link
+ * Iterator} interfaces.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @since 9
+ * @param <E> the type of elements held in this collection
+ */
+public class RingBufferBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /*
+     * This is an adaptation of Dmitry Vyukov's bounded MPMC queue.
+     * Slot i holds, besides an element, a sequence number that is i
+     * when the slot is free for the producer of position i, i + 1
+     * when it holds the element at position i, and i + capacity
+     * after that element is consumed, i.e. free for the producer of
+     * position i + capacity.  A producer (consumer) claims position
+     * p by CASing tail (head) from p to p + 1 once the sequence
+     * number of slot p shows it is ready, then writes (swaps out)
+     * the element, then publishes the slot with an ordered write of
+     * its sequence number.  With a single producer (consumer), the
+     * counter is advanced with an ordered write instead of a CAS.
+     *
+     * Consumers swap elements out atomically rather than reading
+     * then clearing them, so that remove(Object) may CAS an element
+     * of a ready slot to null; a consumer finding a null element
+     * releases the slot and retries.
+     */
+
+    /**
+     * Strategies used by threads waiting for space or elements.
+     */
+    public enum WaitStrategy {
+        /** Busy-spins, rechecking as fast as possible. */
+        SPIN,
+        /** Calls {@link Thread#yield} between rechecks. */
+        YIELD,
+        /**
+         * Spins and yields briefly, then parks with exponentially
+         * increasing periods up to one millisecond.
+         */
+        PARK
+    }
+
+    /** Spins before yielding under PARK strategy */
+    private static final int SPINS = 1 << 6;
+
+    /** Yields before parking under PARK strategy */
+    private static final int YIELDS = SPINS + (1 << 6);
+
+    /** Initial and maximum park periods, in nanoseconds */
+    private static final long MIN_PARK_NANOS = 1L << 10;
+    private static final long MAX_PARK_NANOS = 1L << 20;
+
+    /** Maximum capacity */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The queued items */
+    private final Object[] items;
+
+    /** The sequence number of each slot */
+    private final long[] sequences;
+
+    /** Capacity - 1 */
+    private final int mask;
+
+    private final boolean singleProducer;
+    private final boolean singleConsumer;
+    private final WaitStrategy waitStrategy;
+
+    /** The next position to produce */
+    @sun.misc.Contended("tail")
+    private volatile long tail;
+
+    /** The next position to consume */
+    @sun.misc.Contended("head")
+    private volatile long head;
+
+    /**
+     * Creates a {@code RingBufferBlockingQueue} with the given
+     * (minimum) capacity, for any number of producers and consumers,
+     * that parks waiting threads.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     */
+    public RingBufferBlockingQueue(int capacity) {
+        this(capacity, false, false, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a {@code RingBufferBlockingQueue} with the given
+     * (minimum) capacity, concurrency and wait strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param singleProducer if {@code true}, elements are inserted
+     *        by at most one thread at a time
+     * @param singleConsumer if {@code true}, elements are retrieved
+     *        by at most one thread at a time
+     * @param waitStrategy how threads wait for space or elements
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public RingBufferBlockingQueue(int capacity,
+                                   boolean singleProducer,
+                                   boolean singleConsumer,
+                                   WaitStrategy waitStrategy) {
+        if (capacity < 1)
+            throw new IllegalArgumentException();
+        if (waitStrategy == null)
+            throw new NullPointerException();
+        int n = 1;
+        while (n < capacity && n < MAXIMUM_CAPACITY)
+            n <<= 1;
+        this.items = new Object[n];
+        long[] seqs = new long[n];
+        for (int i = 0; i < n; ++i)
+            seqs[i] = i;
+        this.sequences = seqs;
+        this.mask = n - 1;
+        this.singleProducer = singleProducer;
+        this.singleConsumer = singleConsumer;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Creates a {@code RingBufferBlockingQueue} with the given
+     * (minimum) capacity, for any number of producers and consumers,
+     * that parks waiting threads, initially containing the elements
+     * of the given collection, added in traversal order of the
+     * collection's iterator.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param c the collection of elements to initially contain
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         {@code c.size()}, or less than 1.
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     */
+    public RingBufferBlockingQueue(int capacity, Collection<? extends E> c) {
+        this(capacity, false, false, WaitStrategy.PARK);
+        for (E e : c) {
+            if (!offer(e))
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Throws NullPointerException if argument is null.
+     *
+     * @param v the element
+     */
+    private static void checkNotNull(Object v) {
+        if (v == null)
+            throw new NullPointerException();
+    }
+
+    private static long seqOffset(long pos, int mask) {
+        return ((long)((int)pos & mask) << SSHIFT) + SBASE;
+    }
+
+    private static long itemOffset(long pos, int mask) {
+        return ((long)((int)pos & mask) << ISHIFT) + IBASE;
+    }
+
+    /**
+     * Waits before the given retry according to the wait strategy.
+     *
+     * @param n the number of previous retries
+     * @param nanos the remaining time to wait
+     */
+    private void idle(int n, long nanos) {
+        switch (waitStrategy) {
+        case SPIN:
+            break;
+        case YIELD:
+            Thread.yield();
+            break;
+        default:
+            if (n >= YIELDS) {
+                int shift = Math.min(n - YIELDS, 10);
+                LockSupport.parkNanos
+                    (this, Math.min(nanos, Math.min(MIN_PARK_NANOS << shift,
+                                                    MAX_PARK_NANOS)));
+            }
+            else if (n >= SPINS)
+                Thread.yield();
+        }
+    }
+
+    /* Core operations */
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false}
+     * if this queue is full.  This method is generally preferable to
+     * method {@link #add}, which can fail to insert an element only
+     * by throwing an exception.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        checkNotNull(e);
+        final long[] seqs = sequences;
+        final int m = mask;
+        if (singleProducer) {
+            long pos = tail;
+            long so = seqOffset(pos, m);
+            if (U.getLongVolatile(seqs, so) != pos)
+                return false;
+            U.putOrderedObject(items, itemOffset(pos, m), e);
+            U.putOrderedLong(seqs, so, pos + 1L);
+            U.putOrderedLong(this, TAIL, pos + 1L);
+            return true;
+        }
+        for (;;) {
+            long pos = tail;
+            long so = seqOffset(pos, m);
+            long dif = U.getLongVolatile(seqs, so) - pos;
+            if (dif == 0L) {
+                if (U.compareAndSwapLong(this, TAIL, pos, pos + 1L)) {
+                    U.putOrderedObject(items, itemOffset(pos, m), e);
+                    U.putOrderedLong(seqs, so, pos + 1L);
+                    return true;
+                }
+            }
+            else if (dif < 0L)
+                return false;           // full
+        }
+    }
+
+    public E poll() {
+        final long[] seqs = sequences;
+        final int m = mask;
+        for (;;) {
+            long pos = head;
+            long so = seqOffset(pos, m);
+            long dif = U.getLongVolatile(seqs, so) - (pos + 1L);
+            if (dif == 0L) {
+                if (singleConsumer)
+                    U.putOrderedLong(this, HEAD, pos + 1L);
+                else if (!U.compareAndSwapLong(this, HEAD, pos, pos + 1L))
+                    continue;
+                Object x = U.getAndSetObject(items, itemOffset(pos, m), null);
+                U.putOrderedLong(seqs, so, pos + m + 1L);
+                if (x != null) {
+                    @SuppressWarnings("unchecked") E e = (E)x;
+                    return e;
+                }
+            }
+            else if (dif < 0L)
+                return null;            // empty
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * for space to become available if the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        checkNotNull(e);
+        for (int n = 0; !offer(e); ++n) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            idle(n, MAX_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkNotNull(e);
+        long nanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + nanos;
+        for (int n = 0; !offer(e); ++n) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (nanos <= 0L || (nanos = deadline - System.nanoTime()) <= 0L)
+                return false;
+            idle(n, nanos);
+        }
+        return true;
+    }
+
+    public E take() throws InterruptedException {
+        E x;
+        for (int n = 0; (x = poll()) == null; ++n) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            idle(n, MAX_PARK_NANOS);
+        }
+        return x;
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E x;
+        long nanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + nanos;
+        for (int n = 0; (x = poll()) == null; ++n) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (nanos <= 0L || (nanos = deadline - System.nanoTime()) <= 0L)
+                return null;
+            idle(n, nanos);
+        }
+        return x;
+    }
+
+    public E peek() {
+        final long[] seqs = sequences;
+        final int m = mask;
+        outer: for (;;) {
+            long h = head;
+            for (long pos = h;; ++pos) {
+                if (U.getLongVolatile(seqs, seqOffset(pos, m)) != pos + 1L)
+                    break;
+                Object x = U.getObjectVolatile(items, itemOffset(pos, m));
+                if (head != h)
+                    continue outer;
+                if (x != null) {
+                    @SuppressWarnings("unchecked") E e = (E)x;
+                    return e;
+                }
+            }
+            if (head == h)
+                return null;
+        }
+    }
+
+    /* Bulk operations */
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes at most the given number of available elements from
+     * this queue and adds them to the given collection, claiming each
+     * run of available elements with a single update.  Elements
+     * claimed but not yet added when {@code c.add} throws an
+     * exception are lost.
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        final long[] seqs = sequences;
+        final int m = mask;
+        int count = 0;
+        while (count < maxElements) {
+            long pos = head;
+            int limit = Math.min(maxElements - count, m + 1);
+            int k = 0;
+            while (k < limit &&
+                   U.getLongVolatile(seqs, seqOffset(pos + k, m)) == pos + k + 1L)
+                ++k;
+            if (k == 0) {
+                if (head == pos)
+                    break;              // empty
+                continue;
+            }
+            if (singleConsumer)
+                U.putOrderedLong(this, HEAD, pos + k);
+            else if (!U.compareAndSwapLong(this, HEAD, pos, pos + k))
+                continue;
+            int i = 0;
+            try {
+                for (; i < k; ++i) {
+                    long p = pos + i;
+                    Object x = U.getAndSetObject(items, itemOffset(p, m), null);
+                    U.putOrderedLong(seqs, seqOffset(p, m), p + m + 1L);
+                    if (x != null) {
+                        @SuppressWarnings("unchecked") E e = (E)x;
+                        c.add(e);
+                        ++count;
+                    }
+                }
+            } finally {
+                // Release the remaining claimed slots if c.add threw
+                while (++i < k) {
+                    long p = pos + i;
+                    U.putObjectVolatile(items, itemOffset(p, m), null);
+                    U.putOrderedLong(seqs, seqOffset(p, m), p + m + 1L);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, waiting up to the specified wait time if necessary for
+     * space to become available.  Each run of free slots is claimed
+     * with a single update of the producer counter.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no element is
+     *         inserted
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return offerAll(c, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, waiting if necessary for space to become available.  Each
+     * run of free slots is claimed with a single update of the
+     * producer counter.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no element is
+     *         inserted
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        offerAll(c, false, 0L);
+    }
+
+    /**
+     * Implements offerAll and putAll.
+     */
+    private int offerAll(Collection<? extends E> c, boolean timed, long nanos)
+        throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        final Object[] a = c.toArray();
+        for (Object e : a)
+            checkNotNull(e);
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        int i = 0;
+        for (int n = 0; i < a.length; ) {
+            int k = offerBatch(a, i);
+            if (k > 0) {
+                i += k;
+                n = 0;
+                continue;
+            }
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+                break;
+            idle(n++, timed ? nanos : MAX_PARK_NANOS);
+        }
+        return i;
+    }
+
+    /**
+     * Inserts the longest run of elements of a, starting at the given
+     * index, for which consecutive slots are free, claiming them with a
+     * single update of tail.
+     *
+     * @return the number of elements inserted, zero if full
+     */
+    private int offerBatch(Object[] a, int from) {
+        final long[] seqs = sequences;
+        final int m = mask;
+        for (;;) {
+            long pos = tail;
+            int limit = Math.min(a.length - from, m + 1);
+            int k = 0;
+            while (k < limit &&
+                   U.getLongVolatile(seqs, seqOffset(pos + k, m)) == pos + k)
+                ++k;
+            if (k == 0) {
+                if (tail == pos)
+                    return 0;           // full
+                continue;
+            }
+            if (!singleProducer &&
+                !U.compareAndSwapLong(this, TAIL, pos, pos + k))
+                continue;
+            for (int j = 0; j < k; ++j) {
+                long p = pos + j;
+                U.putOrderedObject(items, itemOffset(p, m), a[from + j]);
+                U.putOrderedLong(seqs, seqOffset(p, m), p + 1L);
+            }
+            if (singleProducer)
+                U.putOrderedLong(this, TAIL, pos + k);
+            return k;
+        }
+    }
+
+    /* Non-core operations */
+
+    /**
+     * Returns the number of elements in this queue.  This may include
+     * elements recently removed by {@link #remove(Object)}.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        long h, t;
+        do {
+            h = head;
+            t = tail;
+        } while (h != head);
+        long n = t - h;
+        return (n <= 0L) ? 0 : (n >= mask + 1) ? mask + 1 : (int)n;
+    }
+
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    /**
+     * Returns the number of additional elements that this queue can
+     * ideally (in the absence of memory or resource constraints)
+     * accept without blocking.
+     *
+     * @return the remaining capacity
+     */
+    public int remainingCapacity() {
+        return mask + 1 - size();
+    }
+
+    /**
+     * Returns the capacity of this queue.
+     *
+     * @return the capacity of this queue
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this
+     * queue, if it is present, by replacing it with a hole that
+     * consumers skip.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        return o != null && removeMatch(o, false);
+    }
+
+    /**
+     * Removes an element equal to, or if identity is true, identical
+     * to o.
+     */
+    private boolean removeMatch(Object o, boolean identity) {
+        final long[] seqs = sequences;
+        final int m = mask;
+        for (long pos = head, t = tail; pos - t < 0L; ++pos) {
+            if (pos - head < 0L)
+                pos = head;             // fell behind consumers
+            if (U.getLongVolatile(seqs, seqOffset(pos, m)) != pos + 1L)
+                continue;
+            long io = itemOffset(pos, m);
+            Object x = U.getObjectVolatile(items, io);
+            if (x != null && (x == o || (!identity && o.equals(x))) &&
+                U.compareAndSwapObject(items, io, x, null))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        if (o != null) {
+            for (Object x : snapshot()) {
+                if (o.equals(x))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all of the elements from this queue.  Elements inserted
+     * concurrently may remain.
+     */
+    public void clear() {
+        while (poll() != null)
+            ;
+    }
+
+    /**
+     * Returns the elements in ready slots between head and tail.
+     */
+    private Object[] snapshot() {
+        final long[] seqs = sequences;
+        final int m = mask;
+        ArrayList<Object> list = new ArrayList<Object>();
+        for (long pos = head, t = tail; pos - t < 0L; ++pos) {
+            if (U.getLongVolatile(seqs, seqOffset(pos, m)) == pos + 1L) {
+                Object x = U.getObjectVolatile(items, itemOffset(pos, m));
+                if (x != null && U.getLongVolatile
+                    (seqs, seqOffset(pos, m)) == pos + 1L)
+                    list.add(x);
+            }
+        }
+        return list.toArray();
+    }
+
+    public Object[] toArray() {
+        return snapshot();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        Object[] s = snapshot();
+        int n = s.length;
+        if (a.length < n)
+            a = (T[])java.lang.reflect.Array.newInstance
+                (a.getClass().getComponentType(), n);
+        System.arraycopy(s, 0, a, 0, n);
+        if (a.length > n)
+            a[n] = null;
+        return a;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this
+     * queue, in proper sequence.  The elements will be returned in
+     * order from first (head) to last (tail).
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new Itr(snapshot());
+    }
+
+    /**
+     * Iterator over a snapshot.
+     */
+    final class Itr implements Iterator<E> {
+        final Object[] array;
+        int cursor;
+        int lastRet = -1;
+
+        Itr(Object[] array) {
+            this.array = array;
+        }
+
+        public boolean hasNext() {
+            return cursor < array.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length)
+                throw new NoSuchElementException();
+            lastRet = cursor;
+            return (E)array[cursor++];
+        }
+
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            removeMatch(array[lastRet], true);
+            lastRet = -1;
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long HEAD;
+    private static final long TAIL;
+    private static final long SBASE;
+    private static final int SSHIFT;
+    private static final long IBASE;
+    private static final int ISHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = RingBufferBlockingQueue.class;
+            HEAD = U.objectFieldOffset(k.getDeclaredField("head"));
+            TAIL = U.objectFieldOffset(k.getDeclaredField("tail"));
+            SBASE = U.arrayBaseOffset(long[].class);
+            int ss = U.arrayIndexScale(long[].class);
+            IBASE = U.arrayBaseOffset(Object[].class);
+            int is = U.arrayIndexScale(Object[].class);
+            if ((ss & (ss - 1)) != 0 || (is & (is - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            SSHIFT = 31 - Integer.numberOfLeadingZeros(ss);
+            ISHIFT = 31 - Integer.numberOfLeadingZeros(is);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -178,7 +178,8 @@ public class ScheduledThreadPoolExecutor
     }
 
     private class ScheduledFutureTask<V>
-            extends FutureTask<V> implements RunnableScheduledFuture<V> {
+            extends FutureTask<V>
+            implements RunnableScheduledFuture<V>, ExecutorStatistics.Timed {
 
         /** Sequence number to break ties FIFO */
         private final long sequenceNumber;
@@ -236,6 +237,14 @@ public class ScheduledThreadPoolExecutor
             return unit.convert(time - now(), NANOSECONDS);
         }
 
+        /**
+         * Returns the trigger time, so that queue wait statistics
+         * measure how late the task starts.
+         */
+        public long enqueueTime() {
+            return time;
+        }
+
         public int compareTo(Delayed other) {
             if (other == this) // compare zero if same object
                 return 0;
@@ -801,6 +810,14 @@ public class ScheduledThreadPoolExecutor
         return super.getQueue();
     }
 
+    /**
+     * Returns the queue size, which is maintained by the queue, as
+     * tasks are queued here without passing through execute.
+     */
+    long queuedTaskCount(ExecutorStatistics stats) {
+        return super.getQueue().size();
+    }
+
     /**
      * Specialized delay queue. To mesh with TPE declarations, this
      * class must be declared as a BlockingQueue<Runnable> even though
@@ -174,6 +174,14 @@ public class Semaphore implements java.io.Serializable {
             return getState();
         }
 
+        final void updateSpinLimit(int limit) {
+            setAcquireSpinLimit(limit);
+        }
+
+        final int currentSpinLimit() {
+            return getAcquireSpinLimit();
+        }
+
         final int nonfairTryAcquireShared(int acquires) { // 不需要排队
             for (;;) {
                 int available = getState();
@@ -653,6 +661,37 @@ public class Semaphore implements java.io.Serializable {
         return sync instanceof FairSync;
     }
 
+    /**
+     * Sets the upper bound on the number of times a thread that is
+     * next in line to acquire permits checks whether permits have
+     * been released before blocking.  Within this bound the number
+     * of checks adapts to the time for which permits have recently
+     * been held, so that threads avoid the cost of blocking and
+     * unblocking when permits are released soon after.  A value of
+     * zero makes waiting threads block at once.
+     *
+     * @param limit the maximum number of checks before blocking
+     * @throws IllegalArgumentException if {@code limit} is negative
+     * @see java.util.concurrent.locks.AbstractQueuedSynchronizer#setAcquireSpinLimit
+     * @since 9
+     */
+    public void setSpinLimit(int limit) {
+        sync.updateSpinLimit(limit);
+    }
+
+    /**
+     * Returns the upper bound on the number of times a thread that
+     * is next in line to acquire permits checks whether permits have
+     * been released before blocking.
+     *
+     * @return the spin limit
+     * @see #setSpinLimit
+     * @since 9
+     */
+    public int getSpinLimit() {
+        return sync.currentSpinLimit();
+    }
+
     /**
      * Queries whether any threads are waiting to acquire. Note that
      * because cancellations may occur at any time, a {@code true}
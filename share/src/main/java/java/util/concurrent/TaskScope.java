@@ -0,0 +1,671 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.HashSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A scope for a group of subtasks that are forked together and must
+ * not outlive the code that forked them.  Subtasks are {@linkplain
+ * #fork forked} into an {@link Executor}, typically a {@link
+ * ForkJoinPool}, each returning a {@link CompletableFuture} for its
+ * result.  The owner then {@linkplain #join joins} the scope, waiting
+ * until all subtasks have completed or the scope has been {@linkplain
+ * #shutdown shut down}, and finally {@linkplain #close closes} it.
+ * Shutting down a scope cancels the subtasks that have not yet
+ * started, interrupts those that are running, and completes their
+ * futures with a {@link CancellationException}; closing a scope shuts
+ * it down and then waits for the running subtasks to finish, so that
+ * no subtask keeps running, or occupies a thread of the executor,
+ * once the scope is closed.
+ *
+ * <p>A scope may be given a deadline, in which case {@link #join}
+ * shuts the scope down and throws {@link TimeoutException} if the
+ * deadline passes first.  Deadlines propagate: a scope created by a
+ * subtask of another scope never has a later deadline than that
+ * scope, so that a request timeout bounds the whole tree of work
+ * done for the request.  Subtasks may query the time left using
+ * {@link #current()}.
+ *
+ * <p>Subclasses implement policies by overriding {@link
+ * #handleComplete}, which is invoked as each subtask completes.  Two
+ * common policies are provided: {@link ShutdownOnFailure} shuts the
+ * scope down when any subtask fails, and {@link ShutdownOnSuccess}
+ * when any subtask succeeds.  For example, to fetch a value from
+ * several backends, giving up if any fails or if the whole request
+ * takes longer than a second:
+ *
+ * <pre> {@code
+ * try (TaskScope.ShutdownOnFailure scope =
+ *          new TaskScope.ShutdownOnFailure(pool, 1, TimeUnit.SECONDS)) {
+ *   List<CompletableFuture<Row>> rows = new ArrayList<>();
+ *   for (Backend b : backends)
+ *     rows.add(scope.fork(() -> b.fetch(key)));
+ *   scope.join().throwIfFailed();
+ *   return merge(rows);  // all futures have completed normally
+ * }}</pre>
+ *
+ * <p>A scope is intended to be used by a single owner thread, but
+ * subtasks may themselves fork further subtasks into the scope.
+ * Subtasks forked after the scope has been shut down are cancelled
+ * without being run.
+ *
+ * @param <T> the result type of the subtasks
+ * @since 9
+ */
+public class TaskScope<T> implements AutoCloseable {
+    /*
+     * Each subtask has a small state machine: NEW -> RUNNING -> DONE
+     * when run, or NEW -> CANCELLED when cancelled before starting.
+     * The scope counts the subtasks that are NEW or RUNNING; join
+     * waits for this count to reach zero or the scope to shut down,
+     * and close waits for it to reach zero after shutting down, at
+     * which point only RUNNING subtasks, that have been interrupted,
+     * remain to be waited for.  Interrupts are delivered under the
+     * subtask's monitor, which the running thread also holds while
+     * leaving the RUNNING state, so that a thread is never interrupted
+     * after it has moved on to other work, and any interrupt aimed at
+     * the subtask is cleared before the thread is given back to the
+     * executor.
+     */
+
+    /** The current scope of a thread running a subtask, if any. */
+    private static final ThreadLocal<TaskScope<?>> CURRENT =
+        new ThreadLocal<TaskScope<?>>();
+
+    private final Executor executor;
+    private final long deadline;         // System.nanoTime() based
+    private final boolean timed;         // true if deadline is valid
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition quiescent = lock.newCondition();
+    private final HashSet<Subtask<?>> subtasks = new HashSet<>();
+    private int pending;                 // NEW or RUNNING subtasks
+    private volatile boolean shutdown;
+    private boolean closed;
+
+    /**
+     * Creates a scope forking subtasks into the given executor, with
+     * the deadline of the current scope, if any.
+     *
+     * @param executor the executor to run subtasks
+     * @throws NullPointerException if executor is null
+     */
+    public TaskScope(Executor executor) {
+        this(executor, false, 0L);
+    }
+
+    /**
+     * Creates a scope forking subtasks into the given executor, with
+     * a deadline the given time from now, or the deadline of the
+     * current scope if that is earlier.
+     *
+     * @param executor the executor to run subtasks
+     * @param timeout the maximum time allowed for the subtasks
+     * @param unit the time unit of the timeout argument
+     * @throws NullPointerException if executor or unit is null
+     */
+    public TaskScope(Executor executor, long timeout, TimeUnit unit) {
+        this(executor, true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    private TaskScope(Executor executor, boolean timed, long deadline) {
+        if (executor == null)
+            throw new NullPointerException();
+        TaskScope<?> parent = CURRENT.get();
+        if (parent != null && parent.timed &&
+            (!timed || parent.deadline - deadline < 0L)) {
+            timed = true;
+            deadline = parent.deadline;
+        }
+        this.executor = executor;
+        this.timed = timed;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the scope of the subtask the current thread is running,
+     * or {@code null} if it is not running a subtask.
+     *
+     * @return the current scope, or {@code null} if none
+     */
+    public static TaskScope<?> current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the time left until the deadline of this scope.
+     *
+     * @param unit the unit of the result
+     * @return the time left, which may be zero or negative if the
+     *         deadline has passed, or {@link Long#MAX_VALUE} if this
+     *         scope has no deadline
+     */
+    public long getRemainingTime(TimeUnit unit) {
+        return timed ?
+            unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) :
+            Long.MAX_VALUE;
+    }
+
+    /**
+     * Forks a subtask, running it in the executor of this scope.  If
+     * this scope has been shut down, the subtask is not run, and the
+     * returned future is cancelled.  If the executor rejects the
+     * subtask, the returned future is completed exceptionally with a
+     * {@link RejectedExecutionException}.  Cancelling the returned
+     * future cancels the subtask, interrupting it if it is running.
+     *
+     * @param task the subtask
+     * @param <U> the result type of the subtask
+     * @return a future completed with the result of the subtask
+     * @throws NullPointerException if task is null
+     * @throws IllegalStateException if this scope has been closed
+     */
+    public <U extends T> CompletableFuture<U> fork(Callable<? extends U> task) {
+        if (task == null)
+            throw new NullPointerException();
+        Subtask<U> s = new Subtask<U>(this, task);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("closed");
+            if (shutdown) {
+                s.state = CANCELLED;
+                s.cancelFuture();
+                return s;
+            }
+            subtasks.add(s);
+            ++pending;
+        } finally {
+            lock.unlock();
+        }
+        Executor e = executor;
+        try {
+            if (e instanceof ForkJoinPool) {
+                ForkJoinTask<?> f = ForkJoinTask.adapt(s);
+                s.handle = f;
+                ((ForkJoinPool)e).execute(f);
+            }
+            else
+                e.execute(s);
+        } catch (Throwable ex) {
+            if (s.transition(NEW, DONE)) {
+                s.completeExceptionally(ex);
+                if (!shutdown)
+                    handleComplete(s);
+                done(s);
+            }
+            if (ex instanceof RejectedExecutionException)
+                return s;
+            throw ex;
+        }
+        return s;
+    }
+
+    /**
+     * Waits until all subtasks have completed or this scope has been
+     * shut down.  If this scope has a deadline that passes first, the
+     * scope is shut down and {@code TimeoutException} is thrown.
+     *
+     * @return this scope
+     * @throws InterruptedException if interrupted while waiting
+     * @throws TimeoutException if the deadline passed
+     */
+    public TaskScope<T> join() throws InterruptedException, TimeoutException {
+        final ReentrantLock lock = this.lock;
+        boolean timedOut = false;
+        lock.lockInterruptibly();
+        try {
+            while (pending > 0 && !shutdown) {
+                if (!timed)
+                    quiescent.await();
+                else if (quiescent.awaitNanos
+                         (deadline - System.nanoTime()) <= 0L &&
+                         pending > 0 && !shutdown) {
+                    timedOut = true;
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (timedOut) {
+            shutdown();
+            throw new TimeoutException();
+        }
+        return this;
+    }
+
+    /**
+     * Shuts down this scope, cancelling all subtasks that have not
+     * completed: those that have not started are never run, those
+     * that are running are interrupted, and their futures are
+     * completed with a {@link CancellationException}.  Subtasks
+     * completing after shutdown are not passed to {@link
+     * #handleComplete}.  This method has no effect if this scope has
+     * already been shut down.
+     */
+    public void shutdown() {
+        Subtask<?>[] ss;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (shutdown)
+                return;
+            shutdown = true;
+            ss = subtasks.toArray(new Subtask<?>[0]);
+            subtasks.clear();
+            quiescent.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Subtask<?> s : ss)
+            s.cancelSubtask();
+    }
+
+    /**
+     * Returns {@code true} if this scope has been shut down.
+     *
+     * @return {@code true} if this scope has been shut down
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Shuts down this scope, if not already shut down, and waits for
+     * any subtasks that are still running to finish.  If interrupted
+     * while waiting, the interrupt status is restored on return.
+     * Subsequent attempts to fork subtasks fail with {@code
+     * IllegalStateException}.
+     */
+    public void close() {
+        shutdown();
+        boolean interrupted = false;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            closed = true;
+            while (pending > 0) {
+                try {
+                    quiescent.await();
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Invoked when a subtask completes, normally or exceptionally,
+     * before this scope has been shut down.  May be invoked
+     * concurrently by the threads running different subtasks, and
+     * should therefore be thread-safe.
+     *
+     * @implSpec The default implementation does nothing.
+     *
+     * @param subtask the completed subtask
+     */
+    protected void handleComplete(CompletableFuture<? extends T> subtask) {
+    }
+
+    /**
+     * Records completion of subtask s, which has left state NEW or
+     * RUNNING, and wakes up joiners if it was the last.
+     */
+    private void done(Subtask<?> s) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (!shutdown)
+                subtasks.remove(s);
+            if (--pending == 0)
+                quiescent.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String toString() {
+        int p;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            p = pending;
+        } finally {
+            lock.unlock();
+        }
+        return super.toString() +
+            (closed ? "[Closed" : shutdown ? "[Shut down" : "[Open") +
+            ", pending = " + p + "]";
+    }
+
+    // Subtask states
+    static final int NEW       = 0;
+    static final int RUNNING   = 1;
+    static final int DONE      = 2;
+    static final int CANCELLED = 3;
+
+    /**
+     * A forked subtask, which is its own future.
+     */
+    static final class Subtask<U> extends CompletableFuture<U>
+        implements Runnable {
+        final TaskScope<? super U> scope;
+        final Callable<? extends U> task;
+        volatile int state;
+        volatile ForkJoinTask<?> handle;  // non-null in a ForkJoinPool
+        Thread runner;                     // guarded by this
+        boolean interrupted;               // guarded by this
+
+        Subtask(TaskScope<? super U> scope, Callable<? extends U> task) {
+            this.scope = scope;
+            this.task = task;
+        }
+
+        boolean transition(int from, int to) {
+            return U.compareAndSwapInt(this, STATE, from, to);
+        }
+
+        public void run() {
+            if (!transition(NEW, RUNNING))
+                return;
+            Thread t = Thread.currentThread();
+            synchronized (this) {
+                runner = t;
+            }
+            TaskScope<?> outer = CURRENT.get();
+            CURRENT.set(scope);
+            U value = null;
+            Throwable ex = null;
+            try {
+                value = task.call();
+            } catch (Throwable rex) {
+                ex = rex;
+            } finally {
+                CURRENT.set(outer);
+                synchronized (this) {
+                    runner = null;
+                    state = DONE;
+                    if (interrupted)   // clear interrupt aimed at us
+                        Thread.interrupted();
+                }
+            }
+            if (!isDone()) {
+                if (ex == null)
+                    complete(value);
+                else
+                    completeExceptionally(ex);
+            }
+            if (!scope.shutdown && !isCancelled())
+                scope.handleComplete(this);
+            scope.done(this);
+        }
+
+        /**
+         * Cancels this subtask on behalf of the scope or a caller of
+         * cancel, interrupting it if running.
+         */
+        void cancelSubtask() {
+            if (transition(NEW, CANCELLED)) {
+                ForkJoinTask<?> f = handle;
+                if (f != null)
+                    f.cancel(false);          // leave queue early
+                else if (scope.executor instanceof ThreadPoolExecutor)
+                    ((ThreadPoolExecutor)scope.executor).remove(this);
+                cancelFuture();
+                scope.done(this);
+            }
+            else {
+                cancelFuture();               // before the task can finish
+                synchronized (this) {
+                    Thread t;
+                    if (state == RUNNING && (t = runner) != null &&
+                        !interrupted) {
+                        interrupted = true;
+                        t.interrupt();
+                    }
+                }
+            }
+        }
+
+        void cancelFuture() {
+            super.cancel(false);
+        }
+
+        /**
+         * Cancels this subtask, interrupting it if running, regardless
+         * of the value of mayInterruptIfRunning.
+         */
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled)
+                cancelSubtask();
+            return cancelled;
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe U;
+        private static final long STATE;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                STATE = U.objectFieldOffset
+                    (Subtask.class.getDeclaredField("state"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /**
+     * A {@code TaskScope} that shuts down when any subtask fails.
+     * After {@linkplain #join joining}, {@link #throwIfFailed} throws
+     * an exception if a subtask failed, and otherwise all subtasks
+     * have completed normally, unless the deadline passed or the
+     * scope was shut down by other means.
+     *
+     * @since 9
+     */
+    public static final class ShutdownOnFailure extends TaskScope<Object> {
+        private volatile Throwable exception;
+
+        /**
+         * Creates a scope forking subtasks into the given executor,
+         * with the deadline of the current scope, if any.
+         *
+         * @param executor the executor to run subtasks
+         * @throws NullPointerException if executor is null
+         */
+        public ShutdownOnFailure(Executor executor) {
+            super(executor);
+        }
+
+        /**
+         * Creates a scope forking subtasks into the given executor,
+         * with a deadline the given time from now, or the deadline of
+         * the current scope if that is earlier.
+         *
+         * @param executor the executor to run subtasks
+         * @param timeout the maximum time allowed for the subtasks
+         * @param unit the time unit of the timeout argument
+         * @throws NullPointerException if executor or unit is null
+         */
+        public ShutdownOnFailure(Executor executor, long timeout,
+                                 TimeUnit unit) {
+            super(executor, timeout, unit);
+        }
+
+        protected void handleComplete(CompletableFuture<?> subtask) {
+            if (exception == null && subtask.isCompletedExceptionally()) {
+                Throwable ex = null;
+                try {
+                    subtask.join();
+                } catch (CompletionException e) {
+                    ex = e.getCause();
+                } catch (Throwable e) {
+                    ex = e;
+                }
+                synchronized (this) {
+                    if (exception == null)
+                        exception = ex;
+                }
+                shutdown();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public ShutdownOnFailure join()
+            throws InterruptedException, TimeoutException {
+            super.join();
+            return this;
+        }
+
+        /**
+         * Returns the exception of the first subtask that failed, or
+         * {@code null} if none failed.
+         *
+         * @return the exception, or {@code null} if none
+         */
+        public Throwable exception() {
+            return exception;
+        }
+
+        /**
+         * Throws an {@code ExecutionException} whose cause is the
+         * exception of the first subtask that failed, if any.
+         *
+         * @throws ExecutionException if a subtask failed
+         */
+        public void throwIfFailed() throws ExecutionException {
+            Throwable ex = exception;
+            if (ex != null)
+                throw new ExecutionException(ex);
+        }
+    }
+
+    /**
+     * A {@code TaskScope} that shuts down when any subtask succeeds,
+     * cancelling the others.  After {@linkplain #join joining},
+     * {@link #result} returns the result of the first subtask that
+     * completed normally.
+     *
+     * @param <T> the result type of the subtasks
+     * @since 9
+     */
+    public static final class ShutdownOnSuccess<T> extends TaskScope<T> {
+        private static final Object NONE = new Object();
+        private volatile Object result = NONE;
+        private volatile Throwable exception;
+
+        /**
+         * Creates a scope forking subtasks into the given executor,
+         * with the deadline of the current scope, if any.
+         *
+         * @param executor the executor to run subtasks
+         * @throws NullPointerException if executor is null
+         */
+        public ShutdownOnSuccess(Executor executor) {
+            super(executor);
+        }
+
+        /**
+         * Creates a scope forking subtasks into the given executor,
+         * with a deadline the given time from now, or the deadline of
+         * the current scope if that is earlier.
+         *
+         * @param executor the executor to run subtasks
+         * @param timeout the maximum time allowed for the subtasks
+         * @param unit the time unit of the timeout argument
+         * @throws NullPointerException if executor or unit is null
+         */
+        public ShutdownOnSuccess(Executor executor, long timeout,
+                                 TimeUnit unit) {
+            super(executor, timeout, unit);
+        }
+
+        protected void handleComplete(CompletableFuture<? extends T> subtask) {
+            if (result != NONE)
+                return;
+            if (subtask.isCompletedExceptionally()) {
+                if (exception == null) {
+                    Throwable ex = null;
+                    try {
+                        subtask.join();
+                    } catch (CompletionException e) {
+                        ex = e.getCause();
+                    } catch (Throwable e) {
+                        ex = e;
+                    }
+                    synchronized (this) {
+                        if (exception == null)
+                            exception = ex;
+                    }
+                }
+                return;
+            }
+            synchronized (this) {
+                if (result != NONE)
+                    return;
+                result = subtask.getNow(null);
+            }
+            shutdown();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public ShutdownOnSuccess<T> join()
+            throws InterruptedException, TimeoutException {
+            super.join();
+            return this;
+        }
+
+        /**
+         * Returns the result of the first subtask that completed
+         * normally.
+         *
+         * @return the result
+         * @throws ExecutionException if no subtask completed normally,
+         *         with the exception of the first that failed as cause,
+         *         if any
+         */
+        @SuppressWarnings("unchecked")
+        public T result() throws ExecutionException {
+            Object r = result;
+            if (r == NONE)
+                throw new ExecutionException(exception);
+            return (T)r;
+        }
+    }
+}
@@ -38,6 +38,8 @@ import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.lang.management.ExecutorMXBean;
 import java.util.*;
 
 /**
@@ -512,6 +514,12 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     private volatile RejectedExecutionHandler handler;
 
+    /**
+     * Statistics recorded once the management interface has been
+     * registered, else null.
+     */
+    private volatile ExecutorStatistics statistics;
+
     /**
      * Timeout in nanoseconds for idle threads waiting for work.
      * Threads use this timeout when there are more than corePoolSize
@@ -705,6 +713,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                     try {
                         terminated(); // 钩子方法
                     } finally {
+                        ExecutorStatistics stats = statistics;
+                        if (stats != null)
+                            stats.unregister();
                         ctl.set(ctlOf(TERMINATED, 0)); // TIDYING -> TERMINATED
                         termination.signalAll();
                     }
@@ -820,6 +831,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * Package-protected for use by ScheduledThreadPoolExecutor.
      */
     final void reject(Runnable command) {
+        ExecutorStatistics stats = statistics;
+        if (stats != null) {
+            stats.rejected.increment();
+            stats.samples.remove(command);
+        }
         handler.rejectedExecution(command, this);
     }
 
@@ -858,6 +874,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                     taskList.add(r);
             }
         }
+        ExecutorStatistics stats = statistics;
+        if (stats != null) {
+            for (Runnable r : taskList)
+                stats.taskRemoved(r);
+        }
         return taskList;
     }
 
@@ -1065,8 +1086,12 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                 Runnable r = timed ?
                     workQueue.poll(keepAliveTime, TimeUnit.NANOSECONDS) : // 阻塞直到拉取成功或超时
                     workQueue.take(); // 阻塞直到拉取成功
-                if (r != null)
+                if (r != null) {
+                    ExecutorStatistics stats = statistics;
+                    if (stats != null)
+                        stats.queued.decrement();
                     return r;
+                }
                 timedOut = true; // 表示直到超时，都没有获取任务
             } catch (InterruptedException retry) { // 拉取时被中断唤醒，继续自旋
                 timedOut = false;
@@ -1135,6 +1160,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                       runStateAtLeast(ctl.get(), STOP))) && // 如果线程池状态 >= STOP，则中断当前线程，不再执行新任务
                     !wt.isInterrupted())                    // 这里可能会两次执行 isInterrupted，是为了避免 shutdownNow 过程中清除了线程中断状态
                     wt.interrupt();
+                ExecutorStatistics stats = statistics;
+                long startTime = (stats == null) ? 0L :
+                    stats.taskStarting(task);
                 try {
                     beforeExecute(wt, task); // 前置工作，预留
                     Throwable thrown = null;
@@ -1150,6 +1178,8 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                         afterExecute(task, thrown); // 后置工作，预留
                     }
                 } finally {
+                    if (stats != null)
+                        stats.afterExecute(startTime);
                     task = null;
                     w.completedTasks++;
                     w.unlock();
@@ -1352,6 +1382,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
          * thread.  If it fails, we know we are shut down or saturated
          * and so reject the task.
          */
+        ExecutorStatistics stats = statistics;
+        if (stats != null && !(command instanceof ExecutorStatistics.Timed))
+            stats.samples.submitted(command);
         int c = ctl.get();
         if (workerCountOf(c) < corePoolSize) {
             if (addWorker(command, true)) // 添加新的工作线程，并把当前任务交给它执行
@@ -1359,6 +1392,8 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             c = ctl.get();
         }
         if (isRunning(c) && workQueue.offer(command)) {  // 线程池未关闭，且非阻塞入队成功，则进入下一步
+            if (stats != null)
+                stats.queued.increment();
             int recheck = ctl.get();
             if (! isRunning(recheck) && remove(command)) // 线程池已关闭，不接收新任务，需要出队并拒绝任务
                 reject(command);
@@ -1748,6 +1783,8 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     public boolean remove(Runnable task) {
         boolean removed = workQueue.remove(task);
+        if (removed)
+            taskRemoved(task);
         tryTerminate(); // In case SHUTDOWN and now empty
         return removed;
     }
@@ -1768,16 +1805,19 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             Iterator<Runnable> it = q.iterator();
             while (it.hasNext()) {
                 Runnable r = it.next();
-                if (r instanceof Future<?> && ((Future<?>)r).isCancelled())
+                if (r instanceof Future<?> && ((Future<?>)r).isCancelled()) {
                     it.remove();
+                    taskRemoved(r);
+                }
             }
         } catch (ConcurrentModificationException fallThrough) {
             // Take slow path if we encounter interference during traversal.
             // Make copy for traversal and call remove for cancelled entries.
             // The slow path is more likely to be O(N*N).
             for (Object r : q.toArray())
-                if (r instanceof Future<?> && ((Future<?>)r).isCancelled())
-                    q.remove(r);
+                if (r instanceof Future<?> && ((Future<?>)r).isCancelled() &&
+                    q.remove(r))
+                    taskRemoved(r);
         }
 
         tryTerminate(); // In case SHUTDOWN and now empty
@@ -1885,6 +1925,78 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         }
     }
 
+    /**
+     * Starts recording statistics for this pool, such as histograms
+     * of the time tasks wait in the queue and take to execute, and
+     * registers the management interface reporting them with the
+     * platform {@link javax.management.MBeanServer MBeanServer} under
+     * the given name.  The interface is unregistered when the pool
+     * terminates.  If the pool has already been registered, returns
+     * the existing management interface.
+     *
+     * <p>Tasks are queued as passed to {@link #execute}.  Queue wait
+     * times are recorded for a random sample of them, whose submission
+     * times are kept aside in a table of bounded size until they start
+     * or leave the queue through this executor.  The number of queued
+     * tasks is counted as tasks enter and leave the queue, rather than
+     * read from the queue; tasks taken from the {@linkplain #getQueue
+     * queue} by other means stay counted until it is next found empty.
+     *
+     * @param name the name of this pool; must be a valid value of an
+     *        {@link javax.management.ObjectName ObjectName} key
+     *        property, and must not be in use by another registered pool
+     * @return the management interface
+     * @throws NullPointerException if the name is null
+     * @throws IllegalArgumentException if the name is not a valid
+     *         key property value, or another management interface is
+     *         registered under it
+     */
+    public ExecutorMXBean registerMXBean(String name) {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            ExecutorStatistics stats = statistics;
+            if (stats == null) {
+                stats = new ExecutorStatistics(name, this);
+                if (!runStateAtLeast(ctl.get(), TIDYING))
+                    stats.register();
+                stats.queued.add(workQueue.size());
+                statistics = stats;
+            }
+            return stats;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Forgets a task that left the queue without being run.
+     */
+    private void taskRemoved(Object task) {
+        ExecutorStatistics stats = statistics;
+        if (stats != null)
+            stats.taskRemoved(task);
+    }
+
+    /**
+     * Returns an estimate of the number of queued tasks for the
+     * management interface, from the count kept by the statistics
+     * rather than from queue size methods, some of which traverse the
+     * queue.  Tasks taken from the queue other than by workers, remove,
+     * purge or shutdownNow are not uncounted, so the count is reset
+     * whenever the queue is found empty.  Overridden by
+     * ScheduledThreadPoolExecutor, whose queue keeps its own count.
+     */
+    long queuedTaskCount(ExecutorStatistics stats) {
+        LongAdder queued = stats.queued;
+        long n = queued.sum();
+        if (n != 0L && workQueue.isEmpty()) {
+            queued.add(-n);
+            n = 0L;
+        }
+        return Math.max(0L, n);
+    }
+
     /**
      * Returns a string identifying this pool, as well as its state,
      * including indications of run state and estimated worker and
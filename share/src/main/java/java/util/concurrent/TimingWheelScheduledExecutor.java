@@ -0,0 +1,931 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ScheduledExecutorService} that keeps delayed tasks in
+ * hashed timing wheels rather than in a priority queue, suited to
+ * large numbers of timeouts that are mostly cancelled before they
+ * expire.
+ *
+ * <p>Each worker thread owns a wheel: a circular array of buckets,
+ * one per {@linkplain #getTickDuration tick} of a fixed duration,
+ * each holding a doubly-linked list of the tasks due in that tick.
+ * A task due more than one revolution ahead records the number of
+ * remaining revolutions, so scheduling and cancelling a task take
+ * constant time regardless of the number of pending tasks, and
+ * cancelled tasks are unlinked immediately.  Tasks scheduled from a
+ * worker thread are added to that worker's wheel; others are spread
+ * over the wheels, so that no lock is shared by all threads.
+ *
+ * <p>As a worker's wheel advances, due tasks are moved to that
+ * worker's ready queue.  Idle workers steal ready tasks from other
+ * workers, and advance the wheels of workers that are busy running
+ * long tasks.
+ *
+ * <p>Tasks are run no earlier than requested, but may be run up to
+ * one tick late, so the tick duration trades timing precision for
+ * the frequency at which busy wheels are advanced.  Unlike {@link
+ * ScheduledThreadPoolExecutor}, tasks due at the same time are not
+ * necessarily run in the order they were submitted.
+ *
+ * <p>After {@link #shutdown}, periodic tasks are cancelled and
+ * delayed one-shot tasks are still run, as with the default policies
+ * of {@code ScheduledThreadPoolExecutor}.
+ *
+ * @since 9
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService
+    implements ScheduledExecutorService {
+
+    /*
+     * Each Worker is also the lock guarding its wheel.  A task's
+     * "wheel" field is non-null exactly while it is linked into that
+     * wheel, and is written before the task's cancellation status is
+     * checked on insertion, while cancel writes the status before
+     * reading the field, so that a task cancelled concurrently with
+     * its insertion is always unlinked by one side or the other.
+     *
+     * Workers park until their wheel's next tick while it holds
+     * tasks, and otherwise until signalled, or, if some other wheel
+     * holds tasks, for a few ticks so as to help advance it if its
+     * owner is busy.  Producers unpark a waiting worker when they
+     * add a ready task or fill an empty wheel; the volatile
+     * "waiting" flag is written before the worker rechecks for work,
+     * and read by producers after publishing it.
+     */
+
+    /** Default tick duration, in nanoseconds */
+    private static final long DEFAULT_TICK_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(1L);
+
+    /** Default number of buckets per wheel */
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /** Maximum number of buckets per wheel */
+    private static final int MAXIMUM_TICKS_PER_WHEEL = 1 << 20;
+
+    /** Ticks an idle worker waits before helping advance busy wheels */
+    private static final int HELP_TICKS = 4;
+
+    /* Run states */
+    private static final int RUNNING    = 0;
+    private static final int SHUTDOWN   = 1;
+    private static final int STOP       = 2;
+    private static final int TERMINATED = 3;
+
+    private volatile int runState;
+
+    private final Worker[] workers;
+    private final ThreadFactory threadFactory;
+
+    /** Time origin of all wheels */
+    private final long origin;
+    private final long tickNanos;
+    private final int mask;
+
+    /** Lock held when starting workers and on termination */
+    private final ReentrantLock mainLock = new ReentrantLock();
+    private final Condition termination = mainLock.newCondition();
+    private volatile boolean started;
+    private int liveWorkers;       // guarded by mainLock
+
+    /**
+     * A worker thread, its timing wheel and its ready queue.  The
+     * lock guards the wheel.
+     */
+    final class Worker extends ReentrantLock implements Runnable {
+        private static final long serialVersionUID = 1L;
+
+        final ScheduledTask<?>[] buckets;
+        final ConcurrentLinkedQueue<ScheduledTask<?>> ready =
+            new ConcurrentLinkedQueue<ScheduledTask<?>>();
+        Thread thread;
+        /** The last tick whose bucket has been processed */
+        long tick;
+        /** Time at which the next tick starts */
+        volatile long nextTickTime;
+        /** Number of tasks in the wheel */
+        volatile int count;
+        /** True while the worker is about to park or is parked */
+        volatile boolean waiting;
+
+        Worker() {
+            buckets = new ScheduledTask<?>[mask + 1];
+            nextTickTime = origin + tickNanos;
+        }
+
+        public void run() {
+            runWorker(this);
+        }
+
+        /**
+         * Adds the task to this wheel, or to the ready queue if it is
+         * already due.  Returns false if the task was cancelled.
+         */
+        boolean schedule(ScheduledTask<?> task) {
+            boolean wasEmpty;
+            lock();
+            try {
+                long t = task.time - origin;
+                long deadline = (t <= 0L) ? 0L : (t - 1L) / tickNanos + 1L;
+                long ahead = deadline - tick;
+                if (ahead <= 0L) {
+                    ready.offer(task);
+                    wasEmpty = true;
+                }
+                else {
+                    task.wheel = this;
+                    if (task.isCancelled()) {
+                        task.wheel = null;
+                        return false;
+                    }
+                    task.rounds = (ahead - 1L) / (mask + 1);
+                    int i = (int)deadline & mask;
+                    ScheduledTask<?> h = buckets[i];
+                    task.prev = null;
+                    if ((task.next = h) != null)
+                        h.prev = task;
+                    task.bucket = i;
+                    buckets[i] = task;
+                    wasEmpty = (count++ == 0);
+                }
+            } finally {
+                unlock();
+            }
+            if (wasEmpty)
+                signalWork(this);
+            return true;
+        }
+
+        /**
+         * Unlinks the task if it is still in this wheel.
+         */
+        void remove(ScheduledTask<?> task) {
+            lock();
+            try {
+                if (task.wheel == this)
+                    unlink(task);
+            } finally {
+                unlock();
+            }
+        }
+
+        /** Unlinks a task. Call only while holding lock. */
+        private void unlink(ScheduledTask<?> task) {
+            ScheduledTask<?> p = task.prev, n = task.next;
+            if (p == null)
+                buckets[task.bucket] = n;
+            else
+                p.next = n;
+            if (n != null)
+                n.prev = p;
+            task.prev = task.next = null;
+            task.wheel = null;
+            --count;
+        }
+
+        /**
+         * Processes the buckets of all ticks that have started by the
+         * given time, moving due tasks to the ready queue.  Call only
+         * while holding lock.
+         */
+        private void advance(long now) {
+            long target = (now - origin) / tickNanos;
+            while (tick < target) {
+                if (count == 0) {
+                    tick = target;
+                    break;
+                }
+                int i = (int)(++tick) & mask;
+                for (ScheduledTask<?> p = buckets[i], n; p != null; p = n) {
+                    n = p.next;
+                    if (p.rounds > 0L)
+                        --p.rounds;
+                    else {
+                        unlink(p);
+                        ready.offer(p);
+                    }
+                }
+            }
+            nextTickTime = origin + (tick + 1L) * tickNanos;
+        }
+
+        /**
+         * Advances the wheel if a tick has started, returning true if
+         * any tasks became ready.  If help is true, only advances if
+         * the lock is free and the wheel is a tick behind.
+         */
+        boolean tryAdvance(long now, boolean help) {
+            if (now - nextTickTime < (help ? tickNanos : 0L) ||
+                (help && count == 0))
+                return false;
+            if (help) {
+                if (!tryLock())
+                    return false;
+            }
+            else
+                lock();
+            try {
+                advance(now);
+            } finally {
+                unlock();
+            }
+            return !ready.isEmpty();
+        }
+
+        /**
+         * Removes all tasks from the wheel and ready queue, adding
+         * them to the given list.
+         */
+        void drainTo(List<Runnable> list) {
+            lock();
+            try {
+                for (int i = 0; i <= mask; ++i) {
+                    ScheduledTask<?> p;
+                    while ((p = buckets[i]) != null) {
+                        unlink(p);
+                        list.add(p);
+                    }
+                }
+            } finally {
+                unlock();
+            }
+            ScheduledTask<?> t;
+            while ((t = ready.poll()) != null)
+                list.add(t);
+        }
+
+        /**
+         * Cancels and removes all periodic tasks in the wheel.
+         */
+        void cancelPeriodicTasks() {
+            lock();
+            try {
+                for (int i = 0; i <= mask; ++i) {
+                    for (ScheduledTask<?> p = buckets[i], n; p != null; p = n) {
+                        n = p.next;
+                        if (p.isPeriodic()) {
+                            unlink(p);
+                            p.cancel(false);
+                        }
+                    }
+                }
+            } finally {
+                unlock();
+            }
+        }
+    }
+
+    /**
+     * A delayed or periodic task.
+     */
+    final class ScheduledTask<V>
+        extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /** The time the task is enabled to execute in nanoTime units */
+        long time;
+
+        /**
+         * Period in nanoseconds for repeating tasks, as for
+         * ScheduledThreadPoolExecutor.
+         */
+        private final long period;
+
+        /* Wheel linkage, guarded by the lock of the wheel */
+        volatile Worker wheel;
+        ScheduledTask<?> prev, next;
+        long rounds;
+        int bucket;
+
+        ScheduledTask(Runnable r, V result, long ns, long period) {
+            super(r, result);
+            this.time = ns;
+            this.period = period;
+        }
+
+        ScheduledTask(Callable<V> callable, long ns) {
+            super(callable);
+            this.time = ns;
+            this.period = 0L;
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this)
+                return 0;
+            if (other instanceof ScheduledTask) {
+                long diff = time - ((ScheduledTask<?>)other).time;
+                return (diff < 0L) ? -1 : (diff > 0L) ? 1 : 0;
+            }
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0L) ? -1 : (diff > 0L) ? 1 : 0;
+        }
+
+        public boolean isPeriodic() {
+            return period != 0L;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Worker w;
+            if (cancelled && (w = wheel) != null)
+                w.remove(this);
+            return cancelled;
+        }
+
+        public void run() {
+            boolean periodic = isPeriodic();
+            int rs = runState;
+            if (rs >= STOP || (periodic && rs != RUNNING))
+                cancel(false);
+            else if (!periodic)
+                super.run();
+            else if (super.runAndReset()) {
+                long p = period;
+                time = (p > 0L) ? time + p : triggerTime(-p);
+                if (runState == RUNNING)
+                    wheelFor(Thread.currentThread()).schedule(this);
+                else
+                    cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given number of worker threads, a tick duration of one
+     * millisecond, and 512 ticks per wheel.
+     *
+     * @param parallelism the number of worker threads
+     * @throws IllegalArgumentException if {@code parallelism} is not
+     *         positive
+     */
+    public TimingWheelScheduledExecutor(int parallelism) {
+        this(parallelism, DEFAULT_TICK_NANOS, NANOSECONDS,
+             DEFAULT_TICKS_PER_WHEEL, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given number of worker threads and tick duration, and 512 ticks
+     * per wheel.
+     *
+     * @param parallelism the number of worker threads
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @throws IllegalArgumentException if {@code parallelism} or
+     *         {@code tickDuration} is not positive
+     * @throws NullPointerException if {@code unit} is null
+     */
+    public TimingWheelScheduledExecutor(int parallelism,
+                                        long tickDuration,
+                                        TimeUnit unit) {
+        this(parallelism, tickDuration, unit,
+             DEFAULT_TICKS_PER_WHEEL, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given parameters.
+     *
+     * @param parallelism the number of worker threads
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param ticksPerWheel the number of buckets of each wheel,
+     *        rounded up to a power of two
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @throws IllegalArgumentException if {@code parallelism},
+     *         {@code tickDuration} or {@code ticksPerWheel} is not
+     *         positive
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int parallelism,
+                                        long tickDuration,
+                                        TimeUnit unit,
+                                        int ticksPerWheel,
+                                        ThreadFactory threadFactory) {
+        if (parallelism <= 0 || tickDuration <= 0L || ticksPerWheel <= 0)
+            throw new IllegalArgumentException();
+        if (unit == null || threadFactory == null)
+            throw new NullPointerException();
+        int n = 1;
+        while (n < ticksPerWheel && n < MAXIMUM_TICKS_PER_WHEEL)
+            n <<= 1;
+        this.mask = n - 1;
+        this.tickNanos = Math.max(1L, unit.toNanos(tickDuration));
+        this.threadFactory = threadFactory;
+        this.origin = System.nanoTime();
+        Worker[] ws = new Worker[parallelism];
+        for (int i = 0; i < parallelism; ++i)
+            ws[i] = new Worker();
+        this.workers = ws;
+    }
+
+    /* Scheduling */
+
+    /**
+     * Returns the trigger time of a delayed action.
+     */
+    long triggerTime(long delay) {
+        // Keep within range of the wheel tick arithmetic
+        return System.nanoTime() + Math.min(delay, Long.MAX_VALUE >> 2);
+    }
+
+    private long triggerTime(long delay, TimeUnit unit) {
+        return triggerTime(unit.toNanos((delay < 0L) ? 0L : delay));
+    }
+
+    /**
+     * Returns the wheel of the given thread if it is a worker of this
+     * executor, else a wheel chosen by the thread's hash probe.
+     */
+    final Worker wheelFor(Thread thread) {
+        Worker[] ws = workers;
+        for (Worker w : ws) {
+            if (w.thread == thread)
+                return w;
+        }
+        int h = ThreadLocalRandom.getProbe();
+        if (h == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        return ws[(h & 0x7fffffff) % ws.length];
+    }
+
+    /**
+     * Main execution method for delayed or periodic tasks.
+     */
+    private void delayedExecute(ScheduledTask<?> task) {
+        if (runState != RUNNING)
+            throw new RejectedExecutionException();
+        if (!started)
+            startWorkers();
+        wheelFor(Thread.currentThread()).schedule(task);
+        // Recheck: if shut down meanwhile, workers may never have
+        // started or may already have exited, so withdraw the task
+        // unless some worker has taken it
+        if (runState != RUNNING && task.cancel(false))
+            throw new RejectedExecutionException();
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        ScheduledTask<Void> t = new ScheduledTask<Void>
+            (command, null, triggerTime(delay, unit), 0L);
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        ScheduledTask<V> t = new ScheduledTask<V>
+            (callable, triggerTime(delay, unit));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0L)
+            throw new IllegalArgumentException();
+        ScheduledTask<Void> t = new ScheduledTask<Void>
+            (command, null, triggerTime(initialDelay, unit),
+             unit.toNanos(period));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0L)
+            throw new IllegalArgumentException();
+        ScheduledTask<Void> t = new ScheduledTask<Void>
+            (command, null, triggerTime(initialDelay, unit),
+             unit.toNanos(-delay));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Executes {@code command} with zero required delay.
+     *
+     * @throws RejectedExecutionException at discretion of
+     *         {@code RejectedExecutionHandler}, if the task
+     *         cannot be accepted for execution because the
+     *         executor has been shut down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void execute(Runnable command) {
+        schedule(command, 0L, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public Future<?> submit(Runnable task) {
+        return schedule(task, 0L, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Runnable task, T result) {
+        return schedule(Executors.callable(task, result), 0L, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return schedule(task, 0L, NANOSECONDS);
+    }
+
+    /* Workers */
+
+    private void startWorkers() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            if (!started && runState == RUNNING) {
+                for (Worker w : workers) {
+                    Thread t = threadFactory.newThread(w);
+                    if (t == null)
+                        throw new RejectedExecutionException();
+                    w.thread = t;
+                }
+                for (Worker w : workers) {
+                    w.thread.start();
+                    ++liveWorkers;
+                }
+                started = true;
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Wakes the given worker if it is waiting, or else some other
+     * waiting worker that may steal from it.
+     */
+    final void signalWork(Worker w) {
+        Thread t;
+        if (w.waiting) {
+            if ((t = w.thread) != null)
+                LockSupport.unpark(t);
+            return;
+        }
+        for (Worker v : workers) {
+            if (v.waiting && (t = v.thread) != null) {
+                LockSupport.unpark(t);
+                break;
+            }
+        }
+    }
+
+    private static void wakeAll(Worker[] ws) {
+        Thread t;
+        for (Worker w : ws) {
+            if ((t = w.thread) != null)
+                LockSupport.unpark(t);
+        }
+    }
+
+    /**
+     * Finds a task to run: from the worker's ready queue after
+     * advancing its wheel, else stolen from other workers, advancing
+     * their wheels if they have fallen behind.
+     */
+    private ScheduledTask<?> findTask(Worker w) {
+        long now = System.nanoTime();
+        w.tryAdvance(now, false);
+        ScheduledTask<?> t = w.ready.poll();
+        if (t != null) {
+            if (!w.ready.isEmpty())
+                signalWork(w);
+            return t;
+        }
+        Worker[] ws = workers;
+        int n = ws.length;
+        int start = (n > 1) ? ThreadLocalRandom.current().nextInt(n) : 0;
+        for (int k = 0; k < n; ++k) {
+            Worker v = ws[(start + k) % n];
+            if (v != w) {
+                v.tryAdvance(now, true);
+                if ((t = v.ready.poll()) != null)
+                    return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if, after shutdown, no tasks remain.
+     */
+    private boolean isQuiescent() {
+        for (Worker v : workers) {
+            if (v.count != 0 || !v.ready.isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parks the worker until its next tick, or until signalled.
+     */
+    private void awaitWork(Worker w) {
+        w.waiting = true;
+        try {
+            long now = System.nanoTime();
+            long nanos = 0L;
+            if (runState >= STOP || !w.ready.isEmpty())
+                return;
+            if (w.count != 0) {
+                if ((nanos = w.nextTickTime - now) <= 0L)
+                    return;
+            }
+            else {
+                for (Worker v : workers) {
+                    if (v.count != 0 || !v.ready.isEmpty()) {
+                        nanos = tickNanos * HELP_TICKS;
+                        break;
+                    }
+                }
+            }
+            if (nanos > 0L)
+                LockSupport.parkNanos(this, nanos);
+            else
+                LockSupport.park(this);
+        } finally {
+            w.waiting = false;
+        }
+    }
+
+    final void runWorker(Worker w) {
+        try {
+            for (;;) {
+                int rs = runState;
+                if (rs >= STOP || (rs == SHUTDOWN && isQuiescent()))
+                    break;
+                ScheduledTask<?> t = findTask(w);
+                if (t != null) {
+                    Thread.interrupted();           // clear stale interrupt
+                    if (runState < STOP)
+                        t.run();
+                }
+                else
+                    awaitWork(w);
+            }
+        } finally {
+            workerExit();
+        }
+    }
+
+    private void workerExit() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            if (--liveWorkers == 0) {
+                runState = TERMINATED;
+                termination.signalAll();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+        wakeAll(workers);
+    }
+
+    /* Lifecycle */
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * delayed one-shot tasks are executed, but periodic tasks are
+     * cancelled and no new tasks will be accepted.  Invocation has no
+     * additional effect if already shut down.
+     *
+     * <p>This method does not wait for previously submitted tasks to
+     * complete execution.  Use {@link #awaitTermination awaitTermination}
+     * to do that.
+     */
+    public void shutdown() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            if (runState == RUNNING) {
+                runState = SHUTDOWN;
+                if (!started) {
+                    runState = TERMINATED;
+                    termination.signalAll();
+                }
+            }
+        } finally {
+            mainLock.unlock();
+        }
+        for (Worker w : workers)
+            w.cancelPeriodicTasks();
+        wakeAll(workers);
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution.
+     *
+     * <p>There are no guarantees beyond best-effort attempts to stop
+     * processing actively executing tasks.  This implementation
+     * cancels tasks via {@link Thread#interrupt}, so any task that
+     * fails to respond to interrupts may never terminate.
+     *
+     * @return list of tasks that never commenced execution.
+     *         Each element of this list is a {@link ScheduledFuture}.
+     */
+    public List<Runnable> shutdownNow() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            if (runState < STOP) {
+                runState = STOP;
+                if (!started) {
+                    runState = TERMINATED;
+                    termination.signalAll();
+                }
+            }
+        } finally {
+            mainLock.unlock();
+        }
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (Worker w : workers) {
+            w.drainTo(tasks);
+            Thread t = w.thread;
+            if (t != null) {
+                try {
+                    t.interrupt();
+                } catch (SecurityException ignore) {
+                }
+            }
+        }
+        wakeAll(workers);
+        return tasks;
+    }
+
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    public boolean isTerminated() {
+        return runState == TERMINATED;
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            for (;;) {
+                if (runState == TERMINATED)
+                    return true;
+                if (nanos <= 0)
+                    return false;
+                nanos = termination.awaitNanos(nanos);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /* Statistics */
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the number of worker threads
+     */
+    public int getParallelism() {
+        return workers.length;
+    }
+
+    /**
+     * Returns the duration of a tick of the timing wheels.
+     *
+     * @param unit the desired time unit of the result
+     * @return the tick duration
+     */
+    public long getTickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of buckets of each timing wheel.
+     *
+     * @return the number of ticks per wheel
+     */
+    public int getTicksPerWheel() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns an estimate of the number of tasks that are waiting to
+     * be run, either because they are not yet due or because all
+     * workers are busy.
+     *
+     * @return the number of pending tasks
+     */
+    public long getPendingTaskCount() {
+        long n = 0L;
+        for (Worker w : workers)
+            n += w.count + w.ready.size();
+        return n;
+    }
+
+    /**
+     * Returns a string identifying this executor, as well as its
+     * state, including indications of run state, parallelism and
+     * pending tasks.
+     *
+     * @return a string identifying this executor, as well as its state
+     */
+    public String toString() {
+        int rs = runState;
+        String s = (rs == RUNNING) ? "Running" :
+            (rs == TERMINATED) ? "Terminated" : "Shutting down";
+        return super.toString() +
+            "[" + s +
+            ", parallelism = " + workers.length +
+            ", tick = " + tickNanos + "ns" +
+            ", ticks per wheel = " + (mask + 1) +
+            ", pending tasks = " + getPendingTaskCount() +
+            "]";
+    }
+}
@@ -0,0 +1,708 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.atomic;
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A histogram of non-negative {@code long} values, such as latencies
+ * in nanoseconds, that many threads may record concurrently.  Values
+ * are counted in log-linear buckets: each power-of-two range is
+ * divided into <code>2<sup>precision</sup></code> buckets of equal
+ * width, so that the bucket holding a value is at most a fraction
+ * <code>2<sup>-precision</sup></code> of the value wide, and values
+ * less than <code>2<sup>precision</sup></code> are counted exactly.
+ * Method {@link #record} neither allocates nor blocks.
+ *
+ * <p>As with {@link LongAdder}, counts are maintained in one or more
+ * stripes.  Without contention all threads record into a single
+ * stripe; when updates are contended across threads, the set of
+ * stripes may grow, up to about the number of CPUs, and each thread
+ * records into the stripe selected by its probe, so that threads
+ * recording at a high rate rarely update the same memory.  Methods
+ * {@link #snapshot} and {@link #snapshotThenReset} combine the
+ * stripes into an immutable {@link Snapshot}, from which percentiles
+ * can be computed.  Each stripe occupies about
+ * <code>8 &times; (64 - precision) &times; 2<sup>precision</sup></code>
+ * bytes, which is a little under 4 kilobytes for the default
+ * precision of 3.
+ *
+ * <p>This class is usually preferable to arrays of atomic counters
+ * when multiple threads record values that are used for purposes
+ * such as collecting statistics.  Like {@code LongAdder}, it does
+ * <em>not</em> define methods such as {@code equals} and {@code
+ * hashCode} because instances are expected to be mutated.
+ *
+ * @since 9
+ */
+public class LongHistogram implements Serializable {
+    private static final long serialVersionUID = -3817230617519430172L;
+
+    /*
+     * Each stripe is a long[] holding the count of each bucket,
+     * followed by the sum and the maximum of the values recorded in
+     * it.  Contention is detected, and stripes are created and the
+     * table of stripes expanded, exactly as for the cells of
+     * Striped64, except that it is the CAS of the sum slot that
+     * serves as the probe for contention.  Once a stripe has been
+     * selected the bucket count is incremented unconditionally, and
+     * the maximum updated only if exceeded.  Reads are not atomic
+     * snapshots, so a count and the sum it is reported with may
+     * reflect slightly different sets of updates.
+     */
+
+    /** The default precision */
+    static final int DEFAULT_PRECISION = 3;
+
+    /** The largest supported precision */
+    static final int MAX_PRECISION = 10;
+
+    /** The number of sub-bucket bits */
+    private final int precision;
+
+    /** The number of buckets; also the index of the sum slot */
+    private final int buckets;
+
+    /** The stripe used in the absence of contention */
+    private final transient long[] base;
+
+    /** Table of stripes. When non-null, size is a power of 2. */
+    private transient volatile long[][] stripes;
+
+    /** Spinlock (locked via CAS) used when resizing and/or creating stripes. */
+    private transient volatile int stripesBusy;
+
+    /**
+     * Creates a new, empty histogram with the default precision of
+     * 3, in which buckets are at most 12.5% of their values wide.
+     */
+    public LongHistogram() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates a new, empty histogram with the given precision.
+     *
+     * @param precision the number of bits by which each power-of-two
+     *        range is subdivided, between 0 and 10
+     * @throws IllegalArgumentException if {@code precision} is negative
+     *         or greater than 10
+     */
+    public LongHistogram(int precision) {
+        if (precision < 0 || precision > MAX_PRECISION)
+            throw new IllegalArgumentException();
+        this.precision = precision;
+        this.buckets = bucketCount(precision);
+        this.base = new long[buckets + 2];
+    }
+
+    /**
+     * Records the given value.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if {@code value} is negative
+     */
+    public void record(long value) {
+        if (value < 0L)
+            throw new IllegalArgumentException();
+        long[][] as; long[] a;
+        if ((as = stripes) == null) {
+            if (!casSum(a = base, value))
+                a = addStriped(value, true);
+        }
+        else if ((a = as[getProbe() & (as.length - 1)]) == null ||
+                 !casSum(a, value))
+            a = addStriped(value, a == null);
+        U.getAndAddLong(a, byteOffset(bucketFor(precision, value)), 1L);
+        long off = byteOffset(buckets + 1), m;
+        while (value > (m = U.getLongVolatile(a, off)) &&
+               !U.compareAndSwapLong(a, off, m, value))
+            ;                                   // raise maximum
+    }
+
+    /**
+     * Returns the number of values recorded.  The returned value is
+     * <em>NOT</em> an atomic snapshot; invocation in the absence of
+     * concurrent updates returns an accurate result, but concurrent
+     * updates that occur while the count is being calculated might
+     * not be incorporated.
+     *
+     * @return the number of values recorded
+     */
+    public long count() {
+        long n = 0L;
+        for (long[] a : allStripes()) {
+            if (a != null) {
+                for (int i = 0; i < buckets; ++i)
+                    n += U.getLongVolatile(a, byteOffset(i));
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the sum of the values recorded, with the same
+     * consistency as {@link #count}.
+     *
+     * @return the sum of the values recorded
+     */
+    public long sum() {
+        long s = 0L;
+        for (long[] a : allStripes()) {
+            if (a != null)
+                s += U.getLongVolatile(a, byteOffset(buckets));
+        }
+        return s;
+    }
+
+    /**
+     * Returns the largest value recorded, or zero if none, with the
+     * same consistency as {@link #count}.
+     *
+     * @return the largest value recorded
+     */
+    public long max() {
+        long m = 0L;
+        for (long[] a : allStripes()) {
+            if (a != null)
+                m = Math.max(m, U.getLongVolatile(a, byteOffset(buckets + 1)));
+        }
+        return m;
+    }
+
+    /**
+     * Returns the precision of this histogram.
+     *
+     * @return the number of bits by which each power-of-two range
+     *         is subdivided
+     */
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * Equivalent to {@code snapshot().percentile(percentile)}.
+     *
+     * @param percentile the percentile, between 0.0 and 100.0
+     * @return an upper bound of the given percentile of the recorded
+     *         values, or zero if none was recorded
+     * @throws IllegalArgumentException if {@code percentile} is out
+     *         of range
+     */
+    public long percentile(double percentile) {
+        return snapshot().percentile(percentile);
+    }
+
+    /**
+     * Resets the histogram to be empty.  This method may be a useful
+     * alternative to creating a new histogram, but is only effective
+     * if there are no concurrent updates.  Because this method is
+     * intrinsically racy, it should only be used when it is known
+     * that no threads are concurrently recording.
+     */
+    public void reset() {
+        for (long[] a : allStripes()) {
+            if (a != null) {
+                for (int i = 0; i < a.length; ++i)
+                    U.putLongVolatile(a, byteOffset(i), 0L);
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the values recorded.  The snapshot is
+     * not atomic; values recorded concurrently might not be
+     * incorporated.
+     *
+     * @return a snapshot of this histogram
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(precision, collect(false));
+    }
+
+    /**
+     * Equivalent in effect to {@link #snapshot} followed by {@link
+     * #reset}, except that each value recorded concurrently is
+     * incorporated either in the returned snapshot or in a later one,
+     * never lost.  This method may apply, for example, to report the
+     * latencies recorded in each period of time.
+     *
+     * @return a snapshot of this histogram before it was reset
+     */
+    public Snapshot snapshotThenReset() {
+        return new Snapshot(precision, collect(true));
+    }
+
+    /**
+     * Returns the String representation of a {@link #snapshot}.
+     *
+     * @return the String representation of a snapshot
+     */
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * Returns the base stripe followed by the table of stripes, if
+     * any, some of whose elements may be null.
+     */
+    private long[][] allStripes() {
+        long[][] as = stripes;
+        if (as == null)
+            return new long[][] { base };
+        long[][] all = new long[as.length + 1][];
+        all[0] = base;
+        System.arraycopy(as, 0, all, 1, as.length);
+        return all;
+    }
+
+    /**
+     * Returns the slots of all stripes combined, optionally
+     * resetting each slot as it is read.
+     */
+    private long[] collect(boolean reset) {
+        int n = buckets;
+        long[] acc = new long[n + 2];
+        for (long[] a : allStripes()) {
+            if (a != null) {
+                for (int i = 0; i <= n; ++i)
+                    acc[i] += read(a, i, reset);
+                acc[n + 1] = Math.max(acc[n + 1], read(a, n + 1, reset));
+            }
+        }
+        return acc;
+    }
+
+    private static long read(long[] a, int i, boolean reset) {
+        long off = byteOffset(i);
+        return reset ? U.getAndSetLong(a, off, 0L) : U.getLongVolatile(a, off);
+    }
+
+    /**
+     * CASes the sum slot of the given stripe.
+     */
+    private boolean casSum(long[] a, long x) {
+        long off = byteOffset(buckets), s = U.getLongVolatile(a, off);
+        return U.compareAndSwapLong(a, off, s, s + x);
+    }
+
+    /**
+     * CASes the stripesBusy field from 0 to 1 to acquire lock.
+     */
+    private boolean casStripesBusy() {
+        return U.compareAndSwapInt(this, STRIPESBUSY, 0, 1);
+    }
+
+    /**
+     * Adds x to the sum slot of some stripe, handling cases of
+     * initialization, resizing, creating new stripes, and/or
+     * contention, as in Striped64.longAccumulate.
+     *
+     * @param x the value
+     * @param wasUncontended false if CAS failed before call
+     * @return the stripe to which x was added
+     */
+    private long[] addStriped(long x, boolean wasUncontended) {
+        int h;
+        if ((h = getProbe()) == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = getProbe();
+            wasUncontended = true;
+        }
+        boolean collide = false;                // True if last slot nonempty
+        for (;;) {
+            long[][] as; long[] a; int n;
+            if ((as = stripes) != null && (n = as.length) > 0) {
+                if ((a = as[(n - 1) & h]) == null) {
+                    if (stripesBusy == 0) {     // Try to attach new stripe
+                        long[] r = new long[buckets + 2];
+                        r[buckets] = x;         // Optimistically add
+                        if (stripesBusy == 0 && casStripesBusy()) {
+                            boolean created = false;
+                            try {               // Recheck under lock
+                                long[][] rs; int m, j;
+                                if ((rs = stripes) != null &&
+                                    (m = rs.length) > 0 &&
+                                    rs[j = (m - 1) & h] == null) {
+                                    rs[j] = r;
+                                    created = true;
+                                }
+                            } finally {
+                                stripesBusy = 0;
+                            }
+                            if (created)
+                                return r;
+                            continue;           // Slot is now non-empty
+                        }
+                    }
+                    collide = false;
+                }
+                else if (!wasUncontended)       // CAS already known to fail
+                    wasUncontended = true;      // Continue after rehash
+                else if (casSum(a, x))
+                    return a;
+                else if (n >= Striped64.NCPU || stripes != as)
+                    collide = false;            // At max size or stale
+                else if (!collide)
+                    collide = true;
+                else if (stripesBusy == 0 && casStripesBusy()) {
+                    try {
+                        if (stripes == as) {    // Expand table unless stale
+                            long[][] rs = new long[n << 1][];
+                            for (int i = 0; i < n; ++i)
+                                rs[i] = as[i];
+                            stripes = rs;
+                        }
+                    } finally {
+                        stripesBusy = 0;
+                    }
+                    collide = false;
+                    continue;                   // Retry with expanded table
+                }
+                h = advanceProbe(h);
+            }
+            else if (stripesBusy == 0 && stripes == as && casStripesBusy()) {
+                long[] r = null;
+                try {                           // Initialize table
+                    if (stripes == as) {
+                        long[][] rs = new long[2][];
+                        r = rs[h & 1] = new long[buckets + 2];
+                        r[buckets] = x;
+                        stripes = rs;
+                    }
+                } finally {
+                    stripesBusy = 0;
+                }
+                if (r != null)
+                    return r;
+            }
+            else if (casSum(base, x))
+                return base;                    // Fall back on using base
+        }
+    }
+
+    private static int getProbe() {
+        return Striped64.getProbe();
+    }
+
+    private static int advanceProbe(int probe) {
+        return Striped64.advanceProbe(probe);
+    }
+
+    // Bucket arithmetic
+
+    /**
+     * Returns the number of buckets for the given precision.
+     */
+    static int bucketCount(int precision) {
+        return (64 - precision) << precision;
+    }
+
+    /**
+     * Returns the index of the bucket holding the given non-negative
+     * value.  Values less than 2^precision have buckets of their
+     * own.  Otherwise, with m the position of the highest one bit,
+     * the value is in power-of-two range m - precision + 1, and its
+     * next precision bits select the bucket within that range.
+     */
+    static int bucketFor(int precision, long value) {
+        if (value < (1L << precision))
+            return (int)value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - precision;
+        return ((shift + 1) << precision) +
+            (int)((value >>> shift) & ((1L << precision) - 1L));
+    }
+
+    /**
+     * Returns the least value held by the given bucket.
+     */
+    static long lowerBound(int precision, int bucket) {
+        int s = 1 << precision;
+        if (bucket < s)
+            return bucket;
+        return ((long)(s | (bucket & (s - 1)))) << ((bucket >>> precision) - 1);
+    }
+
+    /**
+     * Returns the exclusive upper bound of the values held by the
+     * given bucket, or Long.MAX_VALUE for the last bucket.
+     */
+    static long upperBound(int precision, int bucket) {
+        return (bucket >= bucketCount(precision) - 1) ? Long.MAX_VALUE :
+            lowerBound(precision, bucket + 1);
+    }
+
+    /**
+     * An immutable summary of the values recorded by a {@link
+     * LongHistogram}, as returned by {@link LongHistogram#snapshot}.
+     *
+     * @since 9
+     */
+    public static final class Snapshot implements Serializable {
+        private static final long serialVersionUID = 2140958837619418573L;
+
+        /** @serial the precision of the histogram */
+        private final int precision;
+        /** @serial the count of each bucket */
+        private final long[] counts;
+        /** @serial the sum of the values */
+        private final long sum;
+        /** @serial the largest value */
+        private final long max;
+
+        /**
+         * Creates a snapshot from slots laid out as in a stripe.
+         */
+        Snapshot(int precision, long[] slots) {
+            int n = bucketCount(precision);
+            long[] cs = new long[n];
+            System.arraycopy(slots, 0, cs, 0, n);
+            this.precision = precision;
+            this.counts = cs;
+            this.sum = slots[n];
+            this.max = slots[n + 1];
+        }
+
+        /**
+         * Returns the number of values recorded.
+         *
+         * @return the number of values recorded
+         */
+        public long count() {
+            long n = 0L;
+            for (long c : counts)
+                n += c;
+            return n;
+        }
+
+        /**
+         * Returns the sum of the values recorded.
+         *
+         * @return the sum of the values recorded
+         */
+        public long sum() {
+            return sum;
+        }
+
+        /**
+         * Returns the largest value recorded, or zero if none.
+         *
+         * @return the largest value recorded
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Returns the mean of the values recorded, or zero if none.
+         *
+         * @return the mean of the values recorded
+         */
+        public double mean() {
+            long n = count();
+            return (n == 0L) ? 0.0 : (double)sum / n;
+        }
+
+        /**
+         * Returns an upper bound of the given percentile of the values
+         * recorded: the largest value held by the bucket in which the
+         * percentile falls, or the largest value recorded if less.
+         *
+         * @param percentile the percentile, between 0.0 and 100.0
+         * @return an upper bound of the given percentile, or zero if
+         *         no value was recorded
+         * @throws IllegalArgumentException if {@code percentile} is
+         *         out of range
+         */
+        public long percentile(double percentile) {
+            if (!(percentile >= 0.0 && percentile <= 100.0))
+                throw new IllegalArgumentException();
+            long n = count();
+            if (n == 0L)
+                return 0L;
+            long rank = Math.max(1L, (long)Math.ceil(n * (percentile / 100.0)));
+            long seen = 0L;
+            int last = counts.length - 1, i = 0;
+            for (; i < last; ++i) {
+                if ((seen += counts[i]) >= rank)
+                    break;
+            }
+            long u = LongHistogram.upperBound(precision, i);
+            return Math.min((u == Long.MAX_VALUE) ? u : u - 1L, max);
+        }
+
+        /**
+         * Returns the number of buckets.
+         *
+         * @return the number of buckets
+         */
+        public int buckets() {
+            return counts.length;
+        }
+
+        /**
+         * Returns the number of values recorded in each bucket, in
+         * increasing order of value.
+         *
+         * @return a new array holding the count of each bucket
+         */
+        public long[] counts() {
+            return counts.clone();
+        }
+
+        /**
+         * Returns the least value held by the given bucket.
+         *
+         * @param bucket the index of the bucket
+         * @return the least value held by the bucket
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        public long lowerBound(int bucket) {
+            if (bucket < 0 || bucket >= counts.length)
+                throw new IndexOutOfBoundsException();
+            return LongHistogram.lowerBound(precision, bucket);
+        }
+
+        /**
+         * Returns the exclusive upper bound of the values held by the
+         * given bucket, or {@code Long.MAX_VALUE} for the last bucket,
+         * which holds all values not less than its lower bound.
+         *
+         * @param bucket the index of the bucket
+         * @return the exclusive upper bound of the bucket
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        public long upperBound(int bucket) {
+            if (bucket < 0 || bucket >= counts.length)
+                throw new IndexOutOfBoundsException();
+            return LongHistogram.upperBound(precision, bucket);
+        }
+
+        /**
+         * Returns a string summarizing this snapshot: its count, mean,
+         * median, 99th percentile and maximum.
+         *
+         * @return a string summarizing this snapshot
+         */
+        public String toString() {
+            return "[count=" + count() + ", mean=" + (long)mean() +
+                ", p50=" + percentile(50.0) + ", p99=" + percentile(99.0) +
+                ", max=" + max + "]";
+        }
+    }
+
+    /**
+     * Serialization proxy, used to avoid reference to the non-public
+     * stripe layout in serialized forms.
+     * @serial include
+     */
+    private static class SerializationProxy implements Serializable {
+        private static final long serialVersionUID = -5520593640592862658L;
+
+        /**
+         * The precision of the histogram.
+         * @serial
+         */
+        private final int precision;
+
+        /**
+         * The bucket counts followed by the sum and maximum returned
+         * by collect().
+         * @serial
+         */
+        private final long[] slots;
+
+        SerializationProxy(LongHistogram h) {
+            precision = h.precision;
+            slots = h.collect(false);
+        }
+
+        /**
+         * Return a {@code LongHistogram} object with initial state
+         * held by this proxy.
+         *
+         * @return a {@code LongHistogram} object with initial state
+         * held by this proxy.
+         */
+        private Object readResolve() throws java.io.ObjectStreamException {
+            LongHistogram h;
+            try {
+                h = new LongHistogram(precision);
+            } catch (IllegalArgumentException ex) {
+                throw new java.io.InvalidObjectException("bad precision");
+            }
+            if (slots == null || slots.length != h.base.length)
+                throw new java.io.InvalidObjectException("bad slots");
+            System.arraycopy(slots, 0, h.base, 0, slots.length);
+            return h;
+        }
+    }
+
+    /**
+     * Returns a
+     * <a href="../../../../serialized-form.html#java.util.concurrent.atomic.LongHistogram.SerializationProxy">
+     * SerializationProxy</a>
+     * representing the state of this instance.
+     *
+     * @return a {@link SerializationProxy}
+     * representing the state of this instance
+     */
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * @param s the stream
+     * @throws java.io.InvalidObjectException always
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long STRIPESBUSY;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            STRIPESBUSY = U.objectFieldOffset
+                (LongHistogram.class.getDeclaredField("stripesBusy"));
+            ABASE = U.arrayBaseOffset(long[].class);
+            int scale = U.arrayIndexScale(long[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+
+    private static long byteOffset(int i) {
+        return ((long) i << ASHIFT) + ABASE;
+    }
+}
@@ -310,6 +310,22 @@ public abstract class AbstractQueuedLongSynchronizer
      */
     private volatile long state;
 
+    /**
+     * Upper bound on the number of polls for a release made by the
+     * first queued thread before parking; negative to park at once,
+     * or zero if not set, meaning DEFAULT_SPIN_LIMIT.  Transient, so
+     * that the serialized form is unchanged and deserialized
+     * synchronizers use the default.
+     */
+    private transient volatile int spinLimit;
+
+    /**
+     * The number of polls to make, adapted to the number that
+     * recently sufficed to see a release.  Updated racily, since a
+     * lost update only slows adaptation.
+     */
+    private transient int spins;
+
     /**
      * Returns the current value of synchronization state.
      * This operation has memory semantics of a {@code volatile} read.
@@ -353,6 +369,26 @@ public abstract class AbstractQueuedLongSynchronizer
      */
     static final long spinForTimeoutThreshold = 1000L;
 
+    /**
+     * The number of CPUs, to disable spinning on uniprocessors.
+     */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The default upper bound on the number of times the first
+     * queued thread polls for a release before parking.  A poll is
+     * a pair of volatile reads, so on typical machines this bounds
+     * spinning to well under the cost of a park and unpark.
+     */
+    static final int DEFAULT_SPIN_LIMIT = (NCPU < 2) ? 0 : 1 << 10;
+
+    /**
+     * The least number of polls made when spinning is enabled, so
+     * that a synchronizer that has adapted to park at once can
+     * still learn that spinning has become worthwhile.
+     */
+    static final int MIN_SPINS = 1 << 4;
+
     /**
      * Inserts node into queue, initializing if necessary. See picture above.
      * @param node the node to insert
@@ -561,6 +597,37 @@ public abstract class AbstractQueuedLongSynchronizer
         }
     }
 
+    /**
+     * Polls, for the adaptive number of times, whether the head p,
+     * the predecessor of the first queued node, has been released,
+     * which resets its status from SIGNAL.  This lets the first
+     * queued thread avoid parking when the synchronizer is held only
+     * briefly.  The number of polls that sufficed, which tracks the
+     * time for which the synchronizer is typically held, moves the
+     * number made next time towards twice itself; failing halves it.
+     *
+     * @param p the head
+     * @return {@code true} if released while polling, in which case
+     *         the caller should retry rather than park
+     */
+    private boolean spinForRelease(Node p) {
+        int limit = spinLimit;
+        if (limit == 0)
+            limit = DEFAULT_SPIN_LIMIT;
+        if (limit <= 0)
+            return false;
+        int s = spins;
+        int n = Math.min(Math.max(s, MIN_SPINS), limit);
+        for (int i = 0; i < n; ++i) {
+            if (p.waitStatus != Node.SIGNAL || head != p) {
+                spins = s + (((i << 1) - s) >> 2);
+                return true;
+            }
+        }
+        spins = n >>> 1;
+        return false;
+    }
+
     /**
      * Checks and updates status for a node that failed to acquire.
      * Returns true if thread should block. This is the main signal
@@ -645,6 +712,7 @@ public abstract class AbstractQueuedLongSynchronizer
                     return interrupted;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p)) &&
                     parkAndCheckInterrupt())
                     interrupted = true;
             }
@@ -672,6 +740,7 @@ public abstract class AbstractQueuedLongSynchronizer
                     return;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p)) &&
                     parkAndCheckInterrupt())
                     throw new InterruptedException();
             }
@@ -708,7 +777,8 @@ public abstract class AbstractQueuedLongSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
+                    nanosTimeout > spinForTimeoutThreshold &&
+                    !(p == head && spinForRelease(p)))
                     LockSupport.parkNanos(this, nanosTimeout);
                 if (Thread.interrupted())
                     throw new InterruptedException();
@@ -742,6 +812,7 @@ public abstract class AbstractQueuedLongSynchronizer
                     }
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p)) &&
                     parkAndCheckInterrupt())
                     interrupted = true;
             }
@@ -772,6 +843,7 @@ public abstract class AbstractQueuedLongSynchronizer
                     }
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p)) &&
                     parkAndCheckInterrupt())
                     throw new InterruptedException();
             }
@@ -811,7 +883,8 @@ public abstract class AbstractQueuedLongSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
+                    nanosTimeout > spinForTimeoutThreshold &&
+                    !(p == head && spinForRelease(p)))
                     LockSupport.parkNanos(this, nanosTimeout);
                 if (Thread.interrupted())
                     throw new InterruptedException();
@@ -1299,6 +1372,46 @@ public abstract class AbstractQueuedLongSynchronizer
     }
 
 
+    /**
+     * Sets the upper bound on the number of times the first queued
+     * thread polls for a release before parking.  The number of
+     * polls actually made adapts, between a small minimum and this
+     * bound, to the number that recently sufficed, so that threads
+     * spin when this synchronizer is typically held only briefly and
+     * park almost at once otherwise.  A value of zero disables
+     * spinning.  The default is zero on uniprocessors, where
+     * spinning cannot succeed.
+     *
+     * <p>This method is protected so that subclasses may choose
+     * whether to expose it, as {@link ReentrantLock} and {@link
+     * java.util.concurrent.Semaphore Semaphore} do as {@code
+     * setSpinLimit}; its own name is chosen not to clash with methods
+     * declared by existing subclasses.  The spin limit is not
+     * serialized; a deserialized synchronizer uses the default.
+     *
+     * @param limit the maximum number of polls before parking
+     * @throws IllegalArgumentException if {@code limit} is negative
+     * @since 9
+     */
+    protected final void setAcquireSpinLimit(int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException();
+        spinLimit = (limit == 0) ? -1 : limit;
+    }
+
+    /**
+     * Returns the upper bound on the number of times the first
+     * queued thread polls for a release before parking.
+     *
+     * @return the spin limit
+     * @see #setAcquireSpinLimit
+     * @since 9
+     */
+    protected final int getAcquireSpinLimit() {
+        int limit = spinLimit;
+        return (limit == 0) ? DEFAULT_SPIN_LIMIT : Math.max(limit, 0);
+    }
+
     // Instrumentation and monitoring methods
 
     /**
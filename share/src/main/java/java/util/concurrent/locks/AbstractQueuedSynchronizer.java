@@ -170,7 +170,11 @@ import sun.misc.Unsafe;
  * invocations of {@code tryAcquire} interspersed with other
  * computations before blocking.  This gives most of the benefits of
  * spins when exclusive synchronization is only briefly held, without
- * most of the liabilities when it isn't. If so desired, you can
+ * most of the liabilities when it isn't.  In addition, on
+ * multiprocessors the first queued thread polls for a release for an
+ * adaptive period before blocking, bounded by {@link #setAcquireSpinLimit},
+ * which saves a park and unpark when synchronization is released soon
+ * after.  If so desired, you can
  * augment this by preceding calls to acquire methods with
  * "fast-path" checks, possibly prechecking {@link #hasContended}
  * and/or {@link #hasQueuedThreads} to only do so if the synchronizer
@@ -532,6 +536,37 @@ public abstract class AbstractQueuedSynchronizer
      */
     private volatile int state;
 
+    /**
+     * Upper bound on the number of polls for a release made by the
+     * first queued thread before parking; negative to park at once,
+     * or zero if not set, meaning DEFAULT_SPIN_LIMIT.  Transient, so
+     * that the serialized form is unchanged and deserialized
+     * synchronizers use the default.
+     */
+    private transient volatile int spinLimit;
+
+    /**
+     * The number of polls to make, adapted to the number that
+     * recently sufficed to see a release.  Updated racily, since a
+     * lost update only slows adaptation.
+     */
+    private transient int spins;
+
+    /**
+     * Contention statistics of the site at which a thread first
+     * queued for this synchronizer while contention monitoring was
+     * enabled.  Lazily set, so that construction costs nothing.
+     */
+    private transient ContentionSite contentionSite;
+
+    /**
+     * The number of threads queued while contention monitoring was
+     * enabled.  Maintained only by those threads, on entering and
+     * leaving the queue, so that the queue need not be traversed to
+     * find its length.
+     */
+    private transient volatile int monitoredWaiters;
+
     /**
      * Returns the current value of synchronization state.
      * This operation has memory semantics of a {@code volatile} read.
@@ -575,6 +610,26 @@ public abstract class AbstractQueuedSynchronizer
      */
     static final long spinForTimeoutThreshold = 1000L;
 
+    /**
+     * The number of CPUs, to disable spinning on uniprocessors.
+     */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The default upper bound on the number of times the first
+     * queued thread polls for a release before parking.  A poll is
+     * a pair of volatile reads, so on typical machines this bounds
+     * spinning to well under the cost of a park and unpark.
+     */
+    static final int DEFAULT_SPIN_LIMIT = (NCPU < 2) ? 0 : 1 << 10;
+
+    /**
+     * The least number of polls made when spinning is enabled, so
+     * that a synchronizer that has adapted to park at once can
+     * still learn that spinning has become worthwhile.
+     */
+    static final int MIN_SPINS = 1 << 4;
+
     /**
      * Inserts node into queue, initializing if necessary. See picture above.
      * @param node the node to insert
@@ -783,6 +838,69 @@ public abstract class AbstractQueuedSynchronizer
         }
     }
 
+    /**
+     * Returns the site recording contention for this synchronizer,
+     * or null if contention monitoring is disabled.  The site is
+     * found from the caller's stack on first contention, which is
+     * about to park anyway.
+     */
+    private ContentionSite monitoredSite() {
+        if (!ContentionSite.enabled)
+            return null;
+        ContentionSite s = contentionSite;
+        if (s == null)
+            contentionSite = s = ContentionSite.forContention(getClass());
+        return s;
+    }
+
+    /**
+     * Records the current thread entering the queue at the given
+     * site and returns the time of entry.
+     */
+    private long enqueued(ContentionSite site) {
+        int ahead = unsafe.getAndAddInt(this, monitoredWaitersOffset, 1);
+        return site.enqueued(ahead, getExclusiveOwnerThread());
+    }
+
+    /**
+     * Records the current thread leaving the queue at the given site.
+     */
+    private void dequeued(ContentionSite site, long enqueueTime, int parks) {
+        unsafe.getAndAddInt(this, monitoredWaitersOffset, -1);
+        site.dequeued(enqueueTime, parks);
+    }
+
+    /**
+     * Polls, for the adaptive number of times, whether the head p,
+     * the predecessor of the first queued node, has been released,
+     * which resets its status from SIGNAL.  This lets the first
+     * queued thread avoid parking when the synchronizer is held only
+     * briefly.  The number of polls that sufficed, which tracks the
+     * time for which the synchronizer is typically held, moves the
+     * number made next time towards twice itself; failing halves it.
+     *
+     * @param p the head
+     * @return {@code true} if released while polling, in which case
+     *         the caller should retry rather than park
+     */
+    private boolean spinForRelease(Node p) {
+        int limit = spinLimit;
+        if (limit == 0)
+            limit = DEFAULT_SPIN_LIMIT;
+        if (limit <= 0)
+            return false;
+        int s = spins;
+        int n = Math.min(Math.max(s, MIN_SPINS), limit);
+        for (int i = 0; i < n; ++i) {
+            if (p.waitStatus != Node.SIGNAL || head != p) {
+                spins = s + (((i << 1) - s) >> 2);
+                return true;
+            }
+        }
+        spins = n >>> 1;
+        return false;
+    }
+
     /**
      * Checks and updates status for a node that failed to acquire.      // 当前节点获取锁失败之后，通过校验上一个节点的等待状态，判断当前节点能否进入阻塞。
      * Returns true if thread should block. This is the main signal      // 返回 true，可进入阻塞；返回 false，不可进入阻塞，需重试获取锁。
@@ -855,6 +973,9 @@ public abstract class AbstractQueuedSynchronizer
      * @return {@code true} if interrupted while waiting
      */
     final boolean acquireQueued(final Node node, int arg) { // 在同步队列等待获取资源直到成功，返回等待期间的中断状态
+        final ContentionSite site = monitoredSite();
+        final long enqueueTime = (site == null) ? 0L : enqueued(site);
+        int parks = 0;
         boolean failed = true;
         try {
             boolean interrupted = false;
@@ -866,13 +987,18 @@ public abstract class AbstractQueuedSynchronizer
                     failed = false;
                     return interrupted;
                 }
-                if (shouldParkAfterFailedAcquire(p, node) && // 上一个节点不是头节点，或者当前节点的线程获取锁失败，需要判断是否进入阻塞：1. 不能进入阻塞，则重试获取锁。2. 进入阻塞
-                    parkAndCheckInterrupt())                 // 阻塞当前线程，当从阻塞中被唤醒时，检测当前线程是否已中断，并清除中断状态。接着继续重试获取锁。
-                    interrupted = true;                      // 标记当前线程已中断（如果线程在阻塞时被中断唤醒，会重试获取锁直到成功之后，再响应中断）
+                if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p))) {     // 上一个节点不是头节点，或者当前节点的线程获取锁失败，需要判断是否进入阻塞：1. 不能进入阻塞，则重试获取锁。2. 进入阻塞
+                    ++parks;
+                    if (parkAndCheckInterrupt())             // 阻塞当前线程，当从阻塞中被唤醒时，检测当前线程是否已中断，并清除中断状态。接着继续重试获取锁。
+                        interrupted = true;                  // 标记当前线程已中断（如果线程在阻塞时被中断唤醒，会重试获取锁直到成功之后，再响应中断）
+                }
             }
         } finally {
             if (failed)              // 自旋获取锁和阻塞过程中发生异常
                 cancelAcquire(node); // 取消获取锁
+            if (site != null)
+                dequeued(site, enqueueTime, parks);
         }
     }
 
@@ -883,6 +1009,9 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireInterruptibly(int arg)
         throws InterruptedException {
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final ContentionSite site = monitoredSite();
+        final long enqueueTime = (site == null) ? 0L : enqueued(site);
+        int parks = 0;
         boolean failed = true;
         try {
             for (;;) {
@@ -894,12 +1023,17 @@ public abstract class AbstractQueuedSynchronizer
                     return;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    parkAndCheckInterrupt())
-                    throw new InterruptedException(); // 线程在阻塞等待锁的过程中，被中断唤醒，则放弃等待锁，直接抛出异常
+                    !(p == head && spinForRelease(p))) {
+                    ++parks;
+                    if (parkAndCheckInterrupt())
+                        throw new InterruptedException(); // 线程在阻塞等待锁的过程中，被中断唤醒，则放弃等待锁，直接抛出异常
+                }
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (site != null)
+                dequeued(site, enqueueTime, parks);
         }
     }
 
@@ -916,6 +1050,9 @@ public abstract class AbstractQueuedSynchronizer
             return false;
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final ContentionSite site = monitoredSite();
+        final long enqueueTime = (site == null) ? 0L : enqueued(site);
+        int parks = 0;
         boolean failed = true;
         try {
             for (;;) {
@@ -930,14 +1067,19 @@ public abstract class AbstractQueuedSynchronizer
                 if (nanosTimeout <= 0L) // 直到超时都没有获得锁，则返回false
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
+                    nanosTimeout > spinForTimeoutThreshold &&
+                    !(p == head && spinForRelease(p))) {
+                    ++parks;
                     LockSupport.parkNanos(this, nanosTimeout); // 可以进入阻塞的情况下，剩余时间大于阈值，则阻塞，否则自旋
+                }
                 if (Thread.interrupted())
                     throw new InterruptedException(); // 线程在阻塞等待锁的过程中，被中断唤醒，则放弃等待锁，直接抛出异常
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (site != null)
+                dequeued(site, enqueueTime, parks);
         }
     }
 
@@ -947,6 +1089,9 @@ public abstract class AbstractQueuedSynchronizer
      */
     private void doAcquireShared(int arg) {
         final Node node = addWaiter(Node.SHARED); // 在队列中加入共享模式的节点
+        final ContentionSite site = monitoredSite();
+        final long enqueueTime = (site == null) ? 0L : enqueued(site);
+        int parks = 0;
         boolean failed = true;
         try {
             boolean interrupted = false;
@@ -963,13 +1108,18 @@ public abstract class AbstractQueuedSynchronizer
                         return;
                     }
                 }
-                if (shouldParkAfterFailedAcquire(p, node) && // 上一个节点不是头节点，需要判断是否进入阻塞：1. 不能进入阻塞，则重试获取锁。2. 进入阻塞
-                    parkAndCheckInterrupt())                 // 阻塞当前线程。当从阻塞中被唤醒时，检测当前线程是否已中断，并清除中断状态。接着继续重试获取锁。
-                    interrupted = true;                      // 标记当前线程已中断
+                if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p))) {     // 上一个节点不是头节点，需要判断是否进入阻塞：1. 不能进入阻塞，则重试获取锁。2. 进入阻塞
+                    ++parks;
+                    if (parkAndCheckInterrupt())             // 阻塞当前线程。当从阻塞中被唤醒时，检测当前线程是否已中断，并清除中断状态。接着继续重试获取锁。
+                        interrupted = true;                  // 标记当前线程已中断
+                }
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (site != null)
+                dequeued(site, enqueueTime, parks);
         }
     }
 
@@ -980,6 +1130,9 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireSharedInterruptibly(int arg)
         throws InterruptedException {
         final Node node = addWaiter(Node.SHARED);
+        final ContentionSite site = monitoredSite();
+        final long enqueueTime = (site == null) ? 0L : enqueued(site);
+        int parks = 0;
         boolean failed = true;
         try {
             for (;;) {
@@ -994,12 +1147,17 @@ public abstract class AbstractQueuedSynchronizer
                     }
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    parkAndCheckInterrupt())
-                    throw new InterruptedException(); // 线程在阻塞等待锁的过程中，被中断唤醒，则放弃等待锁，直接抛出异常
+                    !(p == head && spinForRelease(p))) {
+                    ++parks;
+                    if (parkAndCheckInterrupt())
+                        throw new InterruptedException(); // 线程在阻塞等待锁的过程中，被中断唤醒，则放弃等待锁，直接抛出异常
+                }
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (site != null)
+                dequeued(site, enqueueTime, parks);
         }
     }
 
@@ -1016,6 +1174,9 @@ public abstract class AbstractQueuedSynchronizer
             return false;
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.SHARED);
+        final ContentionSite site = monitoredSite();
+        final long enqueueTime = (site == null) ? 0L : enqueued(site);
+        int parks = 0;
         boolean failed = true;
         try {
             for (;;) {
@@ -1033,14 +1194,19 @@ public abstract class AbstractQueuedSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
+                    nanosTimeout > spinForTimeoutThreshold &&
+                    !(p == head && spinForRelease(p))) {
+                    ++parks;
                     LockSupport.parkNanos(this, nanosTimeout);
+                }
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (site != null)
+                dequeued(site, enqueueTime, parks);
         }
     }
 
@@ -1521,6 +1687,46 @@ public abstract class AbstractQueuedSynchronizer
     }
 
 
+    /**
+     * Sets the upper bound on the number of times the first queued
+     * thread polls for a release before parking.  The number of
+     * polls actually made adapts, between a small minimum and this
+     * bound, to the number that recently sufficed, so that threads
+     * spin when this synchronizer is typically held only briefly and
+     * park almost at once otherwise.  A value of zero disables
+     * spinning.  The default is zero on uniprocessors, where
+     * spinning cannot succeed.
+     *
+     * <p>This method is protected so that subclasses may choose
+     * whether to expose it, as {@link ReentrantLock} and {@link
+     * java.util.concurrent.Semaphore Semaphore} do as {@code
+     * setSpinLimit}; its own name is chosen not to clash with methods
+     * declared by existing subclasses.  The spin limit is not
+     * serialized; a deserialized synchronizer uses the default.
+     *
+     * @param limit the maximum number of polls before parking
+     * @throws IllegalArgumentException if {@code limit} is negative
+     * @since 9
+     */
+    protected final void setAcquireSpinLimit(int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException();
+        spinLimit = (limit == 0) ? -1 : limit;
+    }
+
+    /**
+     * Returns the upper bound on the number of times the first
+     * queued thread polls for a release before parking.
+     *
+     * @return the spin limit
+     * @see #setAcquireSpinLimit
+     * @since 9
+     */
+    protected final int getAcquireSpinLimit() {
+        int limit = spinLimit;
+        return (limit == 0) ? DEFAULT_SPIN_LIMIT : Math.max(limit, 0);
+    }
+
     // Instrumentation and monitoring methods
 
     /**
@@ -2263,6 +2469,7 @@ public abstract class AbstractQueuedSynchronizer
     private static final long tailOffset;
     private static final long waitStatusOffset;
     private static final long nextOffset;
+    private static final long monitoredWaitersOffset;
 
     static {
         try {
@@ -2276,8 +2483,13 @@ public abstract class AbstractQueuedSynchronizer
                 (Node.class.getDeclaredField("waitStatus"));
             nextOffset = unsafe.objectFieldOffset
                 (Node.class.getDeclaredField("next"));
+            monitoredWaitersOffset = unsafe.objectFieldOffset
+                (AbstractQueuedSynchronizer.class.getDeclaredField("monitoredWaiters"));
 
         } catch (Exception ex) { throw new Error(ex); }
+
+        sun.misc.SharedSecrets.setJavaUtilConcurrentLocksAccess(
+            new ContentionSite.Access());
     }
 
     /**
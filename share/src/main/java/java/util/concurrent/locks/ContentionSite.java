@@ -0,0 +1,180 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention statistics shared by the AbstractQueuedSynchronizers
+ * first contended at one site, recorded while monitoring is enabled
+ * through {@link java.lang.management.ThreadMXBean}.  Only threads
+ * that enqueue record anything, so neither construction nor
+ * uncontended acquisitions are slowed, and queued acquisitions only
+ * by a read of the enabled flag when disabled.  A synchronizer finds
+ * its site from the stack of the first thread to queue for it, once.
+ * Counters are striped; maxima and the last owner are updated
+ * without synchronization, and may lose races.  The statistics are
+ * handed out raw, and turned into management objects by
+ * sun.management, so that this package does not depend on
+ * java.lang.management.
+ */
+final class ContentionSite {
+
+    /** Whether synchronizers record contention. */
+    static volatile boolean enabled;
+
+    /** Sites by class name and acquiring frame. */
+    private static final ConcurrentHashMap<String, ContentionSite> sites =
+        new ConcurrentHashMap<>();
+
+    final String className;
+    final String acquireSite;       // null if not found
+    final LongAdder contended = new LongAdder();
+    final LongAdder waitTime = new LongAdder();
+    final LongAdder parks = new LongAdder();
+    final LongAdder queueLength = new LongAdder();
+    volatile long maxWaitTime;
+    volatile int maxQueueLength;
+    volatile String lastOwner;
+
+    private ContentionSite(String className, String acquireSite) {
+        this.className = className;
+        this.acquireSite = acquireSite;
+    }
+
+    private static ContentionSite site(String className, String acquireSite) {
+        String key = (acquireSite == null) ? className :
+            className + '@' + acquireSite;
+        ContentionSite s = sites.get(key);
+        if (s == null) {
+            ContentionSite t = new ContentionSite(className, acquireSite);
+            if ((s = sites.putIfAbsent(key, t)) == null)
+                s = t;
+        }
+        return s;
+    }
+
+    /**
+     * Returns the site for a synchronizer of the given class for
+     * which the caller is about to queue: the first frame that is
+     * neither in java.util.concurrent nor in the synchronizer's own
+     * class hierarchy.
+     */
+    static ContentionSite forContention(Class<?> c) {
+        String where = null;
+        for (StackTraceElement e : new Throwable().getStackTrace()) {
+            String cn = e.getClassName();
+            if (!cn.startsWith("java.util.concurrent.") &&
+                !isSuperclassName(c, cn)) {
+                where = e.toString();
+                break;
+            }
+        }
+        return site(c.getName(), where);
+    }
+
+    private static boolean isSuperclassName(Class<?> c, String name) {
+        for (; c != null; c = c.getSuperclass()) {
+            if (c.getName().equals(name))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a thread entering the queue behind the given number
+     * of waiters while the given thread, if known, owns the
+     * synchronizer, and returns the time of entry.
+     */
+    long enqueued(int queued, Thread owner) {
+        queueLength.add(queued);
+        if (queued > maxQueueLength)
+            maxQueueLength = queued;
+        if (owner != null)
+            lastOwner = owner.getName();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a thread leaving the queue, having entered at the
+     * given time and parked the given number of times.
+     */
+    void dequeued(long enqueueTime, int parkCount) {
+        long waited = System.nanoTime() - enqueueTime;
+        contended.increment();
+        waitTime.add(waited);
+        if (parkCount != 0)
+            parks.add(parkCount);
+        if (waited > maxWaitTime)
+            maxWaitTime = waited;
+    }
+
+    private void reset() {
+        contended.reset();
+        waitTime.reset();
+        parks.reset();
+        queueLength.reset();
+        maxWaitTime = 0L;
+        maxQueueLength = 0;
+        lastOwner = null;
+    }
+
+
+    /**
+     * Implementation of the shared secret used by the thread MXBean.
+     */
+    static final class Access implements sun.misc.JavaUtilConcurrentLocksAccess {
+        public boolean isContentionMonitoringEnabled() {
+            return enabled;
+        }
+
+        public void setContentionMonitoringEnabled(boolean enable) {
+            synchronized (sites) {
+                if (enable && !enabled)
+                    resetContentionInfo(); // start afresh when reenabled
+                enabled = enable;
+            }
+        }
+
+        public void forEachContentionSite(SiteVisitor visitor) {
+            for (ContentionSite s : sites.values()) {
+                long n = s.contended.sum();
+                if (n != 0L)
+                    visitor.visit(s.className, s.acquireSite, n,
+                                  s.waitTime.sum(), s.maxWaitTime,
+                                  s.parks.sum(), s.queueLength.sum(),
+                                  s.maxQueueLength, s.lastOwner);
+            }
+        }
+
+        public void resetContentionInfo() {
+            // Sites are reset rather than removed, since existing
+            // synchronizers keep referring to them
+            for (ContentionSite s : sites.values())
+                s.reset();
+        }
+    }
+}
@@ -34,6 +34,10 @@
  */
 
 package java.util.concurrent.locks;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import sun.misc.JavaUtilConcurrentAccess;
+import sun.misc.SharedSecrets;
 import sun.misc.Unsafe;
 
 /**
@@ -172,7 +176,7 @@ public class LockSupport {
     public static void park(Object blocker) {
         Thread t = Thread.currentThread();
         setBlocker(t, blocker);
-        UNSAFE.park(false, 0L);
+        park(t, false, 0L);
         setBlocker(t, null);
     }
 
@@ -212,7 +216,7 @@ public class LockSupport {
         if (nanos > 0) {
             Thread t = Thread.currentThread();
             setBlocker(t, blocker);
-            UNSAFE.park(false, nanos);
+            park(t, false, nanos);
             setBlocker(t, null);
         }
     }
@@ -253,7 +257,7 @@ public class LockSupport {
     public static void parkUntil(Object blocker, long deadline) {
         Thread t = Thread.currentThread();
         setBlocker(t, blocker);
-        UNSAFE.park(true, deadline);
+        park(t, true, deadline);
         setBlocker(t, null);
     }
 
@@ -301,7 +305,7 @@ public class LockSupport {
      * for example, the interrupt status of the thread upon return.
      */
     public static void park() {
-        UNSAFE.park(false, 0L);
+        park(Thread.currentThread(), false, 0L);
     }
 
     /**
@@ -335,7 +339,7 @@ public class LockSupport {
      */
     public static void parkNanos(long nanos) {
         if (nanos > 0)
-            UNSAFE.park(false, nanos);
+            park(Thread.currentThread(), false, nanos);
     }
 
     /**
@@ -369,7 +373,52 @@ public class LockSupport {
      *        to wait until
      */
     public static void parkUntil(long deadline) {
-        UNSAFE.park(true, deadline);
+        park(Thread.currentThread(), true, deadline);
+    }
+
+    /**
+     * The time in nanoseconds that a carrier thread of a
+     * ManagedBlockingExecutor parks before its pool compensates for
+     * it.  Most parks on locks and synchronizers end sooner, and are
+     * not worth starting or waking another thread.
+     */
+    static final long COMPENSATION_DELAY = 50L * 1000L;
+
+    /**
+     * Parks t, the current thread, as by UNSAFE.park(absolute, time).
+     * If t is a carrier thread of a ManagedBlockingExecutor, first
+     * parks it for at most COMPENSATION_DELAY without compensation,
+     * and returns if it is woken meanwhile, as callers recheck their
+     * conditions anyway; otherwise lets its pool compensate for the
+     * rest of the park.  Carrier threads are worker threads of a
+     * ForkJoinPool, so other threads are filtered out cheaply.
+     */
+    private static void park(Thread t, boolean absolute, long time) {
+        JavaUtilConcurrentAccess access;
+        if (!(t instanceof ForkJoinWorkerThread) ||
+            (access = SharedSecrets.getJavaUtilConcurrentAccess()) == null ||
+            !access.isCarrier(t)) {
+            UNSAFE.park(absolute, time);
+            return;
+        }
+        long delay = COMPENSATION_DELAY;
+        if (absolute)
+            delay = Math.min(delay, TimeUnit.MILLISECONDS.toNanos
+                             (time - System.currentTimeMillis()));
+        else if (time > 0L)
+            delay = Math.min(delay, time);
+        if (delay <= 0L)
+            return;
+        long start = System.nanoTime();
+        UNSAFE.park(false, delay);
+        long elapsed = System.nanoTime() - start;
+        if (elapsed < delay ||                        // woken
+            (!absolute && time > 0L && (time -= elapsed) <= 0L))
+            return;                                   // timed out
+        boolean compensated = access.beginBlocking();
+        UNSAFE.park(absolute, time);
+        if (compensated)
+            access.endBlocking();
     }
 
     /**
@@ -599,6 +599,37 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         return sync instanceof FairSync;
     }
 
+    /**
+     * Sets the upper bound on the number of times a thread that is
+     * next in line to acquire this lock checks whether it has been
+     * released before blocking.  Within this bound the number of
+     * checks adapts to the time for which this lock has recently
+     * been held, so that threads avoid the cost of blocking and
+     * unblocking when the lock is held only briefly.  A value of
+     * zero makes waiting threads block at once.
+     *
+     * @param limit the maximum number of checks before blocking
+     * @throws IllegalArgumentException if {@code limit} is negative
+     * @see AbstractQueuedSynchronizer#setAcquireSpinLimit
+     * @since 9
+     */
+    public void setSpinLimit(int limit) {
+        sync.setAcquireSpinLimit(limit);
+    }
+
+    /**
+     * Returns the upper bound on the number of times a thread that
+     * is next in line to acquire this lock checks whether it has
+     * been released before blocking.
+     *
+     * @return the spin limit
+     * @see #setSpinLimit
+     * @since 9
+     */
+    public int getSpinLimit() {
+        return sync.getAcquireSpinLimit();
+    }
+
     /**
      * Returns the thread that currently owns this lock, or
      * {@code null} if not owned. When this method is called by a
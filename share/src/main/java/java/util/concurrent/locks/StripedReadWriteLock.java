@@ -0,0 +1,790 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ReadWriteLock} for read-mostly data that scales with the
+ * number of concurrent readers.  A {@link ReentrantReadWriteLock}
+ * counts readers in its single synchronization state, so every
+ * acquisition and release of its read lock updates the same memory
+ * location, which becomes a bottleneck on machines with many
+ * processors even when readers never conflict.  This lock instead
+ * counts readers in a table of striped cells, each padded to occupy
+ * its own cache line as in {@link java.util.concurrent.atomic.LongAdder
+ * LongAdder}, indexed by thread.  A read lock acquisition updates only
+ * the cell of the reading thread, and checks that no writer is
+ * present.  A writer announces itself, so that readers arriving later
+ * wait, and then waits until the cells of all readers have drained.
+ * Writes are therefore more expensive than with {@code
+ * ReentrantReadWriteLock}, in proportion to the size of the table.
+ *
+ * <p>This class otherwise behaves like a nonfair {@code
+ * ReentrantReadWriteLock}:
+ *
+ * <ul>
+ * <li><b>Reentrancy.</b> Both locks may be reacquired by a thread
+ * that holds them, and a writer may acquire the read lock, so the
+ * write lock can be downgraded to a read lock by acquiring the read
+ * lock and then releasing the write lock.  Upgrading from a read lock
+ * to the write lock is not possible, and deadlocks.
+ *
+ * <li><b>Preference.</b> Once a writer is waiting for readers to
+ * drain, readers that do not already hold the read lock wait for the
+ * writer, so writers are not starved by a continuous stream of
+ * readers.  Waiting readers and writers are otherwise not ordered.
+ *
+ * <li><b>Interruption.</b> Both locks support interruption during
+ * acquisition.
+ *
+ * <li><b>Conditions.</b> Neither lock supports {@link Condition}s:
+ * {@code newCondition} throws {@code UnsupportedOperationException}.
+ * </ul>
+ *
+ * <p>Sample usage, caching configuration that is rarely updated:
+ *
+ * <pre> {@code
+ * class Registry {
+ *   private final Map<String, String> m = new HashMap<>();
+ *   private final StripedReadWriteLock rwl = new StripedReadWriteLock();
+ *
+ *   String get(String key) {
+ *     rwl.readLock().lock();
+ *     try { return m.get(key); }
+ *     finally { rwl.readLock().unlock(); }
+ *   }
+ *
+ *   void put(String key, String value) {
+ *     rwl.writeLock().lock();
+ *     try { m.put(key, value); }
+ *     finally { rwl.writeLock().unlock(); }
+ *   }
+ * }}</pre>
+ *
+ * @since 9
+ */
+public class StripedReadWriteLock implements ReadWriteLock,
+                                             java.io.Serializable {
+    private static final long serialVersionUID = -2618537640178394371L;
+
+    /*
+     * Readers and writers synchronize in the style of Dekker's
+     * algorithm: a reader increments its cell and then reads field
+     * writing, while a writer sets writing and then reads every cell,
+     * all with volatile accesses, so at least one of them sees the
+     * other.  A reader seeing a writer backs out and acquires the
+     * writer mutex before incrementing its cell again, which blocks
+     * it until the writer has released the write lock.  Readers
+     * that already hold the read lock skip the back-out, since the
+     * writer cannot complete while they hold it; per-thread hold
+     * counts, kept as in ReentrantReadWriteLock, tell them apart.
+     * A thread's hold counter is kept once created, even when its
+     * count drops to zero, so that reads neither allocate nor update
+     * the ThreadLocal.  Each cell also caches the hold counter of
+     * the thread that last used it, which avoids the ThreadLocal
+     * lookup while a thread has its cell to itself, without the
+     * shared write of ReentrantReadWriteLock's cachedHoldCounter.
+     *
+     * A writer waiting for readers to drain parks after a short spin.
+     * A reader releasing its cell while writing is set unparks the
+     * writer, which was recorded before writing was set, and the
+     * writer rechecks all cells before parking again.  tryLock of
+     * the write lock spins the same way, without parking, so that it
+     * does not fail only because a reader was backing out.
+     *
+     * Cells are indexed by thread id rather than by the per-thread
+     * probe used by LongAdder, since a reader must find the same cell
+     * at release, and the probe may be advanced meanwhile by other
+     * code.  Thread ids are assigned sequentially, so threads started
+     * around the same time use distinct cells.
+     */
+
+    /** Number of CPUS, to bound the size of the table */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Number of spins before parking while draining readers */
+    static final int SPINS = (NCPU > 1) ? 1 << 6 : 0;
+
+    /**
+     * A padded reader count.
+     */
+    @sun.misc.Contended static final class Cell
+        implements java.io.Serializable {
+        private static final long serialVersionUID = 7249069246863182397L;
+        volatile long readers;
+        /** The hold counter of the thread that last used this cell */
+        transient HoldCounter holds;
+    }
+
+    /**
+     * The number of read holds of a thread.
+     */
+    static final class HoldCounter {
+        int count;
+        // Use id, not reference, to avoid garbage retention
+        final long tid = Thread.currentThread().getId();
+    }
+
+    static final class ThreadLocalHoldCounter
+        extends ThreadLocal<HoldCounter> {
+        public HoldCounter initialValue() {
+            return new HoldCounter();
+        }
+    }
+
+    /** The reader cells; length is a power of two */
+    final Cell[] cells;
+
+    /** Mutex held by the writer, and briefly by readers blocked by it */
+    final ReentrantLock writerMutex;
+
+    /** True while a writer holds or is acquiring the write lock */
+    volatile boolean writing;
+
+    /** The thread setting writing, to be unparked by readers */
+    transient volatile Thread writer;
+
+    private transient ThreadLocalHoldCounter readHolds =
+        new ThreadLocalHoldCounter();
+
+    private final ReadLock readerLock;
+    private final WriteLock writerLock;
+
+    /**
+     * Creates a new lock with a table of cells sized for the number
+     * of available processors.
+     */
+    public StripedReadWriteLock() {
+        this(NCPU);
+    }
+
+    /**
+     * Creates a new lock with at least the given number of reader
+     * cells.  Fewer cells make the write lock cheaper, at the cost
+     * of more contention between readers.
+     *
+     * @param stripes the minimum number of reader cells
+     * @throws IllegalArgumentException if stripes is not positive
+     */
+    public StripedReadWriteLock(int stripes) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException();
+        int n = 1;
+        while (n < stripes && n < (1 << 16))
+            n <<= 1;
+        Cell[] cs = new Cell[n];
+        for (int i = 0; i < n; ++i)
+            cs[i] = new Cell();
+        this.cells = cs;
+        this.writerMutex = new ReentrantLock();
+        this.readerLock = new ReadLock(this);
+        this.writerLock = new WriteLock(this);
+    }
+
+    public StripedReadWriteLock.ReadLock  readLock()  { return readerLock; }
+    public StripedReadWriteLock.WriteLock writeLock() { return writerLock; }
+
+    // Reader mechanics
+
+    /** Returns the cell of the current thread. */
+    final Cell cellFor(Thread t) {
+        Cell[] cs = cells;
+        return cs[(int)t.getId() & (cs.length - 1)];
+    }
+
+    /**
+     * Returns the hold counter of the thread with the given id, whose
+     * cell is c, caching it in the cell.
+     */
+    final HoldCounter holdsFor(Cell c, long tid) {
+        HoldCounter rh = c.holds;
+        if (rh == null || rh.tid != tid)
+            c.holds = rh = readHolds.get();
+        return rh;
+    }
+
+    /**
+     * Tries the fast path of read lock acquisition, returning the
+     * thread's hold counter on success, else null, after backing out.
+     */
+    final HoldCounter tryFastRead(Cell c, long tid) {
+        U.getAndAddLong(c, READERS, 1L);
+        HoldCounter rh = holdsFor(c, tid);
+        if (!writing || rh.count > 0)      // reentrant; writer waits for us
+            return rh;
+        releaseCell(c);
+        return null;
+    }
+
+    /** Decrements cell c, waking a draining writer if present. */
+    final void releaseCell(Cell c) {
+        U.getAndAddLong(c, READERS, -1L);
+        Thread w;
+        if (writing && (w = writer) != null)
+            LockSupport.unpark(w);
+    }
+
+    /**
+     * Acquires the read lock while holding the writer mutex, so that
+     * no writer other than the current thread can be present.
+     */
+    final void readUnderMutex(Cell c, long tid) {
+        U.getAndAddLong(c, READERS, 1L);
+        ++holdsFor(c, tid).count;
+    }
+
+    final void lockRead() {
+        Thread t = Thread.currentThread();
+        long tid = t.getId();
+        Cell c = cellFor(t);
+        HoldCounter rh = tryFastRead(c, tid);
+        if (rh != null)
+            ++rh.count;
+        else {
+            writerMutex.lock();
+            try {
+                readUnderMutex(c, tid);
+            } finally {
+                writerMutex.unlock();
+            }
+        }
+    }
+
+    final void lockReadInterruptibly() throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        Thread t = Thread.currentThread();
+        long tid = t.getId();
+        Cell c = cellFor(t);
+        HoldCounter rh = tryFastRead(c, tid);
+        if (rh != null)
+            ++rh.count;
+        else {
+            writerMutex.lockInterruptibly();
+            try {
+                readUnderMutex(c, tid);
+            } finally {
+                writerMutex.unlock();
+            }
+        }
+    }
+
+    final boolean tryLockRead() {
+        Thread t = Thread.currentThread();
+        long tid = t.getId();
+        Cell c = cellFor(t);
+        HoldCounter rh = tryFastRead(c, tid);
+        if (rh != null) {
+            ++rh.count;
+            return true;
+        }
+        if (!writerMutex.tryLock())
+            return false;
+        try {
+            readUnderMutex(c, tid);
+        } finally {
+            writerMutex.unlock();
+        }
+        return true;
+    }
+
+    final boolean tryLockRead(long nanos) throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        Thread t = Thread.currentThread();
+        long tid = t.getId();
+        Cell c = cellFor(t);
+        HoldCounter rh = tryFastRead(c, tid);
+        if (rh != null) {
+            ++rh.count;
+            return true;
+        }
+        if (!writerMutex.tryLock(nanos, TimeUnit.NANOSECONDS))
+            return false;
+        try {
+            readUnderMutex(c, tid);
+        } finally {
+            writerMutex.unlock();
+        }
+        return true;
+    }
+
+    final void unlockRead() {
+        Thread t = Thread.currentThread();
+        Cell c = cellFor(t);
+        HoldCounter rh = holdsFor(c, t.getId());
+        int count = rh.count;
+        if (count <= 0)
+            throw new IllegalMonitorStateException();
+        rh.count = count - 1;
+        releaseCell(c);
+    }
+
+    // Writer mechanics
+
+    /**
+     * Called with the writer mutex held for the first time.  Announces
+     * the writer and waits for readers to drain, or until the given
+     * deadline, if timed, or interrupt, if interruptible.  On failure,
+     * withdraws the announcement and releases the mutex.
+     *
+     * @return true if all readers drained
+     */
+    final boolean drainReaders(boolean interruptible, boolean timed,
+                               long deadline) throws InterruptedException {
+        Thread t = Thread.currentThread();
+        writer = t;
+        writing = true;
+        boolean interrupted = false;
+        for (int spins = SPINS;;) {
+            if (readersDrained())
+                break;
+            if (spins > 0) {
+                --spins;
+                continue;
+            }
+            long nanos = 0L;
+            if (timed && (nanos = deadline - System.nanoTime()) <= 0L) {
+                abortWrite();
+                return false;
+            }
+            if (Thread.interrupted()) {
+                if (interruptible) {
+                    abortWrite();
+                    throw new InterruptedException();
+                }
+                interrupted = true;
+            }
+            if (timed)
+                LockSupport.parkNanos(this, nanos);
+            else
+                LockSupport.park(this);
+        }
+        if (interrupted)
+            t.interrupt();
+        return true;
+    }
+
+    /** Returns true if no cell counts a reader. */
+    final boolean readersDrained() {
+        for (Cell c : cells) {
+            if (c.readers != 0L)
+                return false;
+        }
+        return true;
+    }
+
+    /** Withdraws a writer that failed to drain readers. */
+    final void abortWrite() {
+        writing = false;
+        writer = null;
+        writerMutex.unlock();
+    }
+
+    final void lockWrite() {
+        writerMutex.lock();
+        if (writerMutex.getHoldCount() == 1) {
+            try {
+                drainReaders(false, false, 0L);
+            } catch (InterruptedException cannotHappen) {
+                throw new Error(cannotHappen);
+            }
+        }
+    }
+
+    final void lockWriteInterruptibly() throws InterruptedException {
+        writerMutex.lockInterruptibly();
+        if (writerMutex.getHoldCount() == 1)
+            drainReaders(true, false, 0L);
+    }
+
+    final boolean tryLockWrite() {
+        if (!writerMutex.tryLock())
+            return false;
+        if (writerMutex.getHoldCount() == 1) {
+            writer = Thread.currentThread();
+            writing = true;
+            // Readers arriving now back out; give them time to do so
+            for (int spins = SPINS; !readersDrained(); --spins) {
+                if (spins <= 0) {
+                    abortWrite();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    final boolean tryLockWrite(long nanos) throws InterruptedException {
+        long deadline = System.nanoTime() + nanos;
+        if (!writerMutex.tryLock(nanos, TimeUnit.NANOSECONDS))
+            return false;
+        return (writerMutex.getHoldCount() > 1 ||
+                drainReaders(true, true, deadline));
+    }
+
+    final void unlockWrite() {
+        if (!writerMutex.isHeldByCurrentThread())
+            throw new IllegalMonitorStateException();
+        if (writerMutex.getHoldCount() == 1) {
+            writing = false;
+            writer = null;
+        }
+        writerMutex.unlock();
+    }
+
+    // Instrumentation and status
+
+    /**
+     * Queries the number of read locks held for this lock. This
+     * method is designed for use in monitoring system state, not for
+     * synchronization control.
+     *
+     * @return the number of read locks held
+     */
+    public int getReadLockCount() {
+        long sum = 0L;
+        for (Cell c : cells)
+            sum += c.readers;
+        return (int)sum;
+    }
+
+    /**
+     * Queries the number of reentrant read holds on this lock by the
+     * current thread.
+     *
+     * @return the number of holds on the read lock by the current thread,
+     *         or zero if the read lock is not held by the current thread
+     */
+    public int getReadHoldCount() {
+        Thread t = Thread.currentThread();
+        return holdsFor(cellFor(t), t.getId()).count;
+    }
+
+    /**
+     * Queries if the write lock is held by any thread. This method is
+     * designed for use in monitoring system state, not for
+     * synchronization control.
+     *
+     * @return {@code true} if any thread holds the write lock and
+     *         {@code false} otherwise
+     */
+    public boolean isWriteLocked() {
+        return writing && writerMutex.isLocked();
+    }
+
+    /**
+     * Queries if the write lock is held by the current thread.
+     *
+     * @return {@code true} if the current thread holds the write lock and
+     *         {@code false} otherwise
+     */
+    public boolean isWriteLockedByCurrentThread() {
+        return writerMutex.isHeldByCurrentThread() && writing;
+    }
+
+    /**
+     * Queries the number of reentrant write holds on this lock by the
+     * current thread.
+     *
+     * @return the number of holds on the write lock by the current thread,
+     *         or zero if the write lock is not held by the current thread
+     */
+    public int getWriteHoldCount() {
+        return writing ? writerMutex.getHoldCount() : 0;
+    }
+
+    /**
+     * Returns the number of reader cells of this lock.
+     *
+     * @return the number of reader cells
+     */
+    public int getStripeCount() {
+        return cells.length;
+    }
+
+    /**
+     * Returns a string identifying this lock, as well as its lock state.
+     * The state, in brackets, includes the String {@code "Write locks ="}
+     * followed by the number of reentrantly held write locks, and the
+     * String {@code "Read locks ="} followed by the number of held
+     * read locks.
+     *
+     * @return a string identifying this lock, as well as its lock state
+     */
+    public String toString() {
+        int w = isWriteLocked() ? Math.max(1, writerMutex.getHoldCount()) : 0;
+        return super.toString() +
+            "[Write locks = " + w + ", Read locks = " + getReadLockCount() + "]";
+    }
+
+    /**
+     * Reconstitutes this lock from a stream (that is, deserializes
+     * it), in the unlocked state.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        for (Cell c : cells)
+            c.readers = 0L;
+        writing = false;
+        writer = null;
+        readHolds = new ThreadLocalHoldCounter();
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#readLock}.
+     */
+    public static class ReadLock implements Lock, java.io.Serializable {
+        private static final long serialVersionUID = 4393519718834498185L;
+        private final StripedReadWriteLock lock;
+
+        /**
+         * Constructor for use by subclasses
+         *
+         * @param lock the outer lock object
+         * @throws NullPointerException if the lock is null
+         */
+        protected ReadLock(StripedReadWriteLock lock) {
+            if (lock == null)
+                throw new NullPointerException();
+            this.lock = lock;
+        }
+
+        /**
+         * Acquires the read lock, blocking while a writer holds or is
+         * acquiring the write lock, unless the current thread already
+         * holds the read lock.
+         */
+        public void lock() {
+            lock.lockRead();
+        }
+
+        /**
+         * Acquires the read lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            lock.lockReadInterruptibly();
+        }
+
+        /**
+         * Acquires the read lock only if no writer holds or is
+         * acquiring the write lock at the time of invocation.
+         *
+         * @return {@code true} if the read lock was acquired
+         */
+        public boolean tryLock() {
+            return lock.tryLockRead();
+        }
+
+        /**
+         * Acquires the read lock if it becomes available within the
+         * given waiting time and the current thread has not been
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @param timeout the time to wait for the read lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the read lock was acquired
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return lock.tryLockRead(unit.toNanos(timeout));
+        }
+
+        /**
+         * Attempts to release this lock.
+         *
+         * @throws IllegalMonitorStateException if the current thread
+         *         does not hold this lock
+         */
+        public void unlock() {
+            lock.unlockRead();
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because
+         * {@code ReadLocks} do not support conditions.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock state.
+         * The state, in brackets, includes the String {@code "Read locks ="}
+         * followed by the number of held read locks.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            return super.toString() +
+                "[Read locks = " + lock.getReadLockCount() + "]";
+        }
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#writeLock}.
+     */
+    public static class WriteLock implements Lock, java.io.Serializable {
+        private static final long serialVersionUID = -5407159505720349592L;
+        private final StripedReadWriteLock lock;
+
+        /**
+         * Constructor for use by subclasses
+         *
+         * @param lock the outer lock object
+         * @throws NullPointerException if the lock is null
+         */
+        protected WriteLock(StripedReadWriteLock lock) {
+            if (lock == null)
+                throw new NullPointerException();
+            this.lock = lock;
+        }
+
+        /**
+         * Acquires the write lock, blocking until no other thread
+         * holds the write lock and all other threads have released
+         * the read lock.
+         */
+        public void lock() {
+            lock.lockWrite();
+        }
+
+        /**
+         * Acquires the write lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            lock.lockWriteInterruptibly();
+        }
+
+        /**
+         * Acquires the write lock only if it is not held by another
+         * thread and no other thread holds the read lock at the time
+         * of invocation.  Readers that are trying to acquire the read
+         * lock meanwhile are given a brief spin to back out, but this
+         * method may still fail because of one that is slow to do so.
+         *
+         * @return {@code true} if the write lock was acquired
+         */
+        public boolean tryLock() {
+            return lock.tryLockWrite();
+        }
+
+        /**
+         * Acquires the write lock if it becomes available within the
+         * given waiting time and the current thread has not been
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @param timeout the time to wait for the write lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the write lock was acquired
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return lock.tryLockWrite(unit.toNanos(timeout));
+        }
+
+        /**
+         * Attempts to release this lock.
+         *
+         * @throws IllegalMonitorStateException if the current thread
+         *         does not hold this lock
+         */
+        public void unlock() {
+            lock.unlockWrite();
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because the
+         * write lock is released and reacquired by readers, so its
+         * holder could not be guaranteed exclusive access on return
+         * from {@link Condition#await}.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock
+         * state.  The state, in brackets, is either the String
+         * {@code "[Unlocked]"} or the String {@code "[Locked]"}.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            return super.toString() + (lock.isWriteLocked() ?
+                                       "[Locked]" : "[Unlocked]");
+        }
+
+        /**
+         * Queries if this write lock is held by the current thread.
+         *
+         * @return {@code true} if the current thread holds this lock and
+         *         {@code false} otherwise
+         */
+        public boolean isHeldByCurrentThread() {
+            return lock.isWriteLockedByCurrentThread();
+        }
+
+        /**
+         * Queries the number of holds on this write lock by the current
+         * thread.
+         *
+         * @return the number of holds on this lock by the current thread,
+         *         or zero if this lock is not held by the current thread
+         */
+        public int getHoldCount() {
+            return lock.getWriteHoldCount();
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long READERS;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            READERS = U.objectFieldOffset
+                (Cell.class.getDeclaredField("readers"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -30,7 +30,6 @@ import java.lang.ref.SoftReference;
 import java.net.URL;
 import java.util.*;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 import java.util.zip.*;
 import java.security.CodeSigner;
 import java.security.cert.Certificate;
@@ -276,10 +275,8 @@ class JarFile extends ZipFile {
 
     @Override
     public Stream<JarEntry> stream() {
-        return StreamSupport.stream(Spliterators.spliterator(
-                new JarEntryIterator(), size(),
-                Spliterator.ORDERED | Spliterator.DISTINCT |
-                        Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+        // Splits as the zip file's stream does
+        return super.stream().<JarEntry>map(JarFileEntry::new);
     }
 
     private class JarFileEntry extends JarEntry {
@@ -148,6 +148,18 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     private boolean parallel;
 
+    /**
+     * The name of the operation that created this stage, recorded only
+     * when {@link StreamProfile#ENABLED profiling} is enabled.
+     */
+    private final String opName;
+
+    /**
+     * The profile of the current terminal evaluation, or null if
+     * profiling is disabled; only valid for the source stage.
+     */
+    private StreamProfile profile;
+
     /**
      * Constructor for the head of a stream pipeline.
      *
@@ -167,6 +179,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         this.combinedFlags = (~(sourceOrOpFlags << 1)) & StreamOpFlag.INITIAL_OPS_VALUE;
         this.depth = 0;
         this.parallel = parallel;
+        this.opName = StreamProfile.ENABLED ? StreamProfile.callerOp() : null;
     }
 
     /**
@@ -188,6 +201,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         this.combinedFlags = (~(sourceOrOpFlags << 1)) & StreamOpFlag.INITIAL_OPS_VALUE;
         this.depth = 0;
         this.parallel = parallel;
+        this.opName = StreamProfile.ENABLED ? StreamProfile.callerOp() : null;
     }
 
     /**
@@ -211,6 +225,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         if (opIsStateful())
             sourceStage.sourceAnyStateful = true;
         this.depth = previousStage.depth + 1;
+        this.opName = StreamProfile.ENABLED ? StreamProfile.callerOp() : null;
     }
 
 
@@ -229,9 +244,15 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             throw new IllegalStateException(MSG_STREAM_LINKED);
         linkedOrConsumed = true;
 
-        return isParallel()
+        StreamProfile profile = null;
+        if (StreamProfile.ENABLED)
+            sourceStage.profile = profile = new StreamProfile(stageNames());
+        R result = isParallel()
                ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
                : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
+        if (profile != null)
+            profile.report(isParallel());
+        return result;
     }
 
     /**
@@ -246,6 +267,10 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             throw new IllegalStateException(MSG_STREAM_LINKED);
         linkedOrConsumed = true;
 
+        StreamProfile profile = null;
+        if (StreamProfile.ENABLED)
+            sourceStage.profile = profile = new StreamProfile(stageNames());
+        Node<E_OUT> result;
         // If the last intermediate operation is stateful then
         // evaluate directly to avoid an extra collection step
         if (isParallel() && previousStage != null && opIsStateful()) {
@@ -254,11 +279,14 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             // upstream slice and upstream operations will not be included
             // in this slice
             depth = 0;
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            result = opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
         }
         else {
-            return evaluate(sourceSpliterator(0), true, generator);
+            result = evaluate(sourceSpliterator(0), true, generator);
         }
+        if (profile != null)
+            profile.report(isParallel());
+        return result;
     }
 
     /**
@@ -513,12 +541,49 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     final <P_IN> Sink<P_IN> wrapSink(Sink<E_OUT> sink) {
         Objects.requireNonNull(sink);
 
+        StreamProfile profile = sourceStage.profile;
+        int position = (profile != null) ? position() + 1 : 0;
+        if (profile != null)
+            sink = profile.wrap(position, getOutputShape(), sink);
         for ( @SuppressWarnings("rawtypes") AbstractPipeline p=AbstractPipeline.this; p.depth > 0; p=p.previousStage) {
             sink = p.opWrapSink(p.previousStage.combinedFlags, sink);
+            if (profile != null)
+                sink = profile.wrap(--position, p.previousStage.getOutputShape(), sink);
         }
         return (Sink<P_IN>) sink;
     }
 
+    @Override
+    final StreamProfile profile() {
+        return sourceStage.profile;
+    }
+
+    /**
+     * Returns the position of this stage in the pipeline, the source
+     * stage being at zero.  Unlike {@code depth} this is not reset when
+     * parallel evaluation slices the pipeline at a stateful operation.
+     */
+    private int position() {
+        int n = 0;
+        for (AbstractPipeline<?, ?, ?> p = previousStage; p != null; p = p.previousStage)
+            ++n;
+        return n;
+    }
+
+    /**
+     * Returns the names of the stages of the pipeline ending at this
+     * stage, followed by the name of the terminal operation being
+     * evaluated, for use by a {@link StreamProfile}.
+     */
+    private String[] stageNames() {
+        int n = position();
+        String[] names = new String[n + 2];
+        names[n + 1] = StreamProfile.callerOp();
+        for (AbstractPipeline<?, ?, ?> p = this; p != null; p = p.previousStage)
+            names[n--] = p.opName;
+        return names;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     final <P_IN> Spliterator<E_OUT> wrapSpliterator(Spliterator<P_IN> sourceSpliterator) {
@@ -112,7 +112,14 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
                 break;
             }
             if (sizeEstimate <= sizeThreshold || (ls = rs.trySplit()) == null) {
-                result = task.doLeaf();
+                StreamProfile profile = helper.profile();
+                if (profile == null)
+                    result = task.doLeaf();
+                else {
+                    long start = System.nanoTime();
+                    result = task.doLeaf();
+                    profile.leaf(task, sizeEstimate, System.nanoTime() - start);
+                }
                 break;
             }
             K leftChild, rightChild, taskToFork;
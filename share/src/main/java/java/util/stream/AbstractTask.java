@@ -313,7 +313,14 @@ abstract class AbstractTask<P_IN, P_OUT, R,
             taskToFork.fork();
             sizeEstimate = rs.estimateSize();
         }
-        task.setLocalResult(task.doLeaf());
+        StreamProfile profile = helper.profile();
+        if (profile == null)
+            task.setLocalResult(task.doLeaf());
+        else {
+            long start = System.nanoTime();
+            task.setLocalResult(task.doLeaf());
+            profile.leaf(task, sizeEstimate, System.nanoTime() - start);
+        }
         task.tryComplete();
     }
 
@@ -410,7 +410,13 @@ public final class Collectors {
      */
     public static <T> Collector<T, ?, Long>
     counting() {
-        return reducing(0L, e -> 1L, Long::sum);
+        // As summingLong(e -> 1L), counting into a long[] rather than
+        // boxing a Long for each element
+        return new CollectorImpl<>(
+                () -> new long[1],
+                (a, t) -> { a[0]++; },
+                (a, b) -> { a[0] += b[0]; return a; },
+                a -> a[0], CH_NOID);
     }
 
     /**
@@ -1058,17 +1064,23 @@ public final class Collectors {
         @SuppressWarnings("unchecked")
         Supplier<ConcurrentMap<K, A>> mangledFactory = (Supplier<ConcurrentMap<K, A>>) mapFactory;
         BiConsumer<ConcurrentMap<K, A>, T> accumulator;
+        // Look keys up before computeIfAbsent, which locks the key's bin even
+        // when the key is present
         if (downstream.characteristics().contains(Collector.Characteristics.CONCURRENT)) {
             accumulator = (m, t) -> {
                 K key = Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
-                A resultContainer = m.computeIfAbsent(key, k -> downstreamSupplier.get());
+                A resultContainer = m.get(key);
+                if (resultContainer == null)
+                    resultContainer = m.computeIfAbsent(key, k -> downstreamSupplier.get());
                 downstreamAccumulator.accept(resultContainer, t);
             };
         }
         else {
             accumulator = (m, t) -> {
                 K key = Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
-                A resultContainer = m.computeIfAbsent(key, k -> downstreamSupplier.get());
+                A resultContainer = m.get(key);
+                if (resultContainer == null)
+                    resultContainer = m.computeIfAbsent(key, k -> downstreamSupplier.get());
                 synchronized (resultContainer) {
                     downstreamAccumulator.accept(resultContainer, t);
                 }
@@ -1091,6 +1103,87 @@ public final class Collectors {
         }
     }
 
+    /**
+     * Returns a concurrent {@code Collector} implementing a cascaded "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to a classification function, and then performing a reduction
+     * operation on the values associated with a given key using the specified
+     * downstream {@code Collector}.  The maps used are created with room for
+     * the expected number of keys.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.
+     *
+     * <p>The classification function maps elements to some key type {@code K}.
+     * The downstream collector operates on elements of type {@code T} and
+     * produces a result of type {@code D}. The resulting collector produces a
+     * {@code ConcurrentMap<K, D>}.
+     *
+     * <p>For example, to count the words of a large file in parallel:
+     * <pre>{@code
+     *     ConcurrentMap<String, Long> wordCounts
+     *         = words.parallel().collect(groupingByConcurrentPerThread(w -> w, 100_000,
+     *                                                                  counting()));
+     * }</pre>
+     *
+     * @implNote
+     * Unlike the {@code groupingByConcurrent} collectors, which share
+     * one map between all threads, the returned {@code Collector} accumulates
+     * into a separate {@code HashMap} for each thread, without locking, and
+     * merges them using the downstream combiner into a
+     * {@code ConcurrentHashMap} when the reduction completes.  The downstream
+     * collector therefore need not be concurrent, and its containers are not
+     * synchronized on.  This suits reductions to relatively few keys, each
+     * reached by many elements; each thread's map may come to hold every key.
+     *
+     * @param <T> the type of the input elements
+     * @param <K> the type of the keys
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param expectedSize the expected number of distinct keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a concurrent, unordered {@code Collector} implementing the cascaded group-by operation
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     *
+     * @see #groupingByConcurrent(Function, Collector)
+     * @see #groupingBy(Function, Collector)
+     * @since 9
+     */
+    public static <T, K, A, D>
+    Collector<T, ?, ConcurrentMap<K, D>> groupingByConcurrentPerThread(Function<? super T, ? extends K> classifier,
+                                                                       int expectedSize,
+                                                                       Collector<? super T, A, D> downstream) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        Supplier<ThreadMaps<K, A>> supplier = () -> new ThreadMaps<>(expectedSize);
+        BiConsumer<ThreadMaps<K, A>, T> accumulator = (p, t) -> {
+            K key = Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
+            A container = p.localMap().computeIfAbsent(key, k -> downstreamSupplier.get());
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<ThreadMaps<K, A>> combiner = (p1, p2) -> {
+            p1.addAll(p2, downstreamCombiner);
+            return p1;
+        };
+        boolean identityFinish =
+            downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH);
+        @SuppressWarnings("unchecked")
+        Function<A, A> downstreamFinisher = (Function<A, A>) downstream.finisher();
+        Function<ThreadMaps<K, A>, ConcurrentMap<K, D>> finisher = p -> {
+            ConcurrentMap<K, A> intermediate = p.merge(downstreamCombiner);
+            if (!identityFinish)
+                intermediate.replaceAll((k, v) -> downstreamFinisher.apply(v));
+            @SuppressWarnings("unchecked")
+            ConcurrentMap<K, D> castResult = (ConcurrentMap<K, D>) intermediate;
+            return castResult;
+        };
+        return new CollectorImpl<>(supplier, accumulator, combiner, finisher, CH_CONCURRENT_NOID);
+    }
+
     /**
      * Returns a {@code Collector} which partitions the input elements according
      * to a {@code Predicate}, and organizes them into a
@@ -1534,6 +1627,53 @@ public final class Collectors {
                 (l, r) -> { l.combine(r); return l; }, CH_ID);
     }
 
+    /**
+     * Implementation class used by groupingByConcurrent with an expected
+     * size: a map for each accumulating thread, each accessed only by its
+     * thread until the reduction completes.
+     */
+    static final class ThreadMaps<K, A> {
+        final int expectedSize;
+        final ConcurrentHashMap<Thread, HashMap<K, A>> maps
+            = new ConcurrentHashMap<>();
+
+        ThreadMaps(int expectedSize) {
+            this.expectedSize = expectedSize;
+        }
+
+        /** Returns the calling thread's map, creating it if absent. */
+        HashMap<K, A> localMap() {
+            Thread t = Thread.currentThread();
+            HashMap<K, A> m = maps.get(t);
+            if (m == null) {
+                m = new HashMap<>((int) Math.min(expectedSize / 0.75f + 1.0f,
+                                                 1 << 30));
+                maps.put(t, m);
+            }
+            return m;
+        }
+
+        /** Adds the maps of other, combining those of the same thread. */
+        void addAll(ThreadMaps<K, A> other, BinaryOperator<A> combiner) {
+            other.maps.forEach((t, m) -> {
+                HashMap<K, A> mine = maps.putIfAbsent(t, m);
+                if (mine != null)
+                    m.forEach((k, v) -> mine.merge(k, v, combiner));
+            });
+        }
+
+        /** Returns all the maps combined into one. */
+        ConcurrentMap<K, A> merge(BinaryOperator<A> combiner) {
+            int size = expectedSize;
+            for (HashMap<K, A> m : maps.values())
+                size = Math.max(size, m.size());
+            ConcurrentHashMap<K, A> result = new ConcurrentHashMap<>(size);
+            for (HashMap<K, A> m : maps.values())
+                m.forEach((k, v) -> result.merge(k, v, combiner));
+            return result;
+        }
+    }
+
     /**
      * Implementation class used by partitioningBy.
      */
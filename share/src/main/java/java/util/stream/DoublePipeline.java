@@ -192,10 +192,25 @@ abstract class DoublePipeline<E_IN>
             @Override
             Sink<Double> opWrapSink(int flags, Sink<Double> sink) {
                 return new Sink.ChainedDouble<Double>(sink) {
+                    double[] buffer;
+
                     @Override
                     public void accept(double t) {
                         downstream.accept(mapper.applyAsDouble(t));
                     }
+
+                    @Override
+                    public void acceptBatch(double[] a, int from, int to) {
+                        double[] b = buffer;
+                        if (b == null)
+                            buffer = b = new double[Streams.BATCH_SIZE];
+                        for (int n; from < to; from += n) {
+                            n = Math.min(to - from, b.length);
+                            for (int i = 0; i < n; i++)
+                                b[i] = mapper.applyAsDouble(a[from + i]);
+                            downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
@@ -226,10 +241,25 @@ abstract class DoublePipeline<E_IN>
             @Override
             Sink<Double> opWrapSink(int flags, Sink<Integer> sink) {
                 return new Sink.ChainedDouble<Integer>(sink) {
+                    int[] buffer;
+
                     @Override
                     public void accept(double t) {
                         downstream.accept(mapper.applyAsInt(t));
                     }
+
+                    @Override
+                    public void acceptBatch(double[] a, int from, int to) {
+                        int[] b = buffer;
+                        if (b == null)
+                            buffer = b = new int[Streams.BATCH_SIZE];
+                        for (int n; from < to; from += n) {
+                            n = Math.min(to - from, b.length);
+                            for (int i = 0; i < n; i++)
+                                b[i] = mapper.applyAsInt(a[from + i]);
+                            downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
@@ -243,10 +273,25 @@ abstract class DoublePipeline<E_IN>
             @Override
             Sink<Double> opWrapSink(int flags, Sink<Long> sink) {
                 return new Sink.ChainedDouble<Long>(sink) {
+                    long[] buffer;
+
                     @Override
                     public void accept(double t) {
                         downstream.accept(mapper.applyAsLong(t));
                     }
+
+                    @Override
+                    public void acceptBatch(double[] a, int from, int to) {
+                        long[] b = buffer;
+                        if (b == null)
+                            buffer = b = new long[Streams.BATCH_SIZE];
+                        for (int n; from < to; from += n) {
+                            n = Math.min(to - from, b.length);
+                            for (int i = 0; i < n; i++)
+                                b[i] = mapper.applyAsLong(a[from + i]);
+                            downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
@@ -297,6 +342,8 @@ abstract class DoublePipeline<E_IN>
             @Override
             Sink<Double> opWrapSink(int flags, Sink<Double> sink) {
                 return new Sink.ChainedDouble<Double>(sink) {
+                    double[] buffer;
+
                     @Override
                     public void begin(long size) {
                         downstream.begin(-1);
@@ -307,6 +354,24 @@ abstract class DoublePipeline<E_IN>
                         if (predicate.test(t))
                             downstream.accept(t);
                     }
+
+                    @Override
+                    public void acceptBatch(double[] a, int from, int to) {
+                        double[] b = buffer;
+                        if (b == null)
+                            buffer = b = new double[Streams.BATCH_SIZE];
+                        for (int end; from < to; from = end) {
+                            end = Math.min(to, from + b.length);
+                            int n = 0;
+                            for (int i = from; i < end; i++) {
+                                double t = a[i];
+                                if (predicate.test(t))
+                                    b[n++] = t;
+                            }
+                            if (n > 0)
+                                downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
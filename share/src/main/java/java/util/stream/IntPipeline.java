@@ -190,10 +190,25 @@ abstract class IntPipeline<E_IN>
             @Override
             Sink<Integer> opWrapSink(int flags, Sink<Long> sink) {
                 return new Sink.ChainedInt<Long>(sink) {
+                    long[] buffer;
+
                     @Override
                     public void accept(int t) {
                         downstream.accept((long) t);
                     }
+
+                    @Override
+                    public void acceptBatch(int[] a, int from, int to) {
+                        long[] b = buffer;
+                        if (b == null)
+                            buffer = b = new long[Streams.BATCH_SIZE];
+                        for (int n; from < to; from += n) {
+                            n = Math.min(to - from, b.length);
+                            for (int i = 0; i < n; i++)
+                                b[i] = (long) a[from + i];
+                            downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
@@ -206,10 +221,25 @@ abstract class IntPipeline<E_IN>
             @Override
             Sink<Integer> opWrapSink(int flags, Sink<Double> sink) {
                 return new Sink.ChainedInt<Double>(sink) {
+                    double[] buffer;
+
                     @Override
                     public void accept(int t) {
                         downstream.accept((double) t);
                     }
+
+                    @Override
+                    public void acceptBatch(int[] a, int from, int to) {
+                        double[] b = buffer;
+                        if (b == null)
+                            buffer = b = new double[Streams.BATCH_SIZE];
+                        for (int n; from < to; from += n) {
+                            n = Math.min(to - from, b.length);
+                            for (int i = 0; i < n; i++)
+                                b[i] = (double) a[from + i];
+                            downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
@@ -228,10 +258,25 @@ abstract class IntPipeline<E_IN>
             @Override
             Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
                 return new Sink.ChainedInt<Integer>(sink) {
+                    int[] buffer;
+
                     @Override
                     public void accept(int t) {
                         downstream.accept(mapper.applyAsInt(t));
                     }
+
+                    @Override
+                    public void acceptBatch(int[] a, int from, int to) {
+                        int[] b = buffer;
+                        if (b == null)
+                            buffer = b = new int[Streams.BATCH_SIZE];
+                        for (int n; from < to; from += n) {
+                            n = Math.min(to - from, b.length);
+                            for (int i = 0; i < n; i++)
+                                b[i] = mapper.applyAsInt(a[from + i]);
+                            downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
@@ -262,10 +307,25 @@ abstract class IntPipeline<E_IN>
             @Override
             Sink<Integer> opWrapSink(int flags, Sink<Long> sink) {
                 return new Sink.ChainedInt<Long>(sink) {
+                    long[] buffer;
+
                     @Override
                     public void accept(int t) {
                         downstream.accept(mapper.applyAsLong(t));
                     }
+
+                    @Override
+                    public void acceptBatch(int[] a, int from, int to) {
+                        long[] b = buffer;
+                        if (b == null)
+                            buffer = b = new long[Streams.BATCH_SIZE];
+                        for (int n; from < to; from += n) {
+                            n = Math.min(to - from, b.length);
+                            for (int i = 0; i < n; i++)
+                                b[i] = mapper.applyAsLong(a[from + i]);
+                            downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
@@ -279,10 +339,25 @@ abstract class IntPipeline<E_IN>
             @Override
             Sink<Integer> opWrapSink(int flags, Sink<Double> sink) {
                 return new Sink.ChainedInt<Double>(sink) {
+                    double[] buffer;
+
                     @Override
                     public void accept(int t) {
                         downstream.accept(mapper.applyAsDouble(t));
                     }
+
+                    @Override
+                    public void acceptBatch(int[] a, int from, int to) {
+                        double[] b = buffer;
+                        if (b == null)
+                            buffer = b = new double[Streams.BATCH_SIZE];
+                        for (int n; from < to; from += n) {
+                            n = Math.min(to - from, b.length);
+                            for (int i = 0; i < n; i++)
+                                b[i] = mapper.applyAsDouble(a[from + i]);
+                            downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
@@ -333,6 +408,8 @@ abstract class IntPipeline<E_IN>
             @Override
             Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
                 return new Sink.ChainedInt<Integer>(sink) {
+                    int[] buffer;
+
                     @Override
                     public void begin(long size) {
                         downstream.begin(-1);
@@ -343,6 +420,24 @@ abstract class IntPipeline<E_IN>
                         if (predicate.test(t))
                             downstream.accept(t);
                     }
+
+                    @Override
+                    public void acceptBatch(int[] a, int from, int to) {
+                        int[] b = buffer;
+                        if (b == null)
+                            buffer = b = new int[Streams.BATCH_SIZE];
+                        for (int end; from < to; from = end) {
+                            end = Math.min(to, from + b.length);
+                            int n = 0;
+                            for (int i = from; i < end; i++) {
+                                int t = a[i];
+                                if (predicate.test(t))
+                                    b[n++] = t;
+                            }
+                            if (n > 0)
+                                downstream.acceptBatch(b, 0, n);
+                        }
+                    }
                 };
             }
         };
@@ -1353,6 +1353,10 @@ final class Nodes {
 
         @Override
         public void forEach(IntConsumer consumer) {
+            if (consumer instanceof Sink) {
+                ((Sink<?>) consumer).acceptBatch(array, 0, curSize);
+                return;
+            }
             for (int i = 0; i < curSize; i++) {
                 consumer.accept(array[i]);
             }
@@ -1407,6 +1411,10 @@ final class Nodes {
 
         @Override
         public void forEach(LongConsumer consumer) {
+            if (consumer instanceof Sink) {
+                ((Sink<?>) consumer).acceptBatch(array, 0, curSize);
+                return;
+            }
             for (int i = 0; i < curSize; i++) {
                 consumer.accept(array[i]);
             }
@@ -1461,6 +1469,10 @@ final class Nodes {
 
         @Override
         public void forEach(DoubleConsumer consumer) {
+            if (consumer instanceof Sink) {
+                ((Sink<?>) consumer).acceptBatch(array, 0, curSize);
+                return;
+            }
             for (int i = 0; i < curSize; i++) {
                 consumer.accept(array[i]);
             }
@@ -1512,6 +1524,18 @@ final class Nodes {
             }
         }
 
+        @Override
+        public void acceptBatch(int[] a, int from, int to) {
+            int n = to - from;
+            if (n <= array.length - curSize) {
+                System.arraycopy(a, from, array, curSize, n);
+                curSize += n;
+            } else {
+                throw new IllegalStateException(String.format("Accept exceeded fixed size of %d",
+                                                              array.length));
+            }
+        }
+
         @Override
         public void end() {
             if (curSize < array.length) {
@@ -1566,6 +1590,18 @@ final class Nodes {
             }
         }
 
+        @Override
+        public void acceptBatch(long[] a, int from, int to) {
+            int n = to - from;
+            if (n <= array.length - curSize) {
+                System.arraycopy(a, from, array, curSize, n);
+                curSize += n;
+            } else {
+                throw new IllegalStateException(String.format("Accept exceeded fixed size of %d",
+                                                              array.length));
+            }
+        }
+
         @Override
         public void end() {
             if (curSize < array.length) {
@@ -1620,6 +1656,18 @@ final class Nodes {
             }
         }
 
+        @Override
+        public void acceptBatch(double[] a, int from, int to) {
+            int n = to - from;
+            if (n <= array.length - curSize) {
+                System.arraycopy(a, from, array, curSize, n);
+                curSize += n;
+            } else {
+                throw new IllegalStateException(String.format("Accept exceeded fixed size of %d",
+                                                              array.length));
+            }
+        }
+
         @Override
         public void end() {
             if (curSize < array.length) {
@@ -152,6 +152,17 @@ abstract class PipelineHelper<P_OUT> {
      */
     abstract<P_IN> Sink<P_IN> wrapSink(Sink<P_OUT> sink);
 
+    /**
+     * Returns the profile recording the current evaluation of this
+     * pipeline, or {@code null} if profiling is not enabled.
+     *
+     * @return the profile, or {@code null}
+     * @see StreamProfile
+     */
+    StreamProfile profile() {
+        return null;
+    }
+
     /**
      *
      * @param spliterator
@@ -258,6 +258,14 @@ final class ReduceOps {
                 state = operator.applyAsInt(state, t);
             }
 
+            @Override
+            public void acceptBatch(int[] a, int from, int to) {
+                int s = state;
+                for (int i = from; i < to; i++)
+                    s = operator.applyAsInt(s, a[i]);
+                state = s;
+            }
+
             @Override
             public Integer get() {
                 return state;
@@ -394,6 +402,14 @@ final class ReduceOps {
                 state = operator.applyAsLong(state, t);
             }
 
+            @Override
+            public void acceptBatch(long[] a, int from, int to) {
+                long s = state;
+                for (int i = from; i < to; i++)
+                    s = operator.applyAsLong(s, a[i]);
+                state = s;
+            }
+
             @Override
             public Long get() {
                 return state;
@@ -530,6 +546,14 @@ final class ReduceOps {
                 state = operator.applyAsDouble(state, t);
             }
 
+            @Override
+            public void acceptBatch(double[] a, int from, int to) {
+                double s = state;
+                for (int i = from; i < to; i++)
+                    s = operator.applyAsDouble(s, a[i]);
+                state = s;
+            }
+
             @Override
             public Double get() {
                 return state;
@@ -50,6 +50,19 @@ import java.util.function.LongConsumer;
  * the initial state, where it can be re-used.  Data-accepting methods (such as
  * {@code accept()} are only valid in the active state.
  *
+ * <p>Sources whose elements are held in primitive arrays, and stages that
+ * produce their output in bulk, may push runs of {@code int}, {@code long} or
+ * {@code double} values with one of the {@code acceptBatch()} methods instead
+ * of calling {@code accept()} for each.  A batch is equivalent to accepting
+ * its elements in order, and is only pushed when cancellation need not be
+ * polled between elements, such as from {@code forEachRemaining}.  The array
+ * belongs to the caller: the sink must neither modify it nor retain it after
+ * returning.  Stateless stages that override {@code acceptBatch()} process
+ * each batch in a simple loop and pass their results downstream as a batch
+ * in an array of their own, so that a pipeline such as
+ * {@code map().filter().sum()} runs one loop per stage over each batch
+ * rather than one chain of calls per element.
+ *
  * @apiNote
  * A stream pipeline consists of a source, zero or more intermediate stages
  * (such as filtering or mapping), and a terminal stage, such as reduction or
@@ -181,6 +194,60 @@ interface Sink<T> extends Consumer<T> {
         throw new IllegalStateException("called wrong accept method");
     }
 
+    /**
+     * Accepts the int values {@code a[from]} to {@code a[to - 1]}, as if by
+     * calling {@link #accept(int)} on each in turn.
+     *
+     * @implSpec The default implementation calls {@code accept(int)} for each
+     * element.
+     *
+     * @param a the array holding the values, which must not be modified or
+     *        retained
+     * @param from the index of the first value, inclusive
+     * @param to the index of the last value, exclusive
+     * @throws IllegalStateException if this sink does not accept int values
+     */
+    default void acceptBatch(int[] a, int from, int to) {
+        for (int i = from; i < to; i++)
+            accept(a[i]);
+    }
+
+    /**
+     * Accepts the long values {@code a[from]} to {@code a[to - 1]}, as if by
+     * calling {@link #accept(long)} on each in turn.
+     *
+     * @implSpec The default implementation calls {@code accept(long)} for each
+     * element.
+     *
+     * @param a the array holding the values, which must not be modified or
+     *        retained
+     * @param from the index of the first value, inclusive
+     * @param to the index of the last value, exclusive
+     * @throws IllegalStateException if this sink does not accept long values
+     */
+    default void acceptBatch(long[] a, int from, int to) {
+        for (int i = from; i < to; i++)
+            accept(a[i]);
+    }
+
+    /**
+     * Accepts the double values {@code a[from]} to {@code a[to - 1]}, as if
+     * by calling {@link #accept(double)} on each in turn.
+     *
+     * @implSpec The default implementation calls {@code accept(double)} for
+     * each element.
+     *
+     * @param a the array holding the values, which must not be modified or
+     *        retained
+     * @param from the index of the first value, inclusive
+     * @param to the index of the last value, exclusive
+     * @throws IllegalStateException if this sink does not accept double values
+     */
+    default void acceptBatch(double[] a, int from, int to) {
+        for (int i = from; i < to; i++)
+            accept(a[i]);
+    }
+
     /**
      * {@code Sink} that implements {@code Sink<Integer>}, re-abstracts
      * {@code accept(int)}, and wires {@code accept(Integer)} to bridge to
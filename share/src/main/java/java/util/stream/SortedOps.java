@@ -445,8 +445,7 @@ final class SortedOps {
             Arrays.sort(array, 0, offset);
             downstream.begin(offset);
             if (!cancellationWasRequested) {
-                for (int i = 0; i < offset; i++)
-                    downstream.accept(array[i]);
+                downstream.acceptBatch(array, 0, offset);
             }
             else {
                 for (int i = 0; i < offset && !downstream.cancellationRequested(); i++)
@@ -485,8 +484,7 @@ final class SortedOps {
             Arrays.sort(ints);
             downstream.begin(ints.length);
             if (!cancellationWasRequested) {
-                for (int anInt : ints)
-                    downstream.accept(anInt);
+                downstream.acceptBatch(ints, 0, ints.length);
             }
             else {
                 for (int anInt : ints) {
@@ -543,8 +541,7 @@ final class SortedOps {
             Arrays.sort(array, 0, offset);
             downstream.begin(offset);
             if (!cancellationWasRequested) {
-                for (int i = 0; i < offset; i++)
-                    downstream.accept(array[i]);
+                downstream.acceptBatch(array, 0, offset);
             }
             else {
                 for (int i = 0; i < offset && !downstream.cancellationRequested(); i++)
@@ -583,8 +580,7 @@ final class SortedOps {
             Arrays.sort(longs);
             downstream.begin(longs.length);
             if (!cancellationWasRequested) {
-                for (long aLong : longs)
-                    downstream.accept(aLong);
+                downstream.acceptBatch(longs, 0, longs.length);
             }
             else {
                 for (long aLong : longs) {
@@ -641,8 +637,7 @@ final class SortedOps {
             Arrays.sort(array, 0, offset);
             downstream.begin(offset);
             if (!cancellationWasRequested) {
-                for (int i = 0; i < offset; i++)
-                    downstream.accept(array[i]);
+                downstream.acceptBatch(array, 0, offset);
             }
             else {
                 for (int i = 0; i < offset && !downstream.cancellationRequested(); i++)
@@ -681,8 +676,7 @@ final class SortedOps {
             Arrays.sort(doubles);
             downstream.begin(doubles.length);
             if (!cancellationWasRequested) {
-                for (double aDouble : doubles)
-                    downstream.accept(aDouble);
+                downstream.acceptBatch(doubles, 0, doubles.length);
             }
             else {
                 for (double aDouble : doubles) {
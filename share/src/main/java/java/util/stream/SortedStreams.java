@@ -0,0 +1,690 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.stream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Static methods for sorting streams too large to be buffered in memory,
+ * and for merging streams that are already sorted.
+ *
+ * <p>{@link Stream#sorted(Comparator)} buffers every element of the
+ * stream before sorting.  {@link #externalSort externalSort} instead
+ * buffers at most a fixed number of elements at a time, sorting each
+ * such <em>run</em> and spilling it to a temporary file with a
+ * {@link Serializer}, then lazily merges the runs as the resulting
+ * stream is traversed.  {@link #mergeSorted mergeSorted} performs the
+ * same lazy merge over streams supplied by the caller.
+ *
+ * <p>Both methods produce streams that hold resources until closed, so
+ * they should be used in a try-with-resources statement or similar
+ * control structure to ensure that temporary files are deleted and the
+ * input streams are closed promptly:
+ * <pre>{@code
+ *     try (Stream<Record> s = SortedStreams.externalSort(
+ *             records, byKey, recordSerializer, 1 << 20)) {
+ *         s.forEach(out::write);
+ *     }
+ * }</pre>
+ *
+ * @since 9
+ */
+public final class SortedStreams {
+
+    private SortedStreams() { }
+
+    /**
+     * Writes and reads the elements of a run spilled to a temporary file
+     * by {@link SortedStreams#externalSort externalSort}.  Each element
+     * must be read back by {@link #read} exactly as it was written by
+     * {@link #write}; the serializer need not record element boundaries.
+     *
+     * @param <T> the type of elements
+     * @since 9
+     */
+    public interface Serializer<T> {
+        /**
+         * Writes an element to the given output.
+         *
+         * @param t the element, which may be {@code null} if the stream
+         *        contains {@code null} elements
+         * @param out the output
+         * @throws IOException if an I/O error occurs
+         */
+        void write(T t, DataOutput out) throws IOException;
+
+        /**
+         * Reads an element previously written by {@link #write}.
+         *
+         * @param in the input
+         * @return the element
+         * @throws IOException if an I/O error occurs
+         */
+        T read(DataInput in) throws IOException;
+    }
+
+    /**
+     * The maximum number of runs merged at once.  Whenever this many
+     * runs of the same length have been spilled they are merged into a
+     * longer run, bounding the number of files open and the memory used
+     * by their buffers while each element is written only a logarithmic
+     * number of times.
+     */
+    static final int MAX_MERGE_WAY = 256;
+
+    /**
+     * The size of the buffers used to write and read spilled runs.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Returns a stream consisting of the elements of the given stream,
+     * sorted according to the provided {@code Comparator}, using the
+     * default temporary-file directory for spilled runs.
+     *
+     * @param <T> the type of stream elements
+     * @param stream the stream to sort
+     * @param comparator a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   {@code Comparator} to be used to compare stream elements
+     * @param serializer the serializer for spilled elements
+     * @param runSize the maximum number of elements buffered in memory
+     * @return the sorted stream
+     * @throws IllegalArgumentException if {@code runSize} is not positive
+     * @see #externalSort(Stream, Comparator, Serializer, int, Path)
+     */
+    public static <T> Stream<T> externalSort(Stream<T> stream,
+                                             Comparator<? super T> comparator,
+                                             Serializer<T> serializer,
+                                             int runSize) {
+        return externalSort(stream, comparator, serializer, runSize, null);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of the given stream,
+     * sorted according to the provided {@code Comparator}.  The sort is
+     * stable.
+     *
+     * <p>Elements of the given stream are not consumed until the first
+     * terminal operation on the returned stream.  They are then buffered
+     * up to {@code runSize} at a time; each full buffer is sorted, written
+     * to a new temporary file in {@code dir} with the given serializer,
+     * and cleared.  If the whole stream fits in one buffer no file is
+     * written.  Otherwise the runs, including the final one still in
+     * memory, are merged lazily as the returned stream is traversed, each
+     * file being deleted once it has been read.  Closing the returned
+     * stream deletes any remaining files and closes the given stream.
+     *
+     * <p>If the given stream is parallel, runs are sorted with {@link
+     * Arrays#parallelSort(Object[], int, int, Comparator)} and the
+     * returned stream is parallel, although the merge itself is
+     * sequential.
+     *
+     * <p>An {@link IOException} thrown while writing or reading a run is
+     * wrapped in an {@link UncheckedIOException} which is thrown from the
+     * method that caused the access.  If sorting fails, the exception is
+     * thrown again by any later attempt to traverse the returned stream,
+     * rather than sorting the remaining elements alone.
+     *
+     * @param <T> the type of stream elements
+     * @param stream the stream to sort
+     * @param comparator a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   {@code Comparator} to be used to compare stream elements
+     * @param serializer the serializer for spilled elements
+     * @param runSize the maximum number of elements buffered in memory
+     * @param dir the directory for spilled runs, or {@code null} for the
+     *        default temporary-file directory
+     * @return the sorted stream
+     * @throws IllegalArgumentException if {@code runSize} is not positive
+     * @see Files#createTempFile(Path, String, String,
+     *      java.nio.file.attribute.FileAttribute...)
+     */
+    public static <T> Stream<T> externalSort(Stream<T> stream,
+                                             Comparator<? super T> comparator,
+                                             Serializer<T> serializer,
+                                             int runSize, Path dir) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(comparator);
+        Objects.requireNonNull(serializer);
+        if (runSize <= 0)
+            throw new IllegalArgumentException("Illegal run size: " + runSize);
+
+        ExternalSortSpliterator<T> split = new ExternalSortSpliterator<>(
+                stream.spliterator(), comparator, serializer, runSize, dir,
+                stream.isParallel());
+        return StreamSupport.stream(split, stream.isParallel())
+                .onClose(Streams.composeWithExceptions(split::close, stream::close));
+    }
+
+    /**
+     * Creates a lazily merged stream whose elements are all the elements
+     * of the given streams, each of which must be sorted according to the
+     * provided {@code Comparator}.  Elements that compare equal are
+     * produced in the order of the streams that contain them, so merging
+     * stable sorts gives a stable sort.  The given streams are traversed
+     * only as far as needed to produce each element, and are never
+     * buffered.  The resulting stream is parallel if any of the given
+     * streams is parallel, although the merge itself is sequential.  When
+     * the resulting stream is closed, the close handlers for all the
+     * given streams are invoked.
+     *
+     * <p>The result is unspecified if a given stream is not sorted.
+     *
+     * @param <T> the type of stream elements
+     * @param comparator a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   {@code Comparator} by which the streams are sorted
+     * @param streams the sorted streams
+     * @return the merged stream
+     */
+    @SafeVarargs
+    public static <T> Stream<T> mergeSorted(Comparator<? super T> comparator,
+                                            Stream<? extends T>... streams) {
+        Objects.requireNonNull(comparator);
+        @SuppressWarnings("unchecked")
+        Spliterator<? extends T>[] splits =
+            (Spliterator<? extends T>[]) new Spliterator<?>[streams.length];
+        boolean parallel = false;
+        Runnable close = null;
+        for (int i = 0; i < streams.length; ++i) {
+            Stream<? extends T> s = Objects.requireNonNull(streams[i]);
+            splits[i] = s.spliterator();
+            parallel |= s.isParallel();
+            close = (close == null) ? s::close : Streams.composeWithExceptions(close, s::close);
+        }
+        Stream<T> stream = StreamSupport.stream(
+                new MergingSpliterator<>(comparator, splits), parallel);
+        return (close == null) ? stream : stream.onClose(close);
+    }
+
+    /**
+     * A source being merged, holding the element it will produce next.
+     */
+    static final class Cursor<T> implements Consumer<T> {
+        final Spliterator<? extends T> source;
+        final int index;
+        T head;
+
+        Cursor(Spliterator<? extends T> source, int index) {
+            this.source = source;
+            this.index = index;
+        }
+
+        /** Reads the next head, returning false if the source is exhausted */
+        boolean advance() {
+            return source.tryAdvance(this);
+        }
+
+        @Override
+        public void accept(T t) {
+            head = t;
+        }
+    }
+
+    /**
+     * A k-way merge of sorted spliterators, using a heap of cursors
+     * ordered by their heads and, for equal heads, by source index.
+     * The sources are not read until the first traversal.
+     */
+    static final class MergingSpliterator<T> implements Spliterator<T> {
+        private final Comparator<? super T> comparator;
+        private final Spliterator<? extends T>[] sources;
+        private PriorityQueue<Cursor<T>> heap; // null until first traversal
+
+        MergingSpliterator(Comparator<? super T> comparator,
+                           Spliterator<? extends T>[] sources) {
+            this.comparator = comparator;
+            this.sources = sources;
+        }
+
+        private PriorityQueue<Cursor<T>> heap() {
+            PriorityQueue<Cursor<T>> h = heap;
+            if (h == null) {
+                Comparator<? super T> cmp = comparator;
+                h = new PriorityQueue<>(Math.max(1, sources.length), (x, y) -> {
+                    int c = cmp.compare(x.head, y.head);
+                    return (c != 0) ? c : Integer.compare(x.index, y.index);
+                });
+                for (int i = 0; i < sources.length; ++i) {
+                    Cursor<T> c = new Cursor<>(sources[i], i);
+                    if (c.advance())
+                        h.add(c);
+                }
+                heap = h;
+            }
+            return h;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            PriorityQueue<Cursor<T>> h = heap();
+            Cursor<T> c = h.poll();
+            if (c == null)
+                return false;
+            T t = c.head;
+            c.head = null;
+            if (c.advance())
+                h.add(c);
+            action.accept(t);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            PriorityQueue<Cursor<T>> h = heap();
+            while (h.size() > 1) {
+                Cursor<T> c = h.poll();
+                T t = c.head;
+                c.head = null;
+                if (c.advance())
+                    h.add(c);
+                action.accept(t);
+            }
+            // The last source needs no comparisons
+            Cursor<T> c = h.poll();
+            if (c != null) {
+                T t = c.head;
+                c.head = null;
+                action.accept(t);
+                c.source.forEachRemaining(action);
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = (heap == null) ? 0L : heap.size();
+            for (Spliterator<? extends T> s : sources) {
+                if ((size += s.estimateSize()) < 0L)
+                    return Long.MAX_VALUE;
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SORTED;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return comparator;
+        }
+    }
+
+    /**
+     * A run spilled to a file, and the number of elements it holds.
+     */
+    static final class Run {
+        final Path path;
+        final long count;
+
+        Run(Path path, long count) {
+            this.path = path;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Reads the elements of a spilled run.  The file is opened with
+     * {@link StandardOpenOption#DELETE_ON_CLOSE} and closed as soon as its
+     * last element has been read.
+     */
+    static final class RunSpliterator<T> implements Spliterator<T> {
+        private final Serializer<T> serializer;
+        private DataInputStream in; // null when closed
+        private long remaining;
+
+        RunSpliterator(Run run, Serializer<T> serializer) throws IOException {
+            FileChannel channel = FileChannel.open(run.path, StandardOpenOption.READ,
+                                                   StandardOpenOption.DELETE_ON_CLOSE);
+            this.serializer = serializer;
+            this.in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            this.remaining = run.count;
+        }
+
+        void close() throws IOException {
+            DataInputStream i = in;
+            if (i != null) {
+                in = null;
+                remaining = 0L;
+                i.close();
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (remaining <= 0L)
+                return false;
+            T t;
+            try {
+                t = serializer.read(in);
+                if (--remaining == 0L)
+                    close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            action.accept(t);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED;
+        }
+    }
+
+    /**
+     * Sorts its source on first use, spilling runs as needed, then
+     * delegates to a spliterator over the sorted elements.
+     */
+    static final class ExternalSortSpliterator<T> implements Spliterator<T>, Consumer<T> {
+        private final Spliterator<T> source;
+        private final Comparator<? super T> comparator;
+        private final Serializer<T> serializer;
+        private final int runSize;
+        private final Path dir;
+        private final boolean parallel;
+
+        /** Every file created, for deletion on close */
+        private final List<Path> files = new ArrayList<>();
+        /** Every run opened for reading, for closing on close */
+        private final List<RunSpliterator<T>> readers = new ArrayList<>();
+        /** The spliterator over the sorted elements, null until sorted */
+        private Spliterator<T> sorted;
+        /** The exception thrown by sorting, rethrown on later use */
+        private Throwable failure;
+
+        // The run being buffered
+        private Object[] buffer;
+        private int count;
+
+        ExternalSortSpliterator(Spliterator<T> source, Comparator<? super T> comparator,
+                                Serializer<T> serializer, int runSize, Path dir,
+                                boolean parallel) {
+            this.source = source;
+            this.comparator = comparator;
+            this.serializer = serializer;
+            this.runSize = runSize;
+            this.dir = dir;
+            this.parallel = parallel;
+        }
+
+        @Override
+        public void accept(T t) {
+            Object[] a = buffer;
+            if (count == a.length)
+                buffer = a = Arrays.copyOf(a, (int) Math.min((long) runSize, (long) a.length << 1));
+            a[count++] = t;
+        }
+
+        /**
+         * Fills the rest of the buffer from the source, returning false
+         * if the source was exhausted before the buffer was full.
+         */
+        private boolean fill() {
+            while (count < runSize) {
+                if (!source.tryAdvance(this))
+                    return false;
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Spliterator<T> sortBuffer() {
+            T[] a = (T[]) buffer;
+            if (parallel)
+                Arrays.parallelSort(a, 0, count, comparator);
+            else
+                Arrays.sort(a, 0, count, comparator);
+            return Spliterators.spliterator(a, 0, count, Spliterator.ORDERED);
+        }
+
+        private Spliterator<T> sorted() {
+            Spliterator<T> s = sorted;
+            if (s == null) {
+                Throwable ex = failure;
+                if (ex == null) {
+                    try {
+                        return sorted = sort();
+                    } catch (IOException e) {
+                        failure = ex = new UncheckedIOException(e);
+                    } catch (RuntimeException | Error e) {
+                        failure = ex = e;
+                    }
+                }
+                if (ex instanceof Error)
+                    throw (Error) ex;
+                throw (RuntimeException) ex;
+            }
+            return s;
+        }
+
+        private Spliterator<T> sort() throws IOException {
+            long size = source.estimateSize();
+            buffer = new Object[(int) Math.max(1L, Math.min(size < Long.MAX_VALUE ? size + 1 : 1 << 10,
+                                                          (long) runSize))];
+            // Spilled runs, by level: each level holds runs merged from
+            // MAX_MERGE_WAY runs of the level below, and is older than it
+            List<List<Run>> levels = new ArrayList<>();
+            // Probe for one more element before spilling a full buffer,
+            // so that a source of exactly runSize elements is not spilled
+            Object[] next = new Object[1];
+            Consumer<T> probe = t -> next[0] = t;
+            count = 0;
+            while (fill() && source.tryAdvance(probe)) {
+                addRun(levels, 0, spill(sortBuffer()));
+                count = 0;
+                buffer[count++] = next[0];
+                next[0] = null;
+            }
+            // The last run stays in memory
+            Spliterator<T> last = sortBuffer();
+            buffer = null;
+            if (levels.isEmpty())
+                return last;
+            // Bound the width of the final merge, counting the last run
+            for (int i = 0; runCount(levels) >= MAX_MERGE_WAY; ++i) {
+                List<Run> runs = levels.get(i);
+                if (runs.size() > 1)
+                    addRun(levels, i + 1, spill(merge(runs, null)));
+            }
+            // Merge in input order, so that equal elements keep it
+            List<Run> runs = new ArrayList<>();
+            for (int i = levels.size() - 1; i >= 0; --i)
+                runs.addAll(levels.get(i));
+            return merge(runs, last);
+        }
+
+        /**
+         * Adds a run to the given level, merging the level into a run of
+         * the next level when it is full.
+         */
+        private void addRun(List<List<Run>> levels, int level, Run run) throws IOException {
+            if (level == levels.size())
+                levels.add(new ArrayList<>());
+            List<Run> runs = levels.get(level);
+            runs.add(run);
+            if (runs.size() == MAX_MERGE_WAY)
+                addRun(levels, level + 1, spill(merge(runs, null)));
+        }
+
+        private static int runCount(List<List<Run>> levels) {
+            int n = 0;
+            for (List<Run> runs : levels)
+                n += runs.size();
+            return n;
+        }
+
+        /**
+         * Opens the given runs for merging with the given in-memory run,
+         * if not null, and removes them from the list.
+         */
+        private Spliterator<T> merge(List<Run> runs, Spliterator<T> last) throws IOException {
+            int n = runs.size();
+            @SuppressWarnings("unchecked")
+            Spliterator<? extends T>[] splits =
+                (Spliterator<? extends T>[]) new Spliterator<?>[(last == null) ? n : n + 1];
+            for (int i = 0; i < n; ++i) {
+                RunSpliterator<T> r = new RunSpliterator<>(runs.get(i), serializer);
+                readers.add(r);
+                splits[i] = r;
+            }
+            if (last != null)
+                splits[n] = last;
+            runs.clear();
+            return new MergingSpliterator<>(comparator, splits);
+        }
+
+        /**
+         * Writes the elements of the given spliterator to a new file.
+         */
+        private Run spill(Spliterator<? extends T> s) throws IOException {
+            Path path = (dir == null)
+                        ? Files.createTempFile("sort", ".run")
+                        : Files.createTempFile(dir, "sort", ".run");
+            files.add(path);
+            long[] count = new long[1];
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(FileChannel.open(path, StandardOpenOption.WRITE)),
+                     BUFFER_SIZE))) {
+                s.forEachRemaining(t -> {
+                    try {
+                        serializer.write(t, out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return new Run(path, count[0]);
+        }
+
+        /**
+         * Closes all runs opened for reading and deletes all files.
+         */
+        void close() {
+            IOException ex = null;
+            for (RunSpliterator<T> r : readers) {
+                try {
+                    r.close();
+                } catch (IOException e) {
+                    if (ex == null)
+                        ex = e;
+                    else
+                        ex.addSuppressed(e);
+                }
+            }
+            readers.clear();
+            for (Path f : files) {
+                try {
+                    Files.deleteIfExists(f);
+                } catch (IOException e) {
+                    if (ex == null)
+                        ex = e;
+                    else
+                        ex.addSuppressed(e);
+                }
+            }
+            files.clear();
+            if (ex != null)
+                throw new UncheckedIOException(ex);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            return sorted().tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            sorted().forEachRemaining(action);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // Splits only if the source fit in a single in-memory run
+            return sorted().trySplit();
+        }
+
+        @Override
+        public long estimateSize() {
+            Spliterator<T> s = sorted;
+            return (s == null) ? source.estimateSize() : s.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SORTED;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return comparator;
+        }
+    }
+}
@@ -759,8 +759,12 @@ class SpinedBuffer<E>
         protected void arrayForEach(int[] array,
                                     int from, int to,
                                     IntConsumer consumer) {
-            for (int i = from; i < to; i++)
-                consumer.accept(array[i]);
+            if (consumer instanceof Sink)
+                ((Sink<?>) consumer).acceptBatch(array, from, to);
+            else {
+                for (int i = from; i < to; i++)
+                    consumer.accept(array[i]);
+            }
         }
 
         @Override
@@ -872,8 +876,12 @@ class SpinedBuffer<E>
         protected void arrayForEach(long[] array,
                                     int from, int to,
                                     LongConsumer consumer) {
-            for (int i = from; i < to; i++)
-                consumer.accept(array[i]);
+            if (consumer instanceof Sink)
+                ((Sink<?>) consumer).acceptBatch(array, from, to);
+            else {
+                for (int i = from; i < to; i++)
+                    consumer.accept(array[i]);
+            }
         }
 
         @Override
@@ -987,8 +995,12 @@ class SpinedBuffer<E>
         protected void arrayForEach(double[] array,
                                     int from, int to,
                                     DoubleConsumer consumer) {
-            for (int i = from; i < to; i++)
-                consumer.accept(array[i]);
+            if (consumer instanceof Sink)
+                ((Sink<?>) consumer).acceptBatch(array, from, to);
+            else {
+                for (int i = from; i < to; i++)
+                    consumer.accept(array[i]);
+            }
         }
 
         @Override
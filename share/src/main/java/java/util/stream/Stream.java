@@ -388,6 +388,7 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      *                   <a href="package-summary.html#Statelessness">stateless</a>
      *                   {@code Comparator} to be used to compare stream elements
      * @return the new stream
+     * @see SortedStreams#externalSort(Stream, Comparator, SortedStreams.Serializer, int)
      */
     Stream<T> sorted(Comparator<? super T> comparator);
 
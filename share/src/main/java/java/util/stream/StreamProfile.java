@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.stream;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.atomic.LongAdder;
+
+import sun.util.logging.PlatformLogger;
+
+/**
+ * Opt-in instrumentation of stream pipeline evaluation.  Profiling is
+ * turned on or off based on whether the system property
+ * {@code org.openjdk.java.util.stream.profile} is considered
+ * {@code true} according to {@link Boolean#getBoolean(String)}.  It
+ * should normally be turned off for production use.
+ *
+ * <p>When enabled, each terminal evaluation creates a profile that is
+ * attached to the source stage of the pipeline.  {@link
+ * AbstractPipeline#wrapSink} then interposes a counting sink in front of
+ * every stage, recording the number of elements the stage receives and
+ * the time spent in it and all downstream stages, from which the time
+ * spent in the stage itself is derived.  Times are summed over all
+ * threads, and since every call is timed they include the overhead of
+ * the instrumentation.  Parallel tasks record the estimated size and
+ * duration of each leaf, and its depth in the tree of completers,
+ * which for an {@link AbstractTask} is the split tree.  After the
+ * terminal operation completes, a report is logged at level
+ * {@code INFO} to the {@code java.util.stream} {@code PlatformLogger},
+ * and the profile is kept as the {@linkplain #last last} of the
+ * evaluating thread, so that tools and tests can inspect the counts
+ * of each evaluation rather than parse the log.  Pipelines evaluated
+ * within an operation, such as the streams produced by the mapper of
+ * {@code flatMap}, are profiled and reported separately, and complete
+ * before the pipeline enclosing them.
+ *
+ * @since 9
+ */
+final class StreamProfile {
+    private static final String PROFILE_PROPERTY = "org.openjdk.java.util.stream.profile";
+
+    /** Should pipelines be profiled? */
+    static final boolean ENABLED = AccessController.doPrivileged(
+            (PrivilegedAction<Boolean>) () -> Boolean.getBoolean(PROFILE_PROPERTY));
+
+    /**
+     * Counters for one stage, indexed by position in the pipeline: the
+     * source is at zero, intermediate operations follow, and the
+     * terminal operation is last.
+     */
+    static final class Stage {
+        final String name;
+        final LongAdder elements = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        Stage(String name) { this.name = name; }
+    }
+
+    /** The profile last completed by each thread */
+    private static final ThreadLocal<StreamProfile> LAST = new ThreadLocal<>();
+
+    private final Stage[] stages;
+    /** Leaf records of {depth, size, nanos}, in completion order */
+    private final ConcurrentLinkedQueue<long[]> leaves = new ConcurrentLinkedQueue<>();
+    private final long startTime;
+    /** Set on completion */
+    private boolean parallel;
+    private long elapsed = -1L;
+
+    /**
+     * Creates a profile for a pipeline whose stages, including the
+     * terminal operation, have the given names.
+     */
+    StreamProfile(String[] names) {
+        Stage[] s = new Stage[names.length];
+        for (int i = 0; i < s.length; ++i)
+            s[i] = new Stage(names[i]);
+        this.stages = s;
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Returns the name of the outermost {@code java.util.stream} method
+     * on the current call stack, which names the operation being
+     * created or evaluated, such as {@code "map"} or {@code "sum"}.
+     */
+    static String callerOp() {
+        StackTraceElement[] st = new Throwable().getStackTrace();
+        String op = "?";
+        for (int i = 1; i < st.length; ++i) {
+            StackTraceElement e = st[i];
+            if (!e.getClassName().startsWith("java.util.stream."))
+                break;
+            String m = e.getMethodName();
+            if (m.indexOf('<') < 0 && m.indexOf('$') < 0)
+                op = m;
+        }
+        return op;
+    }
+
+    /**
+     * Returns a sink that counts and times the elements of the given
+     * shape sent to the sink of the stage at the given position.  A
+     * sink whose type does not match the shape is returned unwrapped.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Sink<T> wrap(int position, StreamShape shape, Sink<T> sink) {
+        Stage stage = stages[position];
+        switch (shape) {
+            case REFERENCE:
+                return new OfRef<>(sink, stage);
+            case INT_VALUE:
+                return (sink instanceof Sink.OfInt)
+                       ? (Sink<T>) new OfInt((Sink.OfInt) sink, stage) : sink;
+            case LONG_VALUE:
+                return (sink instanceof Sink.OfLong)
+                       ? (Sink<T>) new OfLong((Sink.OfLong) sink, stage) : sink;
+            case DOUBLE_VALUE:
+                return (sink instanceof Sink.OfDouble)
+                       ? (Sink<T>) new OfDouble((Sink.OfDouble) sink, stage) : sink;
+            default:
+                return sink;
+        }
+    }
+
+    /**
+     * Records a parallel leaf task that processed a spliterator of the
+     * given estimated size in the given time.
+     */
+    void leaf(CountedCompleter<?> task, long size, long nanos) {
+        int depth = 0;
+        for (CountedCompleter<?> c = task.getCompleter(); c != null; c = c.getCompleter())
+            ++depth;
+        leaves.add(new long[] { depth, size, nanos });
+    }
+
+    /**
+     * Completes the profile of an evaluation, keeping it as the last
+     * of the current thread, and logs its report.
+     */
+    void report(boolean parallel) {
+        this.parallel = parallel;
+        this.elapsed = System.nanoTime() - startTime;
+        LAST.set(this);
+        PlatformLogger logger = PlatformLogger.getLogger("java.util.stream");
+        if (logger.isLoggable(PlatformLogger.Level.INFO))
+            logger.info(toString());
+    }
+
+    /**
+     * Returns the profile of the evaluation last completed by the
+     * current thread, or null if there is none, as when profiling
+     * is disabled.
+     */
+    static StreamProfile last() {
+        return LAST.get();
+    }
+
+    /** Returns whether the evaluation was parallel. */
+    boolean isParallel() { return parallel; }
+
+    /** Returns the duration of the evaluation, or -1 if incomplete. */
+    long elapsedNanos() { return elapsed; }
+
+    /** Returns the number of stages, including source and terminal. */
+    int stageCount() { return stages.length; }
+
+    /** Returns the name of the stage at the given position. */
+    String stageName(int position) { return stages[position].name; }
+
+    /** Returns the number of elements received by the given stage. */
+    long elements(int position) { return stages[position].elements.sum(); }
+
+    /**
+     * Returns the time spent in the given stage, excluding the stages
+     * downstream of it.
+     */
+    long selfNanos(int position) {
+        Stage[] s = stages;
+        long inclusive = s[position].nanos.sum();
+        long downstream = (position + 1 < s.length) ? s[position + 1].nanos.sum() : 0L;
+        return Math.max(0L, inclusive - downstream);
+    }
+
+    /**
+     * Returns the records of the parallel leaf tasks, each holding
+     * its depth, estimated size and time in nanoseconds.
+     */
+    long[][] leaves() {
+        return leaves.toArray(new long[0][]);
+    }
+
+    @Override
+    public String toString() {
+        Stage[] s = stages;
+        StringBuilder sb = new StringBuilder();
+        sb.append("Stream pipeline profile (")
+          .append(parallel ? "parallel" : "sequential").append(", ")
+          .append(millis(elapsed)).append(" ms), source ")
+          .append(s[0].name).append('\n')
+          .append(String.format("  %-4s %-20s %14s %12s%n",
+                                "#", "stage", "elements", "self ms"));
+        for (int i = 1; i < s.length; ++i) {
+            sb.append(String.format("  %-4d %-20s %14d %12s%n", i,
+                                    (i == s.length - 1) ? s[i].name + " (terminal)" : s[i].name,
+                                    s[i].elements.sum(),
+                                    millis(selfNanos(i))));
+        }
+        int count = 0, minDepth = Integer.MAX_VALUE, maxDepth = 0;
+        long minSize = Long.MAX_VALUE, maxSize = 0L, sumSize = 0L;
+        long minTime = Long.MAX_VALUE, maxTime = 0L, sumTime = 0L;
+        for (long[] leaf : leaves) {
+            int d = (int) leaf[0];
+            ++count;
+            minDepth = Math.min(minDepth, d);
+            maxDepth = Math.max(maxDepth, d);
+            minSize = Math.min(minSize, leaf[1]);
+            maxSize = Math.max(maxSize, leaf[1]);
+            sumSize += leaf[1];
+            minTime = Math.min(minTime, leaf[2]);
+            maxTime = Math.max(maxTime, leaf[2]);
+            sumTime += leaf[2];
+        }
+        if (count > 0) {
+            double meanTime = (double) sumTime / count;
+            sb.append("  ").append(count).append(" leaf tasks, split depth ")
+              .append(minDepth).append('-').append(maxDepth)
+              .append(", leaf size min/avg/max ").append(minSize).append('/')
+              .append(sumSize / count).append('/').append(maxSize)
+              .append(", leaf ms min/avg/max ").append(millis(minTime)).append('/')
+              .append(millis((long) meanTime)).append('/').append(millis(maxTime))
+              .append(String.format(", imbalance %.2f",
+                                    (meanTime > 0.0) ? maxTime / meanTime : 1.0));
+        }
+        else
+            sb.append("  no parallel leaf tasks");
+        return sb.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+
+    // Counting sinks.  These may be shared by concurrent leaf tasks, so
+    // counts and times go straight to the stage adders.
+
+    private static final class OfRef<T> implements Sink<T> {
+        private final Sink<T> downstream;
+        private final Stage stage;
+
+        OfRef(Sink<T> downstream, Stage stage) {
+            this.downstream = downstream;
+            this.stage = stage;
+        }
+
+        @Override
+        public void begin(long size) { downstream.begin(size); }
+
+        @Override
+        public void end() { downstream.end(); }
+
+        @Override
+        public boolean cancellationRequested() { return downstream.cancellationRequested(); }
+
+        @Override
+        public void accept(T t) {
+            long start = System.nanoTime();
+            downstream.accept(t);
+            stage.nanos.add(System.nanoTime() - start);
+            stage.elements.increment();
+        }
+    }
+
+    private static final class OfInt implements Sink.OfInt {
+        private final Sink.OfInt downstream;
+        private final Stage stage;
+
+        OfInt(Sink.OfInt downstream, Stage stage) {
+            this.downstream = downstream;
+            this.stage = stage;
+        }
+
+        @Override
+        public void begin(long size) { downstream.begin(size); }
+
+        @Override
+        public void end() { downstream.end(); }
+
+        @Override
+        public boolean cancellationRequested() { return downstream.cancellationRequested(); }
+
+        @Override
+        public void accept(int t) {
+            long start = System.nanoTime();
+            downstream.accept(t);
+            stage.nanos.add(System.nanoTime() - start);
+            stage.elements.increment();
+        }
+
+        @Override
+        public void acceptBatch(int[] a, int from, int to) {
+            stage.elements.add(to - from);
+            long start = System.nanoTime();
+            downstream.acceptBatch(a, from, to);
+            stage.nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static final class OfLong implements Sink.OfLong {
+        private final Sink.OfLong downstream;
+        private final Stage stage;
+
+        OfLong(Sink.OfLong downstream, Stage stage) {
+            this.downstream = downstream;
+            this.stage = stage;
+        }
+
+        @Override
+        public void begin(long size) { downstream.begin(size); }
+
+        @Override
+        public void end() { downstream.end(); }
+
+        @Override
+        public boolean cancellationRequested() { return downstream.cancellationRequested(); }
+
+        @Override
+        public void accept(long t) {
+            long start = System.nanoTime();
+            downstream.accept(t);
+            stage.nanos.add(System.nanoTime() - start);
+            stage.elements.increment();
+        }
+
+        @Override
+        public void acceptBatch(long[] a, int from, int to) {
+            stage.elements.add(to - from);
+            long start = System.nanoTime();
+            downstream.acceptBatch(a, from, to);
+            stage.nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static final class OfDouble implements Sink.OfDouble {
+        private final Sink.OfDouble downstream;
+        private final Stage stage;
+
+        OfDouble(Sink.OfDouble downstream, Stage stage) {
+            this.downstream = downstream;
+            this.stage = stage;
+        }
+
+        @Override
+        public void begin(long size) { downstream.begin(size); }
+
+        @Override
+        public void end() { downstream.end(); }
+
+        @Override
+        public boolean cancellationRequested() { return downstream.cancellationRequested(); }
+
+        @Override
+        public void accept(double t) {
+            long start = System.nanoTime();
+            downstream.accept(t);
+            stage.nanos.add(System.nanoTime() - start);
+            stage.elements.increment();
+        }
+
+        @Override
+        public void acceptBatch(double[] a, int from, int to) {
+            stage.elements.add(to - from);
+            long start = System.nanoTime();
+            downstream.acceptBatch(a, from, to);
+            stage.nanos.add(System.nanoTime() - start);
+        }
+    }
+}
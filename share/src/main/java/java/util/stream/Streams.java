@@ -55,6 +55,14 @@ final class Streams {
      */
     static final Object NONE = new Object();
 
+    /**
+     * The maximum number of elements pushed in one batch by sources that
+     * generate their elements, and by stages that produce a batch of output
+     * for each batch of input.  Large enough to amortize the calls between
+     * stages, small enough for a batch of each stage to stay in cache.
+     */
+    static final int BATCH_SIZE = 1 << 10;
+
     /**
      * An {@code int} range spliterator.
      */
@@ -106,6 +114,16 @@ final class Streams {
             int hLast = last;
             from = upTo;
             last = 0;
+            if (consumer instanceof Sink.OfInt && i < hUpTo) {
+                Sink.OfInt sink = (Sink.OfInt) consumer;
+                int[] b = new int[(int) Math.min((long) hUpTo - i, BATCH_SIZE)];
+                do {
+                    int n = (int) Math.min((long) hUpTo - i, b.length);
+                    for (int k = 0; k < n; k++)
+                        b[k] = i++;
+                    sink.acceptBatch(b, 0, n);
+                } while (i < hUpTo);
+            }
             while (i < hUpTo) {
                 consumer.accept(i++);
             }
@@ -231,6 +249,19 @@ final class Streams {
             int hLast = last;
             from = upTo;
             last = 0;
+            if (consumer instanceof Sink.OfLong && i < hUpTo) {
+                Sink.OfLong sink = (Sink.OfLong) consumer;
+                // hUpTo - i is negative if the range exceeds Long.MAX_VALUE
+                long r = hUpTo - i;
+                long[] b = new long[(r < 0 || r > BATCH_SIZE) ? BATCH_SIZE : (int) r];
+                do {
+                    r = hUpTo - i;
+                    int n = (r < 0 || r > b.length) ? b.length : (int) r;
+                    for (int k = 0; k < n; k++)
+                        b[k] = i++;
+                    sink.acceptBatch(b, 0, n);
+                } while (i < hUpTo);
+            }
             while (i < hUpTo) {
                 consumer.accept(i++);
             }
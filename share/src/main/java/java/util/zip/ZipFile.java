@@ -40,8 +40,8 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.WeakHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -505,27 +505,95 @@ class ZipFile implements ZipConstants, Closeable {
                 if (i >= total) {
                     throw new NoSuchElementException();
                 }
-                long jzentry = getNextEntry(jzfile, i++);
-                if (jzentry == 0) {
-                    String message;
-                    if (closeRequested) {
-                        message = "ZipFile concurrently closed";
-                    } else {
-                        message = getZipMessage(ZipFile.this.jzfile);
-                    }
-                    throw new ZipError("jzentry == 0" +
-                                       ",\n jzfile = " + ZipFile.this.jzfile +
-                                       ",\n total = " + ZipFile.this.total +
-                                       ",\n name = " + ZipFile.this.name +
-                                       ",\n i = " + i +
-                                       ",\n message = " + message
-                        );
+                return getEntryAt(i++);
+            }
+        }
+    }
+
+    /**
+     * Returns the entry at the given position in the central directory.
+     * Must be called holding the lock, after ensureOpen.
+     */
+    private ZipEntry getEntryAt(int i) {
+        long jzentry = getNextEntry(jzfile, i);
+        if (jzentry == 0) {
+            String message;
+            if (closeRequested) {
+                message = "ZipFile concurrently closed";
+            } else {
+                message = getZipMessage(jzfile);
+            }
+            throw new ZipError("jzentry == 0" +
+                               ",\n jzfile = " + jzfile +
+                               ",\n total = " + total +
+                               ",\n name = " + name +
+                               ",\n i = " + (i + 1) +
+                               ",\n message = " + message
+                );
+        }
+        ZipEntry ze = getZipEntry(null, jzentry);
+        freeEntry(jzfile, jzentry);
+        return ze;
+    }
+
+    /**
+     * Spliterator over a range of positions in the central directory.
+     * Entries can be read at any position, so the range is split in
+     * halves, unlike the prefixes copied out of an iterator.
+     */
+    private class ZipEntrySpliterator implements Spliterator<ZipEntry> {
+        private int index;        // current position, modified on advance/split
+        private final int fence;  // one past last position
+
+        ZipEntrySpliterator(int origin, int fence) {
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        public Spliterator<ZipEntry> trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid) ? null : new ZipEntrySpliterator(lo, index = mid);
+        }
+
+        public boolean tryAdvance(Consumer<? super ZipEntry> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (index < fence) {
+                ZipEntry ze;
+                synchronized (ZipFile.this) {
+                    ensureOpen();
+                    ze = getEntryAt(index++);
                 }
-                ZipEntry ze = getZipEntry(null, jzentry);
-                freeEntry(jzfile, jzentry);
-                return ze;
+                action.accept(ze);
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(Consumer<? super ZipEntry> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; i++) {
+                ZipEntry ze;
+                synchronized (ZipFile.this) {
+                    ensureOpen();
+                    ze = getEntryAt(i);
+                }
+                action.accept(ze);
             }
         }
+
+        public long estimateSize() {
+            return (long) (fence - index);
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.DISTINCT |
+                Spliterator.IMMUTABLE | Spliterator.NONNULL |
+                Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
     }
 
     /**
@@ -547,10 +615,10 @@ class ZipFile implements ZipConstants, Closeable {
      * @since 1.8
      */
     public Stream<? extends ZipEntry> stream() {
-        return StreamSupport.stream(Spliterators.spliterator(
-                new ZipEntryIterator(), size(),
-                Spliterator.ORDERED | Spliterator.DISTINCT |
-                        Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+        synchronized (this) {
+            ensureOpen();
+            return StreamSupport.stream(new ZipEntrySpliterator(0, total), false);
+        }
     }
 
     private ZipEntry getZipEntry(String name, long jzentry) {
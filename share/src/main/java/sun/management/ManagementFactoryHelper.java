@@ -431,6 +431,46 @@ public class ManagementFactoryHelper {
         }
     }
 
+    /**
+     * Registers a platform MXBean whose instances come and go during
+     * the life of the VM, such as the management interface of an
+     * off-heap map, with the platform MBeanServer.  Unlike the platform
+     * MXBeans, which are singletons, each instance must have its own
+     * object name, since it is later unregistered by name.
+     *
+     * @throws IllegalArgumentException if a MBean with that object name
+     *         is already registered
+     */
+    public static void registerDynamicMXBean(final PlatformManagedObject mxbean) {
+        final MBeanServer mbs = getPlatformMBeanServer();
+        final ObjectName objName = mxbean.getObjectName();
+        try {
+            AccessController.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                public Void run() throws InstanceAlreadyExistsException,
+                                         MBeanRegistrationException,
+                                         NotCompliantMBeanException {
+                    mbs.registerMBean(mxbean, objName);
+                    return null;
+                }
+            });
+        } catch (PrivilegedActionException e) {
+            Exception cause = e.getException();
+            if (cause instanceof InstanceAlreadyExistsException)
+                throw new IllegalArgumentException
+                    ("MXBean already registered: " + objName, cause);
+            throw Util.newException(cause);
+        }
+    }
+
+    /**
+     * Unregisters a platform MXBean registered by
+     * {@link #registerDynamicMXBean}.
+     */
+    public static void unregisterDynamicMXBean(PlatformManagedObject mxbean) {
+        unregisterMBean(getPlatformMBeanServer(),
+                        mxbean.getObjectName().getCanonicalName());
+    }
+
     static void unregisterInternalMBeans(MBeanServer mbs) {
         // unregister all internal MBeans
         unregisterMBean(mbs, HOTSPOT_CLASS_LOADING_MBEAN_NAME);
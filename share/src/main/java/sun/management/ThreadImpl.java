@@ -27,7 +27,11 @@ package sun.management;
 
 import java.lang.management.ManagementFactory;
 
+import java.lang.management.SynchronizerContentionInfo;
 import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.List;
+import sun.misc.SharedSecrets;
 
 import javax.management.ObjectName;
 
@@ -84,6 +88,43 @@ class ThreadImpl implements com.sun.management.ThreadMXBean {
         return contentionMonitoringEnabled;
     }
 
+    public boolean isSynchronizerContentionMonitoringSupported() {
+        return true;
+    }
+
+    public boolean isSynchronizerContentionMonitoringEnabled() {
+        return SharedSecrets.getJavaUtilConcurrentLocksAccess()
+            .isContentionMonitoringEnabled();
+    }
+
+    public void setSynchronizerContentionMonitoringEnabled(boolean enable) {
+        Util.checkControlAccess();
+        SharedSecrets.getJavaUtilConcurrentLocksAccess()
+            .setContentionMonitoringEnabled(enable);
+    }
+
+    public SynchronizerContentionInfo[] getSynchronizerContentionInfo() {
+        Util.checkMonitorAccess();
+        List<SynchronizerContentionInfo> list = new ArrayList<>();
+        SharedSecrets.getJavaUtilConcurrentLocksAccess().forEachContentionSite(
+            (className, site, contended, waitTime, maxWaitTime, parks,
+             queueLength, maxQueueLength, lastOwner) ->
+                list.add(new SynchronizerContentionInfo(
+                    className, site, contended, waitTime, maxWaitTime, parks,
+                    (double) queueLength / contended, maxQueueLength,
+                    lastOwner)));
+        // Most waited-on first
+        list.sort((a, b) -> Long.compare(b.getTotalWaitTime(),
+                                         a.getTotalWaitTime()));
+        return list.toArray(new SynchronizerContentionInfo[0]);
+    }
+
+    public void resetSynchronizerContentionInfo() {
+        Util.checkControlAccess();
+        SharedSecrets.getJavaUtilConcurrentLocksAccess()
+            .resetContentionInfo();
+    }
+
     public boolean isThreadCpuTimeSupported() {
         return jvm.isOtherThreadCpuTimeSupported();
     }
@@ -0,0 +1,48 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package sun.misc;
+
+public interface JavaUtilConcurrentAccess {
+    /**
+     * Returns true if the given thread is a carrier thread of a
+     * java.util.concurrent.ManagedBlockingExecutor that is not already
+     * blocked with compensation.
+     */
+    boolean isCarrier(Thread t);
+
+    /**
+     * Prepares the current thread to block, if it is a carrier thread
+     * of a java.util.concurrent.ManagedBlockingExecutor, by letting
+     * its pool release or create another thread to run tasks in the
+     * meantime.  Returns true if so, in which case endBlocking must
+     * be invoked once the thread no longer blocks.
+     */
+    boolean beginBlocking();
+
+    /**
+     * Ends a block begun by a successful call to beginBlocking.
+     */
+    void endBlocking();
+}
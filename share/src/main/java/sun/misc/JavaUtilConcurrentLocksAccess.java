@@ -0,0 +1,71 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package sun.misc;
+
+public interface JavaUtilConcurrentLocksAccess {
+    /**
+     * Returns whether queued synchronizers record contention.
+     */
+    boolean isContentionMonitoringEnabled();
+
+    /**
+     * Enables or disables recording of contention by queued
+     * synchronizers.
+     */
+    void setContentionMonitoringEnabled(boolean enable);
+
+    /**
+     * Receives the contention recorded at one site.
+     */
+    interface SiteVisitor {
+        /**
+         * @param className the class of the synchronizers
+         * @param site the frame at which they were first contended,
+         *        or null if unknown
+         * @param contended the number of acquisitions that queued
+         * @param waitTime the total time queued, in nanoseconds
+         * @param maxWaitTime the longest time queued, in nanoseconds
+         * @param parks the number of times queued threads parked
+         * @param queueLength the sum of the queue lengths found on
+         *        entering the queue
+         * @param maxQueueLength the largest queue length found
+         * @param lastOwner the name of the last owner, or null
+         */
+        void visit(String className, String site, long contended,
+                   long waitTime, long maxWaitTime, long parks,
+                   long queueLength, int maxQueueLength, String lastOwner);
+    }
+
+    /**
+     * Passes the contention recorded so far to the given visitor,
+     * once per site at which any acquisition queued.
+     */
+    void forEachContentionSite(SiteVisitor visitor);
+
+    /**
+     * Discards the contention recorded so far.
+     */
+    void resetContentionInfo();
+}
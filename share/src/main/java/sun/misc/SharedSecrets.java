@@ -57,6 +57,8 @@ public class SharedSecrets {
     private static JavaUtilZipFileAccess javaUtilZipFileAccess;
     private static JavaAWTAccess javaAWTAccess;
     private static JavaObjectInputStreamAccess javaObjectInputStreamAccess;
+    private static JavaUtilConcurrentAccess javaUtilConcurrentAccess;
+    private static JavaUtilConcurrentLocksAccess javaUtilConcurrentLocksAccess;
 
     public static JavaUtilJarAccess javaUtilJarAccess() {
         if (javaUtilJarAccess == null) {
@@ -174,6 +176,31 @@ public class SharedSecrets {
         javaUtilZipFileAccess = access;
     }
 
+    public static void setJavaUtilConcurrentAccess(JavaUtilConcurrentAccess access) {
+        javaUtilConcurrentAccess = access;
+    }
+
+    public static JavaUtilConcurrentAccess getJavaUtilConcurrentAccess() {
+        // this may return null, in which case no thread can be a
+        // carrier thread, since the class providing the access has
+        // not been initialized
+        return javaUtilConcurrentAccess;
+    }
+
+    public static void setJavaUtilConcurrentLocksAccess(JavaUtilConcurrentLocksAccess access) {
+        javaUtilConcurrentLocksAccess = access;
+    }
+
+    public static JavaUtilConcurrentLocksAccess getJavaUtilConcurrentLocksAccess() {
+        if (javaUtilConcurrentLocksAccess == null) {
+            // Ensure AbstractQueuedSynchronizer is initialized; we know
+            // that that class provides the shared secret
+            unsafe.ensureClassInitialized(
+                java.util.concurrent.locks.AbstractQueuedSynchronizer.class);
+        }
+        return javaUtilConcurrentLocksAccess;
+    }
+
     public static void setJavaAWTAccess(JavaAWTAccess jaa) {
         javaAWTAccess = jaa;
     }
@@ -32,6 +32,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.nio.channels.spi.*;
 import java.util.*;
+import sun.misc.JavaUtilConcurrentAccess;
+import sun.misc.SharedSecrets;
 import sun.net.NetHooks;
 import sun.net.ExtendedOptionsImpl;
 
@@ -275,6 +277,23 @@ class SocketChannelImpl
         }
     }
 
+    // If this channel is in blocking mode and the current thread is a
+    // carrier thread of a java.util.concurrent.ManagedBlockingExecutor,
+    // lets its pool run tasks in other threads while this one blocks in
+    // the kernel, returning true if so, in which case endBlockingIO must
+    // be invoked once the I/O operation completes
+    //
+    private boolean beginBlockingIO() {
+        JavaUtilConcurrentAccess access;
+        return isBlocking() &&
+            (access = SharedSecrets.getJavaUtilConcurrentAccess()) != null &&
+            access.beginBlocking();
+    }
+
+    private void endBlockingIO() {
+        SharedSecrets.getJavaUtilConcurrentAccess().endBlocking();
+    }
+
     private void readerCleanup() throws IOException {
         synchronized (stateLock) {
             readerThread = 0;
@@ -300,6 +319,7 @@ class SocketChannelImpl
             if (!ensureReadOpen())
                 return -1;
             int n = 0;
+            boolean compensated = false;
             try {
 
                 // Set up the interruption machinery; see
@@ -376,6 +396,7 @@ class SocketChannelImpl
                 // closed.  This is analogous to the first two cases above,
                 // except that the shutdown operation plays the role of
                 // nd.preClose().
+                compensated = beginBlockingIO();
                 for (;;) {
                     n = IOUtil.read(fd, buf, -1, nd);
                     if ((n == IOStatus.INTERRUPTED) && isOpen()) {
@@ -387,6 +408,8 @@ class SocketChannelImpl
                 }
 
             } finally {
+                if (compensated)
+                    endBlockingIO();
                 readerCleanup();        // Clear reader thread
                 // The end method, which is defined in our superclass
                 // AbstractInterruptibleChannel, resets the interruption
@@ -428,6 +451,7 @@ class SocketChannelImpl
             if (!ensureReadOpen())
                 return -1;
             long n = 0;
+            boolean compensated = false;
             try {
                 begin();
                 synchronized (stateLock) {
@@ -436,6 +460,7 @@ class SocketChannelImpl
                     readerThread = NativeThread.current();
                 }
 
+                compensated = beginBlockingIO();
                 for (;;) {
                     n = IOUtil.read(fd, dsts, offset, length, nd);
                     if ((n == IOStatus.INTERRUPTED) && isOpen())
@@ -443,6 +468,8 @@ class SocketChannelImpl
                     return IOStatus.normalize(n);
                 }
             } finally {
+                if (compensated)
+                    endBlockingIO();
                 readerCleanup();
                 end(n > 0 || (n == IOStatus.UNAVAILABLE));
                 synchronized (stateLock) {
@@ -460,6 +487,7 @@ class SocketChannelImpl
         synchronized (writeLock) {
             ensureWriteOpen();
             int n = 0;
+            boolean compensated = false;
             try {
                 begin();
                 synchronized (stateLock) {
@@ -467,6 +495,7 @@ class SocketChannelImpl
                         return 0;
                     writerThread = NativeThread.current();
                 }
+                compensated = beginBlockingIO();
                 for (;;) {
                     n = IOUtil.write(fd, buf, -1, nd);
                     if ((n == IOStatus.INTERRUPTED) && isOpen())
@@ -474,6 +503,8 @@ class SocketChannelImpl
                     return IOStatus.normalize(n);
                 }
             } finally {
+                if (compensated)
+                    endBlockingIO();
                 writerCleanup();
                 end(n > 0 || (n == IOStatus.UNAVAILABLE));
                 synchronized (stateLock) {
@@ -493,6 +524,7 @@ class SocketChannelImpl
         synchronized (writeLock) {
             ensureWriteOpen();
             long n = 0;
+            boolean compensated = false;
             try {
                 begin();
                 synchronized (stateLock) {
@@ -500,6 +532,7 @@ class SocketChannelImpl
                         return 0;
                     writerThread = NativeThread.current();
                 }
+                compensated = beginBlockingIO();
                 for (;;) {
                     n = IOUtil.write(fd, srcs, offset, length, nd);
                     if ((n == IOStatus.INTERRUPTED) && isOpen())
@@ -507,6 +540,8 @@ class SocketChannelImpl
                     return IOStatus.normalize(n);
                 }
             } finally {
+                if (compensated)
+                    endBlockingIO();
                 writerCleanup();
                 end((n > 0) || (n == IOStatus.UNAVAILABLE));
                 synchronized (stateLock) {
@@ -722,18 +757,24 @@ class SocketChannelImpl
                                     break;
                                 }
                             } else {
-                                for (;;) {
-                                    n = checkConnect(fd, true,
-                                                     readyToConnect);
-                                    if (n == 0) {
-                                        // Loop in case of
-                                        // spurious notifications
-                                        continue;
+                                boolean compensated = beginBlockingIO();
+                                try {
+                                    for (;;) {
+                                        n = checkConnect(fd, true,
+                                                         readyToConnect);
+                                        if (n == 0) {
+                                            // Loop in case of
+                                            // spurious notifications
+                                            continue;
+                                        }
+                                        if (  (n == IOStatus.INTERRUPTED)
+                                              && isOpen())
+                                            continue;
+                                        break;
                                     }
-                                    if (  (n == IOStatus.INTERRUPTED)
-                                          && isOpen())
-                                        continue;
-                                    break;
+                                } finally {
+                                    if (compensated)
+                                        endBlockingIO();
                                 }
                             }
                         }
@@ -0,0 +1,178 @@
+package com.sumkor.atomic;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongHistogram;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.atomic.LongHistogram
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class LongHistogramTest {
+
+    /**
+     * 小于 2^precision 的值精确计数，其余值所在桶的宽度不超过下界的 2^-precision
+     */
+    @Test
+    public void buckets() {
+        LongHistogram histogram = new LongHistogram(3);
+        for (long v = 0; v < 8; v++)
+            histogram.record(v);
+        LongHistogram.Snapshot snapshot = histogram.snapshot();
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, snapshot.lowerBound(i));
+            assertEquals(i + 1, snapshot.upperBound(i));
+            assertEquals(1, snapshot.counts()[i]);
+        }
+        assertEquals(Long.MAX_VALUE, snapshot.upperBound(snapshot.buckets() - 1));
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int n = 0; n < 10_000; n++) {
+            long v = random.nextLong(Long.MAX_VALUE >>> random.nextInt(63));
+            LongHistogram one = new LongHistogram(3);
+            one.record(v);
+            LongHistogram.Snapshot s = one.snapshot();
+            long[] counts = s.counts();
+            int i = 0;
+            while (counts[i] == 0)
+                i++;
+            long lower = s.lowerBound(i), upper = s.upperBound(i);
+            assertTrue(lower <= v && (v < upper || upper == Long.MAX_VALUE));
+            if (upper != Long.MAX_VALUE)
+                assertTrue(upper - lower <= Math.max(1, lower >>> 3));
+        }
+    }
+
+    /**
+     * 百分位数是所在桶的上界，且不超过最大值
+     */
+    @Test
+    public void percentile() {
+        LongHistogram histogram = new LongHistogram();
+        for (long v = 1; v <= 1000; v++)
+            histogram.record(v);
+        assertEquals(1000, histogram.count());
+        assertEquals(500500, histogram.sum());
+        assertEquals(1000, histogram.max());
+        long p50 = histogram.percentile(50.0);
+        assertTrue(p50 >= 500 && p50 <= 500 * 9 / 8);
+        long p99 = histogram.percentile(99.0);
+        assertTrue(p99 >= 990 && p99 <= 1000);
+        assertEquals(1000, histogram.percentile(100.0));
+        assertEquals(500.5, histogram.snapshot().mean(), 0.0);
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(99.0));
+    }
+
+    /**
+     * 多线程并发记录，计数、总和与最大值准确
+     */
+    @Test
+    public void concurrentRecord() throws InterruptedException {
+        LongHistogram histogram = new LongHistogram();
+        int threads = 8, perThread = 100_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final long base = t;
+            new Thread(() -> {
+                for (long i = 0; i < perThread; i++)
+                    histogram.record(base + i);
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        long expectedSum = 0;
+        for (long t = 0; t < threads; t++)
+            expectedSum += t * perThread + (long) perThread * (perThread - 1) / 2;
+        assertEquals((long) threads * perThread, histogram.count());
+        assertEquals(expectedSum, histogram.sum());
+        assertEquals(threads - 1 + perThread - 1, histogram.max());
+    }
+
+    /**
+     * snapshotThenReset 与并发记录同时进行时，每个值恰好出现在一个快照中
+     */
+    @Test
+    public void snapshotThenReset() throws InterruptedException {
+        LongHistogram histogram = new LongHistogram();
+        int threads = 4, perThread = 200_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++)
+                    histogram.record(1);
+                done.countDown();
+            }).start();
+        }
+        long count = 0, sum = 0;
+        while (done.getCount() > 0) {
+            LongHistogram.Snapshot s = histogram.snapshotThenReset();
+            count += s.count();
+            sum += s.sum();
+        }
+        LongHistogram.Snapshot s = histogram.snapshotThenReset();
+        count += s.count();
+        sum += s.sum();
+        assertEquals((long) threads * perThread, count);
+        assertEquals((long) threads * perThread, sum);
+        assertEquals(0, histogram.count());
+    }
+
+    /**
+     * 序列化后保留记录的值
+     */
+    @Test
+    public void serialize() throws Exception {
+        LongHistogram histogram = new LongHistogram(5);
+        for (long v = 0; v < 100_000; v += 7)
+            histogram.record(v);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(histogram);
+            out.writeObject(histogram.snapshot());
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            LongHistogram copy = (LongHistogram) in.readObject();
+            LongHistogram.Snapshot snapshot = (LongHistogram.Snapshot) in.readObject();
+            assertEquals(5, copy.precision());
+            assertEquals(histogram.count(), copy.count());
+            assertEquals(histogram.sum(), copy.sum());
+            assertEquals(histogram.max(), copy.max());
+            assertArrayEquals(histogram.snapshot().counts(), copy.snapshot().counts());
+            assertArrayEquals(histogram.snapshot().counts(), snapshot.counts());
+        }
+    }
+
+    /**
+     * 参数校验
+     */
+    @Test
+    public void illegalArguments() {
+        LongHistogram histogram = new LongHistogram();
+        assertThrows(() -> histogram.record(-1));
+        assertThrows(() -> histogram.percentile(100.5));
+        assertThrows(() -> histogram.percentile(Double.NaN));
+        assertThrows(() -> new LongHistogram(-1));
+        assertThrows(() -> new LongHistogram(11));
+    }
+
+    private static void assertThrows(Runnable r) {
+        try {
+            r.run();
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
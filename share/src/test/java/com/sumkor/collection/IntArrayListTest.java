@@ -0,0 +1,116 @@
+package com.sumkor.collection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.IntArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.IntArrayList
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class IntArrayListTest {
+
+    /**
+     * 随机操作，结果与 ArrayList<Integer> 一致
+     */
+    @Test
+    public void sameAsArrayList() {
+        Random random = new Random(42);
+        IntArrayList list = new IntArrayList(0);
+        List<Integer> expected = new ArrayList<>();
+        for (int n = 0; n < 100_000; n++) {
+            int v = random.nextInt(100) - 50;
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    list.add(v);
+                    expected.add(v);
+                    break;
+                case 2:
+                    int i = random.nextInt(expected.size() + 1);
+                    list.add(i, v);
+                    expected.add(i, v);
+                    break;
+                case 3:
+                    if (!expected.isEmpty()) {
+                        int j = random.nextInt(expected.size());
+                        assertEquals((int) expected.remove(j), list.removeAt(j));
+                    }
+                    break;
+                case 4:
+                    assertEquals(expected.remove(Integer.valueOf(v)), list.removeValue(v));
+                    break;
+                default:
+                    assertEquals(expected.indexOf(v), list.indexOf(v));
+                    assertEquals(expected.lastIndexOf(v), list.lastIndexOf(v));
+            }
+        }
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected, list.stream().boxed().collect(Collectors.toList()));
+        assertEquals(expected.toString(), list.toString());
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertEquals(expected.stream().mapToLong(Integer::longValue).sum(), list.parallelStream().asLongStream().sum());
+    }
+
+    /**
+     * 批量操作
+     */
+    @Test
+    public void bulk() {
+        IntArrayList list = new IntArrayList(new int[]{5, 3, 8, 1});
+        list.addAll(new int[]{9, 2});
+        list.addAll(list.clone());
+        assertEquals(12, list.size());
+        assertTrue(list.removeIf(v -> v > 4));
+        assertArrayEquals(new int[]{3, 1, 2, 3, 1, 2}, list.toArray());
+        list.replaceAll(v -> v * 10);
+        list.sort();
+        assertArrayEquals(new int[]{10, 10, 20, 20, 30, 30}, list.toArray());
+        assertEquals(new IntArrayList(new int[]{10, 10, 20, 20, 30, 30}), list);
+        list.trimToSize();
+        list.clear();
+        assertTrue(list.isEmpty());
+    }
+
+    /**
+     * 迭代器支持 remove，遍历期间修改抛出 ConcurrentModificationException
+     */
+    @Test
+    public void iterator() {
+        IntArrayList list = new IntArrayList(new int[]{1, 2, 3, 4});
+        PrimitiveIterator.OfInt it = list.iterator();
+        while (it.hasNext()) {
+            if (it.nextInt() % 2 == 0)
+                it.remove();
+        }
+        assertArrayEquals(new int[]{1, 3}, list.toArray());
+
+        it = list.iterator();
+        it.nextInt();
+        list.add(5);
+        try {
+            it.nextInt();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+        try {
+            list.forEach(v -> list.add(v));
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBounds() {
+        new IntArrayList(new int[]{1}).get(1);
+    }
+}
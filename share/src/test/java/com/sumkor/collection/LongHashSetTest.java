@@ -0,0 +1,84 @@
+package com.sumkor.collection;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.LongHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.LongHashSet
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class LongHashSetTest {
+
+    /**
+     * 随机增删，结果与 HashSet<Long> 一致，包括 0 和极值
+     */
+    @Test
+    public void sameAsHashSet() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet(0);
+        Set<Long> expected = new HashSet<>();
+        long[] special = {0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (int n = 0; n < 200_000; n++) {
+            long v = random.nextInt(8) == 0 ? special[random.nextInt(special.length)] : random.nextInt(5000) * 0x9E3779B97F4A7C15L;
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(v), set.remove(v));
+            else
+                assertEquals(expected.add(v), set.add(v));
+            assertEquals(expected.contains(v), set.contains(v));
+        }
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected, set.stream().boxed().collect(Collectors.toSet()));
+        assertEquals(expected, set.parallelStream().boxed().collect(Collectors.toSet()));
+        assertEquals(expected.hashCode(), set.hashCode());
+
+        assertTrue(set.removeIf(v -> v <= 0));
+        assertEquals(expected.stream().filter(v -> v > 0).count(), set.size());
+        LongHashSet copy = set.clone();
+        assertEquals(set, copy);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(copy.isEmpty());
+    }
+
+    /**
+     * 初始化、合并与转数组
+     */
+    @Test
+    public void bulk() {
+        LongHashSet set = new LongHashSet(new long[]{3, 1, 2, 3, 0});
+        assertEquals(4, set.size());
+        LongHashSet other = new LongHashSet(new long[]{2, 4});
+        assertTrue(set.addAll(other));
+        assertFalse(set.addAll(other));
+        long[] a = set.toArray();
+        java.util.Arrays.sort(a);
+        assertArrayEquals(new long[]{0, 1, 2, 3, 4}, a);
+    }
+
+    /**
+     * 序列化后内容不变
+     */
+    @Test
+    public void serialize() throws Exception {
+        LongHashSet set = new LongHashSet(new long[]{0, 7, Long.MIN_VALUE});
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(set);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(set, in.readObject());
+        }
+    }
+}
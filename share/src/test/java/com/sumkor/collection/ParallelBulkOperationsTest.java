@@ -0,0 +1,153 @@
+package com.sumkor.collection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+/**
+ * ArrayList、HashMap、TreeMap 的并行批量操作
+ * 单核环境下公共线程池并行度为 1，此时在调用线程中执行，结果应相同
+ *
+ * @see java.util.ArrayList#parallelForEach
+ * @see java.util.HashMap#parallelRemoveIf
+ * @see java.util.TreeMap#parallelReplaceAll
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class ParallelBulkOperationsTest {
+
+    static {
+        // 在公共线程池初始化之前设置，使单核环境也能走并行分支
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+    }
+
+    private static final int SIZE = 100_000;
+
+    /**
+     * ArrayList：并行遍历、替换、删除，删除后保持原有顺序
+     */
+    @Test
+    public void arrayList() {
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++)
+            list.add(i);
+
+        LongAdder sum = new LongAdder();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        list.parallelForEach(e -> {
+            sum.add(e);
+            threads.add(Thread.currentThread().getName());
+        });
+        assertEquals((long) SIZE * (SIZE - 1) / 2, sum.sum());
+        System.out.println("threads = " + threads);
+
+        list.parallelReplaceAll(e -> e * 3);
+        List<Integer> expected = new ArrayList<>(list);
+        expected.removeIf(e -> e % 7 == 0);
+        assertTrue(list.parallelRemoveIf(e -> e % 7 == 0));
+        assertEquals(expected, list);
+        assertFalse(list.parallelRemoveIf(e -> e < 0));
+    }
+
+    /**
+     * HashMap：并行替换与删除，结果与顺序执行一致
+     */
+    @Test
+    public void hashMap() {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < SIZE; i++)
+            map.put(i, i);
+        HashMap<Integer, Integer> expected = new HashMap<>(map);
+
+        map.parallelReplaceAll((k, v) -> k + v);
+        expected.replaceAll((k, v) -> k + v);
+        assertEquals(expected, map);
+
+        assertTrue(map.parallelRemoveIf((k, v) -> k % 3 == 0));
+        expected.entrySet().removeIf(e -> e.getKey() % 3 == 0);
+        assertEquals(expected, map);
+
+        LongAdder sum = new LongAdder();
+        map.parallelForEach((k, v) -> sum.add(v));
+        assertEquals(expected.values().stream().mapToLong(Integer::longValue).sum(), sum.sum());
+    }
+
+    /**
+     * TreeMap：并行删除后仍然有序
+     */
+    @Test
+    public void treeMap() {
+        TreeMap<Integer, String> map = new TreeMap<>();
+        for (int i = 0; i < SIZE; i++)
+            map.put(i, "v");
+        map.parallelReplaceAll((k, v) -> v + k);
+        assertEquals("v123", map.get(123));
+
+        assertTrue(map.parallelRemoveIf((k, v) -> k % 2 == 1));
+        assertEquals(SIZE / 2, map.size());
+        int expected = 0;
+        for (Map.Entry<Integer, String> e : map.entrySet()) {
+            assertEquals(Integer.valueOf(expected), e.getKey());
+            assertEquals("v" + expected, e.getValue());
+            expected += 2;
+        }
+
+        LongAdder count = new LongAdder();
+        map.parallelForEach((k, v) -> count.increment());
+        assertEquals(SIZE / 2, count.sum());
+    }
+
+    /**
+     * 谓词抛出异常时集合保持不变
+     */
+    @Test
+    public void removeIfThrows() {
+        ArrayList<Integer> list = new ArrayList<>();
+        HashMap<Integer, Integer> hashMap = new HashMap<>();
+        TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+        for (int i = 0; i < SIZE; i++) {
+            list.add(i);
+            hashMap.put(i, i);
+            treeMap.put(i, i);
+        }
+        try {
+            list.parallelRemoveIf(e -> {
+                if (e == SIZE - 1)
+                    throw new IllegalStateException();
+                return true;
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            hashMap.parallelRemoveIf((k, v) -> {
+                if (k == SIZE / 2)
+                    throw new IllegalStateException();
+                return true;
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            treeMap.parallelRemoveIf((k, v) -> {
+                if (k == 0)
+                    throw new IllegalStateException();
+                return true;
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(SIZE, list.size());
+        assertEquals(SIZE, hashMap.size());
+        assertEquals(SIZE, treeMap.size());
+    }
+}
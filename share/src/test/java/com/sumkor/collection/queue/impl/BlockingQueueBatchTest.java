@@ -0,0 +1,171 @@
+package com.sumkor.collection.queue.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RingBufferBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量入队 offerAll/putAll 与批量出队 pollBatch
+ *
+ * @see java.util.concurrent.BlockingQueue#offerAll
+ * @see java.util.concurrent.BlockingQueue#putAll
+ * @see java.util.concurrent.BlockingQueue#pollBatch
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class BlockingQueueBatchTest {
+
+    private static final List<Supplier<BlockingQueue<Integer>>> BOUNDED = Arrays.asList(
+            () -> new ArrayBlockingQueue<>(4),
+            () -> new LinkedBlockingQueue<>(4),
+            () -> new RingBufferBlockingQueue<>(4));
+
+    private static final List<Supplier<BlockingQueue<Integer>>> UNBOUNDED = Arrays.asList(
+            LinkedTransferQueue::new,
+            PriorityBlockingQueue::new); // 使用接口默认实现
+
+    private static List<Integer> range(int n) {
+        List<Integer> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            list.add(i);
+        return list;
+    }
+
+    /**
+     * 有界队列：放满后等待超时，返回已插入的个数
+     */
+    @Test
+    public void offerAllBounded() throws InterruptedException {
+        for (Supplier<BlockingQueue<Integer>> s : BOUNDED) {
+            BlockingQueue<Integer> queue = s.get();
+            assertEquals(queue.getClass().getSimpleName(), 4, queue.offerAll(range(6), 10, TimeUnit.MILLISECONDS));
+            assertEquals(range(4), new ArrayList<>(queue));
+            assertEquals(0, queue.offerAll(Collections.singletonList(9), 0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * 无界队列：全部插入
+     */
+    @Test
+    public void offerAllUnbounded() throws InterruptedException {
+        for (Supplier<BlockingQueue<Integer>> s : UNBOUNDED) {
+            BlockingQueue<Integer> queue = s.get();
+            assertEquals(100, queue.offerAll(range(100), 0, TimeUnit.MILLISECONDS));
+            queue.putAll(range(10));
+            assertEquals(110, queue.size());
+        }
+    }
+
+    /**
+     * putAll 在队列满时阻塞，由 pollBatch 消费，元素不丢失且保持顺序
+     */
+    @Test
+    public void putAllWithConsumer() throws InterruptedException {
+        for (Supplier<BlockingQueue<Integer>> s : BOUNDED) {
+            BlockingQueue<Integer> queue = s.get();
+            Thread producer = new Thread(() -> {
+                try {
+                    queue.putAll(range(1000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+            List<Integer> received = new ArrayList<>();
+            while (received.size() < 1000) {
+                int n = queue.pollBatch(received, 3, 5, TimeUnit.SECONDS);
+                assertTrue(n > 0 && n <= 3);
+            }
+            producer.join();
+            assertEquals(queue.getClass().getSimpleName(), range(1000), received);
+        }
+    }
+
+    /**
+     * pollBatch：空队列等待超时返回 0，非空时不超过 maxElements
+     */
+    @Test
+    public void pollBatch() throws InterruptedException {
+        List<Supplier<BlockingQueue<Integer>>> all = new ArrayList<>(BOUNDED);
+        all.addAll(UNBOUNDED);
+        for (Supplier<BlockingQueue<Integer>> s : all) {
+            BlockingQueue<Integer> queue = s.get();
+            List<Integer> sink = new ArrayList<>();
+            long start = System.nanoTime();
+            assertEquals(0, queue.pollBatch(sink, 10, 20, TimeUnit.MILLISECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+
+            queue.addAll(range(4));
+            assertEquals(0, queue.pollBatch(sink, 0, 0, TimeUnit.MILLISECONDS));
+            assertEquals(3, queue.pollBatch(sink, 3, 0, TimeUnit.MILLISECONDS));
+            assertEquals(1, queue.pollBatch(sink, 3, 0, TimeUnit.MILLISECONDS));
+            assertEquals(range(4), sink);
+        }
+    }
+
+    /**
+     * 批量插入的集合含 null 元素时，一个都不插入
+     */
+    @Test
+    public void nullElement() throws InterruptedException {
+        List<Supplier<BlockingQueue<Integer>>> overridden = new ArrayList<>(BOUNDED);
+        overridden.add(LinkedTransferQueue::new);
+        for (Supplier<BlockingQueue<Integer>> s : overridden) {
+            BlockingQueue<Integer> queue = s.get();
+            try {
+                queue.offerAll(Arrays.asList(1, null, 3), 0, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (NullPointerException expected) {
+            }
+            try {
+                queue.putAll(Arrays.asList(1, null));
+                fail();
+            } catch (NullPointerException expected) {
+            }
+            assertTrue(queue.getClass().getSimpleName(), queue.isEmpty());
+        }
+    }
+
+    /**
+     * 不能把队列插入或转移到自身
+     */
+    @Test
+    public void self() throws InterruptedException {
+        List<Supplier<BlockingQueue<Integer>>> all = new ArrayList<>(BOUNDED);
+        all.addAll(UNBOUNDED);
+        for (Supplier<BlockingQueue<Integer>> s : all) {
+            BlockingQueue<Integer> queue = s.get();
+            queue.add(1);
+            try {
+                queue.offerAll(queue, 0, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                queue.putAll(queue);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                queue.pollBatch(queue, 1, 0, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            assertEquals(1, queue.size());
+        }
+    }
+}
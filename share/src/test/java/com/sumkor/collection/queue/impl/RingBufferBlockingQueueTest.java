@@ -0,0 +1,129 @@
+package com.sumkor.collection.queue.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RingBufferBlockingQueue;
+import java.util.concurrent.RingBufferBlockingQueue.WaitStrategy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.RingBufferBlockingQueue
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class RingBufferBlockingQueueTest {
+
+    /**
+     * 容量向上取整为 2 的幂，满时 offer 失败，先进先出
+     */
+    @Test
+    public void capacity() throws InterruptedException {
+        RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<>(5);
+        assertEquals(8, queue.capacity());
+        for (int i = 0; i < 8; i++)
+            assertTrue(queue.offer(i));
+        assertFalse(queue.offer(8));
+        assertFalse(queue.offer(8, 10, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(Integer.valueOf(0), queue.peek());
+        assertTrue(queue.contains(7));
+        assertTrue(queue.remove(Integer.valueOf(3)));
+        assertEquals(Arrays.asList(0, 1, 2, 4, 5, 6, 7), new ArrayList<>(queue));
+
+        List<Integer> sink = new ArrayList<>();
+        assertEquals(2, queue.drainTo(sink, 2));
+        assertEquals(Arrays.asList(0, 1), sink);
+        assertEquals(Integer.valueOf(2), queue.take());
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullElement() {
+        new RingBufferBlockingQueue<>(4).offer(null);
+    }
+
+    /**
+     * 每种等待策略下，多生产者多消费者不丢失、不重复元素
+     * 忙等策略的线程数不超过 CPU 数，否则占着时间片的自旋线程会饿死已抢到槽位的线程
+     */
+    @Test
+    public void multiProducerMultiConsumer() throws InterruptedException {
+        transfer(new RingBufferBlockingQueue<>(16, false, false, WaitStrategy.PARK), 4, 4);
+        transfer(new RingBufferBlockingQueue<>(16, false, false, WaitStrategy.YIELD), 4, 4);
+        int half = Runtime.getRuntime().availableProcessors() / 2;
+        if (half > 0)
+            transfer(new RingBufferBlockingQueue<>(16, false, false, WaitStrategy.SPIN), half, half);
+    }
+
+    /**
+     * 单生产者单消费者模式下元素保持顺序
+     */
+    @Test
+    public void singleProducerSingleConsumer() throws InterruptedException {
+        RingBufferBlockingQueue<Long> queue = new RingBufferBlockingQueue<>(16, true, true, WaitStrategy.PARK);
+        final int count = 100_000;
+        Thread producer = new Thread(() -> {
+            try {
+                for (long i = 0; i < count; i++)
+                    queue.put(i);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+        for (long i = 0; i < count; i++)
+            assertEquals(Long.valueOf(i), queue.take());
+        producer.join();
+    }
+
+    private static void transfer(RingBufferBlockingQueue<Long> queue, int producers, int consumers)
+            throws InterruptedException {
+        final int perProducer = 20_000;
+        final int total = producers * perProducer;
+        AtomicLong sum = new AtomicLong();
+        AtomicLong received = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(producers + consumers);
+        for (int p = 0; p < producers; p++) {
+            new Thread(() -> {
+                try {
+                    for (long i = 1; i <= perProducer; i++)
+                        queue.put(i);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        for (int c = 0; c < consumers; c++) {
+            new Thread(() -> {
+                try {
+                    while (received.get() < total) {
+                        Long e = queue.poll(10, TimeUnit.MILLISECONDS);
+                        if (e != null) {
+                            sum.addAndGet(e);
+                            received.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(total, received.get());
+        assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,169 @@
+package com.sumkor.io.nio;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Files.lines 与 ZipFile.stream 的并行拆分
+ *
+ * @see java.nio.file.Files#lines(Path, Charset)
+ * @see java.util.zip.ZipFile#stream()
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class FilesLinesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String[] SEPARATORS = {"\n", "\r\n", "\r"};
+
+    /**
+     * 生成包含三种换行符、空行和多字节字符的文本
+     */
+    private static String text(Random random, int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            int len = random.nextInt(8) == 0 ? 0 : random.nextInt(80);
+            for (int j = 0; j < len; j++)
+                sb.append(random.nextInt(10) == 0 ? '中' : (char) ('a' + random.nextInt(26)));
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private List<String> expected(Path file, Charset cs) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, cs)) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 顺序与并行读取的行与 BufferedReader 一致
+     */
+    @Test
+    public void parallelLines() throws IOException {
+        Random random = new Random(42);
+        for (Charset cs : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16}) {
+            for (String tail : new String[]{"", "last line without separator", "\r"}) {
+                Path file = folder.newFile().toPath();
+                Files.write(file, (text(random, 20_000) + tail).getBytes(cs));
+                List<String> expected = expected(file, cs);
+                try (Stream<String> lines = Files.lines(file, cs)) {
+                    assertEquals(expected, lines.collect(Collectors.toList()));
+                }
+                try (Stream<String> lines = Files.lines(file, cs)) {
+                    assertEquals(expected, lines.parallel().collect(Collectors.toList()));
+                }
+                try (Stream<String> lines = Files.lines(file, cs)) {
+                    assertEquals(expected.size(), lines.parallel().count());
+                }
+            }
+        }
+    }
+
+    /**
+     * 拆分点落在行分隔符处，"\r\n" 不会被拆开
+     */
+    @Test
+    public void splitAtSeparator() throws IOException {
+        Path file = folder.newFile().toPath();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            sb.append("line").append(i).append("\r\n");
+        Files.write(file, sb.toString().getBytes(StandardCharsets.US_ASCII));
+        List<String> expected = expected(file, StandardCharsets.US_ASCII);
+
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.US_ASCII)) {
+            Spliterator<String> right = lines.spliterator();
+            List<Spliterator<String>> parts = new ArrayList<>();
+            split(right, parts, 6);
+            List<String> actual = new ArrayList<>();
+            for (Spliterator<String> part : parts)
+                part.forEachRemaining(actual::add);
+            assertTrue(parts.size() > 1);
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static void split(Spliterator<String> s, List<Spliterator<String>> parts, int depth) {
+        Spliterator<String> prefix = depth > 0 ? s.trySplit() : null;
+        if (prefix != null) {
+            split(prefix, parts, depth - 1);
+            split(s, parts, depth - 1);
+        } else {
+            parts.add(s);
+        }
+    }
+
+    /**
+     * 中点附近是一个超长行时不拆分
+     */
+    @Test
+    public void longLine() throws IOException {
+        Path file = folder.newFile().toPath();
+        String line = String.join("", Collections.nCopies(3 << 20, "x"));
+        Files.write(file, ("a\n" + line + "\nb\n").getBytes(StandardCharsets.UTF_8));
+        try (Stream<String> lines = Files.lines(file)) {
+            assertNull(lines.spliterator().trySplit());
+        }
+        try (Stream<String> lines = Files.lines(file)) {
+            assertEquals(3, lines.parallel().count());
+        }
+    }
+
+    /**
+     * 空文件
+     */
+    @Test
+    public void empty() throws IOException {
+        Path file = folder.newFile().toPath();
+        try (Stream<String> lines = Files.lines(file)) {
+            assertEquals(0, lines.parallel().count());
+        }
+    }
+
+    /**
+     * ZipFile.stream 并行遍历时条目不丢失、保持顺序
+     */
+    @Test
+    public void zipStream() throws IOException {
+        Path file = folder.newFile("test.zip").toPath();
+        List<String> names = new ArrayList<>();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file.toFile()))) {
+            for (int i = 0; i < 5000; i++) {
+                String name = "dir/entry" + i;
+                names.add(name);
+                out.putNextEntry(new ZipEntry(name));
+                out.write(i);
+                out.closeEntry();
+            }
+        }
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(names, zip.stream().map(ZipEntry::getName).collect(Collectors.toList()));
+            assertEquals(names, zip.stream().parallel().map(ZipEntry::getName).collect(Collectors.toList()));
+            assertEquals(names.size(), zip.stream().spliterator().getExactSizeIfKnown());
+        }
+    }
+}
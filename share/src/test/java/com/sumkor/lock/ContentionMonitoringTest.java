@@ -0,0 +1,119 @@
+package com.sumkor.lock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.SynchronizerContentionInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.lang.management.ThreadMXBean#getSynchronizerContentionInfo
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class ContentionMonitoringTest {
+
+    private final ThreadMXBean mbean = ManagementFactory.getThreadMXBean();
+
+    @Before
+    public void enable() {
+        mbean.setSynchronizerContentionMonitoringEnabled(true);
+        mbean.resetSynchronizerContentionInfo();
+    }
+
+    @After
+    public void disable() {
+        mbean.setSynchronizerContentionMonitoringEnabled(false);
+    }
+
+    /**
+     * 构造时不记录调用栈，首次排队时才确定竞争位置
+     */
+    @Test
+    public void siteFoundOnFirstContention() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        assertNull(field(lock, "contentionSite"));
+
+        lock.lock();
+        lock.unlock();
+        assertNull(field(lock, "contentionSite"));
+
+        contend(lock, 1);
+        assertNotNull(field(lock, "contentionSite"));
+
+        SynchronizerContentionInfo info = find(lock);
+        assertEquals(1, info.getContendedCount());
+        assertEquals(Thread.currentThread().getName(), info.getLastOwnerName());
+    }
+
+    /**
+     * 队列长度由计数器维护，而不是遍历队列
+     */
+    @Test
+    public void queueLength() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        contend(lock, 3);
+
+        SynchronizerContentionInfo info = find(lock);
+        assertEquals(3, info.getContendedCount());
+        assertEquals(2, info.getMaxQueueLength());
+        assertEquals(1.0, info.getMeanQueueLength(), 0.0);
+        assertEquals(0, field(lock, "monitoredWaiters"));
+    }
+
+    /**
+     * 持有锁时让若干线程排队，全部排队后释放
+     */
+    private static void contend(ReentrantLock lock, int threads) throws Exception {
+        lock.lock();
+        Thread[] waiters = new Thread[threads];
+        try {
+            for (int i = 0; i < threads; i++) {
+                waiters[i] = new Thread(() -> {
+                    lock.lock();
+                    lock.unlock();
+                });
+                waiters[i].start();
+            }
+            while (!Integer.valueOf(threads).equals(field(lock, "monitoredWaiters")))
+                Thread.sleep(10);
+        } finally {
+            lock.unlock();
+        }
+        for (Thread t : waiters)
+            t.join();
+    }
+
+    private SynchronizerContentionInfo find(ReentrantLock lock) throws Exception {
+        String className = sync(lock).getClass().getName();
+        SynchronizerContentionInfo found = null;
+        for (SynchronizerContentionInfo info : mbean.getSynchronizerContentionInfo()) {
+            if (info.getClassName().equals(className) && info.getAcquireSite() != null
+                    && info.getAcquireSite().startsWith(ContentionMonitoringTest.class.getName())) {
+                assertNull("one site expected", found);
+                found = info;
+            }
+        }
+        assertNotNull(found);
+        return found;
+    }
+
+    private static AbstractQueuedSynchronizer sync(ReentrantLock lock) throws Exception {
+        Field f = ReentrantLock.class.getDeclaredField("sync");
+        f.setAccessible(true);
+        return (AbstractQueuedSynchronizer) f.get(lock);
+    }
+
+    private static Object field(ReentrantLock lock, String name) throws Exception {
+        Field f = AbstractQueuedSynchronizer.class.getDeclaredField(name);
+        f.setAccessible(true);
+        return f.get(sync(lock));
+    }
+}
@@ -0,0 +1,119 @@
+package com.sumkor.lock;
+
+import org.junit.Test;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.AbstractQueuedLongSynchronizer;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.locks.AbstractQueuedSynchronizer
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class SpinLimitTest {
+
+    /**
+     * 已有的子类自行声明了同名方法，不应与 AQS 新增的方法冲突
+     */
+    static class Mutex extends AbstractQueuedSynchronizer {
+        private long spinLimit = 7L;
+
+        public long getSpinLimit() {
+            return spinLimit;
+        }
+
+        public Mutex setSpinLimit(long limit) {
+            spinLimit = limit;
+            return this;
+        }
+
+        int acquireSpinLimit() {
+            return getAcquireSpinLimit();
+        }
+
+        void acquireSpinLimit(int limit) {
+            setAcquireSpinLimit(limit);
+        }
+    }
+
+    static class LongMutex extends AbstractQueuedLongSynchronizer {
+        public String getSpinLimit() {
+            return "custom";
+        }
+
+        int acquireSpinLimit() {
+            return getAcquireSpinLimit();
+        }
+
+        void acquireSpinLimit(int limit) {
+            setAcquireSpinLimit(limit);
+        }
+    }
+
+    @Test
+    public void subclassNames() {
+        Mutex mutex = new Mutex().setSpinLimit(3L);
+        assertEquals(3L, mutex.getSpinLimit());
+        mutex.acquireSpinLimit(100);
+        assertEquals(100, mutex.acquireSpinLimit());
+        assertEquals(3L, mutex.getSpinLimit());
+
+        LongMutex longMutex = new LongMutex();
+        assertEquals("custom", longMutex.getSpinLimit());
+        longMutex.acquireSpinLimit(0);
+        assertEquals(0, longMutex.acquireSpinLimit());
+    }
+
+    /**
+     * ReentrantLock 与 Semaphore 公开了自旋上限
+     */
+    @Test
+    public void exposed() {
+        ReentrantLock lock = new ReentrantLock();
+        lock.setSpinLimit(64);
+        assertEquals(64, lock.getSpinLimit());
+        lock.setSpinLimit(0);
+        assertEquals(0, lock.getSpinLimit());
+
+        Semaphore semaphore = new Semaphore(1);
+        semaphore.setSpinLimit(32);
+        assertEquals(32, semaphore.getSpinLimit());
+        try {
+            semaphore.setSpinLimit(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * 自旋不影响互斥：多个线程竞争计数
+     */
+    @Test
+    public void mutualExclusion() throws InterruptedException {
+        ReentrantLock lock = new ReentrantLock();
+        lock.setSpinLimit(1000);
+        int[] count = new int[1];
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100000; j++) {
+                    lock.lock();
+                    try {
+                        count[0]++;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(400000, count[0]);
+    }
+}
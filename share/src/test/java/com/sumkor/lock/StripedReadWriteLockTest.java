@@ -0,0 +1,155 @@
+package com.sumkor.lock;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StripedReadWriteLock;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.locks.StripedReadWriteLock
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class StripedReadWriteLockTest {
+
+    /**
+     * 读锁的重入计数在释放后保留，再次加读锁时复用，不重新分配
+     */
+    @Test
+    public void holdCounterReused() throws Exception {
+        StripedReadWriteLock lock = new StripedReadWriteLock(4);
+        lock.readLock().lock();
+        Object holds = cachedHolds(lock);
+        assertNotNull(holds);
+        lock.readLock().lock();
+        assertEquals(2, lock.getReadHoldCount());
+        lock.readLock().unlock();
+        lock.readLock().unlock();
+        assertEquals(0, lock.getReadHoldCount());
+        assertEquals(0, lock.getReadLockCount());
+
+        for (int i = 0; i < 10; i++) {
+            lock.readLock().lock();
+            lock.readLock().unlock();
+            assertSame(holds, cachedHolds(lock));
+        }
+    }
+
+    /**
+     * 未持有读锁时释放，抛出异常且不影响计数
+     */
+    @Test
+    public void unlockWithoutHold() {
+        StripedReadWriteLock lock = new StripedReadWriteLock();
+        try {
+            lock.readLock().unlock();
+            fail();
+        } catch (IllegalMonitorStateException expected) {
+        }
+        assertEquals(0, lock.getReadLockCount());
+        assertTrue(lock.writeLock().tryLock());
+        lock.writeLock().unlock();
+    }
+
+    /**
+     * 写锁降级为读锁
+     */
+    @Test
+    public void downgrade() {
+        StripedReadWriteLock lock = new StripedReadWriteLock();
+        lock.writeLock().lock();
+        lock.readLock().lock();
+        lock.writeLock().unlock();
+        assertFalse(lock.isWriteLocked());
+        assertEquals(1, lock.getReadHoldCount());
+        lock.readLock().unlock();
+        assertEquals(0, lock.getReadLockCount());
+    }
+
+    /**
+     * 其他线程持有读锁时 tryLock 写锁失败，释放后成功
+     */
+    @Test
+    public void tryLockWrite() throws InterruptedException {
+        StripedReadWriteLock lock = new StripedReadWriteLock();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            lock.readLock().lock();
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+        reader.start();
+        locked.await();
+        assertFalse(lock.writeLock().tryLock());
+        assertFalse(lock.writeLock().tryLock(50, TimeUnit.MILLISECONDS));
+        release.countDown();
+        reader.join();
+        assertTrue(lock.writeLock().tryLock());
+        assertTrue(lock.isWriteLockedByCurrentThread());
+        lock.writeLock().unlock();
+    }
+
+    /**
+     * 读线程持续加锁时，写线程仍能获取写锁；读写互斥
+     */
+    @Test
+    public void readersAndWriter() throws InterruptedException {
+        StripedReadWriteLock lock = new StripedReadWriteLock();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicBoolean overlap = new AtomicBoolean();
+        int[] value = new int[2];
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                while (!stop.get()) {
+                    lock.readLock().lock();
+                    try {
+                        if (value[0] != value[1])
+                            overlap.set(true);
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                }
+            });
+            readers[i].start();
+        }
+        for (int i = 0; i < 1000; i++) {
+            lock.writeLock().lock();
+            try {
+                value[0]++;
+                value[1]++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        stop.set(true);
+        for (Thread t : readers)
+            t.join();
+        assertFalse(overlap.get());
+        assertEquals(0, lock.getReadLockCount());
+    }
+
+    /**
+     * 当前线程所在 cell 缓存的 HoldCounter
+     */
+    private static Object cachedHolds(StripedReadWriteLock lock) throws Exception {
+        Field cells = StripedReadWriteLock.class.getDeclaredField("cells");
+        cells.setAccessible(true);
+        Object[] cs = (Object[]) cells.get(lock);
+        Object cell = cs[(int) Thread.currentThread().getId() & (cs.length - 1)];
+        Field holds = cell.getClass().getDeclaredField("holds");
+        holds.setAccessible(true);
+        return holds.get(cell);
+    }
+}
@@ -0,0 +1,150 @@
+package com.sumkor.map;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.CompactHashMap;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.CompactHashMap
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class CompactHashMapTest {
+
+    /**
+     * 哈希值冲突较多的键
+     */
+    static final class Key {
+        final int id;
+
+        Key(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 97;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+    }
+
+    /**
+     * 随机操作，结果与 HashMap 一致，包括 null 键和 null 值
+     */
+    @Test
+    public void sameAsHashMap() {
+        Random random = new Random(42);
+        CompactHashMap<Key, Integer> map = new CompactHashMap<>(0);
+        Map<Key, Integer> expected = new HashMap<>();
+        for (int n = 0; n < 200_000; n++) {
+            int id = random.nextInt(2000);
+            Key k = id == 0 ? null : new Key(id);
+            Integer v = random.nextInt(10) == 0 ? null : random.nextInt(100);
+            switch (random.nextInt(5)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(k, v), map.put(k, v));
+                    break;
+                case 2:
+                    assertEquals(expected.putIfAbsent(k, v), map.putIfAbsent(k, v));
+                    break;
+                case 3:
+                    assertEquals(expected.remove(k), map.remove(k));
+                    break;
+                default:
+                    assertEquals(expected.get(k), map.get(k));
+                    assertEquals(expected.containsKey(k), map.containsKey(k));
+            }
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(expected, new HashMap<>(map));
+        assertEquals(expected, map.clone());
+        assertEquals(expected.size(), map.keySet().parallelStream().count());
+    }
+
+    /**
+     * 遍历中通过迭代器删除，后续映射回移时既不遗漏也不重复
+     */
+    @Test
+    public void iteratorRemove() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            CompactHashMap<Key, Integer> map = new CompactHashMap<>();
+            for (int i = 1; i <= 500; i++)
+                map.put(new Key(random.nextInt(5000) + 1), i);
+            Map<Key, Integer> expected = new HashMap<>(map);
+            int size = map.size(), visited = 0;
+            for (Iterator<Map.Entry<Key, Integer>> it = map.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Key, Integer> e = it.next();
+                assertEquals(expected.get(e.getKey()), e.getValue());
+                visited++;
+                if (e.getValue() % 2 == 0) {
+                    it.remove();
+                    expected.remove(e.getKey());
+                }
+            }
+            assertEquals(size, visited);
+            assertEquals(expected, map);
+        }
+    }
+
+    /**
+     * 视图与 Entry.setValue 写回映射
+     */
+    @Test
+    public void views() {
+        CompactHashMap<String, Integer> map = new CompactHashMap<>();
+        for (int i = 0; i < 100; i++)
+            map.put("k" + i, i);
+        for (Map.Entry<String, Integer> e : map.entrySet())
+            e.setValue(e.getValue() * 2);
+        assertEquals(Integer.valueOf(20), map.get("k10"));
+        assertTrue(map.keySet().remove("k10"));
+        assertTrue(map.values().remove(40));
+        assertFalse(map.containsKey("k20"));
+        map.replaceAll((k, v) -> v + 1);
+        assertEquals(Integer.valueOf(1), map.get("k0"));
+        assertTrue(map.remove("k0", 1));
+        assertEquals(97, map.size());
+        try {
+            map.forEach((k, v) -> map.put(k + "x", v));
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+    }
+
+    /**
+     * 序列化后内容不变
+     */
+    @Test
+    public void serialize() throws Exception {
+        CompactHashMap<String, Integer> map = new CompactHashMap<>();
+        for (int i = 0; i < 1000; i++)
+            map.put(Integer.toString(i), i);
+        map.put(null, null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(map, in.readObject());
+        }
+    }
+}
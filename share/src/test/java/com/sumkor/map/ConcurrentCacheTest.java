@@ -0,0 +1,184 @@
+package com.sumkor.map;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentCache;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.ConcurrentCache
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class ConcurrentCacheTest {
+
+    /**
+     * 基本读写
+     */
+    @Test
+    public void putAndGet() {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(100);
+        assertNull(cache.put("a", "1"));
+        assertEquals("1", cache.put("a", "2"));
+        assertEquals("2", cache.putIfAbsent("a", "3"));
+        assertEquals("2", cache.getIfPresent("a"));
+        assertEquals("b", cache.get("b", k -> k));
+        cache.invalidate("a");
+        assertNull(cache.getIfPresent("a"));
+        cache.cleanUp();
+        assertEquals(1, cache.weightedSize());
+    }
+
+    /**
+     * put 读到节点后、加锁更新前，节点被 invalidate，写入不能丢失
+     *
+     * 测试线程持有节点的监视器，使 put 阻塞在 synchronized (n) 处，
+     * 期间删除该节点，释放监视器后 put 应重试并插入新节点
+     */
+    @Test
+    public void putRacingInvalidate() throws Exception {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(100);
+        cache.put("k", "old");
+        Object node = data(cache).get("k");
+
+        Thread writer;
+        synchronized (node) {
+            writer = new Thread(() -> cache.put("k", "new"));
+            writer.start();
+            while (writer.getState() != Thread.State.BLOCKED) {
+                Thread.yield();
+            }
+            cache.invalidate("k");
+        }
+        writer.join();
+        assertEquals("new", cache.getIfPresent("k"));
+        assertNotSame(node, data(cache).get("k"));
+    }
+
+    /**
+     * 按字节计重的缓存，频率草图按条目数逐步扩容，而非按最大权重一次性分配
+     */
+    @Test
+    public void weightedSketchGrows() throws Exception {
+        ConcurrentCache<Integer, byte[]> cache = new ConcurrentCache.Builder<Integer, byte[]>()
+                .maximumWeight(1L << 30)
+                .weigher((k, v) -> v.length)
+                .build();
+        assertEquals(16, sketchLength(cache));
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, new byte[1024]);
+        }
+        cache.cleanUp();
+        int length = sketchLength(cache);
+        assertTrue(length >= 1000 && length <= 4096);
+        assertEquals(1000L * 1024, cache.weightedSize());
+
+        // 按条数限制的缓存仍按最大条数分配
+        ConcurrentCache<Integer, Integer> sized = new ConcurrentCache<>(1000);
+        assertEquals(1024, sketchLength(sized));
+    }
+
+    /**
+     * 超出最大权重时淘汰
+     */
+    @Test
+    public void evictByWeight() {
+        ConcurrentCache<Integer, byte[]> cache = new ConcurrentCache.Builder<Integer, byte[]>()
+                .maximumWeight(10 * 1024)
+                .weigher((k, v) -> v.length)
+                .recordStats()
+                .build();
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, new byte[1024]);
+        }
+        cache.cleanUp();
+        assertTrue(cache.weightedSize() <= 10 * 1024);
+        assertEquals(100 - cache.estimatedSize(), cache.stats().evictionCount());
+    }
+
+    /**
+     * 写入后过期：过期条目在维护时被清除并通知监听器
+     */
+    @Test
+    public void expireAfterWrite() throws InterruptedException {
+        AtomicInteger expired = new AtomicInteger();
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache.Builder<Integer, Integer>()
+                .expireAfterWrite(100, TimeUnit.MILLISECONDS)
+                .evictionListener((k, v) -> expired.incrementAndGet())
+                .build();
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(Integer.valueOf(1), cache.getIfPresent(1));
+        Thread.sleep(300);
+        assertNull(cache.getIfPresent(1));
+        cache.cleanUp();
+        assertEquals(0, cache.estimatedSize());
+        assertEquals(100, expired.get());
+    }
+
+    /**
+     * 分层时间轮：过期时间较远的条目放在高层的桶中，不会在低层每转一圈都被扫描
+     */
+    @Test
+    public void longTtlInHigherLevel() throws Exception {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache.Builder<Integer, Integer>()
+                .expireAfterWrite(1, TimeUnit.HOURS)
+                .build();
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+        cache.cleanUp();
+        int[] counts = wheelCounts(cache);
+        System.out.println("counts = " + Arrays.toString(counts));
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[1]);
+        assertEquals(1000, counts[2]);
+
+        ConcurrentCache<Integer, Integer> shortLived = new ConcurrentCache.Builder<Integer, Integer>()
+                .expireAfterAccess(1, TimeUnit.SECONDS)
+                .build();
+        shortLived.put(1, 1);
+        shortLived.cleanUp();
+        assertEquals(1, wheelCounts(shortLived)[0]);
+    }
+
+    static int[] wheelCounts(ConcurrentCache<?, ?> cache) throws Exception {
+        Field field = ConcurrentCache.class.getDeclaredField("wheel");
+        field.setAccessible(true);
+        Object[][] wheel = (Object[][]) field.get(cache);
+        Field next = wheel[0][0].getClass().getDeclaredField("nextInWheel");
+        next.setAccessible(true);
+        int[] counts = new int[wheel.length];
+        for (int i = 0; i < wheel.length; i++) {
+            for (Object head : wheel[i]) {
+                for (Object n = next.get(head); n != head; n = next.get(n)) {
+                    counts[i]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    static int sketchLength(ConcurrentCache<?, ?> cache) throws Exception {
+        Field field = ConcurrentCache.class.getDeclaredField("sketch");
+        field.setAccessible(true);
+        Object sketch = field.get(cache);
+        Field table = sketch.getClass().getDeclaredField("table");
+        table.setAccessible(true);
+        return ((long[]) table.get(sketch)).length;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<Object, Object> data(ConcurrentCache<?, ?> cache) throws Exception {
+        Field field = ConcurrentCache.class.getDeclaredField("data");
+        field.setAccessible(true);
+        return (Map<Object, Object>) field.get(cache);
+    }
+}
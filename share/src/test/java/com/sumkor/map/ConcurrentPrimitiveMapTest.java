@@ -0,0 +1,137 @@
+package com.sumkor.map;
+
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentIntIntMap;
+import java.util.concurrent.ConcurrentLongObjectMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.ConcurrentIntIntMap
+ * @see java.util.concurrent.ConcurrentLongObjectMap
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class ConcurrentPrimitiveMapTest {
+
+    /**
+     * int 键值：不存在的键返回 0，删除后可以重新写入
+     */
+    @Test
+    public void intIntBasic() {
+        ConcurrentIntIntMap map = new ConcurrentIntIntMap(4);
+        assertEquals(0, map.get(7));
+        assertEquals(-1, map.getOrDefault(7, -1));
+        assertEquals(0, map.put(7, 70));
+        assertEquals(70, map.put(7, 71));
+        assertFalse(map.putIfAbsent(7, 72));
+        assertTrue(map.replace(7, 71, 73));
+        assertFalse(map.remove(7, 71));
+        assertTrue(map.remove(7));
+        assertFalse(map.containsKey(7));
+        assertTrue(map.putIfAbsent(7, 74));
+        assertEquals(74, map.get(7));
+        assertEquals(1, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    /**
+     * 扩容前后数据完整，批量归约结果正确
+     */
+    @Test
+    public void intIntResizeAndReduce() {
+        ConcurrentIntIntMap map = new ConcurrentIntIntMap();
+        int n = 100_000;
+        for (int i = 0; i < n; i++)
+            map.put(i, i * 2);
+        for (int i = 0; i < n; i += 2)
+            assertTrue(map.remove(i));
+        assertEquals(n / 2, map.size());
+        for (int i = 1; i < n; i += 2)
+            assertEquals(i * 2, map.get(i));
+        long keys = map.reduceKeysToLong(1, k -> k, 0L, Long::sum);
+        long values = map.reduceValuesToLong(1, v -> v, 0L, Long::sum);
+        assertEquals(2 * keys, values);
+        assertEquals((long) (n / 2) * (n / 2), keys);
+    }
+
+    /**
+     * addAndGet 并发累加不丢失更新
+     */
+    @Test
+    public void intIntAddAndGet() throws InterruptedException {
+        ConcurrentIntIntMap map = new ConcurrentIntIntMap();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 64 * 1000; i++)
+                    map.addAndGet(i & 63, 1);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        for (int k = 0; k < 64; k++)
+            assertEquals(threads.length * 1000, map.get(k));
+        assertEquals(5, map.merge(100, 5, Integer::sum));
+        assertEquals(8, map.merge(100, 3, Integer::sum));
+    }
+
+    /**
+     * long 键：基本读写与 compute 系列方法
+     */
+    @Test
+    public void longObjectBasic() {
+        ConcurrentLongObjectMap<String> map = new ConcurrentLongObjectMap<>();
+        long big = Long.MIN_VALUE;
+        assertNull(map.put(big, "a"));
+        assertEquals("a", map.putIfAbsent(big, "b"));
+        assertEquals("a", map.get(big));
+        assertEquals("x", map.getOrDefault(1L, "x"));
+        assertEquals("c", map.computeIfAbsent(1L, k -> "c"));
+        assertEquals("cd", map.computeIfPresent(1L, (k, v) -> v + "d"));
+        assertNull(map.computeIfPresent(1L, (k, v) -> null));
+        assertFalse(map.containsKey(1L));
+        assertEquals("ae", map.merge(big, "e", String::concat));
+        assertTrue(map.containsValue("ae"));
+        assertFalse(map.remove(big, "a"));
+        assertTrue(map.replace(big, "ae", "f"));
+        assertEquals("f", map.remove(big));
+        assertTrue(map.isEmpty());
+        try {
+            map.put(2L, null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    /**
+     * 并发写入不同的键，批量遍历看到全部映射
+     */
+    @Test
+    public void longObjectConcurrent() throws InterruptedException {
+        ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<>(16, 8);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long base = (long) t << 40;
+            threads[t] = new Thread(() -> {
+                for (long i = 0; i < 20_000; i++)
+                    map.put(base + i, i);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        assertEquals(80_000L, map.mappingCount());
+        LongAdder count = new LongAdder();
+        map.forEach(1, (k, v) -> {
+            assertEquals(k & ((1L << 40) - 1), (long) v);
+            count.increment();
+        });
+        assertEquals(80_000L, count.sum());
+        assertEquals(4L * (20_000L * 19_999L / 2), map.reduceValuesToLong(1, Long::longValue, 0L, Long::sum));
+    }
+}
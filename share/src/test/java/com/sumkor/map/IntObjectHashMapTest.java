@@ -0,0 +1,81 @@
+package com.sumkor.map;
+
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.IntObjectHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.IntObjectHashMap
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class IntObjectHashMapTest {
+
+    /**
+     * 随机操作，结果与 HashMap<Integer, V> 一致，包括 0 键
+     */
+    @Test
+    public void sameAsHashMap() {
+        Random random = new Random(42);
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(0);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int n = 0; n < 200_000; n++) {
+            int k = random.nextInt(4) == 0 ? 0 : random.nextInt(3000) * 0x61C88647;
+            String v = Integer.toString(random.nextInt(10));
+            switch (random.nextInt(5)) {
+                case 0:
+                    assertEquals(expected.put(k, v), map.put(k, v));
+                    break;
+                case 1:
+                    assertEquals(expected.putIfAbsent(k, v), map.putIfAbsent(k, v));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(k), map.remove(k));
+                    break;
+                case 3:
+                    assertEquals(expected.merge(k, v, String::concat), map.merge(k, v, String::concat));
+                    break;
+                default:
+                    assertEquals(expected.get(k), map.get(k));
+                    assertEquals(expected.containsKey(k), map.containsKey(k));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Integer, String> actual = new HashMap<>();
+        map.forEach((v, k) -> actual.put(k, v));
+        assertEquals(expected, actual);
+        assertEquals(expected.keySet().stream().mapToLong(Integer::longValue).sum(),
+                map.keyStream().parallel().asLongStream().sum());
+        assertEquals(expected.size(), map.keys().length);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(map, map.clone());
+    }
+
+    /**
+     * computeIfAbsent 与 getOrDefault
+     */
+    @Test
+    public void compute() {
+        IntObjectHashMap<StringBuilder> map = new IntObjectHashMap<>();
+        for (int i = 0; i < 100; i++)
+            map.computeIfAbsent(i % 10, k -> new StringBuilder()).append(i % 10);
+        assertEquals(10, map.size());
+        assertEquals("0000000000", map.get(0).toString());
+        assertTrue(map.containsValue(map.get(3)));
+        assertEquals("none", map.getOrDefault(10, new StringBuilder("none")).toString());
+        try {
+            map.computeIfAbsent(11, k -> {
+                map.put(12, new StringBuilder());
+                return new StringBuilder();
+            });
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+    }
+}
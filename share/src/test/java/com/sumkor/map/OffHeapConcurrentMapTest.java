@@ -0,0 +1,111 @@
+package com.sumkor.map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.lang.management.OffHeapMapMXBean;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.OffHeapConcurrentMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.OffHeapConcurrentMap
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class OffHeapConcurrentMapTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * 基本读写，值的长度变化时重新分配存储
+     */
+    @Test
+    public void basic() throws IOException {
+        OffHeapConcurrentMap<String, String> map = new OffHeapConcurrentMap<>(
+                OffHeapConcurrentMap.stringCodec(), OffHeapConcurrentMap.stringCodec(), 1024, 2);
+        try {
+            assertNull(map.put("a", "1"));
+            assertEquals("1", map.put("a", "a much longer value than before"));
+            assertEquals("a much longer value than before", map.get("a"));
+            assertEquals("a much longer value than before", map.putIfAbsent("a", "x"));
+            assertTrue(map.replace("a", "a much longer value than before", "2"));
+            assertFalse(map.remove("a", "1"));
+            assertEquals("2", map.remove("a"));
+            assertFalse(map.containsKey("a"));
+            assertTrue(map.isEmpty());
+        } finally {
+            map.close();
+        }
+        try {
+            map.get("a");
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    /**
+     * 超出初始容量后扩容，遍历结果与 HashMap 一致
+     */
+    @Test
+    public void grow() throws IOException {
+        OffHeapConcurrentMap<Long, String> map = new OffHeapConcurrentMap<>(
+                OffHeapConcurrentMap.longCodec(), OffHeapConcurrentMap.stringCodec(), 0);
+        Map<Long, String> expected = new HashMap<>();
+        try {
+            for (long i = 0; i < 20_000; i++) {
+                map.put(i, "v" + i);
+                expected.put(i, "v" + i);
+            }
+            for (long i = 0; i < 20_000; i += 3) {
+                map.remove(i);
+                expected.remove(i);
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected, new HashMap<>(map));
+
+            OffHeapMapMXBean mbean = map.registerMXBean("OffHeapConcurrentMapTest");
+            assertSame(mbean, map.registerMXBean("OffHeapConcurrentMapTest"));
+            assertEquals(expected.size(), mbean.getSize());
+            assertFalse(mbean.isPersistent());
+            assertTrue(mbean.getMemoryUsed() > 0);
+            assertTrue(mbean.getMemoryUsed() <= mbean.getTotalCapacity());
+        } finally {
+            map.close();
+        }
+    }
+
+    /**
+     * 持久化：关闭后重新打开，数据仍在
+     */
+    @Test
+    public void persistent() throws IOException {
+        Path dir = folder.getRoot().toPath().resolve("map");
+        OffHeapConcurrentMap<Long, String> map = OffHeapConcurrentMap.open(dir,
+                OffHeapConcurrentMap.longCodec(), OffHeapConcurrentMap.stringCodec(), 4096, 4);
+        try {
+            for (long i = 0; i < 1000; i++)
+                map.put(i, Long.toHexString(i));
+            map.remove(0L);
+            map.force();
+        } finally {
+            map.close();
+        }
+
+        map = OffHeapConcurrentMap.open(dir,
+                OffHeapConcurrentMap.longCodec(), OffHeapConcurrentMap.stringCodec(), 4096, 4);
+        try {
+            assertEquals(999, map.size());
+            assertNull(map.get(0L));
+            assertEquals("3e7", map.get(999L));
+        } finally {
+            map.close();
+        }
+    }
+}
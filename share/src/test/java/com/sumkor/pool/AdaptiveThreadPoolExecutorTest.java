@@ -0,0 +1,117 @@
+package com.sumkor.pool;
+
+import org.junit.Test;
+
+import java.util.concurrent.AdaptiveThreadPoolExecutor;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.AdaptiveThreadPoolExecutor
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class AdaptiveThreadPoolExecutorTest {
+
+    /**
+     * 无界队列下任务积压，核心线程数应随排队延迟增长
+     */
+    @Test
+    public void growOnQueueDelay() throws InterruptedException {
+        AdaptiveThreadPoolExecutor pool = new AdaptiveThreadPoolExecutor(
+                1, 8, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        pool.setSampleInterval(50, TimeUnit.MILLISECONDS);
+        pool.setTargetQueueDelay(5, TimeUnit.MILLISECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        long maxDelay = 0;
+        while (System.nanoTime() < deadline && pool.getCorePoolSize() < 4) {
+            for (int i = 0; i < 4; i++) {
+                pool.execute(() -> sleep(5));
+            }
+            maxDelay = Math.max(maxDelay, pool.getAverageQueueDelay(TimeUnit.NANOSECONDS));
+            sleep(5);
+        }
+        System.out.println("pool = " + pool);
+        assertTrue(pool.getCorePoolSize() >= 4);
+        assertTrue(pool.getAdjustmentCount() > 0);
+        assertTrue(maxDelay > 0);
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 任务不做包装：优先级队列可用，拒绝策略拿到的是原始任务
+     */
+    @Test
+    public void tasksNotWrapped() throws InterruptedException {
+        AdaptiveThreadPoolExecutor pool = new AdaptiveThreadPoolExecutor(
+                1, 1, 60, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(new Prioritized(0, release));
+        Prioritized queued = new Prioritized(1, release);
+        pool.execute(queued);
+        assertSame(queued, pool.getQueue().peek());
+        assertTrue(pool.remove(queued));
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        AtomicReference<Runnable> rejected = new AtomicReference<>();
+        RejectedExecutionHandler handler = (r, executor) -> rejected.set(r);
+        AdaptiveThreadPoolExecutor bounded = new AdaptiveThreadPoolExecutor(
+                1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1), handler);
+        CountDownLatch block = new CountDownLatch(1);
+        bounded.execute(() -> await(block));
+        bounded.execute(() -> { });
+        Runnable third = () -> { };
+        bounded.execute(third);
+        assertSame(third, rejected.get());
+        block.countDown();
+        bounded.shutdown();
+        assertTrue(bounded.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    static class Prioritized implements Runnable, Comparable<Prioritized> {
+        final int priority;
+        final CountDownLatch latch;
+
+        Prioritized(int priority, CountDownLatch latch) {
+            this.priority = priority;
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            await(latch);
+        }
+
+        @Override
+        public int compareTo(Prioritized o) {
+            return Integer.compare(priority, o.priority);
+        }
+    }
+
+    static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
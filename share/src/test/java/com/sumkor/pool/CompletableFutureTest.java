@@ -3,6 +3,15 @@ package com.sumkor.pool;
 import org.junit.Test;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
 
 /**
  * 使用 CompletableFuture
@@ -198,4 +207,125 @@ public class CompletableFutureTest {
             e.printStackTrace();
         }
     }
+
+    /**
+     * 子类覆盖 defaultExecutor 与 newIncompleteFuture 后，派生出的每个阶段都是该子类，
+     * 未指定线程池的异步阶段都在其线程池中执行
+     */
+    @Test
+    public void defaultExecutor() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2, r -> new Thread(r, "rpc-pool"));
+        try {
+            PoolFuture<String> source = new PoolFuture<>(pool);
+            CompletableFuture<String> stage = source
+                    .thenApplyAsync(s -> s + ":" + Thread.currentThread().getName())
+                    .thenCombineAsync(CompletableFuture.completedFuture("x"),
+                            (s, x) -> s + ":" + Thread.currentThread().getName());
+            assertTrue(stage instanceof PoolFuture);
+            assertSame(pool, stage.defaultExecutor());
+            source.complete("a");
+            assertEquals("a:rpc-pool:rpc-pool", stage.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 源已异常完成时，异步阶段直接异常完成，不再提交到线程池
+     */
+    @Test
+    public void asyncOnFailedSource() {
+        AtomicInteger submitted = new AtomicInteger();
+        Executor executor = r -> {
+            submitted.incrementAndGet();
+            r.run();
+        };
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException());
+        CompletableFuture<?>[] stages = {
+                failed.thenApplyAsync(s -> s, executor),
+                failed.thenAcceptAsync(s -> {}, executor),
+                failed.thenRunAsync(() -> {}, executor),
+                failed.thenComposeAsync(CompletableFuture::completedFuture, executor)
+        };
+        for (CompletableFuture<?> stage : stages) {
+            assertTrue(stage.isCompletedExceptionally());
+            try {
+                stage.join();
+                fail();
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        assertEquals(0, submitted.get());
+        // 异常恢复类的阶段仍然提交到线程池
+        assertEquals("recovered", failed.handleAsync((s, e) -> "recovered", executor).join());
+        assertEquals(1, submitted.get());
+    }
+
+    /**
+     * 超时未完成时以 TimeoutException 异常完成，依赖阶段随之异常完成
+     */
+    @Test
+    public void orTimeout() {
+        long start = System.nanoTime();
+        CompletableFuture<String> future = new CompletableFuture<String>().orTimeout(50, TimeUnit.MILLISECONDS);
+        CompletableFuture<Integer> dependent = future.thenApply(String::length);
+        try {
+            dependent.join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    /**
+     * 超时前已完成时结果不受影响，超时项随完成一起移除
+     */
+    @Test
+    public void completeBeforeTimeout() throws Exception {
+        CompletableFuture<String> future = new CompletableFuture<String>()
+                .orTimeout(50, TimeUnit.MILLISECONDS)
+                .completeOnTimeout("late", 50, TimeUnit.MILLISECONDS);
+        assertEquals(2, future.getNumberOfDependents());
+        assertTrue(future.complete("done"));
+        assertEquals(0, future.getNumberOfDependents());
+        Thread.sleep(100);
+        assertEquals("done", future.join());
+
+        CompletableFuture<String> completed = CompletableFuture.completedFuture("done");
+        assertSame(completed, completed.orTimeout(0, TimeUnit.MILLISECONDS));
+        assertEquals(0, completed.getNumberOfDependents());
+    }
+
+    /**
+     * 超时未完成时以给定值正常完成
+     */
+    @Test
+    public void completeOnTimeout() {
+        CompletableFuture<String> future = new CompletableFuture<String>()
+                .completeOnTimeout("default", 20, TimeUnit.MILLISECONDS);
+        assertEquals("DEFAULT", future.thenApply(String::toUpperCase).join());
+        assertFalse(future.complete("late"));
+    }
+
+    static class PoolFuture<T> extends CompletableFuture<T> {
+        final Executor executor;
+
+        PoolFuture(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public Executor defaultExecutor() {
+            return executor;
+        }
+
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new PoolFuture<>(executor);
+        }
+    }
 }
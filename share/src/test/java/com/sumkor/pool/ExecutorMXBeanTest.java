@@ -0,0 +1,167 @@
+package com.sumkor.pool;
+
+import org.junit.Test;
+
+import java.lang.management.ExecutorMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.lang.management.ExecutorMXBean
+ * @see java.util.concurrent.ThreadPoolExecutor#registerMXBean(java.lang.String)
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class ExecutorMXBeanTest {
+
+    /**
+     * 任务被移出队列后再次提交，排队耗时应从再次提交时算起
+     */
+    @Test
+    public void submitDrainResubmit() throws InterruptedException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        ExecutorMXBean mxBean = pool.registerMXBean("submitDrainResubmit");
+        CountDownLatch block = new CountDownLatch(1);
+        pool.execute(() -> await(block));
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            int n = i;
+            Runnable task = () -> Integer.toString(n); // 每次创建不同的任务对象
+            tasks.add(task);
+            pool.execute(task);
+        }
+        assertEquals(4000, mxBean.getQueuedTaskCount());
+        Thread.sleep(600);
+
+        // 绕过线程池，直接从队列取出任务
+        List<Runnable> drained = new ArrayList<>();
+        pool.getQueue().drainTo(drained);
+        assertEquals(tasks, drained);
+        assertEquals(0, mxBean.getQueuedTaskCount());
+
+        for (Runnable task : drained) {
+            pool.execute(task);
+        }
+        block.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(4001, mxBean.getCompletedTaskCount());
+        assertTrue(sum(mxBean.getQueueWaitTimeHistogram()) > 0);
+        assertTrue(mxBean.getQueueWaitTimePercentile(100.0) < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    /**
+     * 同一个任务在排队期间被重复提交
+     */
+    @Test
+    public void resubmitWhileQueued() throws InterruptedException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        ExecutorMXBean mxBean = pool.registerMXBean("resubmitWhileQueued");
+        CountDownLatch block = new CountDownLatch(1);
+        pool.execute(() -> await(block));
+        Runnable task = () -> { }; // 同一个任务对象
+        for (int i = 0; i < 100; i++) {
+            pool.execute(task);
+        }
+        assertEquals(100, mxBean.getQueuedTaskCount());
+        block.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(101, mxBean.getCompletedTaskCount());
+        assertEquals(0, mxBean.getQueuedTaskCount());
+    }
+
+    /**
+     * 优先级队列：任务不做包装，remove 与 purge 都作用于原始任务
+     */
+    @Test
+    public void priorityQueue() throws InterruptedException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+        ExecutorMXBean mxBean = pool.registerMXBean("priorityQueue");
+        CountDownLatch block = new CountDownLatch(1);
+        pool.execute(new AdaptiveThreadPoolExecutorTest.Prioritized(0, block));
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 10; i > 0; i--) {
+            Runnable task = new AdaptiveThreadPoolExecutorTest.Prioritized(i, block);
+            tasks.add(task);
+            pool.execute(task);
+        }
+        assertEquals(10, mxBean.getQueuedTaskCount());
+        assertSame(tasks.get(9), pool.getQueue().peek());
+        assertTrue(pool.remove(tasks.get(0)));
+        assertEquals(9, mxBean.getQueuedTaskCount());
+
+        List<Runnable> left = pool.shutdownNow();
+        assertEquals(9, left.size());
+        assertTrue(tasks.containsAll(left));
+        assertEquals(0, mxBean.getQueuedTaskCount());
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 拒绝计数，拒绝策略拿到原始任务
+     */
+    @Test
+    public void rejected() throws InterruptedException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+        ExecutorMXBean mxBean = pool.registerMXBean("rejected");
+        CountDownLatch block = new CountDownLatch(1);
+        pool.execute(() -> await(block));
+        pool.execute(() -> { });
+        Runnable task = () -> { };
+        try {
+            pool.execute(task);
+            fail();
+        } catch (RejectedExecutionException expected) {
+            assertTrue(expected.getMessage().contains(task.toString()));
+        }
+        assertEquals(1, mxBean.getRejectedTaskCount());
+        block.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 定时任务的排队耗时从计划执行时间算起，每个任务都会记录
+     */
+    @Test
+    public void scheduled() throws Exception {
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1);
+        ExecutorMXBean mxBean = pool.registerMXBean("scheduled");
+        pool.schedule(() -> { }, 10, TimeUnit.MILLISECONDS).get();
+        pool.schedule(Executors.callable(() -> { }), 10, TimeUnit.MILLISECONDS).get();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, sum(mxBean.getQueueWaitTimeHistogram()));
+        assertEquals(2, mxBean.getCompletedTaskCount());
+    }
+
+    static long sum(long[] counts) {
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
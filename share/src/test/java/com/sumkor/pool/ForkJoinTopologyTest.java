@@ -0,0 +1,115 @@
+package com.sumkor.pool;
+
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.ForkJoinPool#isTopologyAware
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class ForkJoinTopologyTest {
+
+    static class Sum extends RecursiveTask<Long> {
+        final int lo, hi;
+
+        Sum(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Long compute() {
+            if (hi - lo <= 100) {
+                long s = 0;
+                for (int i = lo; i < hi; i++)
+                    s += i;
+                return s;
+            }
+            int mid = (lo + hi) >>> 1;
+            Sum left = new Sum(lo, mid);
+            left.fork();
+            return new Sum(mid, hi).compute() + left.join();
+        }
+    }
+
+    static final int N = 1 << 20;
+    static final long EXPECTED = (long) N * (N - 1) / 2;
+
+    /**
+     * 单节点机器上不启用拓扑感知，不统计节点内外的窃取
+     */
+    @Test
+    public void singleNode() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(4, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                null, false, true);
+        assertEquals(pool.getNodeCount() > 1, pool.isTopologyAware());
+        assertEquals(EXPECTED, (long) pool.invoke(new Sum(0, N)));
+        if (!pool.isTopologyAware()) {
+            assertEquals(0L, pool.getLocalStealCount());
+            assertEquals(0L, pool.getRemoteStealCount());
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 模拟两个节点：工作线程分布在两个节点上，窃取被统计为节点内或跨节点
+     */
+    @Test
+    public void twoNodes() throws Exception {
+        Set<Integer> nodes = ConcurrentHashMap.newKeySet();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                return ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            }
+
+            @Override
+            public void bindWorker(ForkJoinWorkerThread thread, int node, int[] cpus) {
+                nodes.add(node);
+            }
+        };
+        ForkJoinPool pool = new ForkJoinPool(4, factory, null, false, false);
+        fakeTopology(pool, new int[][]{{0, 1}, {2, 3}});
+        assertTrue(pool.isTopologyAware());
+        assertEquals(2, pool.getNodeCount());
+
+        for (int i = 0; i < 20; i++)
+            assertEquals(EXPECTED, (long) pool.invoke(new Sum(0, N)));
+        System.out.println("local = " + pool.getLocalStealCount() + ", remote = " + pool.getRemoteStealCount());
+        assertEquals(2, nodes.size());
+        assertTrue(pool.getLocalStealCount() + pool.getRemoteStealCount() > 0);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 在工作线程启动前替换拓扑信息
+     */
+    static void fakeTopology(ForkJoinPool pool, int[][] nodeCpus) throws Exception {
+        Class<?> c = Class.forName("java.util.concurrent.CpuTopology");
+        Constructor<?> ctor = c.getDeclaredConstructor(int[][].class);
+        ctor.setAccessible(true);
+        set(pool, "topology", ctor.newInstance((Object) nodeCpus));
+        set(pool, "localSteals", new LongAdder());
+        set(pool, "remoteSteals", new LongAdder());
+    }
+
+    static void set(ForkJoinPool pool, String name, Object value) throws Exception {
+        Field f = ForkJoinPool.class.getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(pool, value);
+    }
+}
@@ -0,0 +1,88 @@
+package com.sumkor.pool;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ManagedBlockingExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.ManagedBlockingExecutor
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class ManagedBlockingExecutorTest {
+
+    /**
+     * 只有一个载体线程，任务阻塞等待时由线程池补偿，另一个任务仍能执行
+     */
+    @Test
+    public void compensateLongPark() throws InterruptedException {
+        ManagedBlockingExecutor executor = new ManagedBlockingExecutor(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(release::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.getCompensatedBlockCount() >= 1);
+        assertEquals(0, executor.getBlockedCount());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 短暂的 park 不做补偿，不会唤醒或创建新线程
+     */
+    @Test
+    public void noCompensationForShortPark() throws InterruptedException {
+        ManagedBlockingExecutor executor = new ManagedBlockingExecutor(1);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> {
+            for (int i = 0; i < 1000; i++) {
+                LockSupport.parkNanos(1000L);
+            }
+            Thread self = Thread.currentThread();
+            LockSupport.unpark(self);
+            LockSupport.park(); // 已有许可，立即返回
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getCompensatedBlockCount());
+        assertEquals(1, executor.getPoolSize());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 超过补偿延迟的定时 park 仍按时返回
+     */
+    @Test
+    public void timedPark() throws InterruptedException {
+        ManagedBlockingExecutor executor = new ManagedBlockingExecutor(1);
+        long[] elapsed = new long[1];
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+            elapsed[0] = System.nanoTime() - start;
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsed[0] < TimeUnit.SECONDS.toNanos(1));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
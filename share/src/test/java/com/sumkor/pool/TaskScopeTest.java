@@ -0,0 +1,212 @@
+package com.sumkor.pool;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TaskScope;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.TaskScope
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class TaskScopeTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final ExecutorService threadPool = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+        threadPool.shutdownNow();
+    }
+
+    /**
+     * join 等待全部子任务完成，ForkJoinPool 与普通线程池均可
+     */
+    @Test
+    public void joinAll() throws Exception {
+        for (ExecutorService executor : new ExecutorService[]{pool, threadPool}) {
+            List<CompletableFuture<Integer>> results = new ArrayList<>();
+            try (TaskScope<Integer> scope = new TaskScope<>(executor)) {
+                for (int i = 0; i < 10; i++) {
+                    final int n = i;
+                    results.add(scope.fork(() -> n * n));
+                }
+                scope.join();
+            }
+            for (int i = 0; i < 10; i++)
+                assertEquals(Integer.valueOf(i * i), results.get(i).getNow(null));
+        }
+    }
+
+    /**
+     * 任一子任务失败时关闭作用域，中断仍在运行的子任务
+     */
+    @Test
+    public void shutdownOnFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CompletableFuture<Object> slow;
+        try (TaskScope.ShutdownOnFailure scope = new TaskScope.ShutdownOnFailure(threadPool)) {
+            slow = scope.fork(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                return null;
+            });
+            started.await();
+            scope.fork(() -> {
+                throw new IllegalStateException("boom");
+            });
+            scope.join();
+            assertTrue(scope.isShutdown());
+            assertTrue(scope.exception() instanceof IllegalStateException);
+            try {
+                scope.throwIfFailed();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        // close 返回时被中断的子任务已结束
+        assertTrue(slow.isCancelled());
+        assertTrue(interrupted.get());
+    }
+
+    /**
+     * 任一子任务成功时关闭作用域，取消其余子任务
+     */
+    @Test
+    public void shutdownOnSuccess() throws Exception {
+        CompletableFuture<String> slow;
+        try (TaskScope.ShutdownOnSuccess<String> scope = new TaskScope.ShutdownOnSuccess<>(pool)) {
+            scope.fork(() -> {
+                throw new IllegalStateException();
+            });
+            slow = scope.fork(() -> {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                return "slow";
+            });
+            scope.fork(() -> "fast");
+            assertEquals("fast", scope.join().result());
+        }
+        assertTrue(slow.isCancelled());
+    }
+
+    /**
+     * 全部失败时 result 抛出第一个异常
+     */
+    @Test
+    public void shutdownOnSuccessAllFailed() throws Exception {
+        try (TaskScope.ShutdownOnSuccess<String> scope = new TaskScope.ShutdownOnSuccess<>(pool)) {
+            scope.fork(() -> {
+                throw new IllegalStateException();
+            });
+            scope.join();
+            try {
+                scope.result();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    /**
+     * 超过截止时间时 join 关闭作用域并抛出 TimeoutException
+     */
+    @Test
+    public void deadline() throws Exception {
+        CompletableFuture<Object> slow;
+        try (TaskScope<Object> scope = new TaskScope<>(threadPool, 50, TimeUnit.MILLISECONDS)) {
+            slow = scope.fork(() -> {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                return null;
+            });
+            try {
+                scope.join();
+                fail();
+            } catch (TimeoutException expected) {
+            }
+            assertTrue(scope.isShutdown());
+        }
+        assertTrue(slow.isCancelled());
+    }
+
+    /**
+     * 子任务中创建的作用域继承外层更早的截止时间
+     */
+    @Test
+    public void deadlinePropagation() throws Exception {
+        assertNull(TaskScope.current());
+        try (TaskScope<Long> outer = new TaskScope<>(pool, 1, TimeUnit.SECONDS)) {
+            CompletableFuture<Long> remaining = outer.fork(() -> {
+                assertSame(outer, TaskScope.current());
+                try (TaskScope<Object> inner = new TaskScope<>(pool, 1, TimeUnit.HOURS)) {
+                    return inner.getRemainingTime(TimeUnit.MILLISECONDS);
+                }
+            });
+            outer.join();
+            assertTrue(remaining.get() <= 1000);
+        }
+        try (TaskScope<Object> scope = new TaskScope<>(pool)) {
+            assertEquals(Long.MAX_VALUE, scope.getRemainingTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    /**
+     * 关闭后 fork 的子任务不会执行；close 之后不允许 fork
+     */
+    @Test
+    public void forkAfterShutdown() {
+        AtomicBoolean ran = new AtomicBoolean();
+        TaskScope<Object> scope = new TaskScope<>(pool);
+        scope.shutdown();
+        CompletableFuture<Object> f = scope.fork(() -> ran.getAndSet(true));
+        assertTrue(f.isCancelled());
+        scope.close();
+        assertFalse(ran.get());
+        try {
+            scope.fork(() -> null);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    /**
+     * 线程池拒绝时，子任务以 RejectedExecutionException 异常完成
+     */
+    @Test
+    public void rejected() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        try (TaskScope<Object> scope = new TaskScope<>(executor)) {
+            CompletableFuture<Object> f = scope.fork(() -> null);
+            scope.join();
+            try {
+                f.join();
+                fail();
+            } catch (Exception e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        }
+    }
+}
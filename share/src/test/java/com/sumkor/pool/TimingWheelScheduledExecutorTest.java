@@ -0,0 +1,89 @@
+package com.sumkor.pool;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimingWheelScheduledExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.concurrent.TimingWheelScheduledExecutor
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class TimingWheelScheduledExecutorTest {
+
+    /**
+     * 延迟任务在到期后执行
+     */
+    @Test
+    public void schedule() throws Exception {
+        TimingWheelScheduledExecutor executor = new TimingWheelScheduledExecutor(2);
+        long start = System.nanoTime();
+        ScheduledFuture<Long> f = executor.schedule(System::nanoTime, 50, TimeUnit.MILLISECONDS);
+        assertTrue(f.get(5, TimeUnit.SECONDS) - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 关闭后取消周期任务，保留已提交的一次性任务
+     */
+    @Test
+    public void shutdownKeepsDelayedTasks() throws Exception {
+        TimingWheelScheduledExecutor executor = new TimingWheelScheduledExecutor(2);
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> periodic = executor.scheduleAtFixedRate(runs::incrementAndGet, 0, 10, TimeUnit.MILLISECONDS);
+        ScheduledFuture<String> delayed = executor.schedule(() -> "done", 100, TimeUnit.MILLISECONDS);
+        executor.shutdown();
+        assertTrue(periodic.isCancelled());
+        assertEquals("done", delayed.get(5, TimeUnit.SECONDS));
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        try {
+            executor.schedule(() -> { }, 0, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+
+    /**
+     * 提交与关闭并发：被接受的任务都会执行而不会被取消，其余的任务被拒绝，执行器最终终止
+     */
+    @Test
+    public void scheduleRacingShutdown() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            TimingWheelScheduledExecutor executor = new TimingWheelScheduledExecutor(2);
+            List<Future<?>> accepted = new CopyOnWriteArrayList<>();
+            AtomicInteger ran = new AtomicInteger();
+            CountDownLatch go = new CountDownLatch(1);
+            Thread[] submitters = new Thread[2];
+            for (int i = 0; i < submitters.length; i++) {
+                submitters[i] = new Thread(() -> {
+                    try {
+                        go.await();
+                        for (int j = 0; j < 50; j++)
+                            accepted.add(executor.schedule(ran::incrementAndGet, 0, TimeUnit.MILLISECONDS));
+                    } catch (RejectedExecutionException | InterruptedException expected) {
+                    }
+                });
+                submitters[i].start();
+            }
+            go.countDown();
+            executor.shutdown();
+            for (Thread t : submitters)
+                t.join();
+            assertTrue("round " + round, executor.awaitTermination(5, TimeUnit.SECONDS));
+            for (Future<?> f : accepted)
+                assertTrue("round " + round, f.isDone() && !f.isCancelled());
+            assertEquals("round " + round, accepted.size(), ran.get());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.sumkor.stream;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+/**
+ * 每线程分组的 groupingByConcurrentPerThread 与不装箱的 counting
+ *
+ * @see java.util.stream.Collectors#groupingByConcurrentPerThread
+ * @see java.util.stream.Collectors#counting
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class GroupingByConcurrentTest {
+
+    static {
+        // 在公共线程池初始化之前设置，使单核环境也有多个线程累加
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+    }
+
+    private static final int SIZE = 200_000;
+
+    private static Stream<Integer> source(boolean parallel, boolean unordered) {
+        Stream<Integer> s = IntStream.range(0, SIZE).boxed();
+        if (parallel)
+            s = s.parallel();
+        if (unordered)
+            s = s.unordered();
+        return s;
+    }
+
+    private static <D> void sameAsGroupingBy(Collector<Integer, ?, D> downstream) {
+        Function<Integer, Integer> classifier = i -> i % 1000;
+        Map<Integer, D> expected = source(false, false).collect(groupingBy(classifier, downstream));
+        for (boolean parallel : new boolean[]{false, true}) {
+            for (boolean unordered : new boolean[]{false, true}) {
+                ConcurrentMap<Integer, D> perThread = source(parallel, unordered)
+                        .collect(groupingByConcurrentPerThread(classifier, 1000, downstream));
+                assertEquals(expected, perThread);
+                ConcurrentMap<Integer, D> shared = source(parallel, unordered)
+                        .collect(groupingByConcurrent(classifier, downstream));
+                assertEquals(expected, shared);
+            }
+        }
+    }
+
+    /**
+     * 结果与 groupingBy 一致：计数、非并发容器、带 finisher 的下游收集器
+     */
+    @Test
+    public void perThread() {
+        sameAsGroupingBy(counting());
+        sameAsGroupingBy(summingLong(Integer::longValue));
+        sameAsGroupingBy(mapping(i -> i / 1000, toSet()));
+        sameAsGroupingBy(collectingAndThen(toList(), List::size));
+    }
+
+    /**
+     * 分组键为 null 时抛出 NullPointerException
+     */
+    @Test(expected = NullPointerException.class)
+    public void nullKey() {
+        Stream.of(1, 2, 3).parallel().collect(groupingByConcurrentPerThread(i -> i == 2 ? null : i, 4, counting()));
+    }
+
+    /**
+     * counting 结果仍为 Long
+     */
+    @Test
+    public void unboxedCounting() {
+        Long empty = Stream.empty().collect(Collectors.counting());
+        assertEquals(Long.valueOf(0), empty);
+        assertEquals(Long.valueOf(SIZE), source(true, false).collect(Collectors.counting()));
+        assertEquals(Long.valueOf(SIZE / 2), source(false, false).filter(i -> i % 2 == 0).collect(Collectors.counting()));
+        Map<Boolean, Long> parts = source(true, true).collect(partitioningBy(i -> i < 10, Collectors.counting()));
+        assertEquals(Long.valueOf(10), parts.get(true));
+        Set<Long> counts = source(true, false)
+                .collect(groupingByConcurrentPerThread(i -> i % 7, 7, Collectors.counting()))
+                .values().stream().collect(toSet());
+        assertTrue(counts.stream().allMatch(c -> c == SIZE / 7 || c == SIZE / 7 + 1));
+    }
+}
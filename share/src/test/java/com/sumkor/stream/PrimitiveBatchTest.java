@@ -0,0 +1,108 @@
+package com.sumkor.stream;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 基本类型流按批次推送元素，结果与逐个推送一致
+ * 长度取批次大小（1024）附近的值，覆盖整批、不满一批和空批
+ *
+ * @see java.util.stream.IntPipeline
+ * @see java.util.stream.LongPipeline
+ * @see java.util.stream.DoublePipeline
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class PrimitiveBatchTest {
+
+    private static final int[] SIZES = {0, 1, 1023, 1024, 1025, 3 * 1024 + 7, 100_000};
+
+    /**
+     * range 源经过 map、filter 后求和、计数、转数组
+     */
+    @Test
+    public void intRange() {
+        for (int n : SIZES) {
+            long sum = 0, count = 0;
+            int[] expected = new int[n];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                int v = i * 3;
+                if (v % 5 != 0) {
+                    sum += v;
+                    count++;
+                    expected[k++] = v;
+                }
+            }
+            expected = Arrays.copyOf(expected, k);
+            assertEquals(sum, IntStream.range(0, n).map(i -> i * 3).filter(v -> v % 5 != 0).asLongStream().sum());
+            assertEquals(count, IntStream.range(0, n).map(i -> i * 3).filter(v -> v % 5 != 0).count());
+            assertArrayEquals(expected, IntStream.range(0, n).map(i -> i * 3).filter(v -> v % 5 != 0).toArray());
+            assertArrayEquals(expected, IntStream.range(0, n).parallel().map(i -> i * 3).filter(v -> v % 5 != 0).toArray());
+            assertArrayEquals(IntStream.range(0, n).toArray(), IntStream.rangeClosed(0, n - 1).toArray());
+        }
+    }
+
+    /**
+     * long range 在 Long.MAX_VALUE 边界与大跨度下的批次划分
+     */
+    @Test
+    public void longRange() {
+        assertArrayEquals(new long[]{Long.MAX_VALUE - 2, Long.MAX_VALUE - 1, Long.MAX_VALUE},
+                LongStream.rangeClosed(Long.MAX_VALUE - 2, Long.MAX_VALUE).toArray());
+        assertEquals(3, LongStream.rangeClosed(Long.MIN_VALUE, Long.MIN_VALUE + 2).map(v -> v + 1).count());
+        for (int n : SIZES) {
+            long sum = 0;
+            for (long i = 0; i < n; i++)
+                if ((i & 1) == 0)
+                    sum += i * i;
+            assertEquals(sum, LongStream.range(0, n).filter(v -> (v & 1) == 0).map(v -> v * v).sum());
+            assertEquals(n, LongStream.range(0, n).mapToInt(v -> (int) v).asDoubleStream().count());
+        }
+    }
+
+    /**
+     * sorted 与 builder 的缓冲结果按批次推送
+     */
+    @Test
+    public void buffered() {
+        Random random = new Random(42);
+        for (int n : SIZES) {
+            double[] values = random.doubles(n).toArray();
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            DoubleStream.Builder builder = DoubleStream.builder();
+            for (double v : values)
+                builder.add(v);
+            double[] mapped = Arrays.stream(sorted).map(v -> v * 2).toArray();
+            assertArrayEquals(mapped, builder.build().sorted().map(v -> v * 2).toArray(), 0.0);
+            assertEquals(Arrays.stream(sorted).filter(v -> v > 0.5).count(),
+                    DoubleStream.of(values).sorted().filter(v -> v > 0.5).count());
+
+            int[] ints = random.ints(n, -100, 100).toArray();
+            int[] expected = ints.clone();
+            Arrays.sort(expected);
+            assertArrayEquals(expected, IntStream.of(ints).boxed().mapToInt(Integer::intValue).sorted().toArray());
+            assertEquals(Arrays.stream(ints).asLongStream().sum(), IntStream.of(ints).sorted().asLongStream().reduce(0, Long::sum));
+        }
+    }
+
+    /**
+     * 短路操作不使用批次，仍在取到足够元素后停止
+     */
+    @Test
+    public void shortCircuit() {
+        int[] seen = new int[1];
+        assertArrayEquals(new int[]{0, 2, 4}, IntStream.range(0, 100_000).peek(i -> seen[0]++).filter(i -> i % 2 == 0).limit(3).toArray());
+        assertTrue(seen[0] < 1024);
+        assertEquals(2047, IntStream.range(0, 100_000).filter(i -> i > 2046).findFirst().getAsInt());
+    }
+}
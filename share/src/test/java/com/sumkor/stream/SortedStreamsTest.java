@@ -0,0 +1,135 @@
+package com.sumkor.stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.SortedStreams;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see java.util.stream.SortedStreams
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class SortedStreamsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static final SortedStreams.Serializer<Integer> INTS = new SortedStreams.Serializer<Integer>() {
+        @Override
+        public void write(Integer t, DataOutput out) throws IOException {
+            out.writeInt(t);
+        }
+
+        @Override
+        public Integer read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    /**
+     * 元素个数恰好等于 runSize 时，整个流放在内存中，不写临时文件
+     */
+    @Test
+    public void exactRunSize() {
+        AtomicInteger writes = new AtomicInteger();
+        SortedStreams.Serializer<Integer> counting = new SortedStreams.Serializer<Integer>() {
+            @Override
+            public void write(Integer t, DataOutput out) throws IOException {
+                writes.incrementAndGet();
+                INTS.write(t, out);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return INTS.read(in);
+            }
+        };
+        try (Stream<Integer> s = SortedStreams.externalSort(
+                IntStream.range(0, 100).map(i -> 99 - i).boxed(),
+                Comparator.naturalOrder(), counting, 100, folder.getRoot().toPath())) {
+            assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toList()),
+                    s.collect(Collectors.toList()));
+        }
+        assertEquals(0, writes.get());
+
+        try (Stream<Integer> s = SortedStreams.externalSort(
+                IntStream.range(0, 101).map(i -> 100 - i).boxed(),
+                Comparator.naturalOrder(), counting, 100, folder.getRoot().toPath())) {
+            assertEquals(IntStream.range(0, 101).boxed().collect(Collectors.toList()),
+                    s.collect(Collectors.toList()));
+        }
+        assertEquals(100, writes.get());
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    /**
+     * 多个 run 的外部排序结果与内存排序一致，且排序稳定
+     */
+    @Test
+    public void stableAcrossRuns() throws IOException {
+        Random random = new Random(42);
+        List<Integer> input = IntStream.range(0, 5000).map(i -> random.nextInt(1000) * 10_000 + i)
+                .boxed().collect(Collectors.toList());
+        Comparator<Integer> byKey = Comparator.comparingInt(i -> i / 10_000);
+        List<Integer> expected = input.stream().sorted(byKey).collect(Collectors.toList());
+        for (int runSize : new int[]{1, 7, 100, 4999, 5000, 5001}) {
+            try (Stream<Integer> s = SortedStreams.externalSort(input.stream(), byKey, INTS, runSize,
+                    folder.getRoot().toPath())) {
+                assertEquals("runSize " + runSize, expected, s.collect(Collectors.toList()));
+            }
+        }
+    }
+
+    /**
+     * 排序失败后，再次遍历抛出同一个异常，而不是只排序剩余的元素
+     */
+    @Test
+    public void failureRethrown() {
+        IllegalStateException boom = new IllegalStateException("boom");
+        Stream<Integer> source = IntStream.range(0, 100).boxed().map(i -> {
+            if (i == 50)
+                throw boom;
+            return i;
+        });
+        Spliterator<Integer> split = SortedStreams.externalSort(source, Comparator.naturalOrder(), INTS, 10)
+                .spliterator();
+        for (int i = 0; i < 2; i++) {
+            try {
+                split.tryAdvance(x -> fail());
+                fail();
+            } catch (IllegalStateException e) {
+                assertSame(boom, e);
+            }
+        }
+    }
+
+    /**
+     * 合并多个有序流，相等元素按流的顺序输出
+     */
+    @Test
+    public void mergeSorted() {
+        Comparator<String> byLength = Comparator.comparingInt(String::length);
+        List<String> merged = SortedStreams.mergeSorted(byLength,
+                Stream.of("a", "bb", "dddd"),
+                Stream.of("x", "yyy"),
+                Stream.empty())
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("a", "x", "bb", "yyy", "dddd"), merged);
+    }
+}
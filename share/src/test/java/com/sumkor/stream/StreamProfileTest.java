@@ -0,0 +1,129 @@
+package com.sumkor.stream;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 开启 -Dorg.openjdk.java.util.stream.profile=true 后，每次终端操作的统计可通过 StreamProfile.last() 获取
+ *
+ * @see java.util.stream.StreamProfile
+ * @author Sumkor
+ * @since 2026/10/17
+ */
+public class StreamProfileTest {
+
+    private static Class<?> profileClass;
+
+    @BeforeClass
+    public static void enable() throws Exception {
+        System.setProperty("org.openjdk.java.util.stream.profile", "true");
+        profileClass = Class.forName("java.util.stream.StreamProfile");
+        Field enabled = profileClass.getDeclaredField("ENABLED");
+        enabled.setAccessible(true);
+        Assume.assumeTrue("streams were used before the property was set", enabled.getBoolean(null));
+    }
+
+    /**
+     * 串行流：每个阶段接收的元素个数，没有并行叶子任务
+     */
+    @Test
+    public void sequential() throws Exception {
+        List<Integer> result = IntStream.range(0, 1000).boxed()
+                .filter(i -> i % 2 == 0)
+                .map(i -> i * 3)
+                .collect(Collectors.toList());
+        assertEquals(500, result.size());
+
+        Object profile = last();
+        assertFalse((Boolean) call(profile, "isParallel"));
+        assertTrue((Long) call(profile, "elapsedNanos") >= 0L);
+        assertEquals(Arrays.asList("range", "boxed", "filter", "map", "collect"), stageNames(profile));
+        assertEquals(1000L, elements(profile, 1)); // boxed
+        assertEquals(1000L, elements(profile, 2)); // filter
+        assertEquals(500L, elements(profile, 3));  // map
+        assertEquals(500L, elements(profile, 4));  // collect
+        assertEquals(0, leaves(profile).length);
+    }
+
+    /**
+     * 并行流：阶段计数与串行相同，并记录每个叶子任务的深度与大小
+     */
+    @Test
+    public void parallel() throws Exception {
+        long sum = IntStream.range(0, 100_000).parallel()
+                .map(i -> i & 7)
+                .asLongStream()
+                .sum();
+        assertEquals(350_000L, sum);
+
+        Object profile = last();
+        assertTrue((Boolean) call(profile, "isParallel"));
+        assertEquals(100_000L, elements(profile, 1)); // map
+        assertEquals(100_000L, elements(profile, 2)); // asLongStream
+        assertEquals(100_000L, elements(profile, 3)); // sum
+
+        long[][] leaves = leaves(profile);
+        assertTrue(leaves.length > 0);
+        long size = 0;
+        for (long[] leaf : leaves) {
+            assertEquals(3, leaf.length);
+            assertTrue(leaf[0] >= 0);
+            size += leaf[1];
+        }
+        assertEquals(100_000L, size);
+    }
+
+    /**
+     * 每次求值都会替换上一次的统计
+     */
+    @Test
+    public void perEvaluation() throws Exception {
+        IntStream.range(0, 10).sum();
+        Object first = last();
+        IntStream.range(0, 20).count();
+        Object second = last();
+        assertNotSame(first, second);
+        assertEquals(10L, elements(first, 1));
+        assertEquals(20L, elements(second, 1));
+    }
+
+    private static Object last() throws Exception {
+        Object profile = call(null, "last");
+        assertNotNull(profile);
+        return profile;
+    }
+
+    private static List<String> stageNames(Object profile) throws Exception {
+        int n = (Integer) call(profile, "stageCount");
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++)
+            names[i] = (String) call(profile, "stageName", i);
+        return Arrays.asList(names);
+    }
+
+    private static long elements(Object profile, int position) throws Exception {
+        return (Long) call(profile, "elements", position);
+    }
+
+    private static long[][] leaves(Object profile) throws Exception {
+        return (long[][]) call(profile, "leaves");
+    }
+
+    private static Object call(Object profile, String name, Object... args) throws Exception {
+        Class<?>[] types = new Class<?>[args.length];
+        Arrays.fill(types, int.class);
+        Method m = profileClass.getDeclaredMethod(name, types);
+        m.setAccessible(true);
+        return m.invoke(profile, args);
+    }
+}